@@ -0,0 +1,62 @@
+package at.hollndonner.studentordersapp.dto;
+
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a {@code GET /orders} page as the controller returns it, at the default page size
+ * and at a large page of a thousand orders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "1000"})
+    private int size;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private Page<OrderResponse> page;
+
+    @Setup
+    public void setUp() {
+        Instant createdAt = Instant.parse("2025-03-14T09:26:53.123456Z");
+        List<OrderResponse> orders = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            orders.add(new OrderResponse((long) i + 1, (long) i % 50 + 1, BigDecimal.valueOf(1000 + i * 37L, 2),
+                    createdAt.minusSeconds(i * 60L), i % 3 == 0 ? OrderStatus.pending : OrderStatus.paid));
+        }
+        PageRequest pageable = PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt"));
+        page = new PageImpl<>(orders, pageable, 25_000);
+    }
+
+    @Benchmark
+    public byte[] serializePage() {
+        return jsonMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,63 @@
+package at.hollndonner.studentordersapp.dto;
+
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.dto.student.StudentResponse;
+import at.hollndonner.studentordersapp.model.Order;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import at.hollndonner.studentordersapp.model.Student;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to response mapping, which every read endpoint does once per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    private Student student;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        student = Student.builder()
+                .id(42L)
+                .name("Maria Gruber")
+                .grade("10th Grade")
+                .school("Springfield High School")
+                .build();
+        order = Order.builder()
+                .id(4711L)
+                .student(student)
+                .total(new BigDecimal("25.50"))
+                .status(OrderStatus.paid)
+                .createdAt(Instant.parse("2025-03-14T09:26:53Z"))
+                .build();
+    }
+
+    @Benchmark
+    public OrderResponse orderFromEntity() {
+        return OrderResponse.fromEntity(order);
+    }
+
+    @Benchmark
+    public StudentResponse studentFromEntity() {
+        return StudentResponse.fromEntity(student);
+    }
+}
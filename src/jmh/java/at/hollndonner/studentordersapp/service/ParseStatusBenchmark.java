@@ -0,0 +1,49 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderServiceImpl#parseStatus} for valid statuses and for the rejected ones a client can send in bulk.
+ * The error logged for a rejected status is switched off, so only parsing and the exceptions are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseStatusBenchmark {
+
+    @Param({"paid", "pending", "PAID", "shipped"})
+    private String status;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(OrderServiceImpl.class)).setLevel(Level.OFF);
+    }
+
+    @Benchmark
+    public OrderStatus parseStatus() {
+        try {
+            return OrderServiceImpl.parseStatus(status);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package at.hollndonner.studentordersapp.util;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InputSanitizer#sanitizeText} on the short names, grades and schools every write carries, and on inputs
+ * built to make escaping expensive: markup, nothing but escapable characters, and long non-ASCII text.
+ * {@code commonsTextEscapeHtml4} is the same work done with the commons-text escaper it replaced, for reference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputSanitizerBenchmark {
+
+    @Param({"name", "school", "padded", "markup", "escapable", "umlauts"})
+    private String input;
+
+    private final InputSanitizer sanitizer = new InputSanitizer();
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = switch (input) {
+            case "name" -> "Maria Gruber";
+            case "school" -> "Springfield High School";
+            case "padded" -> "   " + "Riverside Academy" + "   ";
+            case "markup" -> "<script>alert('x')</script><img src=x onerror=\"alert(1)\">".repeat(16);
+            case "escapable" -> "<>&\"".repeat(250);
+            case "umlauts" -> "Jürgen Müller-Größinger aus Österreich ".repeat(25);
+            default -> throw new IllegalArgumentException(input);
+        };
+    }
+
+    @Benchmark
+    public String sanitizeText() {
+        return sanitizer.sanitizeText(text);
+    }
+
+    @Benchmark
+    public String commonsTextEscapeHtml4() {
+        return StringEscapeUtils.escapeHtml4(text.trim());
+    }
+}
@@ -0,0 +1,42 @@
+package at.hollndonner.studentordersapp.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Structured access log on the {@code access} logger, written off the request thread. The controllers only
+ * log at debug level, so this is the one line per request at the default levels.
+ */
+@Configuration
+@ConditionalOnProperty(name = "access-log.enabled", havingValue = "true", matchIfMissing = true)
+public class AccessLogConfig {
+
+    @Bean
+    public AccessLogWriter accessLogWriter(@Value("${access-log.buffer-size:8192}") int bufferSize,
+                                           @Value("${access-log.flush-interval-ms:100}") long flushIntervalMillis,
+                                           MeterRegistry meterRegistry) {
+        AccessLogWriter writer = new AccessLogWriter(bufferSize, flushIntervalMillis);
+        FunctionCounter.builder("access.log.dropped", writer, AccessLogWriter::dropped)
+                .description("Access log entries dropped because the buffer was full")
+                .register(meterRegistry);
+        return writer;
+    }
+
+    @Bean
+    public FilterRegistrationBean<AccessLogFilter> accessLogFilter(
+            AccessLogWriter accessLogWriter,
+            @Value("${access-log.sample-rate:0.1}") double sampleRate,
+            @Value("${access-log.slow-threshold-ms:500}") long slowThresholdMillis) {
+        FilterRegistrationBean<AccessLogFilter> registration =
+                new FilterRegistrationBean<>(new AccessLogFilter(accessLogWriter, sampleRate, slowThresholdMillis));
+        // Just inside the query stats filter, to report its counts
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
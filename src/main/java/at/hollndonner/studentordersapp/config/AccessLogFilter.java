@@ -0,0 +1,60 @@
+package at.hollndonner.studentordersapp.config;
+
+import at.hollndonner.studentordersapp.util.QueryStats;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records one access log entry per request and hands it to the {@link AccessLogWriter}. Errors, writes and
+ * slow requests are always recorded; successful reads only at the sample rate. For async requests such as the
+ * export the entry covers the request thread's part, up to the point the response starts streaming.
+ */
+class AccessLogFilter extends OncePerRequestFilter {
+
+    private final AccessLogWriter writer;
+    private final double sampleRate;
+    private final long slowNanos;
+
+    AccessLogFilter(AccessLogWriter writer, double sampleRate, long slowThresholdMillis) {
+        this.writer = writer;
+        this.sampleRate = sampleRate;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            // An exception that escaped the chain is answered by the container with a 500
+            int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+            boolean always = status >= 400 || elapsed >= slowNanos || !isRead(request.getMethod());
+            if (always || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                // Inside the query stats filter, so its scope for this request is still open
+                QueryStats stats = QueryStats.current();
+                writer.submit(new AccessLogWriter.Entry(System.currentTimeMillis(), request.getMethod(),
+                        request.getRequestURI(), status, elapsed,
+                        stats == null ? -1 : stats.statements(),
+                        stats == null ? -1 : stats.rows(),
+                        stats == null ? 0 : stats.millis(),
+                        !always));
+            }
+        }
+    }
+
+    private static boolean isRead(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+}
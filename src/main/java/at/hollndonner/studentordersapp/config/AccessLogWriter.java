@@ -0,0 +1,142 @@
+package at.hollndonner.studentordersapp.config;
+
+import at.hollndonner.studentordersapp.util.RingBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Takes access log entries from request threads through a {@link RingBuffer} and writes them to the
+ * {@code access} logger from one background thread, so formatting and console output stay off the request.
+ * The thread drains in batches and sleeps for the flush interval when the buffer is empty; request threads
+ * never wake it. Entries that don't fit are dropped and counted.
+ */
+@Slf4j
+class AccessLogWriter implements SmartLifecycle {
+
+    private static final Logger ACCESS = LoggerFactory.getLogger("access");
+    private static final int BATCH_SIZE = 512;
+
+    private final RingBuffer<Entry> buffer;
+    private final long flushIntervalNanos;
+    private final LongAdder dropped = new LongAdder();
+    private long droppedReported;
+    private volatile boolean running;
+    private Thread thread;
+
+    AccessLogWriter(int bufferSize, long flushIntervalMillis) {
+        this.buffer = new RingBuffer<>(bufferSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    }
+
+    /**
+     * One request as the filter saw it. Formatting is left to the writer thread.
+     */
+    record Entry(long epochMillis, String method, String path, int status, long durationNanos,
+                 long statements, long rows, double dbMillis, boolean sampled) {
+
+        String format() {
+            StringBuilder line = new StringBuilder(160)
+                    .append("ts=").append(Instant.ofEpochMilli(epochMillis))
+                    .append(" method=").append(method)
+                    .append(" path=").append(path)
+                    .append(" status=").append(status)
+                    .append(" ms=").append(String.format(Locale.ROOT, "%.1f", durationNanos / 1e6));
+            if (statements >= 0) {
+                line.append(" db_statements=").append(statements)
+                        .append(" db_rows=").append(rows)
+                        .append(" db_ms=").append(String.format(Locale.ROOT, "%.1f", dbMillis));
+            }
+            if (sampled) {
+                line.append(" sampled=true");
+            }
+            return line.toString();
+        }
+    }
+
+    /**
+     * Queues {@code entry} without blocking; returns {@code false} and counts a drop if the buffer is full.
+     */
+    boolean submit(Entry entry) {
+        if (buffer.offer(entry)) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    int drainTo(Consumer<Entry> sink) {
+        return buffer.drainTo(sink, BATCH_SIZE);
+    }
+
+    private void run() {
+        while (true) {
+            // Read before draining, so whatever was queued before stop() is still written
+            boolean stopping = !running;
+            if (drainTo(this::write) == 0) {
+                reportDrops();
+                if (stopping) {
+                    return;
+                }
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        if (ACCESS.isInfoEnabled()) {
+            ACCESS.info(entry.format());
+        }
+    }
+
+    private void reportDrops() {
+        long total = dropped.sum();
+        if (total > droppedReported) {
+            log.warn("Access log buffer of {} entries was full, dropped {} entries", buffer.capacity(),
+                    total - droppedReported);
+            droppedReported = total;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "access-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Started before and stopped after the web server, so the last requests are still written
+        return 0;
+    }
+}
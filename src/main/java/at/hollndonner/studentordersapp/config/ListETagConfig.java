@@ -0,0 +1,30 @@
+package at.hollndonner.studentordersapp.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * Strong ETags for the list endpoints, hashed from the rendered page.
+ * Single resources tag themselves from their {@code @Version} in the controllers instead.
+ */
+@Configuration
+public class ListETagConfig {
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> listETagFilter() {
+        // A list has no single version to compare, and keeping a table-wide one would make every
+        // write contend on the same row, so the page is still queried but an unchanged one goes out as a bodiless 304
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        // Exact paths only: the export must keep streaming instead of being buffered for hashing
+        registration.addUrlPatterns(
+                "/api/v1/orders",
+                "/api/v1/orders/slice",
+                "/api/v1/orders/scroll",
+                "/api/v1/students",
+                "/api/v1/students/slice");
+        return registration;
+    }
+}
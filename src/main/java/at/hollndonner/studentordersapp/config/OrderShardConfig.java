@@ -0,0 +1,100 @@
+package at.hollndonner.studentordersapp.config;
+
+import at.hollndonner.studentordersapp.util.ShardedDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Orders spread over several databases, once {@code orders.shards.urls} lists any besides the main one.
+ * The application's data source becomes a {@link ShardedDataSource} with the main data source, read replicas
+ * included, as shard 0 and one pool per listed URL after it, named {@code shard-1}, {@code shard-2}, ... in the
+ * pool metrics. {@link at.hollndonner.studentordersapp.repository.OrderShards} decides which shard a query runs on.
+ * <p>
+ * With {@code spring.sql.init.mode=always} the extra shards get {@code schema-shard.sql}: only {@code orders}
+ * and {@code order_summary}, without foreign keys to the students they no longer sit next to.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnExpression("!'${orders.shards.urls:}'.isBlank()")
+public class OrderShardConfig {
+
+    @Bean
+    public static BeanPostProcessor shardedDataSourcePostProcessor(Environment environment,
+                                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ShardingPostProcessor(environment, meterRegistry);
+    }
+
+    /**
+     * Ordered, so it wraps the plain data source before any unordered post-processor, such as query counting,
+     * wraps the result and so sees the statements of every shard.
+     */
+    private static final class ShardingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+
+        private ShardingPostProcessor(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+            this.environment = environment;
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!"dataSource".equals(beanName) || !(bean instanceof DataSource main)
+                    || bean instanceof ShardedDataSource) {
+                return bean;
+            }
+            List<DataSource> shards = new ArrayList<>();
+            shards.add(main);
+            String urls = environment.getRequiredProperty("orders.shards.urls");
+            for (String url : Arrays.stream(urls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList()) {
+                shards.add(shard(shards.size(), url));
+            }
+            log.info("Sharding orders over {} databases", shards.size());
+            return new ShardedDataSource(shards);
+        }
+
+        private HikariDataSource shard(int index, String url) {
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("shard-" + index);
+            shard.setJdbcUrl(url);
+            String driver = environment.getProperty("spring.datasource.driver-class-name", "");
+            if (!driver.isBlank()) {
+                shard.setDriverClassName(driver);
+            }
+            shard.setUsername(environment.getProperty("orders.shards.username",
+                    environment.getProperty("spring.datasource.username", "")));
+            shard.setPassword(environment.getProperty("orders.shards.password",
+                    environment.getProperty("spring.datasource.password", "")));
+            shard.setMaximumPoolSize(environment.getProperty("orders.shards.pool-size", Integer.class, 10));
+            shard.setConnectionTimeout(environment.getProperty("orders.shards.connection-timeout-ms", Long.class, 30000L));
+            meterRegistry.ifAvailable(registry -> shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            if ("always".equalsIgnoreCase(environment.getProperty("spring.sql.init.mode", "embedded"))) {
+                DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("schema-shard.sql")), shard);
+            }
+            return shard;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
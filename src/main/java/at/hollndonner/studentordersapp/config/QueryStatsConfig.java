@@ -0,0 +1,45 @@
+package at.hollndonner.studentordersapp.config;
+
+import at.hollndonner.studentordersapp.util.CountingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Per-request JDBC statement, row and time counts: the data source is wrapped so every statement reports
+ * to the thread's {@link at.hollndonner.studentordersapp.util.QueryStats}, and a filter opens one scope per
+ * request. Tests import this configuration to assert statement budgets.
+ */
+@Configuration
+@ConditionalOnProperty(name = "db.query-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryStatsConfig {
+
+    @Bean
+    public static BeanPostProcessor countingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)) {
+                    return new CountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryStatsFilter> queryStatsFilter(
+            @Value("${db.query-stats.warn-statements:50}") long warnStatements) {
+        FilterRegistrationBean<QueryStatsFilter> registration =
+                new FilterRegistrationBean<>(new QueryStatsFilter(warnStatements));
+        // Outside the ETag filter, so the header is added when the buffered page is finally copied out
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,99 @@
+package at.hollndonner.studentordersapp.config;
+
+import at.hollndonner.studentordersapp.util.QueryStats;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Counts the JDBC work of each request, reports it as a {@code Server-Timing} header and logs it.
+ * The header has to go out with the first byte of the body, so it carries what was done up to then;
+ * the log line after the request carries the final numbers.
+ */
+@Slf4j
+class QueryStatsFilter extends OncePerRequestFilter {
+
+    static final String SERVER_TIMING = "Server-Timing";
+
+    private final long warnStatements;
+
+    QueryStatsFilter(long warnStatements) {
+        this.warnStatements = warnStatements;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        TimingResponse timed = new TimingResponse(response);
+        QueryStats stats = QueryStats.start();
+        timed.stats = stats;
+        try {
+            chain.doFilter(request, timed);
+        } finally {
+            stats.close();
+            // Bodiless responses (204, 304) never asked for a stream
+            timed.addServerTiming();
+            if (stats.statements() > warnStatements) {
+                log.warn("{} {} issued {} - more than {} statements, possible N+1",
+                        request.getMethod(), request.getRequestURI(), stats, warnStatements);
+            } else {
+                log.debug("{} {} issued {}", request.getMethod(), request.getRequestURI(), stats);
+            }
+        }
+    }
+
+    private static final class TimingResponse extends HttpServletResponseWrapper {
+
+        private QueryStats stats;
+        private boolean added;
+
+        private TimingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        private void addServerTiming() {
+            if (!added && !isCommitted()) {
+                added = true;
+                addHeader(SERVER_TIMING, stats.toServerTiming());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package at.hollndonner.studentordersapp.config;
+
+import at.hollndonner.studentordersapp.util.ReadWriteDataSource;
+import at.hollndonner.studentordersapp.util.ReplicaDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only transactions on read replicas, once {@code db.replicas.urls} lists any. The primary is built from
+ * the usual {@code spring.datasource.*} properties, so without replicas Spring Boot's own data source is used
+ * unchanged. Replica pools are named {@code replica-1}, {@code replica-2}, ... in the pool metrics.
+ */
+@Configuration
+@ConditionalOnExpression("!'${db.replicas.urls:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Bean
+    public ReadWriteDataSource dataSource(DataSourceProperties properties,
+                                          Environment environment,
+                                          ObjectProvider<MeterRegistry> meterRegistry,
+                                          @Value("${db.replicas.urls}") String urls,
+                                          @Value("${db.replicas.username:${spring.datasource.username:}}") String username,
+                                          @Value("${db.replicas.password:${spring.datasource.password:}}") String password,
+                                          @Value("${db.replicas.pool-size:10}") int poolSize,
+                                          @Value("${db.replicas.connection-timeout-ms:1000}") long connectionTimeoutMillis,
+                                          @Value("${db.replicas.selection:round-robin}") ReplicaDataSource.Selection selection,
+                                          @Value("${db.replicas.retry-after-ms:10000}") long retryAfterMillis) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : Arrays.stream(urls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList()) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setJdbcUrl(url);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(poolSize);
+            // A replica that is down must fail fast so the read falls back to the primary, at startup as well
+            replica.setConnectionTimeout(connectionTimeoutMillis);
+            replica.setInitializationFailTimeout(-1);
+            replica.setReadOnly(true);
+            meterRegistry.ifAvailable(registry ->
+                    replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(replica);
+        }
+        return new ReadWriteDataSource(primary,
+                new ReplicaDataSource(primary, replicas, selection, retryAfterMillis));
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${db.replicas.read-your-writes-window:5s}") Duration window) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(window));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        registration.setEnabled(!window.isZero());
+        return registration;
+    }
+}
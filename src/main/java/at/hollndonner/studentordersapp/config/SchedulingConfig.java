@@ -0,0 +1,12 @@
+package at.hollndonner.studentordersapp.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs background jobs such as the revenue rollup refresh on Spring's single-threaded scheduler.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
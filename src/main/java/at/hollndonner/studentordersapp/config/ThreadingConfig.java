@@ -0,0 +1,30 @@
+package at.hollndonner.studentordersapp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+/**
+ * {@code spring.threads.virtual.enabled} moves Tomcat's request handling, the scheduler and async MVC onto
+ * virtual threads, so a request blocked on JDBC no longer holds a platform thread. Spring Boot ignores the
+ * property on runtimes older than Java 21, so this only reports which mode actually took effect.
+ */
+@Slf4j
+@Configuration
+public class ThreadingConfig {
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logThreadingMode(ApplicationReadyEvent event) {
+        Environment environment = event.getApplicationContext().getEnvironment();
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Handling requests on virtual threads");
+        } else if (requested) {
+            log.warn("Virtual threads need Java 21 or newer, running on Java {}; handling requests on platform threads",
+                    Runtime.version().feature());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package at.hollndonner.studentordersapp.controller;
+
+import at.hollndonner.studentordersapp.dto.analytics.OrderAggregateRequest;
+import at.hollndonner.studentordersapp.dto.analytics.OrderAggregateResponse;
+import at.hollndonner.studentordersapp.dto.analytics.OrderSnapshotStats;
+import at.hollndonner.studentordersapp.service.OrderAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/analytics/orders")
+@CrossOrigin
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final OrderAnalyticsService orderAnalyticsService;
+
+    @GetMapping
+    public ResponseEntity<OrderAggregateResponse> aggregateOrders(
+            @RequestParam(required = false) String groupBy,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        log.debug("Aggregating orders - groupBy: {}, status: {}, from: {}, to: {}", groupBy, status, from, to);
+        OrderAggregateResponse response = orderAnalyticsService.aggregate(
+                new OrderAggregateRequest(groupBy, status, from, to));
+        log.debug("Aggregated {} orders into {} groups in {} us",
+                response.scannedOrders(), response.groups().size(), response.elapsedMicros());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/snapshot")
+    public ResponseEntity<OrderSnapshotStats> getSnapshotStats() {
+        log.debug("Fetching order column snapshot stats");
+        return ResponseEntity.ok(orderAnalyticsService.getSnapshotStats());
+    }
+}
@@ -0,0 +1,24 @@
+package at.hollndonner.studentordersapp.controller;
+
+import at.hollndonner.studentordersapp.dto.cache.CacheRegionStats;
+import at.hollndonner.studentordersapp.service.CacheStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/cache")
+@CrossOrigin
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final CacheStatsService cacheStatsService;
+
+    @GetMapping("/students")
+    public ResponseEntity<CacheRegionStats> getStudentCacheStats() {
+        log.debug("Fetching student cache stats");
+        return ResponseEntity.ok(cacheStatsService.getStudentCacheStats());
+    }
+}
@@ -0,0 +1,37 @@
+package at.hollndonner.studentordersapp.controller;
+
+import at.hollndonner.studentordersapp.exception.PreconditionFailedException;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Strong entity tags derived from the JPA {@code @Version} of a single resource.
+ * The version increments on every update, so equal tags mean an identical representation.
+ */
+final class ETags {
+
+    private static final Pattern VERSION_TAG = Pattern.compile("\"(\\d{1,18})\"");
+
+    private ETags() {
+    }
+
+    static String fromVersion(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Version an {@code If-Match} header requires, or {@code null} when the header is absent or {@code *}.
+     * Weak or foreign tags can never match a strong version tag, so they fail the precondition outright.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Matcher matcher = VERSION_TAG.matcher(ifMatch.trim());
+        if (!matcher.matches()) {
+            throw new PreconditionFailedException("If-Match does not match the current version.");
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,33 @@
+package at.hollndonner.studentordersapp.controller;
+
+import at.hollndonner.studentordersapp.dto.archive.OrderArchiveRunResponse;
+import at.hollndonner.studentordersapp.dto.archive.OrderArchiveStats;
+import at.hollndonner.studentordersapp.service.OrderArchiveService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/orders/archive")
+@CrossOrigin
+@RequiredArgsConstructor
+public class OrderArchiveController {
+
+    private final OrderArchiveService orderArchiveService;
+
+    @GetMapping
+    public ResponseEntity<OrderArchiveStats> getStats() {
+        log.debug("Fetching order archive stats");
+        return ResponseEntity.ok(orderArchiveService.getStats());
+    }
+
+    @PostMapping("/run")
+    public ResponseEntity<OrderArchiveRunResponse> archive() {
+        log.debug("Archiving cold orders");
+        OrderArchiveRunResponse response = orderArchiveService.archive();
+        log.debug("Archived {} orders into {} segments", response.ordersArchived(), response.segmentsWritten());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,8 +1,14 @@
 package at.hollndonner.studentordersapp.controller;
 
+import at.hollndonner.studentordersapp.dto.order.CreateOrderBatchRequest;
 import at.hollndonner.studentordersapp.dto.order.CreateOrderRequest;
+import at.hollndonner.studentordersapp.dto.order.OrderBatchResponse;
+import at.hollndonner.studentordersapp.dto.order.OrderCursorPage;
+import at.hollndonner.studentordersapp.dto.order.OrderExportFormat;
 import at.hollndonner.studentordersapp.dto.order.OrderFilterRequest;
 import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.dto.order.OrderStatusTransitionRequest;
+import at.hollndonner.studentordersapp.dto.order.OrderStatusTransitionResponse;
 import at.hollndonner.studentordersapp.dto.order.UpdateOrderRequest;
 import at.hollndonner.studentordersapp.dto.order.UpdateOrderStatusRequest;
 import at.hollndonner.studentordersapp.service.OrderService;
@@ -11,10 +17,17 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.net.URI;
@@ -30,19 +43,44 @@ public class OrderController {
 
     @PostMapping
     public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request) {
-        log.info("Creating order for student ID: {} with total: {}", request.studentId(), request.total());
+        log.debug("Creating order for student ID: {} with total: {}", request.studentId(), request.total());
         OrderResponse created = orderService.createOrder(request);
-        log.info("Order created successfully with ID: {}", created.id());
+        log.debug("Order created successfully with ID: {}", created.id());
         return ResponseEntity
                 .created(URI.create("/api/v1/orders/" + created.id()))
                 .body(created);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<OrderBatchResponse> createOrders(@Valid @RequestBody CreateOrderBatchRequest request) {
+        log.debug("Creating batch of {} orders", request.orders().size());
+        OrderBatchResponse response = orderService.createOrders(request);
+        log.debug("Order batch processed: {} created, {} failed", response.created(), response.failed());
+        return ResponseEntity.ok(response);
+    }
+
+    @PatchMapping("/status")
+    public ResponseEntity<OrderStatusTransitionResponse> transitionOrderStatus(
+            @Valid @RequestBody OrderStatusTransitionRequest request) {
+        log.debug("Transitioning orders from {} to {}", request.from(), request.to());
+        OrderStatusTransitionResponse response = orderService.transitionOrderStatus(request);
+        log.debug("Order status transition processed: {} updated, {} skipped",
+                response.updated(), response.skipped().size());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id) {
-        log.info("Fetching order with ID: {}", id);
+    public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id, WebRequest webRequest) {
+        log.debug("Fetching order with ID: {}", id);
+        // The tag is read before the body, so a concurrent update can pair a newer body with the older tag;
+        // that only costs the client one more full response on its next poll
+        String etag = ETags.fromVersion(orderService.getOrderVersion(id));
+        if (webRequest.checkNotModified(etag)) {
+            log.debug("Order with ID: {} not modified", id);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         OrderResponse order = orderService.getOrderById(id);
-        return ResponseEntity.ok(order);
+        return ResponseEntity.ok().eTag(etag).body(order);
     }
 
     @GetMapping
@@ -52,42 +90,111 @@ public class OrderController {
             @RequestParam(required = false) BigDecimal minTotal,
             @RequestParam(required = false) BigDecimal maxTotal,
             @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        log.info("Fetching orders with filters - studentId: {}, status: {}, minTotal: {}, maxTotal: {}",
+        log.debug("Fetching orders with filters - studentId: {}, status: {}, minTotal: {}, maxTotal: {}",
                 studentId, status, minTotal, maxTotal);
         OrderFilterRequest filter = new OrderFilterRequest(studentId, status, minTotal, maxTotal);
         Page<OrderResponse> orders = orderService.getOrders(filter, pageable);
-        log.info("Retrieved {} orders (page {} of {})",
+        log.debug("Retrieved {} orders (page {} of {})",
                 orders.getNumberOfElements(),
                 orders.getNumber() + 1,
                 orders.getTotalPages());
         return ResponseEntity.ok(orders);
     }
 
+    @GetMapping("/slice")
+    public ResponseEntity<Slice<OrderResponse>> getOrderSlice(
+            @RequestParam(required = false) Long studentId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) BigDecimal minTotal,
+            @RequestParam(required = false) BigDecimal maxTotal,
+            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        log.debug("Fetching order slice with filters - studentId: {}, status: {}, minTotal: {}, maxTotal: {}",
+                studentId, status, minTotal, maxTotal);
+        OrderFilterRequest filter = new OrderFilterRequest(studentId, status, minTotal, maxTotal);
+        Slice<OrderResponse> orders = orderService.getOrderSlice(filter, pageable);
+        log.debug("Retrieved {} orders (page {}, hasNext: {})",
+                orders.getNumberOfElements(),
+                orders.getNumber() + 1,
+                orders.hasNext());
+        return ResponseEntity.ok(orders);
+    }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<OrderCursorPage> scrollOrders(
+            @RequestParam(required = false) Long studentId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) BigDecimal minTotal,
+            @RequestParam(required = false) BigDecimal maxTotal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        log.debug("Scrolling orders with filters - studentId: {}, status: {}, minTotal: {}, maxTotal: {}",
+                studentId, status, minTotal, maxTotal);
+        OrderFilterRequest filter = new OrderFilterRequest(studentId, status, minTotal, maxTotal);
+        OrderCursorPage orders = orderService.scrollOrders(filter, cursor, size);
+        log.debug("Retrieved {} orders (hasNext: {})", orders.content().size(), orders.hasNext());
+        return ResponseEntity.ok(orders);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) Long studentId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) BigDecimal minTotal,
+            @RequestParam(required = false) BigDecimal maxTotal,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        log.debug("Exporting orders as {} with filters - studentId: {}, status: {}, minTotal: {}, maxTotal: {}",
+                format, studentId, status, minTotal, maxTotal);
+        OrderExportFormat exportFormat = OrderExportFormat.from(format);
+        OrderFilterRequest filter = new OrderFilterRequest(studentId, status, minTotal, maxTotal);
+        StreamingResponseBody body = out -> orderService.exportOrders(filter, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("orders." + exportFormat.fileExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<OrderResponse> updateOrder(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateOrderRequest request) {
-        log.info("Updating order with ID: {}", id);
-        OrderResponse updated = orderService.updateOrder(id, request);
-        log.info("Order updated successfully with ID: {}", id);
-        return ResponseEntity.ok(updated);
+        log.debug("Updating order with ID: {}", id);
+        Long expectedVersion = ETags.expectedVersion(ifMatch);
+        OrderResponse updated = orderService.updateOrder(id, request, expectedVersion);
+        log.debug("Order updated successfully with ID: {}", id);
+        return withNextETag(ResponseEntity.ok(), expectedVersion).body(updated);
     }
 
     @PatchMapping("/{id}/status")
     public ResponseEntity<OrderResponse> updateOrderStatus(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateOrderStatusRequest request) {
-        log.info("Updating status for order ID: {} to {}", id, request.status());
-        OrderResponse updated = orderService.updateOrderStatus(id, request);
-        log.info("Order status updated successfully for ID: {}", id);
-        return ResponseEntity.ok(updated);
+        log.debug("Updating status for order ID: {} to {}", id, request.status());
+        Long expectedVersion = ETags.expectedVersion(ifMatch);
+        OrderResponse updated = orderService.updateOrderStatus(id, request, expectedVersion);
+        log.debug("Order status updated successfully for ID: {}", id);
+        return withNextETag(ResponseEntity.ok(), expectedVersion).body(updated);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteOrder(@PathVariable Long id) {
-        log.info("Deleting order with ID: {}", id);
-        orderService.deleteOrder(id);
-        log.info("Order deleted successfully with ID: {}", id);
+    public ResponseEntity<Void> deleteOrder(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.debug("Deleting order with ID: {}", id);
+        orderService.deleteOrder(id, ETags.expectedVersion(ifMatch));
+        log.debug("Order deleted successfully with ID: {}", id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * A conditional write moves the row from the expected version to the next one, so its tag is known
+     * without reading the row back. Unconditional writes leave the tag to the next GET.
+     */
+    private static ResponseEntity.BodyBuilder withNextETag(ResponseEntity.BodyBuilder response, Long expectedVersion) {
+        return expectedVersion != null ? response.eTag(ETags.fromVersion(expectedVersion + 1)) : response;
+    }
 }
@@ -0,0 +1,35 @@
+package at.hollndonner.studentordersapp.controller;
+
+import at.hollndonner.studentordersapp.dto.shard.OrderShardRebalanceResponse;
+import at.hollndonner.studentordersapp.dto.shard.OrderShardResponse;
+import at.hollndonner.studentordersapp.service.OrderShardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/orders/shards")
+@CrossOrigin
+@RequiredArgsConstructor
+public class OrderShardController {
+
+    private final OrderShardService orderShardService;
+
+    @GetMapping
+    public ResponseEntity<List<OrderShardResponse>> getShards() {
+        log.debug("Fetching order shards");
+        return ResponseEntity.ok(orderShardService.getShards());
+    }
+
+    @PostMapping("/rebalance")
+    public ResponseEntity<OrderShardRebalanceResponse> rebalance() {
+        log.debug("Rebalancing order shards");
+        OrderShardRebalanceResponse response = orderShardService.rebalance();
+        log.debug("Moved {} orders of {} students", response.ordersMoved(), response.studentsMoved());
+        return ResponseEntity.ok(response);
+    }
+}
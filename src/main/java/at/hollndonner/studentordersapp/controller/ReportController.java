@@ -0,0 +1,54 @@
+package at.hollndonner.studentordersapp.controller;
+
+import at.hollndonner.studentordersapp.dto.report.RevenueFilterRequest;
+import at.hollndonner.studentordersapp.dto.report.RevenueRebuildResponse;
+import at.hollndonner.studentordersapp.dto.report.RevenueReportResponse;
+import at.hollndonner.studentordersapp.service.RevenueReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/reports")
+@CrossOrigin
+@RequiredArgsConstructor
+public class ReportController {
+
+    private final RevenueReportService revenueReportService;
+
+    @GetMapping("/revenue/daily")
+    public ResponseEntity<RevenueReportResponse> getDailyRevenue(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String school,
+            @RequestParam(required = false) String status) {
+        log.debug("Fetching daily revenue - from: {}, to: {}, school: {}, status: {}", from, to, school, status);
+        RevenueReportResponse report = revenueReportService.getDailyRevenue(
+                new RevenueFilterRequest(from, to, school, status));
+        log.debug("Retrieved {} daily revenue rows", report.rows().size());
+        return ResponseEntity.ok(report);
+    }
+
+    @GetMapping("/revenue/monthly")
+    public ResponseEntity<RevenueReportResponse> getMonthlyRevenue(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String school,
+            @RequestParam(required = false) String status) {
+        log.debug("Fetching monthly revenue - from: {}, to: {}, school: {}, status: {}", from, to, school, status);
+        RevenueReportResponse report = revenueReportService.getMonthlyRevenue(
+                new RevenueFilterRequest(from, to, school, status));
+        log.debug("Retrieved {} monthly revenue rows", report.rows().size());
+        return ResponseEntity.ok(report);
+    }
+
+    @PostMapping("/revenue/rebuild")
+    public ResponseEntity<RevenueRebuildResponse> rebuildRevenueRollups(@RequestParam(required = false) String from) {
+        log.debug("Rebuilding revenue rollups from: {}", from);
+        RevenueRebuildResponse response = revenueReportService.rebuildRollups(from);
+        log.debug("Revenue rollups rebuilt for {} months", response.months());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -2,19 +2,30 @@ package at.hollndonner.studentordersapp.controller;
 
 import at.hollndonner.studentordersapp.dto.student.CreateStudentRequest;
 import at.hollndonner.studentordersapp.dto.student.StudentFilterRequest;
+import at.hollndonner.studentordersapp.dto.student.StudentImportResponse;
+import at.hollndonner.studentordersapp.dto.student.StudentOrderSummaryResponse;
 import at.hollndonner.studentordersapp.dto.student.StudentResponse;
+import at.hollndonner.studentordersapp.dto.student.StudentSearchResponse;
 import at.hollndonner.studentordersapp.dto.student.UpdateStudentRequest;
+import at.hollndonner.studentordersapp.dto.student.VersionedStudent;
+import at.hollndonner.studentordersapp.service.StudentSearchService;
 import at.hollndonner.studentordersapp.service.StudentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 
 @Slf4j
@@ -25,22 +36,45 @@ import java.net.URI;
 public class StudentController {
 
     private final StudentService studentService;
+    private final StudentSearchService studentSearchService;
 
     @PostMapping
     public ResponseEntity<StudentResponse> createStudent(@Valid @RequestBody CreateStudentRequest request) {
-        log.info("Creating student with name: {}", request.name());
+        log.debug("Creating student with name: {}", request.name());
         StudentResponse created = studentService.createStudent(request);
-        log.info("Student created successfully with ID: {}", created.id());
+        log.debug("Student created successfully with ID: {}", created.id());
         return ResponseEntity
                 .created(URI.create("/api/v1/students/" + created.id()))
                 .body(created);
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<StudentImportResponse> importStudents(InputStream csv) throws IOException {
+        log.debug("Importing students from CSV upload");
+        StudentImportResponse response = studentService.importStudents(csv);
+        log.debug("Student import processed: {} rows, {} imported, {} failed",
+                response.rows(), response.imported(), response.failed());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<StudentResponse> getStudentById(@PathVariable Long id) {
-        log.info("Fetching student with ID: {}", id);
+    public ResponseEntity<StudentResponse> getStudentById(@PathVariable Long id, WebRequest webRequest) {
+        log.debug("Fetching student with ID: {}", id);
+        String etag = ETags.fromVersion(studentService.getStudentVersion(id));
+        if (webRequest.checkNotModified(etag)) {
+            log.debug("Student with ID: {} not modified", id);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         StudentResponse student = studentService.getStudentById(id);
-        return ResponseEntity.ok(student);
+        return ResponseEntity.ok().eTag(etag).body(student);
+    }
+
+    @GetMapping("/{id}/order-summary")
+    public ResponseEntity<StudentOrderSummaryResponse> getOrderSummary(@PathVariable Long id) {
+        log.debug("Fetching order summary for student ID: {}", id);
+        StudentOrderSummaryResponse summary = studentService.getOrderSummary(id);
+        log.debug("Student ID: {} has {} orders", id, summary.orderCount());
+        return ResponseEntity.ok(summary);
     }
 
     @GetMapping
@@ -49,31 +83,60 @@ public class StudentController {
             @RequestParam(required = false) String grade,
             @RequestParam(required = false) String school,
             @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC) Pageable pageable) {
-        log.info("Fetching students with filters - name: {}, grade: {}, school: {}", name, grade, school);
+        log.debug("Fetching students with filters - name: {}, grade: {}, school: {}", name, grade, school);
         StudentFilterRequest filter = new StudentFilterRequest(name, grade, school);
         Page<StudentResponse> students = studentService.getStudents(filter, pageable);
-        log.info("Retrieved {} students (page {} of {})",
+        log.debug("Retrieved {} students (page {} of {})",
                 students.getNumberOfElements(),
                 students.getNumber() + 1,
                 students.getTotalPages());
         return ResponseEntity.ok(students);
     }
 
+    @GetMapping("/slice")
+    public ResponseEntity<Slice<StudentResponse>> getStudentSlice(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String grade,
+            @RequestParam(required = false) String school,
+            @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC) Pageable pageable) {
+        log.debug("Fetching student slice with filters - name: {}, grade: {}, school: {}", name, grade, school);
+        StudentFilterRequest filter = new StudentFilterRequest(name, grade, school);
+        Slice<StudentResponse> students = studentService.getStudentSlice(filter, pageable);
+        log.debug("Retrieved {} students (page {}, hasNext: {})",
+                students.getNumberOfElements(),
+                students.getNumber() + 1,
+                students.hasNext());
+        return ResponseEntity.ok(students);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<StudentSearchResponse> searchStudents(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        log.debug("Searching students for: {}", q);
+        StudentSearchResponse response = studentSearchService.search(q, limit);
+        log.debug("Found {} students in {} us", response.hits().size(), response.elapsedMicros());
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<StudentResponse> updateStudent(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateStudentRequest request) {
-        log.info("Updating student with ID: {}", id);
-        StudentResponse updated = studentService.updateStudent(id, request);
-        log.info("Student updated successfully with ID: {}", id);
-        return ResponseEntity.ok(updated);
+        log.debug("Updating student with ID: {}", id);
+        VersionedStudent updated = studentService.updateStudent(id, request, ETags.expectedVersion(ifMatch));
+        log.debug("Student updated successfully with ID: {}", id);
+        return ResponseEntity.ok().eTag(ETags.fromVersion(updated.version())).body(updated.student());
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteStudent(@PathVariable Long id) {
-        log.info("Deleting student with ID: {}", id);
-        studentService.deleteStudent(id);
-        log.info("Student deleted successfully with ID: {}", id);
+    public ResponseEntity<Void> deleteStudent(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.debug("Deleting student with ID: {}", id);
+        studentService.deleteStudent(id, ETags.expectedVersion(ifMatch));
+        log.debug("Student deleted successfully with ID: {}", id);
         return ResponseEntity.noContent().build();
     }
 }
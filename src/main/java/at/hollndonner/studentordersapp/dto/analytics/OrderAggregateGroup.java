@@ -0,0 +1,13 @@
+package at.hollndonner.studentordersapp.dto.analytics;
+
+import java.math.BigDecimal;
+
+/**
+ * @param key the status, the student id, or the start of the time bucket
+ */
+public record OrderAggregateGroup(
+        String key,
+        long count,
+        BigDecimal sum,
+        BigDecimal avg
+) {}
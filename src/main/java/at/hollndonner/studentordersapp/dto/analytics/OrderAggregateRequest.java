@@ -0,0 +1,13 @@
+package at.hollndonner.studentordersapp.dto.analytics;
+
+/**
+ * @param groupBy {@code status}, {@code student}, {@code hour} or {@code day}
+ * @param from    inclusive ISO-8601 instant
+ * @param to      exclusive ISO-8601 instant
+ */
+public record OrderAggregateRequest(
+        String groupBy,
+        String status,
+        String from,
+        String to
+) {}
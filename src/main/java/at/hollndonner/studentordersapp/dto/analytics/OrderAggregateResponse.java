@@ -0,0 +1,10 @@
+package at.hollndonner.studentordersapp.dto.analytics;
+
+import java.util.List;
+
+public record OrderAggregateResponse(
+        String groupBy,
+        List<OrderAggregateGroup> groups,
+        long scannedOrders,
+        long elapsedMicros
+) {}
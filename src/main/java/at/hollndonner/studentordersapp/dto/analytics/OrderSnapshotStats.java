@@ -0,0 +1,17 @@
+package at.hollndonner.studentordersapp.dto.analytics;
+
+import java.time.Instant;
+
+/**
+ * @param bytesPerOrder allocated column and student-dictionary bytes divided by the live orders
+ */
+public record OrderSnapshotStats(
+        long orders,
+        long slots,
+        long capacity,
+        long students,
+        long columnBytes,
+        long studentBytes,
+        double bytesPerOrder,
+        Instant loadedAt
+) {}
@@ -0,0 +1,12 @@
+package at.hollndonner.studentordersapp.dto.archive;
+
+import java.time.Instant;
+
+/**
+ * @param archivedBefore the creation time orders had to be older than, in the database's clock
+ */
+public record OrderArchiveRunResponse(
+        int segmentsWritten,
+        long ordersArchived,
+        Instant archivedBefore
+) {}
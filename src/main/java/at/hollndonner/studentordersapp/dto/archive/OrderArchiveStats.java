@@ -0,0 +1,15 @@
+package at.hollndonner.studentordersapp.dto.archive;
+
+import java.time.Instant;
+
+/**
+ * @param bytesPerOrder segment file bytes, headers included, divided by the archived orders
+ */
+public record OrderArchiveStats(
+        int segments,
+        long orders,
+        long bytes,
+        double bytesPerOrder,
+        Instant oldest,
+        Instant newest
+) {}
@@ -0,0 +1,15 @@
+package at.hollndonner.studentordersapp.dto.cache;
+
+public record CacheRegionStats(
+        String region,
+        boolean enabled,
+        long size,
+        long hits,
+        long misses,
+        double hitRate,
+        long evictions
+) {
+    public static CacheRegionStats disabled(String region) {
+        return new CacheRegionStats(region, false, 0, 0, 0, 0.0, 0);
+    }
+}
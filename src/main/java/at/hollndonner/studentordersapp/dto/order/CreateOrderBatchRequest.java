@@ -0,0 +1,16 @@
+package at.hollndonner.studentordersapp.dto.order;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Items are validated one by one in the service so that a single bad row
+ * is reported in its {@link OrderBatchItemResult} instead of rejecting the whole batch.
+ */
+public record CreateOrderBatchRequest(
+        @NotEmpty(message = "Orders are required")
+        @Size(max = 50000, message = "A batch may contain at most 50000 orders")
+        List<CreateOrderRequest> orders
+) {}
@@ -0,0 +1,16 @@
+package at.hollndonner.studentordersapp.dto.order;
+
+public record OrderBatchItemResult(
+        int index,
+        boolean created,
+        Long orderId,
+        String error
+) {
+    public static OrderBatchItemResult created(int index, Long orderId) {
+        return new OrderBatchItemResult(index, true, orderId, null);
+    }
+
+    public static OrderBatchItemResult failed(int index, String error) {
+        return new OrderBatchItemResult(index, false, null, error);
+    }
+}
@@ -0,0 +1,15 @@
+package at.hollndonner.studentordersapp.dto.order;
+
+import java.util.List;
+
+public record OrderBatchResponse(
+        int received,
+        int created,
+        int failed,
+        List<OrderBatchItemResult> results
+) {
+    public static OrderBatchResponse of(List<OrderBatchItemResult> results) {
+        int created = (int) results.stream().filter(OrderBatchItemResult::created).count();
+        return new OrderBatchResponse(results.size(), created, results.size() - created, results);
+    }
+}
@@ -0,0 +1,54 @@
+package at.hollndonner.studentordersapp.dto.order;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last order returned by a keyset scroll, ordered by {@code (createdAt DESC, id DESC)}.
+ * Clients only ever see the opaque {@link #encode() encoded} form.
+ */
+public record OrderCursor(
+        Instant createdAt,
+        Long id
+) {
+    private static final char SEPARATOR = '|';
+
+    public static OrderCursor of(OrderResponse order) {
+        return new OrderCursor(order.createdAt(), order.id());
+    }
+
+    /**
+     * Encodes this cursor as a URL-safe continuation token.
+     *
+     * @return opaque token to be passed back as {@code cursor}
+     */
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a continuation token previously produced by {@link #encode()}.
+     *
+     * @param token the opaque token
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            Instant createdAt = Instant.parse(raw.substring(0, separator));
+            Long id = Long.valueOf(raw.substring(separator + 1));
+            return new OrderCursor(createdAt, id);
+        } catch (DateTimeParseException | IllegalArgumentException ex) {
+            // NumberFormatException is an IllegalArgumentException as well
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+}
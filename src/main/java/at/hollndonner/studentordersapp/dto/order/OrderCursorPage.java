@@ -0,0 +1,10 @@
+package at.hollndonner.studentordersapp.dto.order;
+
+import java.util.List;
+
+public record OrderCursorPage(
+        List<OrderResponse> content,
+        int size,
+        boolean hasNext,
+        String nextCursor
+) {}
@@ -0,0 +1,33 @@
+package at.hollndonner.studentordersapp.dto.order;
+
+import java.util.Locale;
+
+public enum OrderExportFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String contentType;
+
+    OrderExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String fileExtension() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static OrderExportFormat from(String rawFormat) {
+        if (rawFormat != null) {
+            for (OrderExportFormat format : values()) {
+                if (format.name().equalsIgnoreCase(rawFormat.trim())) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Invalid export format. Allowed: ndjson, csv.");
+    }
+}
@@ -0,0 +1,26 @@
+package at.hollndonner.studentordersapp.dto.order;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Selects orders either by {@code ids} or by a filter ({@code studentId} and/or {@code createdBefore}), never both.
+ * Only orders currently in {@code from} are moved to {@code to}.
+ */
+public record OrderStatusTransitionRequest(
+        @NotBlank(message = "From status is required")
+        String from,
+
+        @NotBlank(message = "Target status is required")
+        String to,
+
+        @Size(max = 50000, message = "A transition may list at most 50000 orders")
+        List<Long> ids,
+
+        Long studentId,
+
+        Instant createdBefore
+) {}
@@ -0,0 +1,12 @@
+package at.hollndonner.studentordersapp.dto.order;
+
+import java.util.List;
+
+/**
+ * {@code skipped} lists requested IDs that were missing or not in the {@code from} status;
+ * it is always empty for filter-based transitions.
+ */
+public record OrderStatusTransitionResponse(
+        long updated,
+        List<Long> skipped
+) {}
@@ -0,0 +1,11 @@
+package at.hollndonner.studentordersapp.dto.report;
+
+/**
+ * Inclusive period bounds, {@code yyyy-MM-dd} for daily and {@code yyyy-MM} for monthly reports.
+ */
+public record RevenueFilterRequest(
+        String from,
+        String to,
+        String school,
+        String status
+) {}
@@ -0,0 +1,11 @@
+package at.hollndonner.studentordersapp.dto.report;
+
+import java.time.Instant;
+import java.time.YearMonth;
+
+public record RevenueRebuildResponse(
+        YearMonth from,
+        YearMonth to,
+        int months,
+        Instant rolledUpTo
+) {}
@@ -0,0 +1,12 @@
+package at.hollndonner.studentordersapp.dto.report;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @param rolledUpTo time up to which the rollups include every order; later orders appear after the next refresh
+ */
+public record RevenueReportResponse(
+        Instant rolledUpTo,
+        List<RevenueRollupRow> rows
+) {}
@@ -0,0 +1,17 @@
+package at.hollndonner.studentordersapp.dto.report;
+
+import at.hollndonner.studentordersapp.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Orders and revenue of one school in one status over one day or month; a month is keyed by its first day.
+ */
+public record RevenueRollupRow(
+        LocalDate period,
+        String school,
+        OrderStatus status,
+        long orderCount,
+        BigDecimal revenue
+) {}
@@ -0,0 +1,8 @@
+package at.hollndonner.studentordersapp.dto.shard;
+
+public record OrderShardRebalanceResponse(
+        int shards,
+        long studentsMoved,
+        long ordersMoved,
+        long orphanedOrdersRemoved
+) {}
@@ -0,0 +1,6 @@
+package at.hollndonner.studentordersapp.dto.shard;
+
+public record OrderShardResponse(
+        int shard,
+        long orders
+) {}
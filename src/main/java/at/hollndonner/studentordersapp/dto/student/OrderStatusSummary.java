@@ -0,0 +1,19 @@
+package at.hollndonner.studentordersapp.dto.student;
+
+import at.hollndonner.studentordersapp.model.OrderStatus;
+
+import java.math.BigDecimal;
+
+public record OrderStatusSummary(
+        OrderStatus status,
+        long orderCount,
+        BigDecimal total
+) {
+    public static OrderStatusSummary empty(OrderStatus status) {
+        return new OrderStatusSummary(status, 0, BigDecimal.ZERO.setScale(2));
+    }
+
+    public OrderStatusSummary plus(OrderStatusSummary other) {
+        return new OrderStatusSummary(status, orderCount + other.orderCount, total.add(other.total));
+    }
+}
@@ -0,0 +1,6 @@
+package at.hollndonner.studentordersapp.dto.student;
+
+public record StudentImportError(
+        long line,
+        String error
+) {}
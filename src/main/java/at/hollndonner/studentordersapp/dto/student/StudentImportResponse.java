@@ -0,0 +1,13 @@
+package at.hollndonner.studentordersapp.dto.student;
+
+import java.util.List;
+
+/**
+ * Outcome of a CSV import. {@code errors} lists only the first 100 rejected rows; {@code failed} counts all of them.
+ */
+public record StudentImportResponse(
+        long rows,
+        long imported,
+        long failed,
+        List<StudentImportError> errors
+) {}
@@ -0,0 +1,20 @@
+package at.hollndonner.studentordersapp.dto.student;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Order count and total of one student, overall and per status; every status is listed, with zeros if unused.
+ */
+public record StudentOrderSummaryResponse(
+        Long studentId,
+        long orderCount,
+        BigDecimal total,
+        List<OrderStatusSummary> statuses
+) {
+    public static StudentOrderSummaryResponse of(Long studentId, List<OrderStatusSummary> statuses) {
+        long orderCount = statuses.stream().mapToLong(OrderStatusSummary::orderCount).sum();
+        BigDecimal total = statuses.stream().map(OrderStatusSummary::total).reduce(BigDecimal.ZERO.setScale(2), BigDecimal::add);
+        return new StudentOrderSummaryResponse(studentId, orderCount, total, statuses);
+    }
+}
@@ -0,0 +1,9 @@
+package at.hollndonner.studentordersapp.dto.student;
+
+public record StudentSearchHit(
+        Long id,
+        String name,
+        String grade,
+        String school,
+        int score
+) {}
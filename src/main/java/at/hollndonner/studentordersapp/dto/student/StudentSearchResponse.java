@@ -0,0 +1,14 @@
+package at.hollndonner.studentordersapp.dto.student;
+
+import java.util.List;
+
+/**
+ * @param truncated whether the search stopped at its candidate limit, so better matches may exist;
+ *                  a longer query narrows the candidates
+ */
+public record StudentSearchResponse(
+        String query,
+        List<StudentSearchHit> hits,
+        boolean truncated,
+        long elapsedMicros
+) {}
@@ -0,0 +1,9 @@
+package at.hollndonner.studentordersapp.dto.student;
+
+/**
+ * A written student together with the version the write left it at, for the response's {@code ETag}.
+ */
+public record VersionedStudent(
+        StudentResponse student,
+        long version
+) {}
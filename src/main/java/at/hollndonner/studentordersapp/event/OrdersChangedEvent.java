@@ -0,0 +1,9 @@
+package at.hollndonner.studentordersapp.event;
+
+import java.util.List;
+
+/**
+ * Published inside the transaction that inserted, updated or deleted the orders; listeners that mirror
+ * {@code orders} re-read them after commit.
+ */
+public record OrdersChangedEvent(List<Long> orderIds) {}
@@ -0,0 +1,6 @@
+package at.hollndonner.studentordersapp.event;
+
+/**
+ * Published inside the transaction that deleted the student; its orders are deleted with it by cascade.
+ */
+public record StudentDeletedEvent(Long studentId) {}
@@ -0,0 +1,9 @@
+package at.hollndonner.studentordersapp.event;
+
+import java.util.List;
+
+/**
+ * Published inside the transaction that inserted or updated the students; listeners that mirror
+ * {@code students} re-read them after commit.
+ */
+public record StudentsChangedEvent(List<Long> studentIds) {}
@@ -0,0 +1,7 @@
+package at.hollndonner.studentordersapp.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,29 @@
+package at.hollndonner.studentordersapp.model;
+
+import at.hollndonner.studentordersapp.repository.GradeDictionary;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Stores a student's grade as the id of its {@code grades} entry, looked up like {@link SchoolConverter}.
+ */
+@Converter
+public class GradeConverter implements AttributeConverter<String, Integer> {
+
+    private final ObjectProvider<GradeDictionary> grades;
+
+    public GradeConverter(ObjectProvider<GradeDictionary> grades) {
+        this.grades = grades;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String grade) {
+        return grade != null ? grades.getObject().idOf(grade) : null;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return id != null ? grades.getObject().valueOf(id) : null;
+    }
+}
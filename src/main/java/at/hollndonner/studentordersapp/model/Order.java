@@ -8,9 +8,9 @@ import java.time.Instant;
 
 @Entity
 @Table(name = "orders", indexes = {
-    @Index(name = "idx_student_id", columnList = "student_id"),
-    @Index(name = "idx_status", columnList = "status"),
-    @Index(name = "idx_created_at", columnList = "created_at")
+    @Index(name = "idx_student_created_at", columnList = "student_id, created_at DESC, id DESC"),
+    @Index(name = "idx_status_created_at", columnList = "status, created_at DESC, id DESC"),
+    @Index(name = "idx_created_at", columnList = "created_at DESC, id DESC")
 })
 @Getter
 @Setter
@@ -36,5 +36,9 @@ public class Order {
 
     @Column(name = "created_at", updatable = false, insertable = false)
     private Instant createdAt;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
 }
 
@@ -0,0 +1,30 @@
+package at.hollndonner.studentordersapp.model;
+
+import at.hollndonner.studentordersapp.repository.SchoolDictionary;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Stores a student's school as the id of its {@code schools} entry. Hibernate creates converters while the
+ * entity manager factory starts, before the dictionary can be built, so it is looked up on first use.
+ */
+@Converter
+public class SchoolConverter implements AttributeConverter<String, Integer> {
+
+    private final ObjectProvider<SchoolDictionary> schools;
+
+    public SchoolConverter(ObjectProvider<SchoolDictionary> schools) {
+        this.schools = schools;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String school) {
+        return school != null ? schools.getObject().idOf(school) : null;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return id != null ? schools.getObject().valueOf(id) : null;
+    }
+}
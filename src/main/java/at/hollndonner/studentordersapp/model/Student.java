@@ -2,11 +2,15 @@ package at.hollndonner.studentordersapp.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.Instant;
 
 @Entity
 @Table(name = "students")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Student.CACHE_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -14,6 +18,8 @@ import java.time.Instant;
 @Builder
 public class Student {
 
+    public static final String CACHE_REGION = "student";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -21,12 +27,19 @@ public class Student {
     @Column(nullable = false, length = 100)
     private String name;
 
-    @Column(nullable = false, length = 20)
+    // Stored as ids into the grades and schools lookup tables
+    @Column(name = "grade_id", nullable = false)
+    @Convert(converter = GradeConverter.class)
     private String grade;
 
-    @Column(nullable = false, length = 150)
+    @Column(name = "school_id", nullable = false)
+    @Convert(converter = SchoolConverter.class)
     private String school;
 
     @Column(name = "created_at", updatable = false, insertable = false)
     private Instant createdAt;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
 }
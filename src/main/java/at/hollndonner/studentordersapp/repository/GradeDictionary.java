@@ -0,0 +1,15 @@
+package at.hollndonner.studentordersapp.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Distinct grade names, referenced by {@code students.grade_id}.
+ */
+@Repository
+public class GradeDictionary extends ValueDictionary {
+
+    public GradeDictionary(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate, "grades");
+    }
+}
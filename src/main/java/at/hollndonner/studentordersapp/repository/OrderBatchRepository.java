@@ -0,0 +1,125 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk order inserts through plain JDBC batches.
+ * Hibernate cannot batch {@code IDENTITY} inserts, so this bypasses the persistence context entirely;
+ * with {@code rewriteBatchedStatements=true} MySQL Connector/J sends each chunk as one multi-row insert.
+ */
+@Slf4j
+@Repository
+public class OrderBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO orders (student_id, total, status) VALUES (?, ?, ?)";
+    private static final String INSERT_WITH_ID_SQL = "INSERT INTO orders (id, student_id, total, status) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+
+    public OrderBatchRepository(JdbcTemplate jdbcTemplate,
+                                @Value("${orders.batch.chunk-size:500}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("orders.batch.chunk-size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Inserts the rows in JDBC batches of {@code orders.batch.chunk-size}.
+     * Student IDs must already be validated; the caller's transaction spans all chunks.
+     *
+     * @param rows orders to insert
+     * @return generated order IDs, in the same order as {@code rows}
+     */
+    public List<Long> insertAll(List<NewOrder> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += chunkSize) {
+            List<NewOrder> chunk = rows.subList(from, Math.min(from + chunkSize, rows.size()));
+            ids.addAll(insertChunk(chunk));
+        }
+        log.debug("Inserted {} orders in chunks of {}", ids.size(), chunkSize);
+        return ids;
+    }
+
+    /**
+     * Like {@link #insertAll(List)}, but with ids assigned by the caller, as sharded inserts need.
+     *
+     * @param ids one id per row, in the same order as {@code rows}
+     * @return {@code ids}
+     */
+    public List<Long> insertAll(List<NewOrder> rows, List<Long> ids) {
+        if (ids.size() != rows.size()) {
+            throw new IllegalArgumentException("Expected " + rows.size() + " order IDs, got " + ids.size());
+        }
+        for (int from = 0; from < rows.size(); from += chunkSize) {
+            int offset = from;
+            int size = Math.min(chunkSize, rows.size() - from);
+            jdbcTemplate.batchUpdate(INSERT_WITH_ID_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    NewOrder row = rows.get(offset + i);
+                    ps.setLong(1, ids.get(offset + i));
+                    ps.setLong(2, row.studentId());
+                    ps.setBigDecimal(3, row.total());
+                    ps.setString(4, row.status().name());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+        log.debug("Inserted {} orders with assigned IDs in chunks of {}", ids.size(), chunkSize);
+        return ids;
+    }
+
+    private List<Long> insertChunk(List<NewOrder> chunk) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        NewOrder row = chunk.get(i);
+                        ps.setLong(1, row.studentId());
+                        ps.setBigDecimal(2, row.total());
+                        ps.setString(3, row.status().name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunk.size();
+                    }
+                },
+                keyHolder);
+
+        List<Long> ids = new ArrayList<>(chunk.size());
+        for (var keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    public record NewOrder(
+            Long studentId,
+            BigDecimal total,
+            OrderStatus status
+    ) {}
+}
@@ -0,0 +1,604 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * In-process, column-oriented copy of {@code orders} for analytic scans. Each order occupies one slot across
+ * primitive arrays: its id, total in cents, a dense student index, a status byte and {@code created_at} in epoch
+ * seconds, so a scan touches 29 bytes per order instead of an entity with a {@code BigDecimal} and an {@code Instant}.
+ * <p>
+ * Slots are kept sorted by order id, which makes an order's slot a binary search away. Deleted orders are
+ * tombstoned and compacted away once they make up a quarter of the slots. Changes are applied by re-reading
+ * the changed orders after their transaction commits, so the snapshot converges on the committed rows no matter
+ * in which order concurrent commits are reported. Rows written to {@code orders} outside the app are not seen
+ * until restart. With sharded orders every shard is read, from its primary, and archived orders are read from
+ * their segments.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "orders.analytics.enabled", havingValue = "true")
+public class OrderColumnSnapshot implements SmartInitializingSingleton {
+
+    /**
+     * Bytes per order slot: id, cents and created-at seconds as {@code long}, student index as {@code int}, status as {@code byte}.
+     */
+    public static final int BYTES_PER_SLOT = Long.BYTES * 3 + Integer.BYTES + Byte.BYTES;
+
+    /**
+     * Rough heap cost of one entry in the student id to index map (entry, boxed key and value).
+     */
+    static final int BYTES_PER_STUDENT_ENTRY = 64;
+
+    static final int MAX_GROUPS = 100_000;
+
+    private static final byte DELETED = -1;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int REFRESH_CHUNK_SIZE = 1000;
+    private static final String SELECT_SQL = "SELECT id, student_id, total, status, created_at FROM orders";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final OrderShards orderShards;
+    private final OrderSegments orderSegments;
+    private final int fetchSize;
+    private final int scanChunkSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Serializes re-reads with applying them, so a later commit's rows are never overwritten by an earlier read.
+    // A lock rather than a monitor: it is held across JDBC calls, which would pin a virtual thread's carrier.
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] cents = new long[INITIAL_CAPACITY];
+    private int[] students = new int[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private long[] createdAt = new long[INITIAL_CAPACITY];
+    private int size;
+    private int deleted;
+    private long minCreatedAt = Long.MAX_VALUE;
+    private long maxCreatedAt = Long.MIN_VALUE;
+
+    private long[] studentIds = new long[64];
+    private int studentCount;
+    private final Map<Long, Integer> studentIndex = new HashMap<>();
+
+    private Instant loadedAt;
+
+    public OrderColumnSnapshot(NamedParameterJdbcTemplate jdbcTemplate,
+                               OrderShards orderShards,
+                               OrderSegments orderSegments,
+                               @Value("${orders.export.fetch-size:1000}") int fetchSize,
+                               @Value("${orders.analytics.scan-chunk-size:65536}") int scanChunkSize) {
+        if (scanChunkSize < 1) {
+            throw new IllegalArgumentException("orders.analytics.scan-chunk-size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.orderShards = orderShards;
+        this.orderSegments = orderSegments;
+        this.fetchSize = fetchSize;
+        this.scanChunkSize = scanChunkSize;
+    }
+
+    /**
+     * Loads the snapshot before the web server starts taking requests, so no write can slip past the load.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        load();
+    }
+
+    /**
+     * Replaces the snapshot with every order, streamed in id order from each shard and each segment.
+     */
+    public void load() {
+        refreshLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                long start = System.nanoTime();
+                reset();
+                List<OrderSegment> segments = orderSegments.segments();
+                int[] runs = new int[orderShards.count() + segments.size() + 1];
+                for (int shard = 0; shard < orderShards.count(); shard++) {
+                    runs[shard] = size;
+                    orderShards.inShard(shard, false, tx -> {
+                        jdbcTemplate.getJdbcTemplate().query(connection -> {
+                            PreparedStatement statement = connection.prepareStatement(SELECT_SQL + " ORDER BY id");
+                            statement.setFetchSize(StreamingFetch.size(connection, fetchSize));
+                            return statement;
+                        }, (RowCallbackHandler) rs -> append(rs));
+                        return null;
+                    });
+                }
+                for (int i = 0; i < segments.size(); i++) {
+                    OrderSegment segment = segments.get(i);
+                    runs[orderShards.count() + i] = size;
+                    ensureCapacity(size + segment.size());
+                    for (int position = 0; position < segment.size(); position++) {
+                        write(size++, Row.of(segment, segment.rowInIdOrder(position)));
+                    }
+                }
+                runs[runs.length - 1] = size;
+                if (runs.length > 2) {
+                    mergeRuns(runs);
+                }
+                loadedAt = Instant.now();
+                log.info("Loaded {} orders into the column snapshot in {} ms ({} bytes per order)",
+                        size, (System.nanoTime() - start) / 1_000_000, BYTES_PER_SLOT);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Re-reads the given orders and applies their committed state: present rows are inserted or updated,
+     * missing ones removed.
+     */
+    public void refresh(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        List<Long> requested = List.copyOf(orderIds);
+        refreshLock.lock();
+        try {
+            Map<Long, Row> current = new HashMap<>();
+            for (int start = 0; start < requested.size(); start += REFRESH_CHUNK_SIZE) {
+                List<Long> chunk = requested.subList(start, Math.min(start + REFRESH_CHUNK_SIZE, requested.size()));
+                orderShards.onAllShards(false, tx -> jdbcTemplate.query(SELECT_SQL + " WHERE id IN (:ids)",
+                                new MapSqlParameterSource("ids", chunk), (rs, rowNum) -> Row.of(rs)))
+                        .forEach(rows -> rows.forEach(row -> current.put(row.id(), row)));
+            }
+            lock.writeLock().lock();
+            try {
+                for (Long id : requested) {
+                    Row row = current.containsKey(id) ? current.get(id) : archived(id);
+                    if (row != null) {
+                        upsert(row);
+                    } else {
+                        remove(id);
+                    }
+                }
+                compactIfSparse();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the orders of a deleted student, which the database removed by cascade.
+     */
+    public void removeStudent(Long studentId) {
+        refreshLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                Integer index = studentIndex.get(studentId);
+                if (index == null) {
+                    return;
+                }
+                for (int i = 0; i < size; i++) {
+                    if (students[i] == index && statuses[i] != DELETED) {
+                        statuses[i] = DELETED;
+                        deleted++;
+                    }
+                }
+                compactIfSparse();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Counts and sums the orders matching the filters per group. Ranges of slots are scanned in parallel
+     * on the common fork-join pool and their partial sums merged. Each range needs an accumulator for every
+     * group, which for students is every student known; they are scanned in one range per worker instead.
+     *
+     * @param status  only orders in this status, or all when {@code null}
+     * @param from    inclusive lower bound on {@code created_at}, or unbounded when {@code null}
+     * @param to      exclusive upper bound on {@code created_at}, or unbounded when {@code null}
+     */
+    public Aggregation aggregate(GroupBy groupBy, OrderStatus status, Instant from, Instant to) {
+        long fromSecond = from != null ? from.getEpochSecond() : Long.MIN_VALUE;
+        long toSecond = to != null ? to.getEpochSecond() : Long.MAX_VALUE;
+        lock.readLock().lock();
+        try {
+            long bucketBase = 0;
+            int groupCount;
+            switch (groupBy) {
+                case STATUS -> groupCount = STATUSES.length;
+                case STUDENT -> groupCount = studentCount;
+                default -> {
+                    long low = Math.max(fromSecond, minCreatedAt);
+                    long high = Math.min(toSecond - 1, maxCreatedAt);
+                    if (low > high) {
+                        return new Aggregation(List.of(), size - deleted);
+                    }
+                    long width = groupBy.bucketSeconds;
+                    long buckets = Math.floorDiv(high, width) - Math.floorDiv(low, width) + 1;
+                    if (buckets > MAX_GROUPS) {
+                        throw new IllegalArgumentException("Too many time buckets (" + buckets + "). " +
+                                "Narrow the from/to range or group by a coarser bucket.");
+                    }
+                    bucketBase = Math.floorDiv(low, width) * width;
+                    groupCount = (int) buckets;
+                }
+            }
+
+            Scan scan = new Scan(groupBy, status != null ? (byte) status.ordinal() : DELETED,
+                    fromSecond, toSecond, bucketBase, groupCount);
+            int slots = size;
+            int workers = ForkJoinPool.getCommonPoolParallelism();
+            int rangeSize = groupBy == GroupBy.STUDENT
+                    ? Math.max(scanChunkSize, (slots + workers - 1) / workers)
+                    : scanChunkSize;
+            int ranges = (slots + rangeSize - 1) / rangeSize;
+            Partial total = ranges <= 1
+                    ? scan.range(0, slots)
+                    : IntStream.range(0, ranges)
+                            .parallel()
+                            .mapToObj(range -> scan.range(range * rangeSize, Math.min(slots, (range + 1) * rangeSize)))
+                            .reduce(Partial::merge)
+                            .orElseThrow();
+
+            List<GroupTotal> groups = new ArrayList<>();
+            for (int group = 0; group < groupCount; group++) {
+                if (total.counts[group] > 0) {
+                    groups.add(new GroupTotal(scan.key(group), total.counts[group], total.sums[group]));
+                }
+            }
+            if (groups.size() > MAX_GROUPS) {
+                throw new IllegalArgumentException("Too many students (" + groups.size() + "). " +
+                        "Narrow the status or from/to filters.");
+            }
+            return new Aggregation(groups, size - deleted);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            long columnBytes = (long) ids.length * BYTES_PER_SLOT;
+            long studentBytes = (long) studentIds.length * Long.BYTES + (long) studentCount * BYTES_PER_STUDENT_ENTRY;
+            return new Stats(size - deleted, size, ids.length, studentCount, columnBytes, studentBytes, loadedAt);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void reset() {
+        ids = new long[INITIAL_CAPACITY];
+        cents = new long[INITIAL_CAPACITY];
+        students = new int[INITIAL_CAPACITY];
+        statuses = new byte[INITIAL_CAPACITY];
+        createdAt = new long[INITIAL_CAPACITY];
+        size = 0;
+        deleted = 0;
+        minCreatedAt = Long.MAX_VALUE;
+        maxCreatedAt = Long.MIN_VALUE;
+        studentIds = new long[64];
+        studentCount = 0;
+        studentIndex.clear();
+    }
+
+    /**
+     * Merges the shards' and segments' runs of slots, each already in id order, into one; the second copy of an
+     * order that a rebalance is moving between shards, or that is being archived, is dropped.
+     */
+    private void mergeRuns(int[] runs) {
+        int sources = runs.length - 1;
+        int[] heads = Arrays.copyOf(runs, sources);
+        long[] mergedIds = new long[ids.length];
+        long[] mergedCents = new long[ids.length];
+        int[] mergedStudents = new int[ids.length];
+        byte[] mergedStatuses = new byte[ids.length];
+        long[] mergedCreatedAt = new long[ids.length];
+        int merged = 0;
+        while (true) {
+            int pick = -1;
+            for (int run = 0; run < sources; run++) {
+                if (heads[run] < runs[run + 1] && (pick < 0 || ids[heads[run]] < ids[heads[pick]])) {
+                    pick = run;
+                }
+            }
+            if (pick < 0) {
+                break;
+            }
+            int slot = heads[pick]++;
+            if (merged > 0 && mergedIds[merged - 1] == ids[slot]) {
+                continue;
+            }
+            mergedIds[merged] = ids[slot];
+            mergedCents[merged] = cents[slot];
+            mergedStudents[merged] = students[slot];
+            mergedStatuses[merged] = statuses[slot];
+            mergedCreatedAt[merged] = createdAt[slot];
+            merged++;
+        }
+        ids = mergedIds;
+        cents = mergedCents;
+        students = mergedStudents;
+        statuses = mergedStatuses;
+        createdAt = mergedCreatedAt;
+        size = merged;
+    }
+
+    /**
+     * The order as archived, or {@code null} if it is in no segment either.
+     */
+    private Row archived(long id) {
+        for (OrderSegment segment : orderSegments.segments()) {
+            int row = segment.rowOf(id);
+            if (row >= 0) {
+                return Row.of(segment, row);
+            }
+        }
+        return null;
+    }
+
+    private void append(ResultSet rs) throws SQLException {
+        Row row = Row.of(rs);
+        ensureCapacity(size + 1);
+        write(size++, row);
+    }
+
+    private void upsert(Row row) {
+        int slot = Arrays.binarySearch(ids, 0, size, row.id());
+        if (slot >= 0) {
+            if (statuses[slot] == DELETED) {
+                deleted--;
+            }
+            write(slot, row);
+            return;
+        }
+        // New ids are almost always the largest, but concurrent inserts may commit out of id order
+        int insertAt = -slot - 1;
+        ensureCapacity(size + 1);
+        int tail = size - insertAt;
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, tail);
+        System.arraycopy(cents, insertAt, cents, insertAt + 1, tail);
+        System.arraycopy(students, insertAt, students, insertAt + 1, tail);
+        System.arraycopy(statuses, insertAt, statuses, insertAt + 1, tail);
+        System.arraycopy(createdAt, insertAt, createdAt, insertAt + 1, tail);
+        size++;
+        write(insertAt, row);
+    }
+
+    private void remove(long id) {
+        int slot = Arrays.binarySearch(ids, 0, size, id);
+        if (slot >= 0 && statuses[slot] != DELETED) {
+            statuses[slot] = DELETED;
+            deleted++;
+        }
+    }
+
+    private void write(int slot, Row row) {
+        ids[slot] = row.id();
+        cents[slot] = row.cents();
+        students[slot] = studentIndexOf(row.studentId());
+        statuses[slot] = (byte) row.status().ordinal();
+        createdAt[slot] = row.createdAt();
+        minCreatedAt = Math.min(minCreatedAt, row.createdAt());
+        maxCreatedAt = Math.max(maxCreatedAt, row.createdAt());
+    }
+
+    private int studentIndexOf(long studentId) {
+        Integer index = studentIndex.get(studentId);
+        if (index != null) {
+            return index;
+        }
+        if (studentCount == studentIds.length) {
+            studentIds = Arrays.copyOf(studentIds, studentCount * 2);
+        }
+        studentIds[studentCount] = studentId;
+        studentIndex.put(studentId, studentCount);
+        return studentCount++;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        cents = Arrays.copyOf(cents, capacity);
+        students = Arrays.copyOf(students, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+    }
+
+    private void compactIfSparse() {
+        if (deleted < INITIAL_CAPACITY || deleted * 4 < size) {
+            return;
+        }
+        int live = 0;
+        for (int i = 0; i < size; i++) {
+            if (statuses[i] == DELETED) {
+                continue;
+            }
+            ids[live] = ids[i];
+            cents[live] = cents[i];
+            students[live] = students[i];
+            statuses[live] = statuses[i];
+            createdAt[live] = createdAt[i];
+            live++;
+        }
+        size = live;
+        deleted = 0;
+    }
+
+    public enum GroupBy {
+        STATUS(0), STUDENT(0), HOUR(3_600), DAY(86_400);
+
+        private final long bucketSeconds;
+
+        GroupBy(long bucketSeconds) {
+            this.bucketSeconds = bucketSeconds;
+        }
+    }
+
+    /**
+     * @param key the status ordinal, the student id, or the bucket start in epoch seconds
+     */
+    public record GroupTotal(long key, long count, long sumCents) {}
+
+    public record Aggregation(List<GroupTotal> groups, int scannedOrders) {}
+
+    public record Stats(
+            int orders,
+            int slots,
+            int capacity,
+            int students,
+            long columnBytes,
+            long studentBytes,
+            Instant loadedAt
+    ) {}
+
+    private record Row(long id, long studentId, long cents, OrderStatus status, long createdAt) {
+
+        static Row of(ResultSet rs) throws SQLException {
+            BigDecimal total = rs.getBigDecimal("total");
+            return new Row(
+                    rs.getLong("id"),
+                    rs.getLong("student_id"),
+                    total.movePointRight(2).longValueExact(),
+                    OrderStatus.valueOf(rs.getString("status")),
+                    // created_at holds UTC wall-clock time, as Hibernate maps it to Instant
+                    rs.getTimestamp("created_at").toLocalDateTime().toEpochSecond(ZoneOffset.UTC));
+        }
+
+        static Row of(OrderSegment segment, int row) {
+            return new Row(segment.id(row), segment.studentId(row), segment.cents(row), segment.status(row),
+                    Math.floorDiv(segment.createdAt(row), 1_000_000L));
+        }
+    }
+
+    private record Partial(long[] counts, long[] sums) {
+
+        Partial merge(Partial other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+                sums[i] += other.sums[i];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * One aggregation over the columns; {@link #range} runs on a fork-join worker while the caller holds the read lock.
+     */
+    private final class Scan {
+
+        private final GroupBy groupBy;
+        private final byte status;
+        private final long fromSecond;
+        private final long toSecond;
+        private final long bucketBase;
+        private final int groupCount;
+
+        Scan(GroupBy groupBy, byte status, long fromSecond, long toSecond, long bucketBase, int groupCount) {
+            this.groupBy = groupBy;
+            this.status = status;
+            this.fromSecond = fromSecond;
+            this.toSecond = toSecond;
+            this.bucketBase = bucketBase;
+            this.groupCount = groupCount;
+        }
+
+        Partial range(int from, int to) {
+            long[] counts = new long[groupCount];
+            long[] sums = new long[groupCount];
+            long[] cents = OrderColumnSnapshot.this.cents;
+            int[] students = OrderColumnSnapshot.this.students;
+            byte[] statuses = OrderColumnSnapshot.this.statuses;
+            long[] createdAt = OrderColumnSnapshot.this.createdAt;
+            byte wanted = status;
+            long low = fromSecond;
+            long high = toSecond;
+            long base = bucketBase;
+            long width = groupBy.bucketSeconds;
+            // One loop per grouping keeps the per-row work free of the dispatch
+            switch (groupBy) {
+                case STATUS -> {
+                    for (int i = from; i < to; i++) {
+                        byte rowStatus = statuses[i];
+                        long second = createdAt[i];
+                        if (rowStatus != DELETED && (wanted == DELETED || rowStatus == wanted)
+                                && second >= low && second < high) {
+                            counts[rowStatus]++;
+                            sums[rowStatus] += cents[i];
+                        }
+                    }
+                }
+                case STUDENT -> {
+                    for (int i = from; i < to; i++) {
+                        byte rowStatus = statuses[i];
+                        long second = createdAt[i];
+                        if (rowStatus != DELETED && (wanted == DELETED || rowStatus == wanted)
+                                && second >= low && second < high) {
+                            int group = students[i];
+                            counts[group]++;
+                            sums[group] += cents[i];
+                        }
+                    }
+                }
+                default -> {
+                    for (int i = from; i < to; i++) {
+                        byte rowStatus = statuses[i];
+                        long second = createdAt[i];
+                        if (rowStatus != DELETED && (wanted == DELETED || rowStatus == wanted)
+                                && second >= low && second < high) {
+                            int group = (int) ((second - base) / width);
+                            counts[group]++;
+                            sums[group] += cents[i];
+                        }
+                    }
+                }
+            }
+            return new Partial(counts, sums);
+        }
+
+        long key(int group) {
+            return switch (groupBy) {
+                case STATUS -> group;
+                case STUDENT -> studentIds[group];
+                default -> bucketBase + group * groupBy.bucketSeconds;
+            };
+        }
+    }
+}
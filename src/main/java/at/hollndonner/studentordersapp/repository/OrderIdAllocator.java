@@ -0,0 +1,107 @@
+package at.hollndonner.studentordersapp.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Order ids for sharded inserts. The shards' own {@code AUTO_INCREMENT} can't be used: moving a student's orders
+ * to another shard inserts their ids explicitly, which pushes the target's counter into ids the source shard has
+ * already handed out. Instead one counter in the main database hands out blocks of values, and each id is
+ * {@code value * SHARD_SLOTS + shard}, so it also names the shard the order was created on.
+ * <p>
+ * The counter starts above every id already in the main database's {@code orders}, so ids assigned before
+ * sharding was turned on never repeat.
+ * <p>
+ * Blocks are fetched over a connection of their own rather than the application's pool: an order insert asks for
+ * ids while its transaction already holds a pooled connection, and with every pooled connection held that way a
+ * block fetch waiting for one more would never get it.
+ */
+class OrderIdAllocator {
+
+    static final int SHARD_SLOTS = 64;
+
+    private static final String NAME = "orders";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int blockSize;
+    private boolean seeded;
+    private long next;
+    private long end;
+
+    /**
+     * @param dataSource the main database, apart from the connections transactions work with
+     */
+    OrderIdAllocator(DataSource dataSource, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("orders.shards.id-block-size must be positive");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // Its own short transaction, so the counter row is never locked for longer than one block fetch
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    static int originShard(long id) {
+        return (int) Math.floorMod(id, (long) SHARD_SLOTS);
+    }
+
+    List<Long> allocate(int shard, int count) {
+        // A lock rather than a monitor, as a block fetch waits on the database while holding it
+        lock.lock();
+        try {
+            List<Long> ids = new ArrayList<>(count);
+            while (ids.size() < count) {
+                if (next == end) {
+                    fetchBlock(Math.max(blockSize, count - ids.size()));
+                }
+                ids.add(next++ * SHARD_SLOTS + shard);
+            }
+            return ids;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fetchBlock(int size) {
+        long last = transactionTemplate.execute(status -> {
+            if (!seeded) {
+                seed();
+            }
+            jdbcTemplate.update("UPDATE order_id_sequence SET next_value = next_value + ? WHERE name = ?",
+                    size, NAME);
+            return jdbcTemplate.queryForObject("SELECT next_value FROM order_id_sequence WHERE name = ?",
+                    Long.class, NAME);
+        });
+        seeded = true;
+        next = last - size;
+        end = last;
+    }
+
+    /**
+     * Moves the counter past the ids in the main database, which grow from its {@code AUTO_INCREMENT}
+     * whenever the app runs unsharded.
+     */
+    private void seed() {
+        String floor = "(SELECT FLOOR(COALESCE(MAX(id), 0) / " + SHARD_SLOTS + ") + 1 FROM orders)";
+        int updated = jdbcTemplate.update(
+                "UPDATE order_id_sequence SET next_value = GREATEST(next_value, " + floor + ") WHERE name = ?", NAME);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO order_id_sequence (name, next_value) SELECT ?, " + floor, NAME);
+            } catch (DuplicateKeyException ex) {
+                // Another instance created the row first; it was seeded from the same orders
+            }
+        }
+    }
+}
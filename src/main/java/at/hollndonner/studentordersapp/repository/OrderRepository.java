@@ -1,26 +1,59 @@
 package at.hollndonner.studentordersapp.repository;
 
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
 import at.hollndonner.studentordersapp.model.Order;
 import at.hollndonner.studentordersapp.model.OrderStatus;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.util.Optional;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
-
-    @Query("SELECT o FROM Order o WHERE " +
-           "(:studentId IS NULL OR o.student.id = :studentId) AND " +
-           "(:status IS NULL OR o.status = :status) AND " +
-           "(:minTotal IS NULL OR o.total >= :minTotal) AND " +
-           "(:maxTotal IS NULL OR o.total <= :maxTotal)")
-    Page<Order> findWithFilters(
-            @Param("studentId") Long studentId,
-            @Param("status") OrderStatus status,
-            @Param("minTotal") BigDecimal minTotal,
-            @Param("maxTotal") BigDecimal maxTotal,
-            Pageable pageable);
+/**
+ * Writes are single statements guarded by the row's version: a {@code null} version means
+ * "any version", so callers without an {@code If-Match} still get an atomic update.
+ * The affected-row count tells whether the row was still at that version.
+ */
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
+
+    @Query("SELECT new at.hollndonner.studentordersapp.dto.order.OrderResponse(" +
+           "o.id, o.student.id, o.total, o.createdAt, o.status) " +
+           "FROM Order o WHERE o.id = :id")
+    Optional<OrderResponse> findResponseById(@Param("id") Long id);
+
+    /**
+     * Same projection as {@link #findResponseById}, but locks the row until the transaction ends,
+     * so a writer can derive summary deltas from the values it is about to overwrite.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new at.hollndonner.studentordersapp.dto.order.OrderResponse(" +
+           "o.id, o.student.id, o.total, o.createdAt, o.status) " +
+           "FROM Order o WHERE o.id = :id")
+    Optional<OrderResponse> findResponseByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT o.version FROM Order o WHERE o.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.total = :total, o.status = :status, o.version = o.version + 1 " +
+           "WHERE o.id = :id AND (:version IS NULL OR o.version = :version)")
+    int updateTotalAndStatus(@Param("id") Long id,
+                             @Param("total") BigDecimal total,
+                             @Param("status") OrderStatus status,
+                             @Param("version") Long version);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.version = o.version + 1 " +
+           "WHERE o.id = :id AND (:version IS NULL OR o.version = :version)")
+    int updateStatus(@Param("id") Long id,
+                     @Param("status") OrderStatus status,
+                     @Param("version") Long version);
+
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.id = :id AND (:version IS NULL OR o.version = :version)")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
 }
@@ -0,0 +1,66 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Filtered order queries built from only the predicates that are actually present,
+ * so the database can pick the matching composite index for each filter shape.
+ * Rows are selected straight into {@link OrderResponse}, so no entities or student proxies are hydrated.
+ */
+public interface OrderRepositoryCustom {
+
+    /**
+     * Offset-paginated listing. {@code null} filter values are left out of the query.
+     * The pageable's sort must already be restricted via {@link OrderSorting#resolve}.
+     */
+    Page<OrderResponse> findWithFilters(
+            Long studentId,
+            OrderStatus status,
+            BigDecimal minTotal,
+            BigDecimal maxTotal,
+            Pageable pageable);
+
+    /**
+     * Count-free variant of {@link #findWithFilters}: fetches one extra row to tell whether a next page exists.
+     */
+    Slice<OrderResponse> findSliceWithFilters(
+            Long studentId,
+            OrderStatus status,
+            BigDecimal minTotal,
+            BigDecimal maxTotal,
+            Pageable pageable);
+
+    /**
+     * Keyset variant of {@link #findWithFilters}: seeks past {@code (afterCreatedAt, afterId)} instead of
+     * skipping an offset, ordered by {@code (createdAt DESC, id DESC)}. A {@code null} cursor starts at the newest order.
+     */
+    List<OrderResponse> findWithFiltersAfter(
+            Long studentId,
+            OrderStatus status,
+            BigDecimal minTotal,
+            BigDecimal maxTotal,
+            Instant afterCreatedAt,
+            Long afterId,
+            Limit limit);
+
+    /**
+     * Forward-only stream of every matching order in {@code (createdAt DESC, id DESC)} order,
+     * read with the {@code orders.export.fetch-size} JDBC fetch size, or row by row on MySQL.
+     * Must be consumed and closed inside a transaction, without other queries until then.
+     */
+    Stream<OrderResponse> streamWithFilters(
+            Long studentId,
+            OrderStatus status,
+            BigDecimal minTotal,
+            BigDecimal maxTotal);
+}
@@ -0,0 +1,212 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.model.Order;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${orders.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    private final OrderSummaryRepository orderSummaryRepository;
+
+    OrderRepositoryCustomImpl(OrderSummaryRepository orderSummaryRepository) {
+        this.orderSummaryRepository = orderSummaryRepository;
+    }
+
+    @Override
+    public Page<OrderResponse> findWithFilters(Long studentId,
+                                               OrderStatus status,
+                                               BigDecimal minTotal,
+                                               BigDecimal maxTotal,
+                                               Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        List<OrderResponse> content = entityManager.createQuery(pageQuery(cb, studentId, status, minTotal, maxTotal, pageable))
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        // Only runs the count when the page itself cannot tell us the total
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> count(studentId, status, minTotal, maxTotal));
+    }
+
+    @Override
+    public Slice<OrderResponse> findSliceWithFilters(Long studentId,
+                                                     OrderStatus status,
+                                                     BigDecimal minTotal,
+                                                     BigDecimal maxTotal,
+                                                     Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        List<OrderResponse> content = entityManager.createQuery(pageQuery(cb, studentId, status, minTotal, maxTotal, pageable))
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public List<OrderResponse> findWithFiltersAfter(Long studentId,
+                                                    OrderStatus status,
+                                                    BigDecimal minTotal,
+                                                    BigDecimal maxTotal,
+                                                    Instant afterCreatedAt,
+                                                    Long afterId,
+                                                    Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<OrderResponse> query = cb.createQuery(OrderResponse.class);
+        Root<Order> order = query.from(Order.class);
+        List<Predicate> predicates = filters(cb, order, studentId, status, minTotal, maxTotal);
+        if (afterCreatedAt != null && afterId != null) {
+            Path<Instant> createdAt = order.get("createdAt");
+            predicates.add(cb.or(
+                    cb.lessThan(createdAt, afterCreatedAt),
+                    cb.and(cb.equal(createdAt, afterCreatedAt), cb.lessThan(order.get("id"), afterId))));
+        }
+        query.select(response(cb, order))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(indexOrder(cb, order, Sort.Direction.DESC));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit.max())
+                .getResultList();
+    }
+
+    @Override
+    public Stream<OrderResponse> streamWithFilters(Long studentId,
+                                                   OrderStatus status,
+                                                   BigDecimal minTotal,
+                                                   BigDecimal maxTotal) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        // DTO rows never enter the persistence context, so memory stays flat however many rows are read
+        int fetchSize = entityManager.unwrap(Session.class)
+                .doReturningWork(connection -> StreamingFetch.size(connection, exportFetchSize));
+        return entityManager.createQuery(pageQuery(cb, studentId, status, minTotal, maxTotal, Pageable.unpaged()))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    private CriteriaQuery<OrderResponse> pageQuery(CriteriaBuilder cb,
+                                                   Long studentId,
+                                                   OrderStatus status,
+                                                   BigDecimal minTotal,
+                                                   BigDecimal maxTotal,
+                                                   Pageable pageable) {
+        CriteriaQuery<OrderResponse> query = cb.createQuery(OrderResponse.class);
+        Root<Order> order = query.from(Order.class);
+        return query.select(response(cb, order))
+                .where(filters(cb, order, studentId, status, minTotal, maxTotal).toArray(Predicate[]::new))
+                .orderBy(indexOrder(cb, order, direction(pageable.getSort())));
+    }
+
+    /**
+     * Constructor projection; {@code student.id} resolves to the {@code student_id} column without a join.
+     */
+    private static CompoundSelection<OrderResponse> response(CriteriaBuilder cb, Root<Order> order) {
+        return cb.construct(OrderResponse.class,
+                order.get("id"),
+                order.get("student").get("id"),
+                order.get("total"),
+                order.get("createdAt"),
+                order.get("status"));
+    }
+
+    private long count(Long studentId, OrderStatus status, BigDecimal minTotal, BigDecimal maxTotal) {
+        if (studentId != null && minTotal == null && maxTotal == null) {
+            // A student's listing without total bounds is answered by the maintained summary
+            return orderSummaryRepository.countOrders(studentId, status);
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Order> order = query.from(Order.class);
+        query.select(cb.count(order))
+                .where(filters(cb, order, studentId, status, minTotal, maxTotal).toArray(Predicate[]::new));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Emits only the predicates that are present. Total bounds are residual filters;
+     * the equality on {@code student_id} or {@code status} picks the index.
+     */
+    private List<Predicate> filters(CriteriaBuilder cb,
+                                    Root<Order> order,
+                                    Long studentId,
+                                    OrderStatus status,
+                                    BigDecimal minTotal,
+                                    BigDecimal maxTotal) {
+        List<Predicate> predicates = new ArrayList<>(5);
+        if (studentId != null) {
+            predicates.add(cb.equal(order.get("student").get("id"), studentId));
+        }
+        if (status != null) {
+            predicates.add(cb.equal(order.get("status"), status));
+        }
+        if (minTotal != null) {
+            predicates.add(cb.greaterThanOrEqualTo(order.get("total"), minTotal));
+        }
+        if (maxTotal != null) {
+            predicates.add(cb.lessThanOrEqualTo(order.get("total"), maxTotal));
+        }
+        return predicates;
+    }
+
+    /**
+     * Every filter shape has an index ending in {@code (created_at DESC, id DESC)}:
+     * {@code idx_student_created_at}, {@code idx_status_created_at} or {@code idx_created_at}.
+     * Ordering by exactly those columns in one direction lets MySQL walk that index
+     * (backwards for ascending requests) instead of running a filesort.
+     */
+    private List<jakarta.persistence.criteria.Order> indexOrder(CriteriaBuilder cb,
+                                                               Root<Order> order,
+                                                               Sort.Direction direction) {
+        return List.of(order(cb, order.get("createdAt"), direction), order(cb, order.get("id"), direction));
+    }
+
+    private static jakarta.persistence.criteria.Order order(CriteriaBuilder cb,
+                                                            Expression<?> expression,
+                                                            Sort.Direction direction) {
+        return direction.isAscending() ? cb.asc(expression) : cb.desc(expression);
+    }
+
+    private static Sort.Direction direction(Sort sort) {
+        Sort.Order createdAt = sort.getOrderFor("createdAt");
+        return createdAt != null ? createdAt.getDirection() : Sort.Direction.DESC;
+    }
+}
@@ -0,0 +1,357 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import at.hollndonner.studentordersapp.repository.OrderShardRepository.StoredOrder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * One immutable file of archived orders, read through a memory mapping. Rows are sorted by
+ * {@code (created_at, id)}, so a listing reads a segment from one end, and the header records the segment's
+ * time, student id and order id ranges so whole segments can be skipped.
+ * <p>
+ * Each column is frame-of-reference packed: the column's minimum is stored once and every row holds only its
+ * distance from it, in as few whole bytes as the column's range needs. Archived orders mostly share one status and
+ * version and have ids, students and creation times from narrow ranges, so a row takes a fraction of its width in
+ * {@code orders} and any row is still one multiplication away, without inflating anything. A last column lists the
+ * rows in id order, for finding an order by id with a binary search.
+ * <p>
+ * {@code created_at} is kept as stored, in microseconds of UTC wall-clock time, as Hibernate maps it to an
+ * {@code Instant}.
+ */
+public final class OrderSegment {
+
+    static final String SUFFIX = ".seg";
+
+    private static final int MAGIC = 0x4F534547;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int ID = 0;
+    private static final int STUDENT = 1;
+    private static final int CENTS = 2;
+    private static final int CREATED_AT = 3;
+    private static final int VERSION = 4;
+    private static final int STATUS = 5;
+    private static final int BY_ID = 6;
+    private static final int COLUMNS = 7;
+
+    // magic, format version, rows, six range bounds, the columns' base, width and offset, data checksum
+    private static final int HEADER_BYTES = Integer.BYTES * 3 + Long.BYTES * 6
+            + COLUMNS * (Long.BYTES + 1 + Integer.BYTES) + Long.BYTES;
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final Path path;
+    private final ByteBuffer data;
+    private final int rows;
+    private final long minCreatedAt;
+    private final long maxCreatedAt;
+    private final long minStudentId;
+    private final long maxStudentId;
+    private final long minId;
+    private final long maxId;
+    private final long[] bases = new long[COLUMNS];
+    private final int[] widths = new int[COLUMNS];
+    private final int[] offsets = new int[COLUMNS];
+
+    private OrderSegment(Path path, ByteBuffer data) {
+        this.path = path;
+        this.data = data;
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not an order segment: " + path);
+        }
+        if (data.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported order segment format " + data.getInt(4) + ": " + path);
+        }
+        this.rows = data.getInt(8);
+        this.minCreatedAt = data.getLong(12);
+        this.maxCreatedAt = data.getLong(20);
+        this.minStudentId = data.getLong(28);
+        this.maxStudentId = data.getLong(36);
+        this.minId = data.getLong(44);
+        this.maxId = data.getLong(52);
+        int position = 60;
+        for (int column = 0; column < COLUMNS; column++) {
+            bases[column] = data.getLong(position);
+            widths[column] = data.get(position + Long.BYTES);
+            offsets[column] = data.getInt(position + Long.BYTES + 1);
+            position += Long.BYTES + 1 + Integer.BYTES;
+            if (widths[column] < 0 || widths[column] > Long.BYTES
+                    || (long) offsets[column] + (long) widths[column] * rows > data.capacity()) {
+                throw new IllegalStateException("Corrupt order segment header: " + path);
+            }
+        }
+        if (data.getLong(position) != checksum(data)) {
+            throw new IllegalStateException("Order segment checksum mismatch: " + path);
+        }
+    }
+
+    /**
+     * Maps an existing segment file and verifies its checksum.
+     */
+    static OrderSegment open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new OrderSegment(path, buffer.order(ByteOrder.LITTLE_ENDIAN));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open order segment " + path, ex);
+        }
+    }
+
+    /**
+     * Writes the orders as a new segment at {@code path} and opens it. The file appears under its name only once
+     * it is complete, so a crash never leaves a partial segment behind that would be opened.
+     */
+    static OrderSegment write(Path path, List<StoredOrder> orders) {
+        if (orders.isEmpty()) {
+            throw new IllegalArgumentException("A segment needs at least one order");
+        }
+        List<StoredOrder> sorted = new ArrayList<>(orders);
+        sorted.sort(Comparator.comparingLong((StoredOrder order) -> micros(order.createdAt()))
+                .thenComparingLong(StoredOrder::id));
+        int rows = sorted.size();
+        long[][] values = new long[COLUMNS][rows];
+        for (int row = 0; row < rows; row++) {
+            StoredOrder order = sorted.get(row);
+            values[ID][row] = order.id();
+            values[STUDENT][row] = order.studentId();
+            values[CENTS][row] = order.total().movePointRight(2).longValueExact();
+            values[CREATED_AT][row] = micros(order.createdAt());
+            values[VERSION][row] = order.version();
+            values[STATUS][row] = order.status().ordinal();
+        }
+        values[BY_ID] = IntStream.range(0, rows).boxed()
+                .sorted(Comparator.comparingLong(row -> values[ID][row]))
+                .mapToLong(Integer::longValue)
+                .toArray();
+
+        long[] bases = new long[COLUMNS];
+        long[] maxima = new long[COLUMNS];
+        int[] widths = new int[COLUMNS];
+        long size = HEADER_BYTES;
+        for (int column = 0; column < COLUMNS; column++) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (long value : values[column]) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            bases[column] = min;
+            maxima[column] = max;
+            widths[column] = (Long.SIZE - Long.numberOfLeadingZeros(max - min) + 7) / 8;
+            size += (long) widths[column] * rows;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many orders for one segment: " + rows);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(rows);
+        buffer.putLong(values[CREATED_AT][0]).putLong(values[CREATED_AT][rows - 1]);
+        buffer.putLong(bases[STUDENT]).putLong(maxima[STUDENT]);
+        buffer.putLong(bases[ID]).putLong(maxima[ID]);
+        int offset = HEADER_BYTES;
+        for (int column = 0; column < COLUMNS; column++) {
+            buffer.putLong(bases[column]).put((byte) widths[column]).putInt(offset);
+            offset += widths[column] * rows;
+        }
+        int checksumAt = buffer.position();
+        buffer.putLong(0);
+        for (int column = 0; column < COLUMNS; column++) {
+            for (long value : values[column]) {
+                long packed = value - bases[column];
+                for (int b = 0; b < widths[column]; b++) {
+                    buffer.put((byte) (packed >>> (8 * b)));
+                }
+            }
+        }
+        buffer.putLong(checksumAt, checksum(buffer));
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                // On disk before it is renamed, and before the orders are deleted from the database
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            // The rename itself is only durable once the directory is
+            forceDirectory(path.getParent());
+        } catch (IOException ex) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // The temp file is ignored by the store and overwritten by the next attempt
+            }
+            throw new UncheckedIOException("Could not write order segment " + path, ex);
+        }
+        return open(path);
+    }
+
+    public String name() {
+        return path.getFileName().toString();
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    public long bytes() {
+        return data.capacity();
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long minCreatedAt() {
+        return minCreatedAt;
+    }
+
+    long maxCreatedAt() {
+        return maxCreatedAt;
+    }
+
+    boolean mayContainStudent(long studentId) {
+        return studentId >= minStudentId && studentId <= maxStudentId;
+    }
+
+    /**
+     * The row holding the order, or {@code -1}.
+     */
+    int rowOf(long id) {
+        if (id < minId || id > maxId) {
+            return -1;
+        }
+        int low = 0;
+        int high = rows - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int row = (int) get(BY_ID, mid);
+            long found = get(ID, row);
+            if (found < id) {
+                low = mid + 1;
+            } else if (found > id) {
+                high = mid - 1;
+            } else {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The first row at or after {@code (createdAt, id)} in the segment's order.
+     */
+    int rowAtOrAfter(long createdAt, long id) {
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long midCreatedAt = createdAt(mid);
+            if (midCreatedAt < createdAt || (midCreatedAt == createdAt && id(mid) < id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The row at {@code position} in id order.
+     */
+    int rowInIdOrder(int position) {
+        return (int) get(BY_ID, position);
+    }
+
+    long id(int row) {
+        return get(ID, row);
+    }
+
+    long studentId(int row) {
+        return get(STUDENT, row);
+    }
+
+    long cents(int row) {
+        return get(CENTS, row);
+    }
+
+    long createdAt(int row) {
+        return get(CREATED_AT, row);
+    }
+
+    long version(int row) {
+        return get(VERSION, row);
+    }
+
+    OrderStatus status(int row) {
+        return STATUSES[(int) get(STATUS, row)];
+    }
+
+    StoredOrder order(int row) {
+        return new StoredOrder(id(row), studentId(row), BigDecimal.valueOf(cents(row), 2), status(row),
+                Timestamp.valueOf(dateTime(createdAt(row))), version(row));
+    }
+
+    /**
+     * Flushes the directory's entries, so files created, renamed or deleted in it survive a crash.
+     */
+    static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    static long micros(Timestamp timestamp) {
+        return micros(timestamp.toLocalDateTime());
+    }
+
+    static long micros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+
+    static LocalDateTime dateTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private long get(int column, int row) {
+        int width = widths[column];
+        int position = offsets[column] + row * width;
+        long packed = 0;
+        for (int b = 0; b < width; b++) {
+            packed |= (data.get(position + b) & 0xFFL) << (8 * b);
+        }
+        return bases[column] + packed;
+    }
+
+    private static long checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(HEADER_BYTES).limit(buffer.capacity()));
+        return crc.getValue();
+    }
+}
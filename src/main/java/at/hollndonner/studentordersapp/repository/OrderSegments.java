@@ -0,0 +1,474 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.dto.student.OrderStatusSummary;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import at.hollndonner.studentordersapp.repository.OrderShardRepository.StoredOrder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The archived orders: every {@link OrderSegment} in {@code orders.archive.directory}, answering the same lookups
+ * as {@code orders} does for the orders still in the database. Readers work on an immutable list of open segments
+ * that is swapped as a whole when segments are added or replaced, so they never wait for a writer.
+ * <p>
+ * Segments are only ever replaced, never changed: removing a student's archived orders writes the affected segments
+ * anew without them. Other instances sharing the directory see new and replaced segments on their next
+ * {@link #rescan()}.
+ */
+@Slf4j
+@Repository
+public class OrderSegments {
+
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final long MICROS_PER_DAY = 86_400_000_000L;
+
+    private final Path directory;
+    // Serializes changes to the segment list; reads never take it
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile List<OrderSegment> segments = List.of();
+
+    public OrderSegments(@Value("${orders.archive.directory:data/order-archive}") String directory) {
+        this.directory = Path.of(directory);
+        rescan();
+    }
+
+    /**
+     * Opens segments that appeared in the directory since the last scan and drops those that are gone.
+     */
+    public void rescan() {
+        writeLock.lock();
+        try {
+            if (!Files.isDirectory(directory)) {
+                return;
+            }
+            Map<Path, OrderSegment> open = new HashMap<>();
+            segments.forEach(segment -> open.put(segment.path(), segment));
+            List<OrderSegment> scanned = new ArrayList<>();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(file -> file.getFileName().toString().endsWith(OrderSegment.SUFFIX)).toList()) {
+                    OrderSegment segment = open.get(file);
+                    scanned.add(segment != null ? segment : OrderSegment.open(file));
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not list order segments in " + directory, ex);
+            }
+            if (!open.keySet().equals(scanned.stream().map(OrderSegment::path).collect(Collectors.toSet()))) {
+                publish(scanned);
+                log.info("Opened {} order segments with {} archived orders", scanned.size(),
+                        scanned.stream().mapToLong(OrderSegment::size).sum());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * Writes the orders as a new segment and makes it visible to readers.
+     */
+    public OrderSegment append(List<StoredOrder> orders) {
+        writeLock.lock();
+        try {
+            Files.createDirectories(directory);
+            OrderSegment segment = OrderSegment.write(newPath(), orders);
+            List<OrderSegment> updated = new ArrayList<>(segments);
+            updated.add(segment);
+            publish(updated);
+            return segment;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not create " + directory, ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Takes back a segment whose orders could not be removed from the database after all.
+     */
+    public void discard(OrderSegment segment) {
+        writeLock.lock();
+        try {
+            publish(segments.stream().filter(open -> open != segment).toList());
+            Files.deleteIfExists(segment.path());
+            OrderSegment.forceDirectory(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not delete order segment " + segment.path(), ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites every segment holding orders of the student without them.
+     *
+     * @return the number of archived orders removed
+     */
+    public int removeStudent(long studentId) {
+        writeLock.lock();
+        try {
+            int removed = 0;
+            List<OrderSegment> updated = new ArrayList<>(segments);
+            for (int i = 0; i < updated.size(); i++) {
+                OrderSegment segment = updated.get(i);
+                if (!segment.mayContainStudent(studentId)) {
+                    continue;
+                }
+                List<StoredOrder> kept = new ArrayList<>(segment.size());
+                for (int row = 0; row < segment.size(); row++) {
+                    if (segment.studentId(row) != studentId) {
+                        kept.add(segment.order(row));
+                    }
+                }
+                if (kept.size() == segment.size()) {
+                    continue;
+                }
+                removed += segment.size() - kept.size();
+                // The replacement exists before the original goes, so a crash in between only leaves duplicates
+                updated.set(i, kept.isEmpty() ? null : OrderSegment.write(newPath(), kept));
+                Files.deleteIfExists(segment.path());
+            }
+            if (removed > 0) {
+                // Otherwise a crash could bring the deleted originals back
+                OrderSegment.forceDirectory(directory);
+            }
+            updated.removeIf(segment -> segment == null);
+            publish(updated);
+            return removed;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not replace order segments in " + directory, ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Every student with archived orders.
+     */
+    public Set<Long> studentIds() {
+        Set<Long> studentIds = new HashSet<>();
+        for (OrderSegment segment : segments) {
+            for (int row = 0; row < segment.size(); row++) {
+                studentIds.add(segment.studentId(row));
+            }
+        }
+        return studentIds;
+    }
+
+    /**
+     * The segments as readers currently see them, newest orders last.
+     */
+    List<OrderSegment> segments() {
+        return segments;
+    }
+
+    public Optional<OrderResponse> findResponseById(long id) {
+        return find(id, (segment, row) -> response(segment, row));
+    }
+
+    public Optional<Long> findVersionById(long id) {
+        return find(id, OrderSegment::version);
+    }
+
+    /**
+     * Up to {@code limit} matching orders in {@code (createdAt, id)} order, ascending or descending, optionally only
+     * those past {@code (afterCreatedAt, afterId)} in that order. Segments are read from the end the order starts at,
+     * and a segment is skipped entirely once its time range cannot improve on what was already found.
+     */
+    public List<OrderResponse> findWithFilters(Long studentId,
+                                               OrderStatus status,
+                                               BigDecimal minTotal,
+                                               BigDecimal maxTotal,
+                                               boolean ascending,
+                                               Instant afterCreatedAt,
+                                               Long afterId,
+                                               int limit) {
+        Filter filter = Filter.of(studentId, status, minTotal, maxTotal);
+        boolean keyset = afterCreatedAt != null && afterId != null;
+        long afterMicros = keyset ? OrderSegment.micros(LocalDateTime.ofInstant(afterCreatedAt, ZoneOffset.UTC)) : 0;
+        Comparator<Key> order = ascending ? Comparator.naturalOrder() : Comparator.reverseOrder();
+        // The worst of the best rows so far sits at the head
+        PriorityQueue<Key> best = new PriorityQueue<>(Math.max(1, limit), order.reversed());
+
+        List<OrderSegment> candidates = new ArrayList<>(segments);
+        candidates.sort(ascending
+                ? Comparator.comparingLong(OrderSegment::minCreatedAt)
+                : Comparator.comparingLong(OrderSegment::maxCreatedAt).reversed());
+        for (OrderSegment segment : candidates) {
+            if (limit == 0) {
+                break;
+            }
+            if (!filter.mayMatch(segment) || (keyset && !(ascending
+                    ? segment.maxCreatedAt() >= afterMicros
+                    : segment.minCreatedAt() <= afterMicros))) {
+                continue;
+            }
+            if (best.size() == limit) {
+                long worst = best.peek().createdAt();
+                if (ascending ? segment.minCreatedAt() > worst : segment.maxCreatedAt() < worst) {
+                    // Candidates come in order of their nearest end, so no later segment can do better either
+                    break;
+                }
+            }
+            int found = 0;
+            int step = ascending ? 1 : -1;
+            int row;
+            if (keyset) {
+                row = ascending
+                        ? segment.rowAtOrAfter(afterMicros, afterId + 1)
+                        : segment.rowAtOrAfter(afterMicros, afterId) - 1;
+            } else {
+                row = ascending ? 0 : segment.size() - 1;
+            }
+            for (; row >= 0 && row < segment.size() && found < limit; row += step) {
+                if (!filter.matches(segment, row)) {
+                    continue;
+                }
+                found++;
+                Key key = new Key(segment.createdAt(row), segment.id(row), segment, row);
+                if (best.size() < limit) {
+                    best.add(key);
+                } else if (order.compare(key, best.peek()) < 0) {
+                    best.poll();
+                    best.add(key);
+                } else {
+                    // Rows further on in this segment only get worse
+                    break;
+                }
+            }
+        }
+        List<Key> keys = new ArrayList<>(best);
+        keys.sort(order);
+        return keys.stream().map(key -> response(key.segment(), key.row())).toList();
+    }
+
+    public long count(Long studentId, OrderStatus status, BigDecimal minTotal, BigDecimal maxTotal) {
+        Filter filter = Filter.of(studentId, status, minTotal, maxTotal);
+        long count = 0;
+        for (OrderSegment segment : segments) {
+            if (!filter.mayMatch(segment)) {
+                continue;
+            }
+            if (filter.isEmpty()) {
+                count += segment.size();
+                continue;
+            }
+            for (int row = 0; row < segment.size(); row++) {
+                if (filter.matches(segment, row)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The student's archived order count and total per status, for the statuses the student has archived orders in.
+     */
+    public List<OrderStatusSummary> summarize(long studentId) {
+        Map<OrderStatus, long[]> totals = new EnumMap<>(OrderStatus.class);
+        for (OrderSegment segment : segments) {
+            if (!segment.mayContainStudent(studentId)) {
+                continue;
+            }
+            for (int row = 0; row < segment.size(); row++) {
+                if (segment.studentId(row) == studentId) {
+                    long[] total = totals.computeIfAbsent(segment.status(row), status -> new long[2]);
+                    total[0]++;
+                    total[1] += segment.cents(row);
+                }
+            }
+        }
+        return totals.entrySet().stream()
+                .map(entry -> new OrderStatusSummary(entry.getKey(), entry.getValue()[0],
+                        BigDecimal.valueOf(entry.getValue()[1], 2)))
+                .toList();
+    }
+
+    /**
+     * The creation days of the student's archived orders.
+     */
+    public Set<LocalDate> daysOf(long studentId) {
+        Set<LocalDate> days = new HashSet<>();
+        for (OrderSegment segment : segments) {
+            if (!segment.mayContainStudent(studentId)) {
+                continue;
+            }
+            for (int row = 0; row < segment.size(); row++) {
+                if (segment.studentId(row) == studentId) {
+                    days.add(LocalDate.ofEpochDay(Math.floorDiv(segment.createdAt(row), MICROS_PER_DAY)));
+                }
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Archived order counts and totals per creation day, student and status, for orders created in
+     * {@code [from, to)}.
+     */
+    public List<DayTotal> totalsByDay(LocalDateTime from, LocalDateTime to) {
+        long fromMicros = OrderSegment.micros(from);
+        long toMicros = OrderSegment.micros(to);
+        Map<DayKey, long[]> totals = new HashMap<>();
+        for (OrderSegment segment : segments) {
+            if (segment.maxCreatedAt() < fromMicros || segment.minCreatedAt() >= toMicros) {
+                continue;
+            }
+            for (int row = segment.rowAtOrAfter(fromMicros, Long.MIN_VALUE);
+                 row < segment.size() && segment.createdAt(row) < toMicros; row++) {
+                DayKey key = new DayKey(Math.floorDiv(segment.createdAt(row), MICROS_PER_DAY), segment.studentId(row),
+                        segment.status(row));
+                long[] total = totals.computeIfAbsent(key, day -> new long[2]);
+                total[0]++;
+                total[1] += segment.cents(row);
+            }
+        }
+        return totals.entrySet().stream()
+                .map(entry -> new DayTotal(LocalDate.ofEpochDay(entry.getKey().epochDay()), entry.getKey().studentId(),
+                        entry.getKey().status(), entry.getValue()[0], BigDecimal.valueOf(entry.getValue()[1], 2)))
+                .toList();
+    }
+
+    /**
+     * Creation time of the oldest archived order, as stored.
+     */
+    Optional<LocalDateTime> oldestCreatedAt() {
+        List<OrderSegment> current = segments;
+        // The list is sorted by each segment's oldest order
+        return current.isEmpty() ? Optional.empty() : Optional.of(OrderSegment.dateTime(current.get(0).minCreatedAt()));
+    }
+
+    public Stats stats() {
+        List<OrderSegment> current = segments;
+        if (current.isEmpty()) {
+            return new Stats(0, 0, 0, null, null);
+        }
+        return new Stats(current.size(),
+                current.stream().mapToLong(OrderSegment::size).sum(),
+                current.stream().mapToLong(OrderSegment::bytes).sum(),
+                // The list is sorted by each segment's oldest order
+                instant(current.get(0).minCreatedAt()),
+                instant(current.stream().mapToLong(OrderSegment::maxCreatedAt).max().getAsLong()));
+    }
+
+    static Instant instant(long micros) {
+        return OrderSegment.dateTime(micros).toInstant(ZoneOffset.UTC);
+    }
+
+    private <T> Optional<T> find(long id, RowReader<T> reader) {
+        for (OrderSegment segment : segments) {
+            int row = segment.rowOf(id);
+            if (row >= 0) {
+                return Optional.of(reader.read(segment, row));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static OrderResponse response(OrderSegment segment, int row) {
+        return new OrderResponse(segment.id(row), segment.studentId(row), BigDecimal.valueOf(segment.cents(row), 2),
+                instant(segment.createdAt(row)), segment.status(row));
+    }
+
+    private void publish(List<OrderSegment> updated) {
+        List<OrderSegment> sorted = new ArrayList<>(updated);
+        sorted.sort(Comparator.comparingLong(OrderSegment::minCreatedAt));
+        segments = List.copyOf(sorted);
+    }
+
+    private Path newPath() {
+        return directory.resolve("orders-" + UUID.randomUUID() + OrderSegment.SUFFIX);
+    }
+
+    /**
+     * Segment-level summary: how many orders are archived and how much disk and page cache they take.
+     */
+    public record Stats(int segments, long orders, long bytes, Instant oldest, Instant newest) {}
+
+    public record DayTotal(LocalDate date, long studentId, OrderStatus status, long orderCount, BigDecimal revenue) {}
+
+    private record DayKey(long epochDay, long studentId, OrderStatus status) {}
+
+    @FunctionalInterface
+    private interface RowReader<T> {
+        T read(OrderSegment segment, int row);
+    }
+
+    private record Key(long createdAt, long id, OrderSegment segment, int row) implements Comparable<Key> {
+
+        @Override
+        public int compareTo(Key other) {
+            int byTime = Long.compare(createdAt, other.createdAt);
+            return byTime != 0 ? byTime : Long.compare(id, other.id);
+        }
+    }
+
+    /**
+     * The filters of an order listing with totals in cents, bounds rounded inwards.
+     */
+    private record Filter(Long studentId, OrderStatus status, long minCents, long maxCents) {
+
+        static Filter of(Long studentId, OrderStatus status, BigDecimal minTotal, BigDecimal maxTotal) {
+            return new Filter(studentId, status,
+                    minTotal == null ? Long.MIN_VALUE : cents(minTotal, RoundingMode.CEILING),
+                    maxTotal == null ? Long.MAX_VALUE : cents(maxTotal, RoundingMode.FLOOR));
+        }
+
+        boolean isEmpty() {
+            return studentId == null && status == null && minCents == Long.MIN_VALUE && maxCents == Long.MAX_VALUE;
+        }
+
+        boolean mayMatch(OrderSegment segment) {
+            return studentId == null || segment.mayContainStudent(studentId);
+        }
+
+        boolean matches(OrderSegment segment, int row) {
+            if (studentId != null && segment.studentId(row) != studentId) {
+                return false;
+            }
+            if (status != null && segment.status(row) != status) {
+                return false;
+            }
+            if (minCents != Long.MIN_VALUE || maxCents != Long.MAX_VALUE) {
+                long cents = segment.cents(row);
+                return cents >= minCents && cents <= maxCents;
+            }
+            return true;
+        }
+
+        private static long cents(BigDecimal total, RoundingMode rounding) {
+            return total.movePointRight(2).setScale(0, rounding).max(MIN_CENTS).min(MAX_CENTS).longValueExact();
+        }
+    }
+}
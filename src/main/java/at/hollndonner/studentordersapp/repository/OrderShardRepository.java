@@ -0,0 +1,143 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bulk order operations on the shard of the current transaction: moving a student's orders between shards,
+ * removing them where no foreign key cascades a student's deletion, and taking cold orders out for the archive.
+ */
+@Repository
+public class OrderShardRepository {
+
+    private static final RowMapper<StoredOrder> STORED_ORDER = (rs, rowNum) -> new StoredOrder(
+            rs.getLong("id"),
+            rs.getLong("student_id"),
+            rs.getBigDecimal("total"),
+            OrderStatus.valueOf(rs.getString("status")),
+            rs.getTimestamp("created_at"),
+            rs.getLong("version"));
+
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public OrderShardRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Every student with orders or order summary rows on this shard.
+     */
+    public List<Long> findStudentIds() {
+        return jdbcTemplate.getJdbcTemplate().queryForList(
+                "SELECT student_id FROM orders UNION SELECT student_id FROM order_summary", Long.class);
+    }
+
+    public long countOrders() {
+        Long count = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM orders", Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * The student's orders as stored, locked until the transaction ends.
+     */
+    public List<StoredOrder> lockByStudentId(long studentId) {
+        return jdbcTemplate.query(
+                "SELECT id, student_id, total, status, created_at, version FROM orders " +
+                "WHERE student_id = :studentId FOR UPDATE",
+                new MapSqlParameterSource("studentId", studentId), STORED_ORDER);
+    }
+
+    /**
+     * Writes the orders with their ids, versions and creation times unchanged. Rows with the same ids are
+     * replaced, so repeating a move that failed halfway is safe.
+     */
+    public void insertAll(List<StoredOrder> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM orders WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", orders.stream().map(StoredOrder::id).toList()));
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        jdbc.batchUpdate(
+                "INSERT INTO orders (id, student_id, total, status, created_at, version) VALUES (?, ?, ?, ?, ?, ?)",
+                orders, orders.size(), (ps, order) -> {
+                    ps.setLong(1, order.id());
+                    ps.setLong(2, order.studentId());
+                    ps.setBigDecimal(3, order.total());
+                    ps.setString(4, order.status().name());
+                    ps.setTimestamp(5, order.createdAt());
+                    ps.setLong(6, order.version());
+                });
+    }
+
+    /**
+     * Recomputes the student's order summary rows from the student's orders on this shard.
+     */
+    public void rebuildSummary(long studentId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("studentId", studentId);
+        jdbcTemplate.update("DELETE FROM order_summary WHERE student_id = :studentId", params);
+        jdbcTemplate.update(
+                "INSERT INTO order_summary (student_id, status, order_count, total) " +
+                "SELECT student_id, status, COUNT(*), SUM(total) FROM orders WHERE student_id = :studentId " +
+                "GROUP BY student_id, status",
+                params);
+    }
+
+    /**
+     * Removes the student's orders and order summary rows.
+     *
+     * @return the number of orders removed
+     */
+    public int deleteByStudentId(long studentId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("studentId", studentId);
+        jdbcTemplate.update("DELETE FROM order_summary WHERE student_id = :studentId", params);
+        return jdbcTemplate.update("DELETE FROM orders WHERE student_id = :studentId", params);
+    }
+
+    /**
+     * The oldest orders in {@code status} created before {@code before}, oldest first, locked until the
+     * transaction ends; read through {@code idx_status_created_at}.
+     */
+    public List<StoredOrder> lockCreatedBefore(OrderStatus status, LocalDateTime before, int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, student_id, total, status, created_at, version FROM orders " +
+                "WHERE status = :status AND created_at < :before ORDER BY created_at, id LIMIT :limit FOR UPDATE",
+                new MapSqlParameterSource()
+                        .addValue("status", status.name())
+                        .addValue("before", before)
+                        .addValue("limit", limit),
+                STORED_ORDER);
+    }
+
+    /**
+     * @return the number of orders removed
+     */
+    public int deleteAll(List<Long> ids) {
+        int deleted = 0;
+        for (int start = 0; start < ids.size(); start += DELETE_CHUNK_SIZE) {
+            deleted += jdbcTemplate.update("DELETE FROM orders WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", ids.subList(start, Math.min(start + DELETE_CHUNK_SIZE, ids.size()))));
+        }
+        return deleted;
+    }
+
+    public record StoredOrder(
+            long id,
+            long studentId,
+            BigDecimal total,
+            OrderStatus status,
+            Timestamp createdAt,
+            long version
+    ) {}
+}
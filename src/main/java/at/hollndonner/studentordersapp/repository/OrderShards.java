@@ -0,0 +1,238 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.util.ReplicaDataSource;
+import at.hollndonner.studentordersapp.util.ShardedDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where orders live once {@code orders.shards.urls} lists extra databases. A student's orders and order summary rows
+ * all sit on one shard, picked by a jump consistent hash of the student id, so growing from N to N+1 shards moves
+ * only about 1/(N+1) of the students. Shard 0 is the main database, which also keeps students and reports.
+ * Without extra shards everything is shard 0 and every call runs exactly as an unsharded transaction would.
+ * <p>
+ * Work runs in a transaction on one shard at a time: a call for the shard the surrounding transaction already uses
+ * joins it, a call for any other shard suspends it and commits on its own.
+ */
+@Component
+public class OrderShards implements DisposableBean {
+
+    private final int count;
+    private final PlatformTransactionManager transactionManager;
+    private final HikariDataSource idPool;
+    private final OrderIdAllocator idAllocator;
+    private final ExecutorService fanOut;
+
+    public OrderShards(PlatformTransactionManager transactionManager,
+                       DataSourceProperties dataSourceProperties,
+                       ObjectProvider<MeterRegistry> meterRegistry,
+                       @Value("${orders.shards.urls:}") String urls,
+                       @Value("${orders.shards.fan-out-threads:16}") int fanOutThreads,
+                       @Value("${orders.shards.id-block-size:100}") int idBlockSize) {
+        this.count = 1 + (int) Arrays.stream(urls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).count();
+        if (count > OrderIdAllocator.SHARD_SLOTS) {
+            throw new IllegalArgumentException("At most " + OrderIdAllocator.SHARD_SLOTS + " order shards are supported");
+        }
+        this.transactionManager = transactionManager;
+        if (count == 1) {
+            this.idPool = null;
+            this.idAllocator = null;
+            this.fanOut = null;
+        } else {
+            this.idPool = idPool(dataSourceProperties, meterRegistry);
+            this.idAllocator = new OrderIdAllocator(idPool, idBlockSize);
+            CustomizableThreadFactory threads = new CustomizableThreadFactory("order-shard-");
+            threads.setDaemon(true);
+            // A saturated pool runs the shard query on the calling thread instead of queueing it
+            this.fanOut = new ThreadPoolExecutor(0, fanOutThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    threads, new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public boolean isSharded() {
+        return count > 1;
+    }
+
+    /**
+     * The shard holding the student's orders and order summary.
+     */
+    public int shardOf(long studentId) {
+        return count == 1 ? 0 : jumpHash(studentId, count);
+    }
+
+    /**
+     * The shard an order was created on, which is where it still is unless a rebalance has moved it.
+     */
+    public int originShard(long orderId) {
+        if (count == 1) {
+            return 0;
+        }
+        int origin = OrderIdAllocator.originShard(orderId);
+        return origin < count ? origin : 0;
+    }
+
+    /**
+     * New ids for orders about to be inserted on {@code shard}; only for sharded inserts, which must not
+     * rely on the shard's {@code AUTO_INCREMENT}.
+     */
+    public List<Long> allocateIds(int shard, int n) {
+        if (idAllocator == null) {
+            throw new IllegalStateException("Order ids are only allocated when orders are sharded");
+        }
+        return idAllocator.allocate(shard, n);
+    }
+
+    /**
+     * Runs {@code action} in a transaction on {@code shard}.
+     */
+    public <T> T inShard(int shard, boolean readOnly, TransactionCallback<T> action) {
+        TransactionTemplate transaction = transaction(shard, readOnly);
+        try (ShardedDataSource.Scope ignored = ShardedDataSource.use(shard)) {
+            return transaction.execute(action);
+        }
+    }
+
+    /**
+     * Runs {@code action} on every shard at once, shard 0 on the calling thread, and returns the results by shard.
+     * A thread pinned to the primary for read-your-writes stays pinned on the other threads.
+     */
+    public <T> List<T> onAllShards(boolean readOnly, TransactionCallback<T> action) {
+        if (count == 1) {
+            return Collections.singletonList(inShard(0, readOnly, action));
+        }
+        boolean pinned = ReplicaDataSource.isPinnedToPrimary();
+        List<Future<T>> others = new ArrayList<>(count - 1);
+        try {
+            for (int shard = 1; shard < count; shard++) {
+                int target = shard;
+                others.add(fanOut.submit(() -> {
+                    if (!pinned) {
+                        return inShard(target, readOnly, action);
+                    }
+                    try (ReplicaDataSource.Pin ignored = ReplicaDataSource.pinToPrimary()) {
+                        return inShard(target, readOnly, action);
+                    }
+                }));
+            }
+            List<T> results = new ArrayList<>(count);
+            results.add(inShard(0, readOnly, action));
+            for (Future<T> other : others) {
+                results.add(await(other));
+            }
+            return results;
+        } finally {
+            others.forEach(other -> other.cancel(true));
+        }
+    }
+
+    /**
+     * Looks an order up on the shard it was created on, then on the others.
+     *
+     * @param lookup runs on one shard at a time; empty if the order is not on that shard
+     */
+    public <T> Optional<T> locate(long orderId, boolean readOnly, TransactionCallback<Optional<T>> lookup) {
+        int origin = originShard(orderId);
+        Optional<T> found = inShard(origin, readOnly, lookup);
+        for (int shard = 0; shard < count && found.isEmpty(); shard++) {
+            if (shard != origin) {
+                found = inShard(shard, readOnly, lookup);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void destroy() {
+        if (fanOut != null) {
+            fanOut.shutdownNow();
+        }
+        if (idPool != null) {
+            idPool.close();
+        }
+    }
+
+    /**
+     * One connection to the main database for the id counter, named {@code order-ids} in the pool metrics.
+     * Block fetches take turns anyway, so more would only sit idle.
+     */
+    private static HikariDataSource idPool(DataSourceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("order-ids");
+        pool.setMaximumPoolSize(1);
+        meterRegistry.ifAvailable(registry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return pool;
+    }
+
+    /**
+     * Lamping and Veach's jump consistent hash: a bucket in {@code [0, buckets)} that only changes, to the new
+     * bucket, for about {@code 1/buckets} of the keys when a bucket is added.
+     */
+    static int jumpHash(long key, int buckets) {
+        long bucket = -1;
+        long jump = 0;
+        while (jump < buckets) {
+            bucket = jump;
+            key = key * 2862933555777941757L + 1;
+            jump = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    private TransactionTemplate transaction(int shard, boolean readOnly) {
+        // Joining is only safe on the same shard, and a write must not join a read-only transaction
+        boolean join = TransactionSynchronizationManager.isActualTransactionActive()
+                && ShardedDataSource.currentShard() == shard
+                && (readOnly || !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        transaction.setPropagationBehavior(join
+                ? TransactionDefinition.PROPAGATION_REQUIRED
+                : TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transaction;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an order shard", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Order shard query failed", ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package at.hollndonner.studentordersapp.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies committed order changes to the {@link OrderColumnSnapshot} from one background thread, so the request
+ * that made them neither waits for the re-read nor queues on the snapshot's refresh lock, and the re-read runs in
+ * its own transaction on a connection of its own. Ids reported while a refresh runs collect in a set and are read
+ * together by the next one; the snapshot re-reads committed rows, so merging them loses nothing. A failed refresh
+ * puts its ids back and is retried after a pause.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "orders.analytics.enabled", havingValue = "true")
+public class OrderSnapshotRefresher implements SmartLifecycle {
+
+    private static final long RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final OrderColumnSnapshot snapshot;
+    private final Set<Long> changedOrderIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> deletedStudentIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    private volatile Thread thread;
+
+    public OrderSnapshotRefresher(OrderColumnSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Queues the orders for a re-read without blocking.
+     */
+    public void ordersChanged(Collection<Long> orderIds) {
+        changedOrderIds.addAll(orderIds);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Queues dropping the orders of a deleted student without blocking.
+     */
+    public void studentDeleted(Long studentId) {
+        deletedStudentIds.add(studentId);
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        while (true) {
+            // Read before draining, so whatever was queued before stop() is still applied
+            boolean stopping = !running;
+            try {
+                if (applyPending()) {
+                    continue;
+                }
+            } catch (RuntimeException ex) {
+                log.error("Could not apply order changes to the column snapshot, retrying in {} s",
+                        TimeUnit.NANOSECONDS.toSeconds(RETRY_DELAY_NANOS), ex);
+                if (!stopping) {
+                    LockSupport.parkNanos(this, RETRY_DELAY_NANOS);
+                    continue;
+                }
+            }
+            if (stopping) {
+                return;
+            }
+            LockSupport.park(this);
+        }
+    }
+
+    /**
+     * Applies everything queued so far; returns {@code false} if nothing was.
+     */
+    private boolean applyPending() {
+        List<Long> studentIds = take(deletedStudentIds);
+        List<Long> orderIds = take(changedOrderIds);
+        if (studentIds.isEmpty() && orderIds.isEmpty()) {
+            return false;
+        }
+        try {
+            // Students first: their orders are gone from the database already, so a re-read never brings them back
+            studentIds.forEach(snapshot::removeStudent);
+            snapshot.refresh(orderIds);
+        } catch (RuntimeException ex) {
+            deletedStudentIds.addAll(studentIds);
+            changedOrderIds.addAll(orderIds);
+            throw ex;
+        }
+        return true;
+    }
+
+    private static List<Long> take(Set<Long> pending) {
+        List<Long> taken = new ArrayList<>();
+        for (Iterator<Long> it = pending.iterator(); it.hasNext(); ) {
+            taken.add(it.next());
+            it.remove();
+        }
+        return taken;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "order-snapshot-refresher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Stopped after the web server, so changes from the last requests are still applied
+        return 0;
+    }
+}
@@ -0,0 +1,61 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import org.springframework.data.domain.Sort;
+
+import java.util.Comparator;
+
+/**
+ * Restricts order listings to sorts the {@code orders} indexes can serve.
+ * Every filter shape has an index ending in {@code created_at} (plus the implicit primary key),
+ * so ordering by {@code (createdAt, id)} in one direction never needs a filesort.
+ */
+public final class OrderSorting {
+
+    public static final Sort DEFAULT = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+
+    private OrderSorting() {
+    }
+
+    /**
+     * Maps a requested sort onto the index-friendly {@code (createdAt, id)} ordering.
+     *
+     * @param requested the sort from the incoming {@code Pageable}
+     * @return {@link #DEFAULT} for unsorted requests, otherwise {@code (createdAt, id)} in the requested direction
+     * @throws IllegalArgumentException if the sort cannot be served by an index
+     */
+    public static Sort resolve(Sort requested) {
+        if (requested == null || requested.isUnsorted()) {
+            return DEFAULT;
+        }
+
+        Sort.Order first = requested.iterator().next();
+        if (!"createdAt".equals(first.getProperty())) {
+            throw unsupported(first.getProperty());
+        }
+        for (Sort.Order order : requested) {
+            boolean tieBreaker = "id".equals(order.getProperty());
+            if (!order.getProperty().equals(first.getProperty()) && !tieBreaker) {
+                throw unsupported(order.getProperty());
+            }
+            if (order.getDirection() != first.getDirection()) {
+                throw new IllegalArgumentException("Mixed sort directions are not supported.");
+            }
+        }
+        return Sort.by(first.getDirection(), "createdAt", "id");
+    }
+
+    /**
+     * The in-memory equivalent of a {@link #resolve resolved} sort, for merging orders read from several shards.
+     */
+    public static Comparator<OrderResponse> comparator(Sort resolved) {
+        Comparator<OrderResponse> ascending = Comparator.comparing(OrderResponse::createdAt)
+                .thenComparing(OrderResponse::id);
+        Sort.Order createdAt = resolved.getOrderFor("createdAt");
+        return createdAt != null && createdAt.isAscending() ? ascending : ascending.reversed();
+    }
+
+    private static IllegalArgumentException unsupported(String property) {
+        return new IllegalArgumentException("Unsupported sort property: " + property + ". Allowed: createdAt.");
+    }
+}
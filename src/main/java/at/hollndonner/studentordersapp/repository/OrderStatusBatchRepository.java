@@ -0,0 +1,105 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Set-based status transitions for many orders at once. Each chunk locks the orders still in the {@code from} status
+ * and moves them with one {@code UPDATE ... WHERE id IN (...)} that bumps their version, so single-order writers
+ * holding an older ETag fail their precondition. The locked rows are returned for the order summary and the revenue
+ * rollups.
+ * Callers work through at most {@link #chunkSize()} orders per call, one transaction per chunk.
+ */
+@Repository
+public class OrderStatusBatchRepository {
+
+    private static final String UPDATE_IDS_SQL =
+            "UPDATE orders SET status = :to, version = version + 1 WHERE id IN (:ids) AND status = :from";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+
+    public OrderStatusBatchRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                      @Value("${orders.status-transition.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("orders.status-transition.chunk-size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Moves the listed orders that are still in {@code from} to {@code to}.
+     * The eligible rows are locked first, so the result is exactly the set of rows the update changed.
+     *
+     * @param ids at most {@link #chunkSize()} order IDs
+     * @return the orders that changed status
+     */
+    public List<TransitionedOrder> transitionIds(List<Long> ids, OrderStatus from, OrderStatus to) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("from", from.name());
+        return transition(lock("SELECT id, student_id, total, created_at FROM orders WHERE id IN (:ids) AND status = :from FOR UPDATE",
+                params), from, to);
+    }
+
+    /**
+     * Moves up to {@link #chunkSize()} orders matching the filter from {@code from} to {@code to}.
+     * Changed rows drop out of the {@code status = from} predicate, so repeating the call walks through all matches;
+     * a result below the chunk size means none are left.
+     */
+    public List<TransitionedOrder> transitionMatching(Long studentId, Instant createdBefore,
+                                                      OrderStatus from, OrderStatus to) {
+        StringBuilder sql = new StringBuilder("SELECT id, student_id, total, created_at FROM orders WHERE status = :from");
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", from.name())
+                .addValue("limit", chunkSize);
+        if (studentId != null) {
+            sql.append(" AND student_id = :studentId");
+            params.addValue("studentId", studentId);
+        }
+        if (createdBefore != null) {
+            sql.append(" AND created_at < :createdBefore");
+            // Same UTC wall-clock value Hibernate binds for an Instant
+            params.addValue("createdBefore", LocalDateTime.ofInstant(createdBefore, ZoneOffset.UTC));
+        }
+        sql.append(" LIMIT :limit FOR UPDATE");
+        return transition(lock(sql.toString(), params), from, to);
+    }
+
+    private List<TransitionedOrder> lock(String sql, MapSqlParameterSource params) {
+        return jdbcTemplate.query(sql, params, (rs, rowNum) ->
+                new TransitionedOrder(rs.getLong("id"), rs.getLong("student_id"), rs.getBigDecimal("total"),
+                        rs.getTimestamp("created_at").toLocalDateTime()));
+    }
+
+    private List<TransitionedOrder> transition(List<TransitionedOrder> locked, OrderStatus from, OrderStatus to) {
+        if (!locked.isEmpty()) {
+            jdbcTemplate.update(UPDATE_IDS_SQL, new MapSqlParameterSource()
+                    .addValue("ids", locked.stream().map(TransitionedOrder::id).toList())
+                    .addValue("from", from.name())
+                    .addValue("to", to.name()));
+        }
+        return locked;
+    }
+
+    public record TransitionedOrder(
+            Long id,
+            Long studentId,
+            BigDecimal total,
+            LocalDateTime createdAt
+    ) {}
+}
@@ -0,0 +1,106 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.dto.student.OrderStatusSummary;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-student order counts and totals by status, kept in {@code order_summary} by applying deltas
+ * in the same transaction as each order write. Rows are never recomputed from {@code orders},
+ * so every code path that inserts, deletes or re-prices orders or changes their status must report its delta here.
+ * The one exception is a shard rebalance, which rebuilds a moved student's rows on the target shard.
+ * Only orders still in {@code orders} are counted: archiving an order removes it here like deleting it does,
+ * and readers add {@link OrderSegments#summarize} for the archived ones.
+ */
+@Repository
+public class OrderSummaryRepository {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO order_summary (student_id, status, order_count, total) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), total = total + VALUES(total)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderSummaryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds the deltas as atomic increments. Deltas for the same student and status are merged first,
+     * and rows are written in key order so concurrent writers lock summary rows in the same order.
+     */
+    public void applyDeltas(List<Delta> deltas) {
+        Map<Long, Map<OrderStatus, Delta>> merged = new TreeMap<>();
+        for (Delta delta : deltas) {
+            merged.computeIfAbsent(delta.studentId(), id -> new EnumMap<>(OrderStatus.class))
+                    .merge(delta.status(), delta, Delta::plus);
+        }
+        List<Delta> rows = new ArrayList<>();
+        merged.values().forEach(byStatus -> byStatus.values().stream().filter(Delta::changes).forEach(rows::add));
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.studentId());
+            ps.setString(2, row.status().name());
+            ps.setLong(3, row.count());
+            ps.setBigDecimal(4, row.total());
+        });
+    }
+
+    public List<OrderStatusSummary> findByStudentId(Long studentId) {
+        return jdbcTemplate.query(
+                "SELECT status, order_count, total FROM order_summary WHERE student_id = ?",
+                (rs, rowNum) -> new OrderStatusSummary(OrderStatus.valueOf(rs.getString("status")),
+                        rs.getLong("order_count"), rs.getBigDecimal("total")),
+                studentId);
+    }
+
+    /**
+     * Number of orders a student has, optionally in one status; a primary-key read instead of a {@code COUNT(*)}.
+     */
+    public long countOrders(Long studentId, OrderStatus status) {
+        Long count = status == null
+                ? jdbcTemplate.queryForObject(
+                        "SELECT COALESCE(SUM(order_count), 0) FROM order_summary WHERE student_id = ?",
+                        Long.class, studentId)
+                : jdbcTemplate.queryForObject(
+                        "SELECT COALESCE(SUM(order_count), 0) FROM order_summary WHERE student_id = ? AND status = ?",
+                        Long.class, studentId, status.name());
+        return count != null ? count : 0;
+    }
+
+    /**
+     * A change to one student's order count and total in one status; negative for removals.
+     */
+    public record Delta(
+            Long studentId,
+            OrderStatus status,
+            long count,
+            BigDecimal total
+    ) {
+        public static Delta added(Long studentId, OrderStatus status, BigDecimal total) {
+            return new Delta(studentId, status, 1, total);
+        }
+
+        public static Delta removed(Long studentId, OrderStatus status, BigDecimal total) {
+            return new Delta(studentId, status, -1, total.negate());
+        }
+
+        Delta plus(Delta other) {
+            return new Delta(studentId, status, count + other.count, total.add(other.total));
+        }
+
+        boolean changes() {
+            return count != 0 || total.signum() != 0;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.dto.report.RevenueRollupRow;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Revenue per school and status at daily ({@code revenue_daily}) and monthly ({@code revenue_monthly}) granularity.
+ * Days follow {@code orders.created_at} as stored. Rollups are rebuilt for whole days and months from the
+ * source rows, so rebuilding a range is idempotent; the {@code rollup_watermark} row records how far they are current
+ * and serializes rebuilds when locked.
+ * <p>
+ * With sharded orders, every shard totals its own orders per day, student and status, and the schools are
+ * looked up in the main database, where the rollups live. Archived orders are totalled the same way from
+ * {@link OrderSegments}, so archiving an order leaves the rollups as they were.
+ * <p>
+ * Order writes record the days of orders older than the restatement window in {@code revenue_changed_days},
+ * on their own shard and in their own transaction, since a refresh only rebuilds the days of that window by itself.
+ * Deleting a student or moving them to another school records the days of all their orders the same way.
+ */
+@Repository
+public class RevenueRollupRepository {
+
+    private static final String WATERMARK_NAME = "revenue";
+    private static final int STUDENT_LOOKUP_CHUNK_SIZE = 1000;
+
+    private static final RowMapper<RevenueRollupRow> ROLLUP_ROW = (rs, rowNum) -> new RevenueRollupRow(
+            rs.getDate("period").toLocalDate(),
+            rs.getString("school"),
+            OrderStatus.valueOf(rs.getString("status")),
+            rs.getLong("order_count"),
+            rs.getBigDecimal("revenue"));
+
+    private static final RowMapper<StudentDay> STUDENT_DAY = (rs, rowNum) -> new StudentDay(
+            rs.getDate("order_date").toLocalDate(),
+            rs.getLong("student_id"),
+            OrderStatus.valueOf(rs.getString("status")),
+            rs.getLong("order_count"),
+            rs.getBigDecimal("revenue"));
+
+    private static final RowMapper<ChangedDay> CHANGED_DAY = (rs, rowNum) -> new ChangedDay(
+            rs.getDate("order_date").toLocalDate(),
+            rs.getLong("changes"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final OrderShards orderShards;
+    private final OrderSegments orderSegments;
+    private final int restatementDays;
+
+    public RevenueRollupRepository(NamedParameterJdbcTemplate jdbcTemplate, OrderShards orderShards,
+                                   OrderSegments orderSegments,
+                                   @Value("${reports.revenue.restatement-days:7}") int restatementDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.orderShards = orderShards;
+        this.orderSegments = orderSegments;
+        this.restatementDays = restatementDays;
+    }
+
+    /**
+     * Records that orders created on these days changed, so the next refresh rebuilds the days. Must run in the
+     * transaction of the change, on its shard. Days every refresh rebuilds anyway are skipped, with one day to spare
+     * for a database clock ahead of this one, so writes to recent orders never queue for the same row here.
+     */
+    public void markChanged(Collection<LocalDate> days) {
+        // Sorted, so concurrent writers lock the rows in the same order
+        List<LocalDate> old = new TreeSet<>(days).headSet(cutoff()).stream().toList();
+        if (old.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO revenue_changed_days (order_date, changes) VALUES (:day, 1) " +
+                "ON DUPLICATE KEY UPDATE changes = changes + 1",
+                old.stream()
+                        .map(day -> new MapSqlParameterSource("day", day))
+                        .toArray(SqlParameterSource[]::new));
+    }
+
+    /**
+     * Records the days of the student's orders on every shard and in the archive, before the student is deleted or
+     * moved to another school. Must run in that transaction, on the main database.
+     */
+    public void markStudentChanged(long studentId) {
+        Set<LocalDate> days = new TreeSet<>(orderSegments.daysOf(studentId));
+        orderShards.onAllShards(false, tx -> findOrderDays(studentId)).forEach(days::addAll);
+        markChanged(days);
+    }
+
+    /**
+     * Days of the student's orders on the current shard that lie before the restatement window.
+     */
+    public List<LocalDate> findOrderDays(long studentId) {
+        return jdbcTemplate.query(
+                "SELECT DISTINCT CAST(created_at AS DATE) AS order_date FROM orders " +
+                "WHERE student_id = :studentId AND created_at < :cutoff",
+                new MapSqlParameterSource()
+                        .addValue("studentId", studentId)
+                        .addValue("cutoff", Timestamp.valueOf(cutoff().atStartOfDay())),
+                (rs, rowNum) -> rs.getDate("order_date").toLocalDate());
+    }
+
+    /**
+     * The recorded days of every shard, by shard, read on the primaries.
+     */
+    public List<List<ChangedDay>> findChangedDays() {
+        return orderShards.onAllShards(false, tx -> jdbcTemplate.query(
+                "SELECT order_date, changes FROM revenue_changed_days", CHANGED_DAY));
+    }
+
+    /**
+     * Forgets days once they are rebuilt, unless they changed again since they were read.
+     *
+     * @param rebuilt as {@link #findChangedDays()} returned them
+     */
+    public void clearChangedDays(List<List<ChangedDay>> rebuilt) {
+        for (int shard = 0; shard < rebuilt.size(); shard++) {
+            List<ChangedDay> days = rebuilt.get(shard);
+            if (days.isEmpty()) {
+                continue;
+            }
+            orderShards.inShard(shard, false, tx -> jdbcTemplate.batchUpdate(
+                    "DELETE FROM revenue_changed_days WHERE order_date = :day AND changes = :changes",
+                    days.stream()
+                            .map(day -> new MapSqlParameterSource()
+                                    .addValue("day", day.date())
+                                    .addValue("changes", day.changes()))
+                            .toArray(SqlParameterSource[]::new)));
+        }
+    }
+
+    /**
+     * The first day every refresh rebuilds anyway, less one day to spare for a database clock ahead of this one.
+     */
+    private LocalDate cutoff() {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(restatementDays - 1L);
+    }
+
+    /**
+     * Locks the watermark row until the transaction ends.
+     *
+     * @return the time up to which the rollups are current, or empty if they have never been built
+     */
+    public Optional<LocalDateTime> lockWatermark() {
+        return watermark("SELECT watermark FROM rollup_watermark WHERE name = :name FOR UPDATE");
+    }
+
+    public Optional<LocalDateTime> findWatermark() {
+        return watermark("SELECT watermark FROM rollup_watermark WHERE name = :name");
+    }
+
+    public void saveWatermark(LocalDateTime watermark) {
+        jdbcTemplate.update(
+                "INSERT INTO rollup_watermark (name, watermark) VALUES (:name, :watermark) " +
+                "ON DUPLICATE KEY UPDATE watermark = VALUES(watermark)",
+                new MapSqlParameterSource()
+                        .addValue("name", WATERMARK_NAME)
+                        .addValue("watermark", watermark));
+    }
+
+    /**
+     * The database clock, which is also the clock {@code orders.created_at} defaults from.
+     */
+    public LocalDateTime currentTimestamp() {
+        return jdbcTemplate.getJdbcTemplate()
+                .queryForObject("SELECT CURRENT_TIMESTAMP", Timestamp.class)
+                .toLocalDateTime();
+    }
+
+    public Optional<LocalDate> firstOrderDate() {
+        return Stream.concat(
+                        orderShards.onAllShards(true, tx -> jdbcTemplate.getJdbcTemplate()
+                                        .queryForObject("SELECT MIN(created_at) FROM orders", Timestamp.class))
+                                .stream()
+                                .filter(Objects::nonNull)
+                                .map(Timestamp::toLocalDateTime),
+                        orderSegments.oldestCreatedAt().stream())
+                .min(Comparator.naturalOrder())
+                .map(LocalDateTime::toLocalDate);
+    }
+
+    /**
+     * Replaces the daily rows of {@code [from, to)} with fresh aggregates; reads the orders through their
+     * {@code created_at} index.
+     */
+    public void rebuildDays(LocalDate from, LocalDate to) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("to", to)
+                .addValue("fromTime", from.atStartOfDay())
+                .addValue("toTime", to.atStartOfDay());
+        jdbcTemplate.update("DELETE FROM revenue_daily WHERE order_date >= :from AND order_date < :to", params);
+        if (orderShards.isSharded() || !orderSegments.isEmpty()) {
+            insertShardedDays(params, from, to);
+            return;
+        }
+        jdbcTemplate.update(
+                "INSERT INTO revenue_daily (order_date, school, status, order_count, revenue) " +
+                "SELECT CAST(o.created_at AS DATE), sc.name, o.status, COUNT(*), SUM(o.total) " +
+                "FROM orders o JOIN students s ON s.id = o.student_id JOIN schools sc ON sc.id = s.school_id " +
+                "WHERE o.created_at >= :fromTime AND o.created_at < :toTime " +
+                "GROUP BY CAST(o.created_at AS DATE), sc.name, o.status",
+                params);
+    }
+
+    private void insertShardedDays(MapSqlParameterSource params, LocalDate from, LocalDate to) {
+        List<List<StudentDay>> shards = new ArrayList<>(orderShards.onAllShards(true, tx -> jdbcTemplate.query(
+                "SELECT CAST(created_at AS DATE) AS order_date, student_id, status, " +
+                "COUNT(*) AS order_count, SUM(total) AS revenue FROM orders " +
+                "WHERE created_at >= :fromTime AND created_at < :toTime " +
+                "GROUP BY CAST(created_at AS DATE), student_id, status",
+                params, STUDENT_DAY)));
+        // The archive counts as one more shard
+        shards.add(orderSegments.totalsByDay(from.atStartOfDay(), to.atStartOfDay()).stream()
+                .map(day -> new StudentDay(day.date(), day.studentId(), day.status(), day.orderCount(), day.revenue()))
+                .toList());
+        Map<Long, String> schools = schoolsOf(shards.stream()
+                .flatMap(List::stream)
+                .map(StudentDay::studentId)
+                .collect(Collectors.toSet()));
+
+        // Orders of students that no longer exist drop out, as they do from the join on a single database
+        Map<DayKey, RevenueRollupRow> rows = new LinkedHashMap<>();
+        for (List<StudentDay> shard : shards) {
+            for (StudentDay day : shard) {
+                String school = schools.get(day.studentId());
+                if (school != null) {
+                    rows.merge(new DayKey(day.date(), school, day.status()),
+                            new RevenueRollupRow(day.date(), school, day.status(), day.orderCount(), day.revenue()),
+                            (a, b) -> new RevenueRollupRow(a.period(), a.school(), a.status(),
+                                    a.orderCount() + b.orderCount(), a.revenue().add(b.revenue())));
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO revenue_daily (order_date, school, status, order_count, revenue) " +
+                "VALUES (:period, :school, :status, :orderCount, :revenue)",
+                rows.values().stream()
+                        .map(row -> new MapSqlParameterSource()
+                                .addValue("period", row.period())
+                                .addValue("school", row.school())
+                                .addValue("status", row.status().name())
+                                .addValue("orderCount", row.orderCount())
+                                .addValue("revenue", row.revenue()))
+                        .toArray(SqlParameterSource[]::new));
+    }
+
+    private Map<Long, String> schoolsOf(Set<Long> studentIds) {
+        List<Long> ids = new ArrayList<>(studentIds);
+        Map<Long, String> schools = new HashMap<>();
+        for (int start = 0; start < ids.size(); start += STUDENT_LOOKUP_CHUNK_SIZE) {
+            jdbcTemplate.query(
+                    "SELECT s.id, sc.name FROM students s JOIN schools sc ON sc.id = s.school_id WHERE s.id IN (:ids)",
+                    new MapSqlParameterSource("ids", ids.subList(start, Math.min(start + STUDENT_LOOKUP_CHUNK_SIZE, ids.size()))),
+                    (RowCallbackHandler) rs -> schools.put(rs.getLong("id"), rs.getString("name")));
+        }
+        return schools;
+    }
+
+    /**
+     * Replaces the monthly rows of {@code month} with the sum of its daily rows, which must be current.
+     */
+    public void rebuildMonth(YearMonth month) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("month", month.atDay(1))
+                .addValue("next", month.plusMonths(1).atDay(1));
+        jdbcTemplate.update("DELETE FROM revenue_monthly WHERE order_month = :month", params);
+        jdbcTemplate.update(
+                "INSERT INTO revenue_monthly (order_month, school, status, order_count, revenue) " +
+                "SELECT :month, school, status, SUM(order_count), SUM(revenue) " +
+                "FROM revenue_daily WHERE order_date >= :month AND order_date < :next " +
+                "GROUP BY school, status",
+                params);
+    }
+
+    /**
+     * Drops rollup rows before {@code date}, left behind by orders that no longer exist.
+     */
+    public void deleteBefore(LocalDate date) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("date", date)
+                .addValue("month", YearMonth.from(date).atDay(1));
+        jdbcTemplate.update("DELETE FROM revenue_daily WHERE order_date < :date", params);
+        jdbcTemplate.update("DELETE FROM revenue_monthly WHERE order_month < :month", params);
+    }
+
+    /**
+     * Daily rows of {@code [from, to]}, optionally for one school and one status.
+     */
+    public List<RevenueRollupRow> findDaily(LocalDate from, LocalDate to, String school, OrderStatus status) {
+        return find("revenue_daily", "order_date", from, to, school, status);
+    }
+
+    /**
+     * Monthly rows of {@code [from, to]}, each month keyed by its first day.
+     */
+    public List<RevenueRollupRow> findMonthly(YearMonth from, YearMonth to, String school, OrderStatus status) {
+        return find("revenue_monthly", "order_month", from.atDay(1), to.atDay(1), school, status);
+    }
+
+    private List<RevenueRollupRow> find(String table, String dateColumn, LocalDate from, LocalDate to,
+                                        String school, OrderStatus status) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(dateColumn)
+                .append(" AS period, school, status, order_count, revenue FROM ").append(table)
+                .append(" WHERE ").append(dateColumn).append(" BETWEEN :from AND :to");
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("to", to);
+        if (school != null) {
+            sql.append(" AND school = :school");
+            params.addValue("school", school);
+        }
+        if (status != null) {
+            sql.append(" AND status = :status");
+            params.addValue("status", status.name());
+        }
+        sql.append(" ORDER BY ").append(dateColumn).append(", school, status");
+        return jdbcTemplate.query(sql.toString(), params, ROLLUP_ROW);
+    }
+
+    public record ChangedDay(LocalDate date, long changes) {}
+
+    private record StudentDay(LocalDate date, long studentId, OrderStatus status, long orderCount, BigDecimal revenue) {}
+
+    private record DayKey(LocalDate date, String school, OrderStatus status) {}
+
+    private Optional<LocalDateTime> watermark(String sql) {
+        List<Timestamp> watermarks = jdbcTemplate.query(sql,
+                new MapSqlParameterSource("name", WATERMARK_NAME),
+                (rs, rowNum) -> rs.getTimestamp("watermark"));
+        // A missing row and a NULL watermark both mean the rollups were never built
+        return watermarks.stream().filter(Objects::nonNull).findFirst().map(Timestamp::toLocalDateTime);
+    }
+}
@@ -0,0 +1,15 @@
+package at.hollndonner.studentordersapp.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Distinct school names, referenced by {@code students.school_id}.
+ */
+@Repository
+public class SchoolDictionary extends ValueDictionary {
+
+    public SchoolDictionary(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate, "schools");
+    }
+}
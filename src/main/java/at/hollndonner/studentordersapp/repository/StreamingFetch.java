@@ -0,0 +1,20 @@
+package at.hollndonner.studentordersapp.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Fetch size for the few statements that read a whole table or export row by row. MySQL's driver buffers the
+ * entire result unless cursor fetch is on in the URL, which would turn every query into a server-side cursor;
+ * a fetch size of {@link Integer#MIN_VALUE} streams just this result instead. The connection cannot run another
+ * statement until the result is closed. Other drivers honour the configured size as is.
+ */
+final class StreamingFetch {
+
+    private StreamingFetch() {
+    }
+
+    static int size(Connection connection, int fetchSize) throws SQLException {
+        return "MySQL".equals(connection.getMetaData().getDatabaseProductName()) ? Integer.MIN_VALUE : fetchSize;
+    }
+}
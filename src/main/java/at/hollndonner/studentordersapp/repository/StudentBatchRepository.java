@@ -0,0 +1,90 @@
+package at.hollndonner.studentordersapp.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk student inserts through plain JDBC batches, for imports.
+ * Callers buffer at most {@link #chunkSize()} rows and insert them one chunk at a time, so memory stays bounded.
+ * Grades and schools are resolved to their lookup ids before the batch, mostly from the dictionary caches.
+ */
+@Repository
+public class StudentBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO students (name, grade_id, school_id) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final GradeDictionary gradeDictionary;
+    private final SchoolDictionary schoolDictionary;
+    private final int chunkSize;
+
+    public StudentBatchRepository(JdbcTemplate jdbcTemplate,
+                                  GradeDictionary gradeDictionary,
+                                  SchoolDictionary schoolDictionary,
+                                  @Value("${students.import.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("students.import.chunk-size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.gradeDictionary = gradeDictionary;
+        this.schoolDictionary = schoolDictionary;
+        this.chunkSize = chunkSize;
+    }
+
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Inserts the rows as one JDBC batch; with {@code rewriteBatchedStatements=true} that is a single multi-row insert.
+     *
+     * @return generated student IDs, in the same order as {@code rows}
+     */
+    public List<Long> insertAll(List<NewStudent> rows) {
+        int[] gradeIds = new int[rows.size()];
+        int[] schoolIds = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            gradeIds[i] = gradeDictionary.idOf(rows.get(i).grade());
+            schoolIds[i] = schoolDictionary.idOf(rows.get(i).school());
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setString(1, rows.get(i).name());
+                        ps.setInt(2, gradeIds[i]);
+                        ps.setInt(3, schoolIds[i]);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keyHolder);
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (var keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    public record NewStudent(
+            String name,
+            String grade,
+            String school
+    ) {}
+}
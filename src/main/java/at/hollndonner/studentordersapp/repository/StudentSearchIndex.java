@@ -0,0 +1,736 @@
+package at.hollndonner.studentordersapp.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * In-process trigram index over student names, grades and schools for search-as-you-type.
+ * <p>
+ * Every name is indexed by its trigrams plus the one- and two-character prefixes of its words, each mapping to a
+ * sorted list of slots. Grades and schools repeat across many students, so each distinct value is stored once in a
+ * dictionary with the slots of its students; a term is matched against the dictionary and then expands to those slots.
+ * A query walks the shortest candidate list of its most selective term and verifies every candidate against all
+ * terms, so its cost follows the number of candidates, not the number of students.
+ * <p>
+ * A changed student is tombstoned and appended to a new slot, which keeps every list sorted without inserts; the
+ * index is rebuilt in memory once tombstones make up a quarter of the slots. Changes are applied by re-reading
+ * the students after their transaction commits. Rows written to {@code students} outside the app are not seen
+ * until restart.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "students.search.enabled", havingValue = "true", matchIfMissing = true)
+public class StudentSearchIndex implements SmartInitializingSingleton {
+
+    /**
+     * Terms shorter than this match the start of a word instead of any substring.
+     */
+    public static final int GRAM_LENGTH = 3;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int REFRESH_CHUNK_SIZE = 1000;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String SELECT_SQL = "SELECT s.id, s.name, g.name AS grade, sc.name AS school FROM students s " +
+            "JOIN grades g ON g.id = s.grade_id JOIN schools sc ON sc.id = s.school_id";
+
+    // Per-term scores by field and kind of match; names outrank schools, which outrank grades
+    private static final int NAME_EXACT = 100;
+    private static final int NAME_PREFIX = 80;
+    private static final int NAME_WORD_PREFIX = 60;
+    private static final int NAME_SUBSTRING = 40;
+    private static final int SCHOOL_EXACT = 30;
+    private static final int SCHOOL_WORD_PREFIX = 25;
+    private static final int SCHOOL_SUBSTRING = 15;
+    private static final int GRADE_EXACT = 20;
+    private static final int GRADE_MATCH = 10;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+    private final int maxCandidates;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Serializes re-reads with applying them, so a later commit's rows are never overwritten by an earlier read.
+    // A lock rather than a monitor: it is held across JDBC calls, which would pin a virtual thread's carrier.
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    // Normalized name per slot, null once the slot is tombstoned
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] grades = new int[INITIAL_CAPACITY];
+    private int[] schools = new int[INITIAL_CAPACITY];
+    private int size;
+    private int deleted;
+    private final SlotMap slotsById = new SlotMap();
+    private final Map<Long, Postings> nameGrams = new HashMap<>();
+    private final Dictionary gradeDictionary = new Dictionary();
+    private final Dictionary schoolDictionary = new Dictionary();
+
+    public StudentSearchIndex(NamedParameterJdbcTemplate jdbcTemplate,
+                              @Value("${orders.export.fetch-size:1000}") int fetchSize,
+                              @Value("${students.search.max-candidates:20000}") int maxCandidates) {
+        if (maxCandidates < 1) {
+            throw new IllegalArgumentException("students.search.max-candidates must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Loads the index before the web server starts taking requests, so no write can slip past the load.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        load();
+    }
+
+    /**
+     * Replaces the index with every student, streamed in id order.
+     */
+    public void load() {
+        refreshLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                long start = System.nanoTime();
+                reset();
+                jdbcTemplate.getJdbcTemplate().query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(SELECT_SQL + " ORDER BY s.id");
+                    statement.setFetchSize(StreamingFetch.size(connection, fetchSize));
+                    return statement;
+                }, (RowCallbackHandler) rs -> append(Row.of(rs)));
+                trim();
+                log.info("Indexed {} students ({} name trigrams, {} schools, {} grades) in {} ms",
+                        size, nameGrams.size(), schoolDictionary.size(), gradeDictionary.size(),
+                        (System.nanoTime() - start) / 1_000_000);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Re-reads the given students and applies their committed state: present rows are indexed again,
+     * missing ones removed.
+     */
+    public void refresh(Collection<Long> studentIds) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+        List<Long> requested = List.copyOf(studentIds);
+        refreshLock.lock();
+        try {
+            Map<Long, Row> current = new HashMap<>();
+            for (int start = 0; start < requested.size(); start += REFRESH_CHUNK_SIZE) {
+                List<Long> chunk = requested.subList(start, Math.min(start + REFRESH_CHUNK_SIZE, requested.size()));
+                jdbcTemplate.query(SELECT_SQL + " WHERE s.id IN (:ids)", new MapSqlParameterSource("ids", chunk),
+                        (RowCallbackHandler) rs -> {
+                            Row row = Row.of(rs);
+                            current.put(row.id(), row);
+                        });
+            }
+            lock.writeLock().lock();
+            try {
+                for (Long id : requested) {
+                    Row row = current.get(id);
+                    if (row != null) {
+                        upsert(row);
+                    } else {
+                        remove((long) id);
+                    }
+                }
+                compactIfSparse();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public void remove(Long studentId) {
+        refreshLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                remove((long) studentId);
+                compactIfSparse();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the students matching every whitespace-separated term of the query in their name, grade or school,
+     * best first: matches in the name outrank matches in the school, which outrank matches in the grade, and exact
+     * and prefix matches outrank other substrings. Ties go to the shorter name, then the lower id.
+     * Terms of one or two characters only match the start of a word.
+     *
+     * @return up to {@code limit} hits, ranked among at most {@code students.search.max-candidates} candidates
+     */
+    public SearchResult search(String query, int limit) {
+        String[] terms = terms(query);
+        if (terms.length == 0) {
+            return new SearchResult(List.of(), 0, false);
+        }
+        lock.readLock().lock();
+        try {
+            TermMatch[] matches = new TermMatch[terms.length];
+            TermMatch driver = null;
+            for (int i = 0; i < terms.length; i++) {
+                matches[i] = match(terms[i]);
+                if (driver == null || matches[i].estimatedCandidates() < driver.estimatedCandidates()) {
+                    driver = matches[i];
+                }
+            }
+
+            PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            int examined = 0;
+            for (Source source : driver.sources()) {
+                for (int i = 0; i < source.slots().size; i++) {
+                    if (examined == maxCandidates) {
+                        return new SearchResult(ranked(best), examined, true);
+                    }
+                    examined++;
+                    int slot = source.slots().slots[i];
+                    if (names[slot] == null || listedEarlier(slot, source.field(), driver)) {
+                        continue;
+                    }
+                    int score = score(slot, matches);
+                    // Most candidates of a broad query tie with or lose to the current worst hit, so skip them early
+                    if (score > 0 && (best.size() < limit || outranks(score, slot, best.peek()))) {
+                        best.add(new Hit(ids[slot], score, names[slot].length()));
+                        if (best.size() > limit) {
+                            best.poll();
+                        }
+                    }
+                }
+            }
+            return new SearchResult(ranked(best), examined, false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            long postings = nameGrams.values().stream().mapToLong(list -> list.size).sum()
+                    + gradeDictionary.postingCount() + schoolDictionary.postingCount();
+            return new Stats(size - deleted, size, nameGrams.size(), gradeDictionary.size(), schoolDictionary.size(),
+                    postings);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits a query into lowercased terms the same way names are normalized for indexing.
+     */
+    static String[] terms(String query) {
+        String normalized = normalize(query);
+        return normalized.isEmpty() ? new String[0] : normalized.split(" ");
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : WHITESPACE.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static List<Hit> ranked(PriorityQueue<Hit> best) {
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparingInt(Hit::nameLength)
+            .thenComparingLong(Hit::id);
+
+    private boolean outranks(int score, int slot, Hit worst) {
+        if (score != worst.score()) {
+            return score > worst.score();
+        }
+        int nameLength = names[slot].length();
+        return nameLength != worst.nameLength() ? nameLength < worst.nameLength() : ids[slot] < worst.id();
+    }
+
+    private TermMatch match(String term) {
+        Postings nameCandidates = shortestPostings(term);
+        // Dictionary values are scored once per query instead of once per candidate
+        int[] gradeScores = gradeDictionary.scores(value -> gradeScore(value, term));
+        int[] schoolScores = schoolDictionary.scores(value -> schoolScore(value, term));
+        List<Source> sources = new ArrayList<>();
+        sources.add(new Source(Field.NAME, nameCandidates));
+        long estimate = nameCandidates.size;
+        for (int code = 0; code < gradeScores.length; code++) {
+            if (gradeScores[code] > 0) {
+                sources.add(new Source(Field.GRADE, gradeDictionary.slots(code)));
+                estimate += gradeDictionary.slots(code).size;
+            }
+        }
+        for (int code = 0; code < schoolScores.length; code++) {
+            if (schoolScores[code] > 0) {
+                sources.add(new Source(Field.SCHOOL, schoolDictionary.slots(code)));
+                estimate += schoolDictionary.slots(code).size;
+            }
+        }
+        return new TermMatch(term, nameCandidates, sources, estimate, gradeScores, schoolScores);
+    }
+
+    /**
+     * The shortest slot list among the grams every name containing the term must have; a superset of the matches.
+     */
+    private Postings shortestPostings(String term) {
+        Postings shortest = null;
+        for (long gram : queryGrams(term)) {
+            Postings postings = nameGrams.get(gram);
+            if (postings == null) {
+                return Postings.EMPTY;
+            }
+            if (shortest == null || postings.size < shortest.size) {
+                shortest = postings;
+            }
+        }
+        return shortest;
+    }
+
+    /**
+     * Whether a slot of the driving term was already examined from a source enumerated before this one.
+     * A student has one grade and one school, so only the name candidates and its grade can list it first.
+     */
+    private boolean listedEarlier(int slot, Field field, TermMatch driver) {
+        return switch (field) {
+            case NAME -> false;
+            case GRADE -> driver.nameCandidates().contains(slot);
+            case SCHOOL -> driver.nameCandidates().contains(slot) || driver.gradeScores()[grades[slot]] > 0;
+        };
+    }
+
+    private int score(int slot, TermMatch[] matches) {
+        String name = names[slot];
+        int total = 0;
+        for (TermMatch match : matches) {
+            int score = Math.max(nameScore(name, match.term()),
+                    Math.max(match.schoolScores()[schools[slot]], match.gradeScores()[grades[slot]]));
+            if (score == 0) {
+                return 0;
+            }
+            total += score;
+        }
+        return total;
+    }
+
+    /**
+     * Scores a name in one pass over the occurrences of the term.
+     */
+    private static int nameScore(String name, String term) {
+        int at = name.indexOf(term);
+        if (at < 0) {
+            return 0;
+        }
+        if (at == 0) {
+            return name.length() == term.length() ? NAME_EXACT : NAME_PREFIX;
+        }
+        for (; at >= 0; at = name.indexOf(term, at + 1)) {
+            if (name.charAt(at - 1) == ' ') {
+                return NAME_WORD_PREFIX;
+            }
+        }
+        return term.length() >= GRAM_LENGTH ? NAME_SUBSTRING : 0;
+    }
+
+    private static int schoolScore(String school, String term) {
+        if (!matches(school, term)) {
+            return 0;
+        }
+        if (school.equals(term)) {
+            return SCHOOL_EXACT;
+        }
+        return startsWord(school, term) ? SCHOOL_WORD_PREFIX : SCHOOL_SUBSTRING;
+    }
+
+    private static int gradeScore(String grade, String term) {
+        if (!matches(grade, term)) {
+            return 0;
+        }
+        return grade.equals(term) ? GRADE_EXACT : GRADE_MATCH;
+    }
+
+    private static boolean matches(String text, String term) {
+        return term.length() >= GRAM_LENGTH ? text.contains(term) : startsWord(text, term);
+    }
+
+    private static boolean startsWord(String text, String term) {
+        for (int from = 0; (from = text.indexOf(term, from)) >= 0; from++) {
+            if (from == 0 || text.charAt(from - 1) == ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Grams a name containing {@code term} is indexed under: all trigrams of a long term, or the padded
+     * word-start gram of a short one.
+     */
+    private static long[] queryGrams(String term) {
+        if (term.length() == 1) {
+            return new long[]{gram(' ', ' ', term.charAt(0))};
+        }
+        if (term.length() == 2) {
+            return new long[]{gram(' ', term.charAt(0), term.charAt(1))};
+        }
+        long[] grams = new long[term.length() - GRAM_LENGTH + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = gram(term.charAt(i), term.charAt(i + 1), term.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static long[] nameGrams(String name) {
+        long[] grams = new long[name.length() * 3];
+        int count = 0;
+        for (int i = 0; i + GRAM_LENGTH <= name.length(); i++) {
+            grams[count++] = gram(name.charAt(i), name.charAt(i + 1), name.charAt(i + 2));
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != ' ' && (i == 0 || name.charAt(i - 1) == ' ')) {
+                grams[count++] = gram(' ', ' ', name.charAt(i));
+                if (i + 1 < name.length() && name.charAt(i + 1) != ' ') {
+                    grams[count++] = gram(' ', name.charAt(i), name.charAt(i + 1));
+                }
+            }
+        }
+        long[] distinct = Arrays.copyOf(grams, count);
+        Arrays.sort(distinct);
+        int unique = 0;
+        for (int i = 0; i < distinct.length; i++) {
+            if (i == 0 || distinct[i] != distinct[i - 1]) {
+                distinct[unique++] = distinct[i];
+            }
+        }
+        return Arrays.copyOf(distinct, unique);
+    }
+
+    private static long gram(char first, char second, char third) {
+        return ((long) first << 32) | ((long) second << 16) | third;
+    }
+
+    private void reset() {
+        ids = new long[INITIAL_CAPACITY];
+        names = new String[INITIAL_CAPACITY];
+        grades = new int[INITIAL_CAPACITY];
+        schools = new int[INITIAL_CAPACITY];
+        size = 0;
+        deleted = 0;
+        slotsById.clear();
+        nameGrams.clear();
+        gradeDictionary.clear();
+        schoolDictionary.clear();
+    }
+
+    private void upsert(Row row) {
+        int slot = slotsById.get(row.id());
+        if (slot >= 0) {
+            if (names[slot].equals(normalize(row.name()))
+                    && gradeDictionary.value(grades[slot]).equals(normalize(row.grade()))
+                    && schoolDictionary.value(schools[slot]).equals(normalize(row.school()))) {
+                return;
+            }
+            tombstone(slot);
+        }
+        append(row);
+    }
+
+    private void remove(long id) {
+        int slot = slotsById.get(id);
+        if (slot >= 0) {
+            tombstone(slot);
+        }
+    }
+
+    private void tombstone(int slot) {
+        slotsById.remove(ids[slot]);
+        names[slot] = null;
+        deleted++;
+    }
+
+    private void append(Row row) {
+        if (size == ids.length) {
+            int capacity = size + (size >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            grades = Arrays.copyOf(grades, capacity);
+            schools = Arrays.copyOf(schools, capacity);
+        }
+        int slot = size++;
+        String name = normalize(row.name());
+        ids[slot] = row.id();
+        names[slot] = name;
+        grades[slot] = gradeDictionary.add(normalize(row.grade()), slot);
+        schools[slot] = schoolDictionary.add(normalize(row.school()), slot);
+        for (long gram : nameGrams(name)) {
+            nameGrams.computeIfAbsent(gram, key -> new Postings()).add(slot);
+        }
+        slotsById.put(row.id(), slot);
+    }
+
+    /**
+     * Drops the spare capacity lists grew while appending, which is up to half of them after a load.
+     */
+    private void trim() {
+        nameGrams.values().forEach(Postings::trim);
+        gradeDictionary.trim();
+        schoolDictionary.trim();
+    }
+
+    /**
+     * Rebuilds the lists without tombstoned slots once they make up a quarter of the index.
+     */
+    private void compactIfSparse() {
+        if (deleted < INITIAL_CAPACITY || deleted * 4 < size) {
+            return;
+        }
+        List<Row> live = new ArrayList<>(size - deleted);
+        for (int slot = 0; slot < size; slot++) {
+            if (names[slot] != null) {
+                live.add(new Row(ids[slot], names[slot], gradeDictionary.value(grades[slot]),
+                        schoolDictionary.value(schools[slot])));
+            }
+        }
+        reset();
+        live.forEach(this::append);
+        trim();
+    }
+
+    /**
+     * A growable, sorted list of slots.
+     */
+    private static final class Postings {
+
+        static final Postings EMPTY = new Postings();
+
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size > 0 && slots[size - 1] == slot) {
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        void trim() {
+            if (size > 0 && size < slots.length) {
+                slots = Arrays.copyOf(slots, size);
+            }
+        }
+
+        boolean contains(int slot) {
+            return Arrays.binarySearch(slots, 0, size, slot) >= 0;
+        }
+    }
+
+    /**
+     * Distinct values of a low-cardinality field, each with the slots holding it.
+     */
+    private static final class Dictionary {
+
+        private final List<String> values = new ArrayList<>();
+        private final List<Postings> slots = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        int add(String value, int slot) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                slots.add(new Postings());
+                codes.put(value, code);
+            }
+            slots.get(code).add(slot);
+            return code;
+        }
+
+        String value(int code) {
+            return values.get(code);
+        }
+
+        Postings slots(int code) {
+            return slots.get(code);
+        }
+
+        int[] scores(ToIntFunction<String> scorer) {
+            int[] scores = new int[values.size()];
+            for (int code = 0; code < scores.length; code++) {
+                scores[code] = scorer.applyAsInt(values.get(code));
+            }
+            return scores;
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        void trim() {
+            slots.forEach(Postings::trim);
+        }
+
+        long postingCount() {
+            return slots.stream().mapToLong(list -> list.size).sum();
+        }
+
+        void clear() {
+            values.clear();
+            slots.clear();
+            codes.clear();
+        }
+    }
+
+    /**
+     * Open-addressing map from student id to slot without boxing, which would cost more than the rest of
+     * a slot. Ids are positive, so zero marks a free entry.
+     */
+    private static final class SlotMap {
+
+        private long[] keys = new long[INITIAL_CAPACITY * 2];
+        private int[] values = new int[INITIAL_CAPACITY * 2];
+        private int size;
+
+        int get(long id) {
+            for (int i = index(id, keys.length); keys[i] != 0; i = (i + 1) & (keys.length - 1)) {
+                if (keys[i] == id) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(long id, int slot) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int i = index(id, keys.length);
+            for (; keys[i] != 0; i = (i + 1) & (keys.length - 1)) {
+                if (keys[i] == id) {
+                    values[i] = slot;
+                    return;
+                }
+            }
+            keys[i] = id;
+            values[i] = slot;
+            size++;
+        }
+
+        void remove(long id) {
+            int mask = keys.length - 1;
+            int i = index(id, keys.length);
+            while (keys[i] != id) {
+                if (keys[i] == 0) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = 0;
+            size--;
+            // Move later entries of the probe run into the gap, so lookups never stop early at it
+            for (int next = (i + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+                int home = index(keys[next], keys.length);
+                if (((next - home) & mask) >= ((next - i) & mask)) {
+                    keys[i] = keys[next];
+                    values[i] = values[next];
+                    keys[next] = 0;
+                    i = next;
+                }
+            }
+        }
+
+        void clear() {
+            keys = new long[INITIAL_CAPACITY * 2];
+            values = new int[INITIAL_CAPACITY * 2];
+            size = 0;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[capacity];
+            values = new int[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int index(long id, int capacity) {
+            long hash = id * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32) & (capacity - 1);
+        }
+    }
+
+    private enum Field { NAME, GRADE, SCHOOL }
+
+    private record Source(Field field, Postings slots) {}
+
+    /**
+     * How one query term can match: its name candidates, the slot lists to enumerate (names first, then
+     * matching grades and schools) and the score of every dictionary value, zero where it doesn't match.
+     */
+    private record TermMatch(
+            String term,
+            Postings nameCandidates,
+            List<Source> sources,
+            long estimatedCandidates,
+            int[] gradeScores,
+            int[] schoolScores
+    ) {}
+
+    private record Row(long id, String name, String grade, String school) {
+        static Row of(ResultSet rs) throws SQLException {
+            return new Row(rs.getLong("id"), rs.getString("name"), rs.getString("grade"), rs.getString("school"));
+        }
+    }
+
+    public record Hit(long id, int score, int nameLength) {}
+
+    /**
+     * @param candidates slots examined to rank the hits
+     * @param truncated  whether the candidates ran out before all were examined, so better hits may exist
+     */
+    public record SearchResult(List<Hit> hits, int candidates, boolean truncated) {}
+
+    public record Stats(int students, int slots, int nameTrigrams, int grades, int schools, long postings) {}
+}
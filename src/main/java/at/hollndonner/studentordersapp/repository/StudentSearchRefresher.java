@@ -0,0 +1,121 @@
+package at.hollndonner.studentordersapp.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies committed student changes to the {@link StudentSearchIndex} from one background thread, so the request
+ * that made them neither waits for the re-read nor queues on the index's refresh lock. Ids reported while a refresh
+ * runs collect in a set and are read together by the next one. Deleted students are queued the same way: the
+ * re-read no longer finds them and drops them from the index. A failed refresh puts its ids back and is retried
+ * after a pause.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "students.search.enabled", havingValue = "true", matchIfMissing = true)
+public class StudentSearchRefresher implements SmartLifecycle {
+
+    private static final long RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final StudentSearchIndex index;
+    private final Set<Long> changedStudentIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    private volatile Thread thread;
+
+    public StudentSearchRefresher(StudentSearchIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Queues the students for a re-read without blocking.
+     */
+    public void studentsChanged(Collection<Long> studentIds) {
+        changedStudentIds.addAll(studentIds);
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        while (true) {
+            // Read before draining, so whatever was queued before stop() is still applied
+            boolean stopping = !running;
+            try {
+                if (applyPending()) {
+                    continue;
+                }
+            } catch (RuntimeException ex) {
+                log.error("Could not apply student changes to the search index, retrying in {} s",
+                        TimeUnit.NANOSECONDS.toSeconds(RETRY_DELAY_NANOS), ex);
+                if (!stopping) {
+                    LockSupport.parkNanos(this, RETRY_DELAY_NANOS);
+                    continue;
+                }
+            }
+            if (stopping) {
+                return;
+            }
+            LockSupport.park(this);
+        }
+    }
+
+    /**
+     * Applies everything queued so far; returns {@code false} if nothing was.
+     */
+    private boolean applyPending() {
+        List<Long> studentIds = new ArrayList<>();
+        for (Iterator<Long> it = changedStudentIds.iterator(); it.hasNext(); ) {
+            studentIds.add(it.next());
+            it.remove();
+        }
+        if (studentIds.isEmpty()) {
+            return false;
+        }
+        try {
+            index.refresh(studentIds);
+        } catch (RuntimeException ex) {
+            changedStudentIds.addAll(studentIds);
+            throw ex;
+        }
+        return true;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "student-search-refresher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Stopped after the web server, so changes from the last requests are still applied
+        return 0;
+    }
+}
@@ -0,0 +1,119 @@
+package at.hollndonner.studentordersapp.repository;
+
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A lookup table of distinct strings ({@code id INT, name UNIQUE}) that other rows reference by id, with an
+ * in-process cache in both directions. The tables only ever grow and ids never change, so cached entries stay
+ * valid; the cache fills on demand and holds every value in use, which is a few hundred at most, so a miss
+ * by id reads the whole table at once.
+ * <p>
+ * New values are inserted in the caller's transaction. Until it commits, a concurrent writer of the same value
+ * waits on the unique key and then reads the committed id with a locking read, and the value is only cached once
+ * the insert is committed, so a rollback never leaves an id in the cache that the table doesn't have. Values read
+ * in a read-only transaction are committed already and cached at once, so a filter resolved with
+ * {@link #valuesContaining} binds its ids from the cache instead of querying while Hibernate prepares the query.
+ */
+public abstract class ValueDictionary {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String table;
+    private final Map<String, Integer> idsByValue = new ConcurrentHashMap<>();
+    private final Map<Integer, String> valuesById = new ConcurrentHashMap<>();
+
+    protected ValueDictionary(JdbcTemplate jdbcTemplate, String table) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = table;
+    }
+
+    /**
+     * The id of {@code value}, inserting it first if the table doesn't have it yet. A read-only transaction never
+     * inserts; there the value must exist already.
+     */
+    public int idOf(String value) {
+        Integer cached = idsByValue.get(value);
+        if (cached != null) {
+            return cached;
+        }
+        List<Integer> existing = jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE name = ?",
+                Integer.class, value);
+        if (existing.isEmpty()) {
+            if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                // Filters only bind values found by valuesContaining, so a miss here is a bug, not a new value
+                throw new IllegalStateException("Cannot add " + table + " entry '" + value
+                        + "' in a read-only transaction");
+            }
+            // Not INSERT IGNORE, which would also swallow errors such as a value too long for the column
+            jdbcTemplate.update("INSERT INTO " + table + " (name) VALUES (?) ON DUPLICATE KEY UPDATE id = id", value);
+            // A locking read sees the latest committed row. A plain one would read this transaction's snapshot under
+            // REPEATABLE READ and miss a value another transaction committed after it began.
+            existing = jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE name = ? FOR UPDATE",
+                    Integer.class, value);
+        }
+        int id = existing.get(0);
+        cache(id, value);
+        return id;
+    }
+
+    public String valueOf(int id) {
+        String cached = valuesById.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        // One miss loads the whole table: a page of students would otherwise query once per distinct value
+        String[] found = new String[1];
+        jdbcTemplate.query("SELECT id, name FROM " + table, rs -> {
+            int rowId = rs.getInt("id");
+            String value = rs.getString("name");
+            cache(rowId, value);
+            if (rowId == id) {
+                found[0] = value;
+            }
+        });
+        if (found[0] == null) {
+            throw new IllegalStateException("No " + table + " entry with id " + id);
+        }
+        return found[0];
+    }
+
+    /**
+     * Every value containing {@code text}, ignoring case. Reads the table rather than the cache, so values
+     * added by other instances are found as well.
+     */
+    public List<String> valuesContaining(String text) {
+        String pattern = "%" + EscapeCharacter.DEFAULT.escape(text.toLowerCase(Locale.ROOT)) + "%";
+        return jdbcTemplate.query("SELECT id, name FROM " + table + " WHERE LOWER(name) LIKE ? ESCAPE '\\'",
+                (rs, rowNum) -> {
+                    String value = rs.getString("name");
+                    cache(rs.getInt("id"), value);
+                    return value;
+                }, pattern);
+    }
+
+    private void cache(int id, String value) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            put(id, value);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(id, value);
+            }
+        });
+    }
+
+    private void put(int id, String value) {
+        idsByValue.put(value, id);
+        valuesById.put(id, value);
+    }
+}
@@ -0,0 +1,8 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.cache.CacheRegionStats;
+
+public interface CacheStatsService {
+
+    CacheRegionStats getStudentCacheStats();
+}
@@ -0,0 +1,49 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.cache.CacheRegionStats;
+import at.hollndonner.studentordersapp.model.Student;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Service;
+
+import javax.cache.CacheManager;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CacheStatsServiceImpl implements CacheStatsService {
+
+    private final CacheManager jcacheManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public CacheRegionStats getStudentCacheStats() {
+        return regionStats(Student.CACHE_REGION);
+    }
+
+    private CacheRegionStats regionStats(String region) {
+        boolean enabled = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getSessionFactoryOptions()
+                .isSecondLevelCacheEnabled();
+        if (!enabled) {
+            log.debug("Second-level cache is disabled, no stats for region: {}", region);
+            return CacheRegionStats.disabled(region);
+        }
+
+        // Counters come from Caffeine itself (native-statistics in application.conf); evictions cover size and TTL
+        Cache<?, ?> cache = jcacheManager.getCache(region).unwrap(Cache.class);
+        CacheStats stats = cache.stats();
+        return new CacheRegionStats(
+                region,
+                true,
+                cache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount());
+    }
+}
@@ -0,0 +1,12 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.analytics.OrderAggregateRequest;
+import at.hollndonner.studentordersapp.dto.analytics.OrderAggregateResponse;
+import at.hollndonner.studentordersapp.dto.analytics.OrderSnapshotStats;
+
+public interface OrderAnalyticsService {
+
+    OrderAggregateResponse aggregate(OrderAggregateRequest request);
+
+    OrderSnapshotStats getSnapshotStats();
+}
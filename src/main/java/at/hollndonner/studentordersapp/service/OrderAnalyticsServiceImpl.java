@@ -0,0 +1,143 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.analytics.OrderAggregateGroup;
+import at.hollndonner.studentordersapp.dto.analytics.OrderAggregateRequest;
+import at.hollndonner.studentordersapp.dto.analytics.OrderAggregateResponse;
+import at.hollndonner.studentordersapp.dto.analytics.OrderSnapshotStats;
+import at.hollndonner.studentordersapp.event.OrdersChangedEvent;
+import at.hollndonner.studentordersapp.event.StudentDeletedEvent;
+import at.hollndonner.studentordersapp.exception.ResourceNotFoundException;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import at.hollndonner.studentordersapp.repository.OrderColumnSnapshot;
+import at.hollndonner.studentordersapp.repository.OrderSnapshotRefresher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Answers aggregate queries from the {@link OrderColumnSnapshot} when {@code orders.analytics.enabled} is set,
+ * and keeps the snapshot in step with committed order writes through the {@link OrderSnapshotRefresher}.
+ */
+@Slf4j
+@Service
+public class OrderAnalyticsServiceImpl implements OrderAnalyticsService {
+
+    private final OrderColumnSnapshot snapshot;
+    private final OrderSnapshotRefresher refresher;
+
+    public OrderAnalyticsServiceImpl(ObjectProvider<OrderColumnSnapshot> snapshot,
+                                     ObjectProvider<OrderSnapshotRefresher> refresher) {
+        this.snapshot = snapshot.getIfAvailable();
+        this.refresher = refresher.getIfAvailable();
+    }
+
+    @Override
+    public OrderAggregateResponse aggregate(OrderAggregateRequest request) {
+        OrderColumnSnapshot columns = requireSnapshot();
+        OrderColumnSnapshot.GroupBy groupBy = parseGroupBy(request.groupBy());
+        OrderStatus status = parseStatus(request.status());
+        Instant from = parseInstant(request.from(), "from");
+        Instant to = parseInstant(request.to(), "to");
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("From must be before to.");
+        }
+        log.debug("Aggregating orders by {} - status: {}, from: {}, to: {}", groupBy, status, from, to);
+
+        long start = System.nanoTime();
+        OrderColumnSnapshot.Aggregation aggregation = columns.aggregate(groupBy, status, from, to);
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+
+        List<OrderAggregateGroup> groups = aggregation.groups().stream()
+                .map(group -> toGroup(groupBy, group))
+                .toList();
+        return new OrderAggregateResponse(groupBy.name().toLowerCase(Locale.ROOT), groups,
+                aggregation.scannedOrders(), elapsedMicros);
+    }
+
+    @Override
+    public OrderSnapshotStats getSnapshotStats() {
+        OrderColumnSnapshot.Stats stats = requireSnapshot().stats();
+        long bytes = stats.columnBytes() + stats.studentBytes();
+        double bytesPerOrder = stats.orders() == 0 ? 0 : (double) bytes / stats.orders();
+        return new OrderSnapshotStats(stats.orders(), stats.slots(), stats.capacity(), stats.students(),
+                stats.columnBytes(), stats.studentBytes(), bytesPerOrder, stats.loadedAt());
+    }
+
+    /**
+     * Runs after the writing transaction commits, so rolled-back writes never reach the snapshot.
+     * Only queues the ids; the re-read happens on the refresher's thread, outside the committed request.
+     */
+    @TransactionalEventListener
+    public void onOrdersChanged(OrdersChangedEvent event) {
+        if (refresher != null) {
+            refresher.ordersChanged(event.orderIds());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onStudentDeleted(StudentDeletedEvent event) {
+        if (refresher != null) {
+            refresher.studentDeleted(event.studentId());
+        }
+    }
+
+    private OrderColumnSnapshot requireSnapshot() {
+        if (snapshot == null) {
+            throw new ResourceNotFoundException("Order analytics are disabled");
+        }
+        return snapshot;
+    }
+
+    private static OrderAggregateGroup toGroup(OrderColumnSnapshot.GroupBy groupBy,
+                                               OrderColumnSnapshot.GroupTotal group) {
+        String key = switch (groupBy) {
+            case STATUS -> OrderStatus.values()[(int) group.key()].name();
+            case STUDENT -> Long.toString(group.key());
+            case HOUR, DAY -> Instant.ofEpochSecond(group.key()).toString();
+        };
+        BigDecimal sum = BigDecimal.valueOf(group.sumCents(), 2);
+        BigDecimal avg = sum.divide(BigDecimal.valueOf(group.count()), 2, RoundingMode.HALF_UP);
+        return new OrderAggregateGroup(key, group.count(), sum, avg);
+    }
+
+    private static OrderColumnSnapshot.GroupBy parseGroupBy(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return OrderColumnSnapshot.GroupBy.STATUS;
+        }
+        try {
+            return OrderColumnSnapshot.GroupBy.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid groupBy. Allowed: status, student, hour, day.");
+        }
+    }
+
+    private static OrderStatus parseStatus(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        try {
+            return OrderStatus.valueOf(raw);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid order status. Allowed: pending, paid.");
+        }
+    }
+
+    private static Instant parseInstant(String raw, String name) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.parse(raw.trim());
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Parameter '" + name + "' must be an ISO-8601 instant.");
+        }
+    }
+}
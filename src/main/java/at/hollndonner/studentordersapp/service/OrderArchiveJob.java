@@ -0,0 +1,38 @@
+package at.hollndonner.studentordersapp.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Archives cold orders on {@code orders.archive.cron}, which is off unless set, and keeps this instance's view of
+ * the segment directory current when other instances archive.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderArchiveJob {
+
+    private final OrderArchiveService orderArchiveService;
+
+    @Scheduled(cron = "${orders.archive.cron:-}")
+    public void archive() {
+        try {
+            orderArchiveService.archive();
+        } catch (RuntimeException ex) {
+            // Orders stay in the database until a run gets them out, so a failed run only delays archiving
+            log.error("Order archive run failed", ex);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${orders.archive.rescan-interval-ms:60000}",
+            fixedDelayString = "${orders.archive.rescan-interval-ms:60000}")
+    public void rescanSegments() {
+        try {
+            orderArchiveService.rescanSegments();
+        } catch (RuntimeException ex) {
+            log.error("Order segment rescan failed", ex);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.archive.OrderArchiveRunResponse;
+import at.hollndonner.studentordersapp.dto.archive.OrderArchiveStats;
+
+public interface OrderArchiveService {
+
+    /**
+     * Moves paid orders older than {@code orders.archive.min-age-days} out of the database into new segments.
+     * Safe to repeat, also after a run that failed halfway.
+     */
+    OrderArchiveRunResponse archive();
+
+    OrderArchiveStats getStats();
+
+    /**
+     * Picks up segments that other instances wrote or replaced, and retries removing the archived orders of
+     * deleted students where that failed before.
+     */
+    void rescanSegments();
+}
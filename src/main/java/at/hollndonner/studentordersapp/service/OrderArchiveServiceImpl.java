@@ -0,0 +1,185 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.archive.OrderArchiveRunResponse;
+import at.hollndonner.studentordersapp.dto.archive.OrderArchiveStats;
+import at.hollndonner.studentordersapp.event.StudentDeletedEvent;
+import at.hollndonner.studentordersapp.exception.ConflictException;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import at.hollndonner.studentordersapp.repository.OrderSegment;
+import at.hollndonner.studentordersapp.repository.OrderSegments;
+import at.hollndonner.studentordersapp.repository.OrderShardRepository;
+import at.hollndonner.studentordersapp.repository.OrderShardRepository.StoredOrder;
+import at.hollndonner.studentordersapp.repository.OrderShards;
+import at.hollndonner.studentordersapp.repository.OrderSummaryRepository;
+import at.hollndonner.studentordersapp.repository.OrderSummaryRepository.Delta;
+import at.hollndonner.studentordersapp.repository.RevenueRollupRepository;
+import at.hollndonner.studentordersapp.repository.StudentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Service
+public class OrderArchiveServiceImpl implements OrderArchiveService {
+
+    private static final int STUDENT_LOOKUP_CHUNK_SIZE = 1000;
+
+    private final OrderShards orderShards;
+    private final OrderShardRepository orderShardRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final RevenueRollupRepository revenueRollupRepository;
+    private final StudentRepository studentRepository;
+    private final OrderSegments orderSegments;
+    private final int minAgeDays;
+    private final int segmentSize;
+    private final ReentrantLock running = new ReentrantLock();
+    // Deleted students whose archived orders could not be removed yet; retried on every rescan
+    private final Set<Long> pendingRemovals = ConcurrentHashMap.newKeySet();
+
+    public OrderArchiveServiceImpl(OrderShards orderShards,
+                                   OrderShardRepository orderShardRepository,
+                                   OrderSummaryRepository orderSummaryRepository,
+                                   RevenueRollupRepository revenueRollupRepository,
+                                   StudentRepository studentRepository,
+                                   OrderSegments orderSegments,
+                                   @Value("${orders.archive.min-age-days:365}") int minAgeDays,
+                                   @Value("${orders.archive.segment-size:20000}") int segmentSize) {
+        if (minAgeDays < 1) {
+            throw new IllegalArgumentException("orders.archive.min-age-days must be positive");
+        }
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("orders.archive.segment-size must be positive");
+        }
+        this.orderShards = orderShards;
+        this.orderShardRepository = orderShardRepository;
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.revenueRollupRepository = revenueRollupRepository;
+        this.studentRepository = studentRepository;
+        this.orderSegments = orderSegments;
+        this.minAgeDays = minAgeDays;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Shard by shard, the oldest cold orders are locked a segment's worth at a time, written to a segment and
+     * deleted in the same transaction. The segment is on disk before the delete commits; if the commit fails
+     * the segment is taken back, and if the instance dies in between, the next run finds the orders in both
+     * places and only deletes them.
+     * <p>
+     * Each run also removes archived orders of students that no longer exist, which a deletion on an instance
+     * that died before removing them leaves behind.
+     */
+    @Override
+    public OrderArchiveRunResponse archive() {
+        if (!running.tryLock()) {
+            throw new ConflictException("An archive run is already in progress.");
+        }
+        try {
+            LocalDateTime before = revenueRollupRepository.currentTimestamp().minusDays(minAgeDays);
+            int segmentsWritten = 0;
+            long ordersArchived = 0;
+            for (int shard = 0; shard < orderShards.count(); shard++) {
+                while (true) {
+                    int[] chunk = orderShards.inShard(shard, false, tx -> archiveChunk(before));
+                    segmentsWritten += chunk[0];
+                    ordersArchived += chunk[1];
+                    if (chunk[1] < segmentSize) {
+                        break;
+                    }
+                }
+            }
+            log.info("Archived {} orders created before {} into {} segments", ordersArchived, before, segmentsWritten);
+            removeDeletedStudents();
+            return new OrderArchiveRunResponse(segmentsWritten, ordersArchived, before.toInstant(ZoneOffset.UTC));
+        } finally {
+            running.unlock();
+        }
+    }
+
+    @Override
+    public OrderArchiveStats getStats() {
+        OrderSegments.Stats stats = orderSegments.stats();
+        return new OrderArchiveStats(stats.segments(), stats.orders(), stats.bytes(),
+                stats.orders() == 0 ? 0 : (double) stats.bytes() / stats.orders(),
+                stats.oldest(), stats.newest());
+    }
+
+    @Override
+    public void rescanSegments() {
+        orderSegments.rescan();
+        for (Long studentId : List.copyOf(pendingRemovals)) {
+            removeArchivedOrders(studentId);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onStudentDeleted(StudentDeletedEvent event) {
+        removeArchivedOrders(event.studentId());
+    }
+
+    private void removeArchivedOrders(long studentId) {
+        try {
+            int removed = orderSegments.removeStudent(studentId);
+            pendingRemovals.remove(studentId);
+            log.debug("Removed {} archived orders of student {}", removed, studentId);
+        } catch (RuntimeException ex) {
+            pendingRemovals.add(studentId);
+            log.error("Could not remove archived orders of student {}, retrying on the next rescan", studentId, ex);
+        }
+    }
+
+    private void removeDeletedStudents() {
+        List<Long> studentIds = new ArrayList<>(orderSegments.studentIds());
+        Set<Long> existing = new HashSet<>(studentIds.size());
+        for (int start = 0; start < studentIds.size(); start += STUDENT_LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = studentIds.subList(start, Math.min(start + STUDENT_LOOKUP_CHUNK_SIZE, studentIds.size()));
+            existing.addAll(orderShards.inShard(0, false, tx -> studentRepository.findExistingIds(chunk)));
+        }
+        studentIds.stream()
+                .filter(studentId -> !existing.contains(studentId))
+                .forEach(this::removeArchivedOrders);
+    }
+
+    /**
+     * @return the segments written and the orders taken out of the shard
+     */
+    private int[] archiveChunk(LocalDateTime before) {
+        List<StoredOrder> cold = orderShardRepository.lockCreatedBefore(OrderStatus.paid, before, segmentSize);
+        if (cold.isEmpty()) {
+            return new int[] {0, 0};
+        }
+        // Left over from a run that wrote its segment but died before the delete committed
+        List<StoredOrder> unarchived = cold.stream()
+                .filter(order -> orderSegments.findVersionById(order.id()).isEmpty())
+                .toList();
+        if (!unarchived.isEmpty()) {
+            OrderSegment segment = orderSegments.append(unarchived);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    // With an unknown outcome the orders may be gone from the database, so the segment stays
+                    if (status == STATUS_ROLLED_BACK) {
+                        orderSegments.discard(segment);
+                    }
+                }
+            });
+        }
+        orderShardRepository.deleteAll(cold.stream().map(StoredOrder::id).toList());
+        orderSummaryRepository.applyDeltas(cold.stream()
+                .map(order -> Delta.removed(order.studentId(), order.status(), order.total()))
+                .toList());
+        return new int[] {unarchived.isEmpty() ? 0 : 1, cold.size()};
+    }
+}
@@ -1,25 +1,50 @@
 package at.hollndonner.studentordersapp.service;
 
+import at.hollndonner.studentordersapp.dto.order.CreateOrderBatchRequest;
 import at.hollndonner.studentordersapp.dto.order.CreateOrderRequest;
+import at.hollndonner.studentordersapp.dto.order.OrderBatchResponse;
+import at.hollndonner.studentordersapp.dto.order.OrderCursorPage;
+import at.hollndonner.studentordersapp.dto.order.OrderExportFormat;
 import at.hollndonner.studentordersapp.dto.order.OrderFilterRequest;
 import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.dto.order.OrderStatusTransitionRequest;
+import at.hollndonner.studentordersapp.dto.order.OrderStatusTransitionResponse;
 import at.hollndonner.studentordersapp.dto.order.UpdateOrderRequest;
 import at.hollndonner.studentordersapp.dto.order.UpdateOrderStatusRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.io.IOException;
+import java.io.OutputStream;
 
 public interface OrderService {
 
     OrderResponse createOrder(CreateOrderRequest request);
 
+    OrderBatchResponse createOrders(CreateOrderBatchRequest request);
+
+    OrderStatusTransitionResponse transitionOrderStatus(OrderStatusTransitionRequest request);
+
     OrderResponse getOrderById(Long id);
 
+    long getOrderVersion(Long id);
+
     Page<OrderResponse> getOrders(OrderFilterRequest filter, Pageable pageable);
 
-    OrderResponse updateOrder(Long id, UpdateOrderRequest request);
+    Slice<OrderResponse> getOrderSlice(OrderFilterRequest filter, Pageable pageable);
+
+    OrderCursorPage scrollOrders(OrderFilterRequest filter, String cursor, int size);
+
+    void exportOrders(OrderFilterRequest filter, OrderExportFormat format, OutputStream out) throws IOException;
+
+    /**
+     * Mutations take the version the caller last saw, or {@code null} to write whatever version is current.
+     */
+    OrderResponse updateOrder(Long id, UpdateOrderRequest request, Long expectedVersion);
 
-    OrderResponse updateOrderStatus(Long id, UpdateOrderStatusRequest request);
+    OrderResponse updateOrderStatus(Long id, UpdateOrderStatusRequest request, Long expectedVersion);
 
-    void deleteOrder(Long id);
+    void deleteOrder(Long id, Long expectedVersion);
 }
 
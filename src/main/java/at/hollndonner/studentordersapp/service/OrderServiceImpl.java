@@ -1,34 +1,104 @@
 package at.hollndonner.studentordersapp.service;
 
+import at.hollndonner.studentordersapp.dto.order.CreateOrderBatchRequest;
 import at.hollndonner.studentordersapp.dto.order.CreateOrderRequest;
+import at.hollndonner.studentordersapp.dto.order.OrderBatchItemResult;
+import at.hollndonner.studentordersapp.dto.order.OrderBatchResponse;
+import at.hollndonner.studentordersapp.dto.order.OrderCursor;
+import at.hollndonner.studentordersapp.dto.order.OrderCursorPage;
+import at.hollndonner.studentordersapp.dto.order.OrderExportFormat;
 import at.hollndonner.studentordersapp.dto.order.OrderFilterRequest;
 import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.dto.order.OrderStatusTransitionRequest;
+import at.hollndonner.studentordersapp.dto.order.OrderStatusTransitionResponse;
 import at.hollndonner.studentordersapp.dto.order.UpdateOrderRequest;
 import at.hollndonner.studentordersapp.dto.order.UpdateOrderStatusRequest;
+import at.hollndonner.studentordersapp.event.OrdersChangedEvent;
+import at.hollndonner.studentordersapp.exception.ConflictException;
+import at.hollndonner.studentordersapp.exception.PreconditionFailedException;
 import at.hollndonner.studentordersapp.exception.ResourceNotFoundException;
 import at.hollndonner.studentordersapp.model.Order;
 import at.hollndonner.studentordersapp.model.OrderStatus;
 import at.hollndonner.studentordersapp.model.Student;
+import at.hollndonner.studentordersapp.repository.OrderBatchRepository;
 import at.hollndonner.studentordersapp.repository.OrderRepository;
+import at.hollndonner.studentordersapp.repository.OrderSegments;
+import at.hollndonner.studentordersapp.repository.OrderShards;
+import at.hollndonner.studentordersapp.repository.OrderSorting;
+import at.hollndonner.studentordersapp.repository.OrderStatusBatchRepository;
+import at.hollndonner.studentordersapp.repository.OrderSummaryRepository;
+import at.hollndonner.studentordersapp.repository.RevenueRollupRepository;
 import at.hollndonner.studentordersapp.repository.StudentRepository;
 import at.hollndonner.studentordersapp.util.InputSanitizer;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.SequenceWriter;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
 @Service
+@Timed("service.calls")
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+    static final int MAX_SCROLL_SIZE = 100;
+    static final int SHARD_EXPORT_PAGE_SIZE = 500;
+
     private final OrderRepository orderRepository;
+    private final OrderBatchRepository orderBatchRepository;
+    private final OrderStatusBatchRepository orderStatusBatchRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final RevenueRollupRepository revenueRollupRepository;
     private final StudentRepository studentRepository;
     private final InputSanitizer inputSanitizer;
+    private final Validator validator;
+    private final JsonMapper jsonMapper;
+    private final OrderShards orderShards;
+    private final OrderSegments orderSegments;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -50,99 +120,638 @@ public class OrderServiceImpl implements OrderService {
                 .status(status)
                 .build();
 
-        Order saved = orderRepository.save(order);
+        Order saved = orderShards.inShard(orderShards.shardOf(student.getId()), false, tx -> {
+            Order inserted = insertOrder(order);
+            orderSummaryRepository.applyDeltas(List.of(
+                    OrderSummaryRepository.Delta.added(student.getId(), status, inserted.getTotal())));
+            publishChanged(List.of(inserted.getId()));
+            return inserted;
+        });
         log.debug("Order saved with ID: {} for student ID: {}", saved.getId(), student.getId());
         return OrderResponse.fromEntity(saved);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
+    public OrderBatchResponse createOrders(CreateOrderBatchRequest request) {
+        List<CreateOrderRequest> items = request.orders();
+        log.debug("Creating batch of {} orders", items.size());
+
+        // One set-based lookup instead of a findById per order
+        Set<Long> requestedStudentIds = items.stream()
+                .filter(Objects::nonNull)
+                .map(CreateOrderRequest::studentId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> existingStudentIds = requestedStudentIds.isEmpty()
+                ? Set.of()
+                : studentRepository.findExistingIds(requestedStudentIds);
+
+        OrderBatchItemResult[] results = new OrderBatchItemResult[items.size()];
+        List<Integer> accepted = new ArrayList<>(items.size());
+        List<OrderBatchRepository.NewOrder> rows = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            CreateOrderRequest item = items.get(i);
+            String error = validateBatchItem(item, existingStudentIds);
+            if (error != null) {
+                results[i] = OrderBatchItemResult.failed(i, error);
+                continue;
+            }
+            OrderStatus status;
+            try {
+                status = parseStatus(inputSanitizer.sanitizeText(item.status()));
+            } catch (IllegalArgumentException ex) {
+                results[i] = OrderBatchItemResult.failed(i, ex.getMessage());
+                continue;
+            }
+            accepted.add(i);
+            rows.add(new OrderBatchRepository.NewOrder(item.studentId(), item.total(), status));
+        }
+
+        // Each shard's rows go in together; on shards other than the main database they commit on their own
+        Map<Integer, List<Integer>> rowsByShard = new TreeMap<>();
+        for (int j = 0; j < rows.size(); j++) {
+            rowsByShard.computeIfAbsent(orderShards.shardOf(rows.get(j).studentId()), shard -> new ArrayList<>()).add(j);
+        }
+        rowsByShard.forEach((shard, positions) -> {
+            List<OrderBatchRepository.NewOrder> shardRows = positions.stream().map(rows::get).toList();
+            List<Long> ids = orderShards.inShard(shard, false, tx -> {
+                List<Long> inserted = insertOrders(shard, shardRows);
+                orderSummaryRepository.applyDeltas(shardRows.stream()
+                        .map(row -> OrderSummaryRepository.Delta.added(row.studentId(), row.status(), row.total()))
+                        .toList());
+                publishChanged(inserted);
+                return inserted;
+            });
+            for (int k = 0; k < ids.size(); k++) {
+                int index = accepted.get(positions.get(k));
+                results[index] = OrderBatchItemResult.created(index, ids.get(k));
+            }
+        });
+
+        OrderBatchResponse response = OrderBatchResponse.of(Arrays.asList(results));
+        log.debug("Order batch done: {} created, {} failed", response.created(), response.failed());
+        return response;
+    }
+
+    @Override
+    public OrderStatusTransitionResponse transitionOrderStatus(OrderStatusTransitionRequest request) {
+        OrderStatus from = parseStatus(inputSanitizer.sanitizeText(request.from()));
+        OrderStatus to = parseStatus(inputSanitizer.sanitizeText(request.to()));
+        if (from == to) {
+            throw new IllegalArgumentException("From and target status must differ.");
+        }
+        boolean byIds = request.ids() != null && !request.ids().isEmpty();
+        boolean byFilter = request.studentId() != null || request.createdBefore() != null;
+        if (byIds == byFilter) {
+            throw new IllegalArgumentException("Provide either ids or a filter (studentId, createdBefore), not both.");
+        }
+        log.debug("Transitioning orders from {} to {}", from, to);
+
+        OrderStatusTransitionResponse response = byIds
+                ? transitionIds(request.ids(), from, to)
+                : transitionMatching(request.studentId(), request.createdBefore(), from, to);
+        log.debug("Order status transition done: {} updated, {} skipped", response.updated(), response.skipped().size());
+        return response;
+    }
+
+    @Override
     public OrderResponse getOrderById(Long id) {
         log.debug("Fetching order with ID: {}", id);
-        Order order = orderRepository.findById(id)
+        return orderShards.locate(id, true, tx -> orderRepository.findResponseById(id))
+                .or(() -> orderSegments.findResponseById(id))
+                .orElseThrow(() -> {
+                    log.error("Order not found with ID: {}", id);
+                    return new ResourceNotFoundException("Order not found");
+                });
+    }
+
+    @Override
+    public long getOrderVersion(Long id) {
+        log.debug("Fetching version of order with ID: {}", id);
+        return orderShards.locate(id, true, tx -> orderRepository.findVersionById(id))
+                .or(() -> orderSegments.findVersionById(id))
                 .orElseThrow(() -> {
                     log.error("Order not found with ID: {}", id);
                     return new ResourceNotFoundException("Order not found");
                 });
-        return OrderResponse.fromEntity(order);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Page<OrderResponse> getOrders(OrderFilterRequest filter, Pageable pageable) {
         log.debug("Fetching orders with filter: {}", filter);
 
-        OrderStatus status = null;
-        if (filter.status() != null && !filter.status().isBlank()) {
-            status = parseStatus(filter.status());
+        OrderStatus status = parseStatusFilter(filter);
+        Pageable indexedPageable = withIndexedSort(pageable);
+
+        Integer shard = shardOf(filter);
+        Page<OrderResponse> orders;
+        if (shard != null && orderSegments.isEmpty()) {
+            orders = orderShards.inShard(shard, true, tx -> orderRepository.findWithFilters(
+                            filter.studentId(),
+                            status,
+                            filter.minTotal(),
+                            filter.maxTotal(),
+                            indexedPageable));
+        } else {
+            // The page is among the first offset + size rows of each shard and of the archive, and the totals add up
+            Pageable head = headOf(indexedPageable);
+            TransactionCallback<Page<OrderResponse>> headRows = tx -> orderRepository.findWithFilters(
+                            filter.studentId(),
+                            status,
+                            filter.minTotal(),
+                            filter.maxTotal(),
+                            head);
+            List<Page<OrderResponse>> pages = shard != null
+                    ? List.of(orderShards.inShard(shard, true, headRows))
+                    : orderShards.onAllShards(true, headRows);
+            List<Iterable<OrderResponse>> heads = new ArrayList<>(pages);
+            heads.add(archivedHead(filter, status, indexedPageable.getSort(), head.getPageSize()));
+            List<OrderResponse> merged = merge(heads, OrderSorting.comparator(indexedPageable.getSort()));
+            orders = new PageImpl<>(pageOf(merged, indexedPageable), indexedPageable,
+                    pages.stream().mapToLong(Page::getTotalElements).sum() + orderSegments.count(
+                            filter.studentId(), status, filter.minTotal(), filter.maxTotal()));
+        }
+
+        log.debug("Found {} orders", orders.getTotalElements());
+        return orders;
+    }
+
+    @Override
+    public Slice<OrderResponse> getOrderSlice(OrderFilterRequest filter, Pageable pageable) {
+        log.debug("Fetching order slice with filter: {}", filter);
+
+        OrderStatus status = parseStatusFilter(filter);
+        Pageable indexedPageable = withIndexedSort(pageable);
+
+        Integer shard = shardOf(filter);
+        Slice<OrderResponse> orders;
+        if (shard != null && orderSegments.isEmpty()) {
+            orders = orderShards.inShard(shard, true, tx -> orderRepository.findSliceWithFilters(
+                            filter.studentId(),
+                            status,
+                            filter.minTotal(),
+                            filter.maxTotal(),
+                            indexedPageable));
+        } else {
+            Pageable head = headOf(indexedPageable);
+            TransactionCallback<Slice<OrderResponse>> headRows = tx -> orderRepository.findSliceWithFilters(
+                            filter.studentId(),
+                            status,
+                            filter.minTotal(),
+                            filter.maxTotal(),
+                            head);
+            List<Slice<OrderResponse>> slices = shard != null
+                    ? List.of(orderShards.inShard(shard, true, headRows))
+                    : orderShards.onAllShards(true, headRows);
+            List<Iterable<OrderResponse>> heads = new ArrayList<>(slices);
+            // One row past the head tells whether the archive goes on
+            heads.add(archivedHead(filter, status, indexedPageable.getSort(), head.getPageSize() + 1));
+            List<OrderResponse> merged = merge(heads, OrderSorting.comparator(indexedPageable.getSort()));
+            boolean hasNext = merged.size() > head.getPageSize() || slices.stream().anyMatch(Slice::hasNext);
+            orders = new SliceImpl<>(pageOf(merged, indexedPageable), indexedPageable, hasNext);
         }
 
-        Page<OrderResponse> orders = orderRepository.findWithFilters(
+        log.debug("Found {} orders, hasNext: {}", orders.getNumberOfElements(), orders.hasNext());
+        return orders;
+    }
+
+    @Override
+    public OrderCursorPage scrollOrders(OrderFilterRequest filter, String cursor, int size) {
+        log.debug("Scrolling orders with filter: {} after cursor: {}", filter, cursor);
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_SCROLL_SIZE + ".");
+        }
+
+        OrderStatus status = parseStatusFilter(filter);
+        OrderCursor after = (cursor == null || cursor.isBlank()) ? null : OrderCursor.decode(cursor);
+
+        // One extra row tells us whether another page exists without running a count query
+        TransactionCallback<List<OrderResponse>> nextRows = tx -> orderRepository.findWithFiltersAfter(
                         filter.studentId(),
                         status,
                         filter.minTotal(),
                         filter.maxTotal(),
-                        pageable)
-                .map(OrderResponse::fromEntity);
+                        after != null ? after.createdAt() : null,
+                        after != null ? after.id() : null,
+                        Limit.of(size + 1));
+        Integer shard = shardOf(filter);
+        List<List<OrderResponse>> sources = new ArrayList<>(shard != null
+                ? List.of(orderShards.inShard(shard, true, nextRows))
+                : orderShards.onAllShards(true, nextRows));
+        if (!orderSegments.isEmpty()) {
+            sources.add(orderSegments.findWithFilters(
+                    filter.studentId(),
+                    status,
+                    filter.minTotal(),
+                    filter.maxTotal(),
+                    false,
+                    after != null ? after.createdAt() : null,
+                    after != null ? after.id() : null,
+                    size + 1));
+        }
+        List<OrderResponse> orders = sources.size() == 1
+                ? sources.get(0)
+                : merge(sources, OrderSorting.comparator(OrderSorting.DEFAULT));
 
-        log.debug("Found {} orders", orders.getTotalElements());
-        return orders;
+        boolean hasNext = orders.size() > size;
+        List<OrderResponse> content = hasNext ? orders.subList(0, size) : orders;
+        String nextCursor = hasNext ? OrderCursor.of(content.get(content.size() - 1)).encode() : null;
+
+        log.debug("Found {} orders, hasNext: {}", content.size(), hasNext);
+        return new OrderCursorPage(content, size, hasNext, nextCursor);
     }
 
     @Override
-    @Transactional
-    public OrderResponse updateOrder(Long id, UpdateOrderRequest request) {
-        log.debug("Updating order with ID: {}", id);
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> {
-                    log.error("Order not found with ID: {}", id);
-                    return new ResourceNotFoundException("Order not found");
+    public void exportOrders(OrderFilterRequest filter, OrderExportFormat format, OutputStream out) throws IOException {
+        log.debug("Exporting orders as {} with filter: {}", format, filter);
+
+        OrderStatus status = parseStatusFilter(filter);
+
+        Integer shard = shardOf(filter);
+        long exported;
+        try {
+            if (shard != null && orderSegments.isEmpty()) {
+                exported = orderShards.inShard(shard, true, tx -> {
+                    try (Stream<OrderResponse> orders = orderRepository.streamWithFilters(
+                            filter.studentId(),
+                            status,
+                            filter.minTotal(),
+                            filter.maxTotal())) {
+                        return write(format, orders, out);
+                    }
                 });
+            } else {
+                // Keyset pages per shard instead of one open cursor each, so no shard transaction spans the export;
+                // the archive is read the same way as one more source after the shards
+                int archive = orderShards.count();
+                ShardedOrderScan scan = new ShardedOrderScan(orderSegments.isEmpty() ? archive : archive + 1,
+                        SHARD_EXPORT_PAGE_SIZE, (source, last, limit) -> {
+                            if (source == archive) {
+                                return orderSegments.findWithFilters(
+                                        filter.studentId(),
+                                        status,
+                                        filter.minTotal(),
+                                        filter.maxTotal(),
+                                        false,
+                                        last != null ? last.createdAt() : null,
+                                        last != null ? last.id() : null,
+                                        limit);
+                            }
+                            if (shard != null && source != shard) {
+                                return List.of();
+                            }
+                            return orderShards.inShard(source, true, tx -> orderRepository.findWithFiltersAfter(
+                                    filter.studentId(),
+                                    status,
+                                    filter.minTotal(),
+                                    filter.maxTotal(),
+                                    last != null ? last.createdAt() : null,
+                                    last != null ? last.id() : null,
+                                    Limit.of(limit)));
+                        });
+                exported = write(format, StreamSupport.stream(
+                        Spliterators.spliteratorUnknownSize(scan, Spliterator.ORDERED | Spliterator.NONNULL), false), out);
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
 
+        log.debug("Exported {} orders as {}", exported, format);
+    }
+
+    @Override
+    public OrderResponse updateOrder(Long id, UpdateOrderRequest request, Long expectedVersion) {
+        log.debug("Updating order with ID: {}", id);
         String sanitizedStatus = inputSanitizer.sanitizeText(request.status());
         OrderStatus newStatus = parseStatus(sanitizedStatus);
 
-        order.setTotal(request.total());
-        order.setStatus(newStatus);
-        order.setCreatedAt(request.createdAt());
-
-        Order updated = orderRepository.save(order);
+        OrderResponse response = orderShards.locate(id, false, tx -> lockOrder(id).map(current -> {
+            // created_at is not updatable, so only total and status are written
+            int updated = orderRepository.updateTotalAndStatus(id, request.total(), newStatus, expectedVersion);
+            requireWritten(updated, id, expectedVersion);
+            orderSummaryRepository.applyDeltas(List.of(
+                    OrderSummaryRepository.Delta.removed(current.studentId(), current.status(), current.total()),
+                    OrderSummaryRepository.Delta.added(current.studentId(), newStatus, request.total())));
+            revenueRollupRepository.markChanged(List.of(dayOf(current.createdAt())));
+            publishChanged(List.of(id));
+            return new OrderResponse(id, current.studentId(), request.total(), current.createdAt(), newStatus);
+        })).orElseThrow(() -> missingOrder(id));
         log.debug("Order updated with ID: {}", id);
-        return OrderResponse.fromEntity(updated);
+        return response;
     }
 
     @Override
-    @Transactional
-    public OrderResponse updateOrderStatus(Long id, UpdateOrderStatusRequest request) {
+    public OrderResponse updateOrderStatus(Long id, UpdateOrderStatusRequest request, Long expectedVersion) {
         log.debug("Updating status for order ID: {}", id);
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> {
-                    log.error("Order not found with ID: {}", id);
-                    return new ResourceNotFoundException("Order not found");
-                });
-
         String sanitizedStatus = inputSanitizer.sanitizeText(request.status());
         OrderStatus newStatus = parseStatus(sanitizedStatus);
 
-        order.setStatus(newStatus);
-        Order updated = orderRepository.save(order);
+        OrderResponse response = orderShards.locate(id, false, tx -> lockOrder(id).map(current -> {
+            int updated = orderRepository.updateStatus(id, newStatus, expectedVersion);
+            requireWritten(updated, id, expectedVersion);
+            orderSummaryRepository.applyDeltas(List.of(
+                    OrderSummaryRepository.Delta.removed(current.studentId(), current.status(), current.total()),
+                    OrderSummaryRepository.Delta.added(current.studentId(), newStatus, current.total())));
+            revenueRollupRepository.markChanged(List.of(dayOf(current.createdAt())));
+            publishChanged(List.of(id));
+            return new OrderResponse(id, current.studentId(), current.total(), current.createdAt(), newStatus);
+        })).orElseThrow(() -> missingOrder(id));
         log.debug("Order status updated to {} for order ID: {}", newStatus, id);
-        return OrderResponse.fromEntity(updated);
+        return response;
     }
 
     @Override
-    @Transactional
-    public void deleteOrder(Long id) {
+    public void deleteOrder(Long id, Long expectedVersion) {
         log.debug("Deleting order with ID: {}", id);
-        if (!orderRepository.existsById(id)) {
-            log.error("Order not found with ID: {}", id);
-            throw new ResourceNotFoundException("Order not found");
-        }
-        orderRepository.deleteById(id);
+        orderShards.locate(id, false, tx -> lockOrder(id).map(current -> {
+            int deleted = orderRepository.deleteByIdAndVersion(id, expectedVersion);
+            requireWritten(deleted, id, expectedVersion);
+            orderSummaryRepository.applyDeltas(List.of(
+                    OrderSummaryRepository.Delta.removed(current.studentId(), current.status(), current.total())));
+            revenueRollupRepository.markChanged(List.of(dayOf(current.createdAt())));
+            publishChanged(List.of(id));
+            return current;
+        })).orElseThrow(() -> missingOrder(id));
         log.debug("Order deleted with ID: {}", id);
     }
 
-    private OrderStatus parseStatus(String rawStatus) {
+    /**
+     * Each chunk commits on its own, so a large transition never holds thousands of row locks at once;
+     * chunks that committed before a failure stay applied. Every shard is asked for every chunk,
+     * since a rebalance may have moved an order away from the shard its id names.
+     */
+    private OrderStatusTransitionResponse transitionIds(List<Long> requestedIds, OrderStatus from, OrderStatus to) {
+        if (requestedIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Order IDs must not be null.");
+        }
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(requestedIds));
+        int chunkSize = orderStatusBatchRepository.chunkSize();
+
+        long updated = 0;
+        List<Long> skipped = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += chunkSize) {
+            List<Long> chunk = ids.subList(start, Math.min(start + chunkSize, ids.size()));
+            List<OrderStatusBatchRepository.TransitionedOrder> changed = new ArrayList<>(chunk.size());
+            for (int shard = 0; shard < orderShards.count(); shard++) {
+                changed.addAll(orderShards.inShard(shard, false, status ->
+                        summarized(orderStatusBatchRepository.transitionIds(chunk, from, to), from, to)));
+            }
+            updated += changed.size();
+            if (changed.size() < chunk.size()) {
+                Set<Long> changedIds = changed.stream()
+                        .map(OrderStatusBatchRepository.TransitionedOrder::id)
+                        .collect(Collectors.toSet());
+                chunk.stream().filter(id -> !changedIds.contains(id)).forEach(skipped::add);
+            }
+        }
+        return new OrderStatusTransitionResponse(updated, skipped);
+    }
+
+    private OrderStatusTransitionResponse transitionMatching(Long studentId, Instant createdBefore,
+                                                             OrderStatus from, OrderStatus to) {
+        long updated = 0;
+        for (int shard = 0; shard < orderShards.count(); shard++) {
+            if (studentId != null && shard != orderShards.shardOf(studentId)) {
+                continue;
+            }
+            int changed;
+            do {
+                changed = orderShards.inShard(shard, false, status ->
+                        summarized(orderStatusBatchRepository.transitionMatching(studentId, createdBefore, from, to), from, to))
+                        .size();
+                updated += changed;
+            } while (changed == orderStatusBatchRepository.chunkSize());
+        }
+        return new OrderStatusTransitionResponse(updated, List.of());
+    }
+
+    /**
+     * Moves the transitioned orders' counts and totals between the two statuses in the order summary,
+     * records their days for the revenue rollups, and reports them as changed.
+     */
+    private List<OrderStatusBatchRepository.TransitionedOrder> summarized(
+            List<OrderStatusBatchRepository.TransitionedOrder> changed, OrderStatus from, OrderStatus to) {
+        List<OrderSummaryRepository.Delta> deltas = new ArrayList<>(changed.size() * 2);
+        for (OrderStatusBatchRepository.TransitionedOrder order : changed) {
+            deltas.add(OrderSummaryRepository.Delta.removed(order.studentId(), from, order.total()));
+            deltas.add(OrderSummaryRepository.Delta.added(order.studentId(), to, order.total()));
+        }
+        orderSummaryRepository.applyDeltas(deltas);
+        revenueRollupRepository.markChanged(changed.stream()
+                .map(order -> order.createdAt().toLocalDate())
+                .toList());
+        publishChanged(changed.stream().map(OrderStatusBatchRepository.TransitionedOrder::id).toList());
+        return changed;
+    }
+
+    private void publishChanged(List<Long> orderIds) {
+        if (!orderIds.isEmpty()) {
+            eventPublisher.publishEvent(new OrdersChangedEvent(orderIds));
+        }
+    }
+
+    /**
+     * The day an order's {@code created_at} falls on as stored, which Hibernate reads back as UTC.
+     */
+    private static LocalDate dayOf(Instant createdAt) {
+        return LocalDateTime.ofInstant(createdAt, ZoneOffset.UTC).toLocalDate();
+    }
+
+    /**
+     * Reads the order's current values under a row lock; the summary deltas are derived from them.
+     * Empty if the order is not on the current shard.
+     */
+    private Optional<OrderResponse> lockOrder(Long id) {
+        return orderRepository.findResponseByIdForUpdate(id);
+    }
+
+    /**
+     * The error for an order a change found on no shard: archived orders are kept as they are.
+     */
+    private RuntimeException missingOrder(Long id) {
+        if (orderSegments.findVersionById(id).isPresent()) {
+            log.warn("Order with ID: {} is archived and can no longer be changed", id);
+            return new ConflictException("Order is archived and can no longer be changed.");
+        }
+        log.error("Order not found with ID: {}", id);
+        return new ResourceNotFoundException("Order not found");
+    }
+
+    /**
+     * Sharded inserts bring ids from {@link OrderShards#allocateIds}; otherwise the database assigns them.
+     */
+    private Order insertOrder(Order order) {
+        if (!orderShards.isSharded()) {
+            return orderRepository.save(order);
+        }
+        int shard = orderShards.shardOf(order.getStudent().getId());
+        order.setId(insertOrders(shard, List.of(new OrderBatchRepository.NewOrder(
+                order.getStudent().getId(), order.getTotal(), order.getStatus()))).get(0));
+        return order;
+    }
+
+    private List<Long> insertOrders(int shard, List<OrderBatchRepository.NewOrder> rows) {
+        return orderShards.isSharded()
+                ? orderBatchRepository.insertAll(rows, orderShards.allocateIds(shard, rows.size()))
+                : orderBatchRepository.insertAll(rows);
+    }
+
+    /**
+     * The one shard a listing has to read, or {@code null} if the orders of every student are wanted.
+     */
+    private Integer shardOf(OrderFilterRequest filter) {
+        if (filter.studentId() != null) {
+            return orderShards.shardOf(filter.studentId());
+        }
+        return orderShards.isSharded() ? null : 0;
+    }
+
+    /**
+     * The rows every shard must return for the merged page to be complete: the first {@code offset + size}.
+     */
+    private static Pageable headOf(Pageable pageable) {
+        long rows = pageable.getOffset() + pageable.getPageSize();
+        if (rows > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Page is too deep; use the cursor endpoint instead.");
+        }
+        return PageRequest.of(0, (int) rows, pageable.getSort());
+    }
+
+    /**
+     * All shards' rows in one order. An order read from both its old and its new shard while a rebalance
+     * moves it sorts next to itself and is kept once.
+     */
+    private static List<OrderResponse> merge(List<? extends Iterable<OrderResponse>> shards,
+                                             Comparator<OrderResponse> order) {
+        List<OrderResponse> merged = new ArrayList<>();
+        shards.forEach(rows -> rows.forEach(merged::add));
+        merged.sort(order);
+        List<OrderResponse> distinct = new ArrayList<>(merged.size());
+        for (OrderResponse row : merged) {
+            if (distinct.isEmpty() || !distinct.get(distinct.size() - 1).id().equals(row.id())) {
+                distinct.add(row);
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * The first {@code limit} archived orders of a listing, in the listing's order.
+     */
+    private List<OrderResponse> archivedHead(OrderFilterRequest filter, OrderStatus status, Sort resolved, int limit) {
+        if (orderSegments.isEmpty()) {
+            return List.of();
+        }
+        Sort.Order createdAt = resolved.getOrderFor("createdAt");
+        return orderSegments.findWithFilters(
+                filter.studentId(),
+                status,
+                filter.minTotal(),
+                filter.maxTotal(),
+                createdAt != null && createdAt.isAscending(),
+                null,
+                null,
+                limit);
+    }
+
+    private static List<OrderResponse> pageOf(List<OrderResponse> merged, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        return merged.subList(from, Math.min(from + pageable.getPageSize(), merged.size()));
+    }
+
+    private long write(OrderExportFormat format, Stream<OrderResponse> orders, OutputStream out) {
+        try {
+            return switch (format) {
+                case NDJSON -> writeNdjson(orders, out);
+                case CSV -> writeCsv(orders, out);
+            };
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * The row is locked and known to exist, so zero affected rows can only mean it has moved past the expected version.
+     */
+    private void requireWritten(int affectedRows, Long id, Long expectedVersion) {
+        if (affectedRows == 0) {
+            log.warn("Order with ID: {} is no longer at version {}", id, expectedVersion);
+            throw new PreconditionFailedException("Order was modified by someone else.");
+        }
+    }
+
+    private long writeNdjson(Stream<OrderResponse> orders, OutputStream out) throws IOException {
+        long count = 0;
+        // The container owns the response stream, so the writer must flush but not close it
+        try (SequenceWriter writer = jsonMapper.writerFor(OrderResponse.class)
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            for (OrderResponse order : (Iterable<OrderResponse>) orders::iterator) {
+                writer.write(order);
+                count++;
+            }
+        }
+        if (count > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        return count;
+    }
+
+    private long writeCsv(Stream<OrderResponse> orders, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,studentId,total,createdAt,status\n");
+        for (OrderResponse order : (Iterable<OrderResponse>) orders::iterator) {
+            // Only numbers, timestamps and enum names, so no field needs quoting
+            writer.write(String.valueOf(order.id()));
+            writer.write(',');
+            writer.write(String.valueOf(order.studentId()));
+            writer.write(',');
+            writer.write(order.total().toPlainString());
+            writer.write(',');
+            writer.write(String.valueOf(order.createdAt()));
+            writer.write(',');
+            writer.write(order.status().name());
+            writer.write('\n');
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private String validateBatchItem(CreateOrderRequest item, Set<Long> existingStudentIds) {
+        if (item == null) {
+            return "Order is required";
+        }
+        Set<ConstraintViolation<CreateOrderRequest>> violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        if (!existingStudentIds.contains(item.studentId())) {
+            return "Student not found";
+        }
+        return null;
+    }
+
+    private Pageable withIndexedSort(Pageable pageable) {
+        Sort sort = OrderSorting.resolve(pageable.getSort());
+        if (sort.equals(pageable.getSort())) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
+    private OrderStatus parseStatusFilter(OrderFilterRequest filter) {
+        if (filter.status() == null || filter.status().isBlank()) {
+            return null;
+        }
+        return parseStatus(filter.status());
+    }
+
+    static OrderStatus parseStatus(String rawStatus) {
         try {
             return OrderStatus.valueOf(rawStatus);
         } catch (IllegalArgumentException ex) {
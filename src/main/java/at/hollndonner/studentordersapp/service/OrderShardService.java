@@ -0,0 +1,18 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.shard.OrderShardRebalanceResponse;
+import at.hollndonner.studentordersapp.dto.shard.OrderShardResponse;
+
+import java.util.List;
+
+public interface OrderShardService {
+
+    List<OrderShardResponse> getShards();
+
+    /**
+     * Moves every student whose orders sit on another shard than the one their id now hashes to, as after
+     * adding shards, and removes orders of students that no longer exist. Safe to repeat, also after a run that
+     * failed halfway.
+     */
+    OrderShardRebalanceResponse rebalance();
+}
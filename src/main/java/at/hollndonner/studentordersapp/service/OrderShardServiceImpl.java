@@ -0,0 +1,124 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.shard.OrderShardRebalanceResponse;
+import at.hollndonner.studentordersapp.dto.shard.OrderShardResponse;
+import at.hollndonner.studentordersapp.event.StudentDeletedEvent;
+import at.hollndonner.studentordersapp.repository.OrderShardRepository;
+import at.hollndonner.studentordersapp.repository.OrderShardRepository.StoredOrder;
+import at.hollndonner.studentordersapp.repository.OrderShards;
+import at.hollndonner.studentordersapp.repository.RevenueRollupRepository;
+import at.hollndonner.studentordersapp.repository.StudentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderShardServiceImpl implements OrderShardService {
+
+    private static final int STUDENT_LOOKUP_CHUNK_SIZE = 1000;
+
+    private final OrderShards orderShards;
+    private final OrderShardRepository orderShardRepository;
+    private final StudentRepository studentRepository;
+    private final RevenueRollupRepository revenueRollupRepository;
+
+    @Override
+    public List<OrderShardResponse> getShards() {
+        List<Long> counts = orderShards.onAllShards(true, tx -> orderShardRepository.countOrders());
+        List<OrderShardResponse> shards = new ArrayList<>(counts.size());
+        for (int shard = 0; shard < counts.size(); shard++) {
+            shards.add(new OrderShardResponse(shard, counts.get(shard)));
+        }
+        return shards;
+    }
+
+    /**
+     * One student at a time: the student's orders are locked on the source shard, copied to the target shard
+     * and committed there, then deleted from the source. A failure in between leaves the orders on both shards,
+     * which reads return once, and the next run copies them again over the earlier copy. Orders of students that
+     * no longer exist, left behind when {@link #onStudentDeleted} failed, are deleted instead of moved.
+     */
+    @Override
+    public OrderShardRebalanceResponse rebalance() {
+        long studentsMoved = 0;
+        long ordersMoved = 0;
+        long orphanedOrdersRemoved = 0;
+        for (int shard = 0; shard < orderShards.count(); shard++) {
+            int source = shard;
+            // Read from the primary; a lagging replica would miss recently created students
+            List<Long> studentIds = orderShards.inShard(source, false, tx -> orderShardRepository.findStudentIds());
+            Set<Long> existing = existingStudentIds(studentIds);
+            for (long studentId : studentIds) {
+                if (!existing.contains(studentId)) {
+                    int removed = orderShards.inShard(source, false, tx -> orderShardRepository.deleteByStudentId(studentId));
+                    log.debug("Removed {} orders of deleted student {} from shard {}", removed, studentId, source);
+                    orphanedOrdersRemoved += removed;
+                    continue;
+                }
+                int target = orderShards.shardOf(studentId);
+                if (target == source) {
+                    continue;
+                }
+                int moved = orderShards.inShard(source, false, tx -> move(studentId, target));
+                log.debug("Moved {} orders of student {} from shard {} to shard {}", moved, studentId, source, target);
+                studentsMoved++;
+                ordersMoved += moved;
+            }
+        }
+        log.info("Rebalanced order shards: moved {} orders of {} students, removed {} orders of deleted students",
+                ordersMoved, studentsMoved, orphanedOrdersRemoved);
+        return new OrderShardRebalanceResponse(orderShards.count(), studentsMoved, ordersMoved, orphanedOrdersRemoved);
+    }
+
+    /**
+     * The main database deletes a student's orders by cascade; the other shards have no foreign key to
+     * {@code students}, and orders not rebalanced yet may sit on any of them. Runs after the delete committed,
+     * so a rolled-back delete never loses orders; a failure here only leaves orders the next rebalance removes.
+     */
+    @TransactionalEventListener
+    public void onStudentDeleted(StudentDeletedEvent event) {
+        for (int shard = 1; shard < orderShards.count(); shard++) {
+            int target = shard;
+            try {
+                orderShards.inShard(target, false, tx -> {
+                    // Again here, in case a rollup refresh consumed the days before this delete
+                    revenueRollupRepository.markChanged(revenueRollupRepository.findOrderDays(event.studentId()));
+                    return orderShardRepository.deleteByStudentId(event.studentId());
+                });
+            } catch (RuntimeException ex) {
+                log.error("Could not remove orders of deleted student {} from shard {}; the next rebalance will",
+                        event.studentId(), target, ex);
+            }
+        }
+    }
+
+    /**
+     * The students that still exist, read from the primary like the shard's student ids.
+     */
+    private Set<Long> existingStudentIds(List<Long> studentIds) {
+        Set<Long> existing = new HashSet<>(studentIds.size());
+        for (int start = 0; start < studentIds.size(); start += STUDENT_LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = studentIds.subList(start, Math.min(start + STUDENT_LOOKUP_CHUNK_SIZE, studentIds.size()));
+            existing.addAll(orderShards.inShard(0, false, tx -> studentRepository.findExistingIds(chunk)));
+        }
+        return existing;
+    }
+
+    private int move(long studentId, int target) {
+        List<StoredOrder> orders = orderShardRepository.lockByStudentId(studentId);
+        orderShards.inShard(target, false, tx -> {
+            orderShardRepository.insertAll(orders);
+            orderShardRepository.rebuildSummary(studentId);
+            return null;
+        });
+        return orderShardRepository.deleteByStudentId(studentId);
+    }
+}
@@ -0,0 +1,23 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.report.RevenueFilterRequest;
+import at.hollndonner.studentordersapp.dto.report.RevenueRebuildResponse;
+import at.hollndonner.studentordersapp.dto.report.RevenueReportResponse;
+
+public interface RevenueReportService {
+
+    RevenueReportResponse getDailyRevenue(RevenueFilterRequest filter);
+
+    RevenueReportResponse getMonthlyRevenue(RevenueFilterRequest filter);
+
+    /**
+     * Folds orders created since the last refresh into the rollups, plus a restatement window of recent days
+     * whose orders may have changed status, total or been deleted since.
+     */
+    void refreshRollups();
+
+    /**
+     * Rebuilds the rollups from {@code from} (whole months), or from the first order when {@code null}.
+     */
+    RevenueRebuildResponse rebuildRollups(String from);
+}
@@ -0,0 +1,209 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.report.RevenueFilterRequest;
+import at.hollndonner.studentordersapp.dto.report.RevenueRebuildResponse;
+import at.hollndonner.studentordersapp.dto.report.RevenueReportResponse;
+import at.hollndonner.studentordersapp.dto.report.RevenueRollupRow;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import at.hollndonner.studentordersapp.repository.RevenueRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class RevenueReportServiceImpl implements RevenueReportService {
+
+    static final int MAX_DAILY_RANGE_DAYS = 366;
+    static final int MAX_MONTHLY_RANGE_MONTHS = 120;
+
+    private final RevenueRollupRepository revenueRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int restatementDays;
+
+    public RevenueReportServiceImpl(RevenueRollupRepository revenueRollupRepository,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${reports.revenue.restatement-days:7}") int restatementDays) {
+        if (restatementDays < 1) {
+            throw new IllegalArgumentException("reports.revenue.restatement-days must be positive");
+        }
+        this.revenueRollupRepository = revenueRollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.restatementDays = restatementDays;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public RevenueReportResponse getDailyRevenue(RevenueFilterRequest filter) {
+        log.debug("Fetching daily revenue with filter: {}", filter);
+        LocalDate from = parse(filter.from(), LocalDate::parse, "from", "yyyy-MM-dd");
+        LocalDate to = parse(filter.to(), LocalDate::parse, "to", "yyyy-MM-dd");
+        requireRange(ChronoUnit.DAYS.between(from, to), MAX_DAILY_RANGE_DAYS, "days");
+
+        List<RevenueRollupRow> rows = revenueRollupRepository.findDaily(from, to, school(filter), status(filter));
+        return new RevenueReportResponse(rolledUpTo(revenueRollupRepository.findWatermark()), rows);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public RevenueReportResponse getMonthlyRevenue(RevenueFilterRequest filter) {
+        log.debug("Fetching monthly revenue with filter: {}", filter);
+        YearMonth from = parse(filter.from(), YearMonth::parse, "from", "yyyy-MM");
+        YearMonth to = parse(filter.to(), YearMonth::parse, "to", "yyyy-MM");
+        requireRange(ChronoUnit.MONTHS.between(from, to), MAX_MONTHLY_RANGE_MONTHS, "months");
+
+        List<RevenueRollupRow> rows = revenueRollupRepository.findMonthly(from, to, school(filter), status(filter));
+        return new RevenueReportResponse(rolledUpTo(revenueRollupRepository.findWatermark()), rows);
+    }
+
+    @Override
+    public void refreshRollups() {
+        List<List<RevenueRollupRepository.ChangedDay>> changed = transactionTemplate.execute(status -> {
+            Optional<LocalDateTime> watermark = revenueRollupRepository.lockWatermark();
+            if (watermark.isEmpty()) {
+                return null;
+            }
+            LocalDateTime now = revenueRollupRepository.currentTimestamp();
+            // Whole days from before the watermark are rebuilt as well, which picks up orders that committed
+            // after a previous refresh read past their created_at, and recent status, total or delete changes
+            LocalDate from = watermark.get().toLocalDate().minusDays(restatementDays);
+            // Changes to older orders are rebuilt from the days their writes recorded
+            List<List<RevenueRollupRepository.ChangedDay>> changedDays = revenueRollupRepository.findChangedDays();
+            TreeSet<LocalDate> olderDays = changedDays.stream()
+                    .flatMap(List::stream)
+                    .map(RevenueRollupRepository.ChangedDay::date)
+                    .filter(day -> day.isBefore(from))
+                    .collect(Collectors.toCollection(TreeSet::new));
+            Set<YearMonth> months = new TreeSet<>();
+            LocalDate rangeStart = null;
+            for (LocalDate day : olderDays) {
+                if (rangeStart == null) {
+                    rangeStart = day;
+                }
+                // Runs of consecutive days are rebuilt with one pass over their orders
+                if (!olderDays.contains(day.plusDays(1))) {
+                    revenueRollupRepository.rebuildDays(rangeStart, day.plusDays(1));
+                    rangeStart = null;
+                }
+                months.add(YearMonth.from(day));
+            }
+            revenueRollupRepository.rebuildDays(from, now.toLocalDate().plusDays(1));
+            for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(now)); month = month.plusMonths(1)) {
+                months.add(month);
+            }
+            months.forEach(revenueRollupRepository::rebuildMonth);
+            revenueRollupRepository.saveWatermark(now);
+            log.debug("Revenue rollups refreshed from {} up to {}, and for {} older days", from, now, olderDays.size());
+            return changedDays;
+        });
+        if (changed == null) {
+            log.info("Revenue rollups have never been built, rebuilding them from the first order");
+            rebuildRollups(null);
+            return;
+        }
+        revenueRollupRepository.clearChangedDays(changed);
+    }
+
+    /**
+     * One transaction per month, so a rebuild of a long history never holds its locks for the whole run.
+     * Every transaction takes the watermark lock first, so refreshes wait for the month being rebuilt.
+     */
+    @Override
+    public RevenueRebuildResponse rebuildRollups(String from) {
+        LocalDate fromDate = from == null || from.isBlank() ? null : parse(from, LocalDate::parse, "from", "yyyy-MM-dd");
+        LocalDateTime now = revenueRollupRepository.currentTimestamp();
+        YearMonth last = YearMonth.from(now);
+        YearMonth first = fromDate != null
+                ? YearMonth.from(fromDate)
+                : revenueRollupRepository.firstOrderDate().map(YearMonth::from).orElse(last);
+        if (first.isAfter(last)) {
+            throw new IllegalArgumentException("From must not be in the future.");
+        }
+        log.info("Rebuilding revenue rollups from {} to {}", first, last);
+
+        if (fromDate == null) {
+            transactionTemplate.executeWithoutResult(status -> {
+                revenueRollupRepository.lockWatermark();
+                revenueRollupRepository.deleteBefore(first.atDay(1));
+            });
+        }
+        int months = 0;
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            YearMonth rebuilt = month;
+            transactionTemplate.executeWithoutResult(status -> {
+                revenueRollupRepository.lockWatermark();
+                revenueRollupRepository.rebuildDays(rebuilt.atDay(1), rebuilt.plusMonths(1).atDay(1));
+                revenueRollupRepository.rebuildMonth(rebuilt);
+            });
+            months++;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            // A refresh that ran during the rebuild may already have moved the watermark further
+            Optional<LocalDateTime> watermark = revenueRollupRepository.lockWatermark();
+            if (watermark.isEmpty() || watermark.get().isBefore(now)) {
+                revenueRollupRepository.saveWatermark(now);
+            }
+        });
+        log.info("Rebuilt revenue rollups for {} months", months);
+        return new RevenueRebuildResponse(first, last, months, rolledUpTo(Optional.of(now)));
+    }
+
+    private static <T> T parse(String raw, Function<String, T> parser, String name, String pattern) {
+        if (raw == null || raw.isBlank()) {
+            throw new IllegalArgumentException("Parameter '" + name + "' is required (" + pattern + ").");
+        }
+        try {
+            return parser.apply(raw.trim());
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Parameter '" + name + "' must be formatted as " + pattern + ".");
+        }
+    }
+
+    private static void requireRange(long span, int max, String unit) {
+        if (span < 0) {
+            throw new IllegalArgumentException("From must not be after to.");
+        }
+        if (span >= max) {
+            throw new IllegalArgumentException("Range must not exceed " + max + " " + unit + ".");
+        }
+    }
+
+    private static String school(RevenueFilterRequest filter) {
+        return filter.school() == null || filter.school().isBlank() ? null : filter.school().trim();
+    }
+
+    private static OrderStatus status(RevenueFilterRequest filter) {
+        if (filter.status() == null || filter.status().isBlank()) {
+            return null;
+        }
+        try {
+            return OrderStatus.valueOf(filter.status());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid order status. Allowed: pending, paid.");
+        }
+    }
+
+    /**
+     * Watermarks come from the database clock, the same one {@code created_at} defaults from, and are reported
+     * the way Hibernate reads {@code created_at} back, as UTC.
+     */
+    private static Instant rolledUpTo(Optional<LocalDateTime> watermark) {
+        return watermark.map(time -> time.toInstant(ZoneOffset.UTC)).orElse(null);
+    }
+}
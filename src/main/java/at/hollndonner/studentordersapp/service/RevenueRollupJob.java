@@ -0,0 +1,30 @@
+package at.hollndonner.studentordersapp.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the revenue rollups current in the background, so reports never aggregate {@code orders} themselves.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "reports.revenue.refresh-enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RevenueRollupJob {
+
+    private final RevenueReportService revenueReportService;
+
+    @Scheduled(initialDelayString = "${reports.revenue.refresh-initial-delay-ms:10000}",
+            fixedDelayString = "${reports.revenue.refresh-interval-ms:60000}")
+    public void refreshRollups() {
+        try {
+            revenueReportService.refreshRollups();
+        } catch (RuntimeException ex) {
+            // The next run rebuilds the same days, so a failed run only delays the reports
+            log.error("Revenue rollup refresh failed", ex);
+        }
+    }
+}
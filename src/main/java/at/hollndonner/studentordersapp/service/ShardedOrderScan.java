@@ -0,0 +1,109 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.repository.OrderSorting;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Every shard's orders as one listing in {@code (createdAt DESC, id DESC)} order, merged from keyset pages that
+ * each shard returns in that order. Only one page per shard is held, and a page is read only once the previous one
+ * is used up. An order found on two shards while a rebalance moves it is returned once, as is one found on a shard
+ * and in the archive while it is archived; the archive takes part as a source numbered after the shards.
+ */
+final class ShardedOrderScan implements Iterator<OrderResponse> {
+
+    private static final Comparator<OrderResponse> ORDER = OrderSorting.comparator(OrderSorting.DEFAULT);
+
+    /**
+     * Reads up to {@code limit} orders of one shard that come after {@code last}, or from the start if it is {@code null}.
+     */
+    @FunctionalInterface
+    interface PageReader {
+        List<OrderResponse> read(int shard, OrderResponse last, int limit);
+    }
+
+    private final PriorityQueue<Source> sources;
+    private OrderResponse next;
+    private Long lastId;
+
+    ShardedOrderScan(int shards, int pageSize, PageReader reader) {
+        sources = new PriorityQueue<>(shards, Comparator.comparing(Source::head, ORDER));
+        for (int shard = 0; shard < shards; shard++) {
+            Source source = new Source(shard, pageSize, reader);
+            if (source.hasHead()) {
+                sources.add(source);
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !sources.isEmpty()) {
+            Source source = sources.poll();
+            OrderResponse candidate = source.take();
+            if (source.hasHead()) {
+                sources.add(source);
+            }
+            if (!candidate.id().equals(lastId)) {
+                next = candidate;
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public OrderResponse next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        OrderResponse order = next;
+        next = null;
+        lastId = order.id();
+        return order;
+    }
+
+    private static final class Source {
+
+        private final int shard;
+        private final int pageSize;
+        private final PageReader reader;
+        private List<OrderResponse> page = List.of();
+        private int position;
+        private boolean exhausted;
+        private OrderResponse last;
+
+        private Source(int shard, int pageSize, PageReader reader) {
+            this.shard = shard;
+            this.pageSize = pageSize;
+            this.reader = reader;
+        }
+
+        private boolean hasHead() {
+            if (position < page.size()) {
+                return true;
+            }
+            if (exhausted) {
+                return false;
+            }
+            page = reader.read(shard, last, pageSize);
+            position = 0;
+            // A short page is the shard's last
+            exhausted = page.size() < pageSize;
+            return !page.isEmpty();
+        }
+
+        private OrderResponse head() {
+            return page.get(position);
+        }
+
+        private OrderResponse take() {
+            last = page.get(position++);
+            return last;
+        }
+    }
+}
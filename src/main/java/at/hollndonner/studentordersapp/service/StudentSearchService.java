@@ -0,0 +1,11 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.student.StudentSearchResponse;
+
+public interface StudentSearchService {
+
+    /**
+     * Ranked students matching every term of the query in their name, grade or school.
+     */
+    StudentSearchResponse search(String query, Integer limit);
+}
@@ -0,0 +1,116 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.student.StudentSearchHit;
+import at.hollndonner.studentordersapp.dto.student.StudentSearchResponse;
+import at.hollndonner.studentordersapp.event.StudentDeletedEvent;
+import at.hollndonner.studentordersapp.event.StudentsChangedEvent;
+import at.hollndonner.studentordersapp.exception.ResourceNotFoundException;
+import at.hollndonner.studentordersapp.model.Student;
+import at.hollndonner.studentordersapp.repository.StudentRepository;
+import at.hollndonner.studentordersapp.repository.StudentSearchIndex;
+import at.hollndonner.studentordersapp.repository.StudentSearchRefresher;
+import at.hollndonner.studentordersapp.util.InputSanitizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Searches students through the {@link StudentSearchIndex} when {@code students.search.enabled} is set,
+ * and keeps the index in step with committed student writes through the {@link StudentSearchRefresher}.
+ */
+@Slf4j
+@Service
+public class StudentSearchServiceImpl implements StudentSearchService {
+
+    static final int DEFAULT_LIMIT = 10;
+    static final int MAX_LIMIT = 50;
+    static final int MAX_QUERY_LENGTH = 150;
+
+    private final StudentSearchIndex index;
+    private final StudentSearchRefresher refresher;
+    private final StudentRepository studentRepository;
+    private final InputSanitizer inputSanitizer;
+
+    public StudentSearchServiceImpl(ObjectProvider<StudentSearchIndex> index,
+                                    ObjectProvider<StudentSearchRefresher> refresher,
+                                    StudentRepository studentRepository,
+                                    InputSanitizer inputSanitizer) {
+        this.index = index.getIfAvailable();
+        this.refresher = refresher.getIfAvailable();
+        this.studentRepository = studentRepository;
+        this.inputSanitizer = inputSanitizer;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StudentSearchResponse search(String query, Integer limit) {
+        StudentSearchIndex searchIndex = requireIndex();
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Query must not be blank.");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Query must be at most " + MAX_QUERY_LENGTH + " characters.");
+        }
+        int size = limit != null ? limit : DEFAULT_LIMIT;
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+        // Stored values are HTML-escaped on write, so the query is escaped the same way to match them
+        String sanitized = inputSanitizer.sanitizeText(query);
+        log.debug("Searching students for '{}' (limit {})", sanitized, size);
+
+        long start = System.nanoTime();
+        StudentSearchIndex.SearchResult result = searchIndex.search(sanitized, size);
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+
+        // The index ranks by id; the rows themselves come from the second-level cache or one IN query
+        Map<Long, Student> students = studentRepository.findAllById(
+                        result.hits().stream().map(StudentSearchIndex.Hit::id).toList())
+                .stream()
+                .collect(Collectors.toMap(Student::getId, Function.identity()));
+        List<StudentSearchHit> hits = new ArrayList<>(result.hits().size());
+        for (StudentSearchIndex.Hit hit : result.hits()) {
+            Student student = students.get(hit.id());
+            // Deleted between the search and the read
+            if (student != null) {
+                hits.add(new StudentSearchHit(student.getId(), student.getName(), student.getGrade(),
+                        student.getSchool(), hit.score()));
+            }
+        }
+        log.debug("Found {} students among {} candidates in {} us", hits.size(), result.candidates(), elapsedMicros);
+        return new StudentSearchResponse(query.trim(), hits, result.truncated(), elapsedMicros);
+    }
+
+    /**
+     * Runs after the writing transaction commits, so rolled-back writes never reach the index.
+     * Only queues the ids; the re-read happens on the refresher's thread, outside the committed request.
+     */
+    @TransactionalEventListener
+    public void onStudentsChanged(StudentsChangedEvent event) {
+        if (refresher != null) {
+            refresher.studentsChanged(event.studentIds());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onStudentDeleted(StudentDeletedEvent event) {
+        if (refresher != null) {
+            refresher.studentsChanged(List.of(event.studentId()));
+        }
+    }
+
+    private StudentSearchIndex requireIndex() {
+        if (index == null) {
+            throw new ResourceNotFoundException("Student search is disabled");
+        }
+        return index;
+    }
+}
@@ -2,21 +2,40 @@ package at.hollndonner.studentordersapp.service;
 
 import at.hollndonner.studentordersapp.dto.student.CreateStudentRequest;
 import at.hollndonner.studentordersapp.dto.student.StudentFilterRequest;
+import at.hollndonner.studentordersapp.dto.student.StudentImportResponse;
+import at.hollndonner.studentordersapp.dto.student.StudentOrderSummaryResponse;
 import at.hollndonner.studentordersapp.dto.student.StudentResponse;
 import at.hollndonner.studentordersapp.dto.student.UpdateStudentRequest;
+import at.hollndonner.studentordersapp.dto.student.VersionedStudent;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.io.IOException;
+import java.io.InputStream;
 
 public interface StudentService {
 
     StudentResponse createStudent(CreateStudentRequest request);
 
+    StudentImportResponse importStudents(InputStream csv) throws IOException;
+
     StudentResponse getStudentById(Long id);
 
+    long getStudentVersion(Long id);
+
+    StudentOrderSummaryResponse getOrderSummary(Long id);
+
     Page<StudentResponse> getStudents(StudentFilterRequest filter, Pageable pageable);
 
-    StudentResponse updateStudent(Long id, UpdateStudentRequest request);
+    Slice<StudentResponse> getStudentSlice(StudentFilterRequest filter, Pageable pageable);
+
+    /**
+     * Mutations take the version the caller last saw, or {@code null} to write whatever version is current.
+     * An update that changes nothing leaves the version as it was.
+     */
+    VersionedStudent updateStudent(Long id, UpdateStudentRequest request, Long expectedVersion);
 
-    void deleteStudent(Long id);
+    void deleteStudent(Long id, Long expectedVersion);
 }
 
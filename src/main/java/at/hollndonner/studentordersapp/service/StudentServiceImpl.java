@@ -1,29 +1,81 @@
 package at.hollndonner.studentordersapp.service;
 
 import at.hollndonner.studentordersapp.dto.student.CreateStudentRequest;
+import at.hollndonner.studentordersapp.dto.student.OrderStatusSummary;
 import at.hollndonner.studentordersapp.dto.student.StudentFilterRequest;
+import at.hollndonner.studentordersapp.dto.student.StudentImportError;
+import at.hollndonner.studentordersapp.dto.student.StudentImportResponse;
+import at.hollndonner.studentordersapp.dto.student.StudentOrderSummaryResponse;
 import at.hollndonner.studentordersapp.dto.student.StudentResponse;
 import at.hollndonner.studentordersapp.dto.student.UpdateStudentRequest;
+import at.hollndonner.studentordersapp.dto.student.VersionedStudent;
+import at.hollndonner.studentordersapp.event.StudentDeletedEvent;
+import at.hollndonner.studentordersapp.event.StudentsChangedEvent;
+import at.hollndonner.studentordersapp.exception.PreconditionFailedException;
 import at.hollndonner.studentordersapp.exception.ResourceNotFoundException;
+import at.hollndonner.studentordersapp.model.OrderStatus;
 import at.hollndonner.studentordersapp.model.Student;
+import at.hollndonner.studentordersapp.repository.GradeDictionary;
+import at.hollndonner.studentordersapp.repository.OrderSegments;
+import at.hollndonner.studentordersapp.repository.OrderShards;
+import at.hollndonner.studentordersapp.repository.OrderSummaryRepository;
+import at.hollndonner.studentordersapp.repository.RevenueRollupRepository;
+import at.hollndonner.studentordersapp.repository.SchoolDictionary;
+import at.hollndonner.studentordersapp.repository.StudentBatchRepository;
 import at.hollndonner.studentordersapp.repository.StudentRepository;
+import at.hollndonner.studentordersapp.util.CsvReader;
 import at.hollndonner.studentordersapp.util.InputSanitizer;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Slf4j
 @Service
+@Timed("service.calls")
 @RequiredArgsConstructor
 public class StudentServiceImpl implements StudentService {
 
+    static final int MAX_REPORTED_IMPORT_ERRORS = 100;
+    private static final int MAX_IMPORT_FIELD_LENGTH = 1000;
+    private static final int MAX_IMPORT_FIELDS = 100;
+    private static final List<String> IMPORT_COLUMNS = List.of("name", "grade", "school");
+
     private final StudentRepository studentRepository;
+    private final StudentBatchRepository studentBatchRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final OrderShards orderShards;
+    private final OrderSegments orderSegments;
+    private final RevenueRollupRepository revenueRollupRepository;
+    private final GradeDictionary gradeDictionary;
+    private final SchoolDictionary schoolDictionary;
     private final InputSanitizer inputSanitizer;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -41,14 +93,79 @@ public class StudentServiceImpl implements StudentService {
                 .build();
 
         Student saved = studentRepository.save(student);
+        eventPublisher.publishEvent(new StudentsChangedEvent(List.of(saved.getId())));
         log.debug("Student saved with ID: {}", saved.getId());
         return StudentResponse.fromEntity(saved);
     }
 
+    @Override
+    public StudentImportResponse importStudents(InputStream csv) throws IOException {
+        log.debug("Importing students from CSV");
+
+        long rows = 0;
+        long imported = 0;
+        long failed = 0;
+        List<StudentImportError> errors = new ArrayList<>();
+        List<StudentBatchRepository.NewStudent> chunk = new ArrayList<>(studentBatchRepository.chunkSize());
+
+        try (CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8),
+                MAX_IMPORT_FIELD_LENGTH, MAX_IMPORT_FIELDS)) {
+            int[] columns = importColumns(reader.readRecord());
+
+            while (true) {
+                List<String> record;
+                try {
+                    record = reader.readRecord();
+                } catch (IllegalArgumentException ex) {
+                    // The reader skipped the malformed record, so the rest of the file can still be imported
+                    rows++;
+                    failed++;
+                    if (errors.size() < MAX_REPORTED_IMPORT_ERRORS) {
+                        errors.add(new StudentImportError(reader.recordLine(), ex.getMessage()));
+                    }
+                    continue;
+                }
+                if (record == null) {
+                    break;
+                }
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                rows++;
+
+                CreateStudentRequest row = new CreateStudentRequest(
+                        field(record, columns[0]),
+                        field(record, columns[1]),
+                        field(record, columns[2]));
+                Set<ConstraintViolation<CreateStudentRequest>> violations = validator.validate(row);
+                if (!violations.isEmpty()) {
+                    failed++;
+                    if (errors.size() < MAX_REPORTED_IMPORT_ERRORS) {
+                        errors.add(new StudentImportError(reader.recordLine(), violations.iterator().next().getMessage()));
+                    }
+                    continue;
+                }
+
+                chunk.add(new StudentBatchRepository.NewStudent(
+                        inputSanitizer.sanitizeText(row.name()),
+                        inputSanitizer.sanitizeText(row.grade()),
+                        inputSanitizer.sanitizeText(row.school())));
+                if (chunk.size() == studentBatchRepository.chunkSize()) {
+                    imported += insertImportChunk(chunk);
+                }
+            }
+        }
+        imported += insertImportChunk(chunk);
+
+        log.debug("Student import done: {} rows, {} imported, {} failed", rows, imported, failed);
+        return new StudentImportResponse(rows, imported, failed, errors);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public StudentResponse getStudentById(Long id) {
         log.debug("Fetching student with ID: {}", id);
+        // Loads the entity rather than a projection so hot students are served from the second-level cache
         Student student = studentRepository.findById(id)
                 .orElseThrow(() -> {
                     log.error("Student not found with ID: {}", id);
@@ -57,62 +174,184 @@ public class StudentServiceImpl implements StudentService {
         return StudentResponse.fromEntity(student);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public long getStudentVersion(Long id) {
+        log.debug("Fetching version of student with ID: {}", id);
+        // A cache hit is cheaper than a version-only query, so this goes through the entity as well
+        return studentRepository.findById(id)
+                .map(Student::getVersion)
+                .orElseThrow(() -> {
+                    log.error("Student not found with ID: {}", id);
+                    return new ResourceNotFoundException("Student not found");
+                });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StudentOrderSummaryResponse getOrderSummary(Long id) {
+        log.debug("Fetching order summary for student ID: {}", id);
+        if (studentRepository.findById(id).isEmpty()) {
+            log.error("Student not found with ID: {}", id);
+            throw new ResourceNotFoundException("Student not found");
+        }
+        // Statuses the student has no orders in have no summary row but are still reported, as zero
+        Map<OrderStatus, OrderStatusSummary> byStatus = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, OrderStatusSummary.empty(status));
+        }
+        orderShards.inShard(orderShards.shardOf(id), true, tx -> orderSummaryRepository.findByStudentId(id))
+                .forEach(summary -> byStatus.put(summary.status(), summary));
+        // The summary table only counts the orders still in the database
+        orderSegments.summarize(id).forEach(archived -> byStatus.merge(archived.status(), archived, OrderStatusSummary::plus));
+        return StudentOrderSummaryResponse.of(id, List.copyOf(byStatus.values()));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<StudentResponse> getStudents(StudentFilterRequest filter, Pageable pageable) {
         log.debug("Fetching students with filter: {}", filter);
 
-        Student probe = Student.builder()
-                .name(filter.name())
-                .grade(filter.grade())
-                .school(filter.school())
-                .build();
-
-        ExampleMatcher matcher = ExampleMatcher.matching()
-                .withIgnoreNullValues()
-                .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING)
-                .withIgnoreCase();
+        // as() selects the DTO's columns directly instead of hydrating managed Student entities
+        Page<StudentResponse> students = studentRepository.findBy(toSpecification(filter),
+                query -> query.as(StudentResponse.class).page(pageable));
+        log.debug("Found {} students", students.getTotalElements());
+        return students;
+    }
 
-        Example<Student> example = Example.of(probe, matcher);
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<StudentResponse> getStudentSlice(StudentFilterRequest filter, Pageable pageable) {
+        log.debug("Fetching student slice with filter: {}", filter);
 
-        Page<StudentResponse> students = studentRepository.findAll(example, pageable)
-                .map(StudentResponse::fromEntity);
-        log.debug("Found {} students", students.getTotalElements());
+        // slice() reads one row past the page instead of issuing a count query
+        Slice<StudentResponse> students = studentRepository.findBy(toSpecification(filter),
+                query -> query.as(StudentResponse.class).slice(pageable));
+        log.debug("Found {} students, hasNext: {}", students.getNumberOfElements(), students.hasNext());
         return students;
     }
 
     @Override
     @Transactional
-    public StudentResponse updateStudent(Long id, UpdateStudentRequest request) {
+    public VersionedStudent updateStudent(Long id, UpdateStudentRequest request, Long expectedVersion) {
         log.debug("Updating student with ID: {}", id);
-        Student student = studentRepository.findById(id)
-                .orElseThrow(() -> {
-                    log.error("Student not found with ID: {}", id);
-                    return new ResourceNotFoundException("Student not found");
-                });
+        Student student = loadAtVersion(id, expectedVersion);
 
         String sanitizedName = inputSanitizer.sanitizeText(request.name());
         String sanitizedGrade = inputSanitizer.sanitizeText(request.grade());
         String sanitizedSchool = inputSanitizer.sanitizeText(request.school());
+        if (!Objects.equals(sanitizedSchool, student.getSchool())) {
+            // The student's revenue moves to the new school on every day they have orders
+            revenueRollupRepository.markStudentChanged(id);
+        }
 
         student.setName(sanitizedName);
         student.setGrade(sanitizedGrade);
         student.setSchool(sanitizedSchool);
 
-        Student updated = studentRepository.save(student);
+        // Flushed so the version is final: incremented if anything changed, as it was otherwise
+        Student updated = studentRepository.saveAndFlush(student);
+        eventPublisher.publishEvent(new StudentsChangedEvent(List.of(id)));
         log.debug("Student updated with ID: {}", id);
-        return StudentResponse.fromEntity(updated);
+        return new VersionedStudent(StudentResponse.fromEntity(updated), updated.getVersion());
     }
 
     @Override
     @Transactional
-    public void deleteStudent(Long id) {
+    public void deleteStudent(Long id, Long expectedVersion) {
         log.debug("Deleting student with ID: {}", id);
-        if (!studentRepository.existsById(id)) {
-            log.error("Student not found with ID: {}", id);
-            throw new ResourceNotFoundException("Student not found");
-        }
-        studentRepository.deleteById(id);
+        Student student = loadAtVersion(id, expectedVersion);
+        // Recorded while the orders are still there to read; the cascade removes them from the days' revenue
+        revenueRollupRepository.markStudentChanged(id);
+        studentRepository.delete(student);
+        // Fails here on a version conflict, before anything else reacts to the delete
+        studentRepository.flush();
+        // The main database cascades the delete; the other shards drop the student's orders once it commits
+        eventPublisher.publishEvent(new StudentDeletedEvent(id));
         log.debug("Student deleted with ID: {}", id);
     }
+
+    /**
+     * Students are written through the entity rather than a bulk statement: the read is normally a
+     * second-level cache hit, and a JPQL update would make Hibernate drop the whole student region.
+     * The flush then issues a single {@code ... WHERE id = ? AND version = ?}, so a concurrent writer
+     * still fails with an optimistic locking error instead of being overwritten.
+     */
+    private Student loadAtVersion(Long id, Long expectedVersion) {
+        Student student = studentRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.error("Student not found with ID: {}", id);
+                    return new ResourceNotFoundException("Student not found");
+                });
+        if (expectedVersion != null && student.getVersion() != expectedVersion) {
+            log.warn("Student with ID: {} is at version {}, expected {}", id, student.getVersion(), expectedVersion);
+            throw new PreconditionFailedException("Student was modified by someone else.");
+        }
+        return student;
+    }
+
+    /**
+     * Each chunk commits on its own, so a large file never holds one long transaction
+     * and rows imported before a failing chunk stay imported.
+     */
+    private int insertImportChunk(List<StudentBatchRepository.NewStudent> chunk) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        int size = chunk.size();
+        transactionTemplate.executeWithoutResult(status ->
+                eventPublisher.publishEvent(new StudentsChangedEvent(studentBatchRepository.insertAll(chunk))));
+        chunk.clear();
+        return size;
+    }
+
+    private int[] importColumns(List<String> header) {
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty.");
+        }
+        int[] columns = new int[IMPORT_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = -1;
+        }
+        for (int i = 0; i < header.size(); i++) {
+            // Strip a UTF-8 byte order mark some spreadsheet tools put before the first column
+            String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            int column = IMPORT_COLUMNS.indexOf(name);
+            if (column >= 0) {
+                columns[column] = i;
+            }
+        }
+        for (int column : columns) {
+            if (column < 0) {
+                throw new IllegalArgumentException("CSV header must contain the columns: name, grade, school.");
+            }
+        }
+        return columns;
+    }
+
+    private static String field(List<String> record, int column) {
+        return column < record.size() ? record.get(column) : null;
+    }
+
+    private Specification<Student> toSpecification(StudentFilterRequest filter) {
+        // Grade and school filters are resolved against the small lookup tables first,
+        // so the students query compares integer ids instead of matching strings
+        List<String> grades = filter.grade() != null ? gradeDictionary.valuesContaining(filter.grade()) : null;
+        List<String> schools = filter.school() != null ? schoolDictionary.valuesContaining(filter.school()) : null;
+
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.name() != null) {
+                String pattern = "%" + EscapeCharacter.DEFAULT.escape(filter.name().toLowerCase(Locale.ROOT)) + "%";
+                predicates.add(cb.like(cb.lower(root.get("name")), pattern, EscapeCharacter.DEFAULT.getEscapeCharacter()));
+            }
+            if (grades != null) {
+                predicates.add(grades.isEmpty() ? cb.disjunction() : root.get("grade").in(grades));
+            }
+            if (schools != null) {
+                predicates.add(schools.isEmpty() ? cb.disjunction() : root.get("school").in(schools));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
 }
@@ -0,0 +1,124 @@
+package at.hollndonner.studentordersapp.util;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Hands out connections whose statements report to the thread's {@link QueryStats}. Counting sits at the
+ * JDBC level rather than in Hibernate because the batch, summary and rollup repositories use
+ * {@code JdbcTemplate} directly.
+ * <p>
+ * Every {@code execute*} call is one statement (a whole JDBC batch included), and every {@code next()}
+ * that lands on a row is one row read.
+ */
+public class CountingDataSource extends DelegatingDataSource implements Closeable {
+
+    public CountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    /**
+     * Closes the wrapped pool; as the exposed bean this is the only close method Spring sees at shutdown.
+     */
+    @Override
+    public void close() throws IOException {
+        if (getTargetDataSource() instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, super.getConnection(username, password));
+    }
+
+    private static <T> T proxy(Class<T> type, T target) {
+        return type.cast(Proxy.newProxyInstance(
+                CountingDataSource.class.getClassLoader(), new Class<?>[]{type}, new Counting(target)));
+    }
+
+    private static Object wrap(Object result) {
+        // Most specific interface first: a CallableStatement is also a PreparedStatement and a Statement
+        if (result instanceof CallableStatement statement) {
+            return proxy(CallableStatement.class, statement);
+        }
+        if (result instanceof PreparedStatement statement) {
+            return proxy(PreparedStatement.class, statement);
+        }
+        if (result instanceof Statement statement) {
+            return proxy(Statement.class, statement);
+        }
+        if (result instanceof ResultSet resultSet) {
+            return proxy(ResultSet.class, resultSet);
+        }
+        return result;
+    }
+
+    private static final class Counting implements InvocationHandler {
+
+        private final Object target;
+
+        private Counting(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            boolean execute = target instanceof Statement && name.startsWith("execute");
+            long start = execute ? System.nanoTime() : 0;
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            } finally {
+                if (execute) {
+                    QueryStats.recordStatement(System.nanoTime() - start);
+                }
+            }
+
+            if (target instanceof ResultSet && name.equals("next") && Boolean.TRUE.equals(result)) {
+                QueryStats.recordRow();
+            }
+            return name.equals("unwrap") ? result : wrap(result);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package at.hollndonner.studentordersapp.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental RFC 4180 reader that pulls one record at a time from a {@link Reader},
+ * so a file of any size is parsed with a fixed-size buffer.
+ * Quoted fields may contain commas, doubled quotes and line breaks; records end with LF or CRLF.
+ * A malformed record is read to its end before it is rejected, so the next call continues with the record after it.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader in;
+    private final int maxFieldLength;
+    private final int maxFields;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+    private long line = 1;
+    private long recordLine;
+    private String error;
+
+    /**
+     * @param in             source, read sequentially and never reset
+     * @param maxFieldLength longest field accepted
+     * @param maxFields      most fields accepted in one record; with the field length it bounds the memory a single
+     *                       malformed record can take
+     */
+    public CsvReader(Reader in, int maxFieldLength, int maxFields) {
+        this.in = in;
+        this.maxFieldLength = maxFieldLength;
+        this.maxFields = maxFields;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record's fields, or {@code null} at end of input
+     * @throws IllegalArgumentException if a field is longer than the limit, the record has too many fields or a
+     *                                  quoted field is never closed; the rest of the record has been skipped
+     */
+    public List<String> readRecord() throws IOException {
+        if (!fill()) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        boolean quoted = false;
+        boolean fieldWasQuoted = false;
+        field.setLength(0);
+        error = null;
+
+        while (fill()) {
+            char c = buffer[position++];
+            if (quoted) {
+                if (c == '"') {
+                    if (fill() && buffer[position] == '"') {
+                        position++;
+                        append(c);
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append(c);
+                }
+            } else if (c == ',') {
+                add(fields);
+                field.setLength(0);
+                fieldWasQuoted = false;
+            } else if (c == '\n') {
+                line++;
+                return finish(fields);
+            } else if (c == '\r') {
+                if (fill() && buffer[position] == '\n') {
+                    position++;
+                }
+                line++;
+                return finish(fields);
+            } else if (c == '"' && field.isEmpty() && !fieldWasQuoted) {
+                quoted = true;
+                fieldWasQuoted = true;
+            } else {
+                append(c);
+            }
+        }
+
+        if (quoted && error == null) {
+            error = "Unterminated quoted field starting on line " + recordLine + ".";
+        }
+        return finish(fields);
+    }
+
+    /**
+     * @return the line on which the record last returned by {@link #readRecord()} started (1-based)
+     */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private List<String> finish(List<String> fields) {
+        add(fields);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        return fields;
+    }
+
+    /**
+     * Once the record is known to be rejected, nothing more of it is kept.
+     */
+    private void add(List<String> fields) {
+        if (error != null) {
+            return;
+        }
+        if (fields.size() == maxFields) {
+            error = "Record on line " + recordLine + " has more than " + maxFields + " fields.";
+            fields.clear();
+            return;
+        }
+        fields.add(field.toString());
+    }
+
+    private void append(char c) {
+        if (error != null) {
+            return;
+        }
+        if (field.length() == maxFieldLength) {
+            error = "Field on line " + recordLine + " exceeds " + maxFieldLength + " characters.";
+            return;
+        }
+        field.append(c);
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        int read;
+        do {
+            read = in.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,119 @@
+package at.hollndonner.studentordersapp.util;
+
+/**
+ * Escapes text for HTML exactly like commons-text {@code StringEscapeUtils.escapeHtml4}: the four markup
+ * characters {@code " & < >} and every other character with a named HTML 4.0 entity, which covers Latin-1
+ * above U+00A0, Greek, and a set of typographic, arrow and math symbols. Everything else, including
+ * apostrophes and characters outside the BMP, is copied as is.
+ * <p>
+ * Each character is looked up in a table indexed by its value. Input without any such character, which is
+ * nearly all of it, comes back as the same instance without allocating; otherwise it is escaped in one pass
+ * into a single builder.
+ */
+public final class HtmlEscaper {
+
+    // Indexed by character; null where the character is copied unchanged. The highest entity is U+2666 (diams).
+    private static final String[] ENTITIES = new String[0x2667];
+
+    static {
+        // Markup
+        entity(0x0022, "quot"); entity(0x0026, "amp"); entity(0x003C, "lt"); entity(0x003E, "gt");
+        // ISO-8859-1
+        entity(0x00A0, "nbsp"); entity(0x00A1, "iexcl"); entity(0x00A2, "cent"); entity(0x00A3, "pound");
+        entity(0x00A4, "curren"); entity(0x00A5, "yen"); entity(0x00A6, "brvbar"); entity(0x00A7, "sect");
+        entity(0x00A8, "uml"); entity(0x00A9, "copy"); entity(0x00AA, "ordf"); entity(0x00AB, "laquo");
+        entity(0x00AC, "not"); entity(0x00AD, "shy"); entity(0x00AE, "reg"); entity(0x00AF, "macr");
+        entity(0x00B0, "deg"); entity(0x00B1, "plusmn"); entity(0x00B2, "sup2"); entity(0x00B3, "sup3");
+        entity(0x00B4, "acute"); entity(0x00B5, "micro"); entity(0x00B6, "para"); entity(0x00B7, "middot");
+        entity(0x00B8, "cedil"); entity(0x00B9, "sup1"); entity(0x00BA, "ordm"); entity(0x00BB, "raquo");
+        entity(0x00BC, "frac14"); entity(0x00BD, "frac12"); entity(0x00BE, "frac34"); entity(0x00BF, "iquest");
+        entity(0x00C0, "Agrave"); entity(0x00C1, "Aacute"); entity(0x00C2, "Acirc"); entity(0x00C3, "Atilde");
+        entity(0x00C4, "Auml"); entity(0x00C5, "Aring"); entity(0x00C6, "AElig"); entity(0x00C7, "Ccedil");
+        entity(0x00C8, "Egrave"); entity(0x00C9, "Eacute"); entity(0x00CA, "Ecirc"); entity(0x00CB, "Euml");
+        entity(0x00CC, "Igrave"); entity(0x00CD, "Iacute"); entity(0x00CE, "Icirc"); entity(0x00CF, "Iuml");
+        entity(0x00D0, "ETH"); entity(0x00D1, "Ntilde"); entity(0x00D2, "Ograve"); entity(0x00D3, "Oacute");
+        entity(0x00D4, "Ocirc"); entity(0x00D5, "Otilde"); entity(0x00D6, "Ouml"); entity(0x00D7, "times");
+        entity(0x00D8, "Oslash"); entity(0x00D9, "Ugrave"); entity(0x00DA, "Uacute"); entity(0x00DB, "Ucirc");
+        entity(0x00DC, "Uuml"); entity(0x00DD, "Yacute"); entity(0x00DE, "THORN"); entity(0x00DF, "szlig");
+        entity(0x00E0, "agrave"); entity(0x00E1, "aacute"); entity(0x00E2, "acirc"); entity(0x00E3, "atilde");
+        entity(0x00E4, "auml"); entity(0x00E5, "aring"); entity(0x00E6, "aelig"); entity(0x00E7, "ccedil");
+        entity(0x00E8, "egrave"); entity(0x00E9, "eacute"); entity(0x00EA, "ecirc"); entity(0x00EB, "euml");
+        entity(0x00EC, "igrave"); entity(0x00ED, "iacute"); entity(0x00EE, "icirc"); entity(0x00EF, "iuml");
+        entity(0x00F0, "eth"); entity(0x00F1, "ntilde"); entity(0x00F2, "ograve"); entity(0x00F3, "oacute");
+        entity(0x00F4, "ocirc"); entity(0x00F5, "otilde"); entity(0x00F6, "ouml"); entity(0x00F7, "divide");
+        entity(0x00F8, "oslash"); entity(0x00F9, "ugrave"); entity(0x00FA, "uacute"); entity(0x00FB, "ucirc");
+        entity(0x00FC, "uuml"); entity(0x00FD, "yacute"); entity(0x00FE, "thorn"); entity(0x00FF, "yuml");
+        // Other HTML 4.0 entities
+        entity(0x0152, "OElig"); entity(0x0153, "oelig"); entity(0x0160, "Scaron"); entity(0x0161, "scaron");
+        entity(0x0178, "Yuml"); entity(0x0192, "fnof"); entity(0x02C6, "circ"); entity(0x02DC, "tilde");
+        entity(0x0391, "Alpha"); entity(0x0392, "Beta"); entity(0x0393, "Gamma"); entity(0x0394, "Delta");
+        entity(0x0395, "Epsilon"); entity(0x0396, "Zeta"); entity(0x0397, "Eta"); entity(0x0398, "Theta");
+        entity(0x0399, "Iota"); entity(0x039A, "Kappa"); entity(0x039B, "Lambda"); entity(0x039C, "Mu");
+        entity(0x039D, "Nu"); entity(0x039E, "Xi"); entity(0x039F, "Omicron"); entity(0x03A0, "Pi");
+        entity(0x03A1, "Rho"); entity(0x03A3, "Sigma"); entity(0x03A4, "Tau"); entity(0x03A5, "Upsilon");
+        entity(0x03A6, "Phi"); entity(0x03A7, "Chi"); entity(0x03A8, "Psi"); entity(0x03A9, "Omega");
+        entity(0x03B1, "alpha"); entity(0x03B2, "beta"); entity(0x03B3, "gamma"); entity(0x03B4, "delta");
+        entity(0x03B5, "epsilon"); entity(0x03B6, "zeta"); entity(0x03B7, "eta"); entity(0x03B8, "theta");
+        entity(0x03B9, "iota"); entity(0x03BA, "kappa"); entity(0x03BB, "lambda"); entity(0x03BC, "mu");
+        entity(0x03BD, "nu"); entity(0x03BE, "xi"); entity(0x03BF, "omicron"); entity(0x03C0, "pi");
+        entity(0x03C1, "rho"); entity(0x03C2, "sigmaf"); entity(0x03C3, "sigma"); entity(0x03C4, "tau");
+        entity(0x03C5, "upsilon"); entity(0x03C6, "phi"); entity(0x03C7, "chi"); entity(0x03C8, "psi");
+        entity(0x03C9, "omega"); entity(0x03D1, "thetasym"); entity(0x03D2, "upsih"); entity(0x03D6, "piv");
+        entity(0x2002, "ensp"); entity(0x2003, "emsp"); entity(0x2009, "thinsp"); entity(0x200C, "zwnj");
+        entity(0x200D, "zwj"); entity(0x200E, "lrm"); entity(0x200F, "rlm"); entity(0x2013, "ndash");
+        entity(0x2014, "mdash"); entity(0x2018, "lsquo"); entity(0x2019, "rsquo"); entity(0x201A, "sbquo");
+        entity(0x201C, "ldquo"); entity(0x201D, "rdquo"); entity(0x201E, "bdquo"); entity(0x2020, "dagger");
+        entity(0x2021, "Dagger"); entity(0x2022, "bull"); entity(0x2026, "hellip"); entity(0x2030, "permil");
+        entity(0x2032, "prime"); entity(0x2033, "Prime"); entity(0x2039, "lsaquo"); entity(0x203A, "rsaquo");
+        entity(0x203E, "oline"); entity(0x2044, "frasl"); entity(0x20AC, "euro"); entity(0x2111, "image");
+        entity(0x2118, "weierp"); entity(0x211C, "real"); entity(0x2122, "trade"); entity(0x2135, "alefsym");
+        entity(0x2190, "larr"); entity(0x2191, "uarr"); entity(0x2192, "rarr"); entity(0x2193, "darr");
+        entity(0x2194, "harr"); entity(0x21B5, "crarr"); entity(0x21D0, "lArr"); entity(0x21D1, "uArr");
+        entity(0x21D2, "rArr"); entity(0x21D3, "dArr"); entity(0x21D4, "hArr"); entity(0x2200, "forall");
+        entity(0x2202, "part"); entity(0x2203, "exist"); entity(0x2205, "empty"); entity(0x2207, "nabla");
+        entity(0x2208, "isin"); entity(0x2209, "notin"); entity(0x220B, "ni"); entity(0x220F, "prod");
+        entity(0x2211, "sum"); entity(0x2212, "minus"); entity(0x2217, "lowast"); entity(0x221A, "radic");
+        entity(0x221D, "prop"); entity(0x221E, "infin"); entity(0x2220, "ang"); entity(0x2227, "and");
+        entity(0x2228, "or"); entity(0x2229, "cap"); entity(0x222A, "cup"); entity(0x222B, "int");
+        entity(0x2234, "there4"); entity(0x223C, "sim"); entity(0x2245, "cong"); entity(0x2248, "asymp");
+        entity(0x2260, "ne"); entity(0x2261, "equiv"); entity(0x2264, "le"); entity(0x2265, "ge");
+        entity(0x2282, "sub"); entity(0x2283, "sup"); entity(0x2284, "nsub"); entity(0x2286, "sube");
+        entity(0x2287, "supe"); entity(0x2295, "oplus"); entity(0x2297, "otimes"); entity(0x22A5, "perp");
+        entity(0x22C5, "sdot"); entity(0x2308, "lceil"); entity(0x2309, "rceil"); entity(0x230A, "lfloor");
+        entity(0x230B, "rfloor"); entity(0x2329, "lang"); entity(0x232A, "rang"); entity(0x25CA, "loz");
+        entity(0x2660, "spades"); entity(0x2663, "clubs"); entity(0x2665, "hearts"); entity(0x2666, "diams");
+    }
+
+    private HtmlEscaper() {
+    }
+
+    public static String escape(String input) {
+        int length = input.length();
+        int first = 0;
+        while (first < length && entityFor(input.charAt(first)) == null) {
+            first++;
+        }
+        if (first == length) {
+            return input;
+        }
+
+        StringBuilder escaped = new StringBuilder(length + 16);
+        int copied = 0;
+        for (int i = first; i < length; i++) {
+            String entity = entityFor(input.charAt(i));
+            if (entity != null) {
+                escaped.append(input, copied, i).append(entity);
+                copied = i + 1;
+            }
+        }
+        return escaped.append(input, copied, length).toString();
+    }
+
+    private static String entityFor(char c) {
+        return c < ENTITIES.length ? ENTITIES[c] : null;
+    }
+
+    private static void entity(int c, String name) {
+        ENTITIES[c] = "&" + name + ";";
+    }
+}
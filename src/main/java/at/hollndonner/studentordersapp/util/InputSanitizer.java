@@ -1,6 +1,5 @@
 package at.hollndonner.studentordersapp.util;
 
-import org.apache.commons.text.StringEscapeUtils;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -17,7 +16,7 @@ public class InputSanitizer {
         if (input == null || input.isBlank()) {
             return input;
         }
-        return StringEscapeUtils.escapeHtml4(input);
+        return HtmlEscaper.escape(input);
     }
 
     /**
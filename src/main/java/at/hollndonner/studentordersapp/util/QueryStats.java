@@ -0,0 +1,99 @@
+package at.hollndonner.studentordersapp.util;
+
+import java.util.Locale;
+
+/**
+ * JDBC work done on one thread while the scope is open: statements executed, rows read and time spent in
+ * {@code execute*}. Filled by {@link CountingDataSource}. Scopes nest; closing one adds its totals to the
+ * scope it was started in, so a test wrapped around a MockMvc call also sees what the request filter counted.
+ * <p>
+ * Work handed to other threads (async MVC, streamed exports, scheduled jobs) is not attributed to the scope.
+ */
+public final class QueryStats implements AutoCloseable {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private final QueryStats parent;
+    private long statements;
+    private long rows;
+    private long nanos;
+    private boolean closed;
+
+    private QueryStats(QueryStats parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Opens a scope on the calling thread; close it on the same thread, typically with try-with-resources.
+     */
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * The innermost open scope on the calling thread, or {@code null} if there is none.
+     */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("Query stats must be closed on their thread, innermost first");
+        }
+        closed = true;
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            parent.statements += statements;
+            parent.rows += rows;
+            parent.nanos += nanos;
+            CURRENT.set(parent);
+        }
+    }
+
+    static void recordStatement(long elapsedNanos) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.nanos += elapsedNanos;
+        }
+    }
+
+    static void recordRow() {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.rows++;
+        }
+    }
+
+    public long statements() {
+        return statements;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public double millis() {
+        return nanos / 1e6;
+    }
+
+    /**
+     * A {@code Server-Timing} metric, e.g. {@code db;dur=4.2;desc="3 statements, 20 rows"}.
+     */
+    public String toServerTiming() {
+        return String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d statements, %d rows\"", millis(), statements, rows);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d statements, %d rows, %.1f ms", statements, rows, millis());
+    }
+}
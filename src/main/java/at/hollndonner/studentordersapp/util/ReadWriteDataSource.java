@@ -0,0 +1,30 @@
+package at.hollndonner.studentordersapp.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.io.Closeable;
+
+/**
+ * Routes read-only transactions to the replicas and everything else to the primary. The physical connection is
+ * only fetched on the first statement, by which point the transaction manager has marked it read-only or not.
+ * Reads outside a transaction run in auto-commit on the primary.
+ */
+public class ReadWriteDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private final HikariDataSource primary;
+    private final ReplicaDataSource replicas;
+
+    public ReadWriteDataSource(HikariDataSource primary, ReplicaDataSource replicas) {
+        super(primary);
+        this.primary = primary;
+        this.replicas = replicas;
+        setReadOnlyDataSource(replicas);
+    }
+
+    @Override
+    public void close() {
+        replicas.close();
+        primary.close();
+    }
+}
@@ -0,0 +1,155 @@
+package at.hollndonner.studentordersapp.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connections for read-only transactions: one of several replica pools, taken in turn or the one with the fewest
+ * connections in use. A replica that fails to hand out a connection is skipped for the retry interval, unless its
+ * pool was only busy, and when no replica is usable the primary answers instead. A thread pinned with
+ * {@link #pinToPrimary()} always gets the primary, which is how a client reads its own writes before they have
+ * reached the replicas.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements Closeable {
+
+    public enum Selection {
+        ROUND_ROBIN,
+        LEAST_CONNECTIONS
+    }
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final long retryAfterNanos;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaDataSource(DataSource primary, List<HikariDataSource> replicas, Selection selection,
+                             long retryAfterMillis) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.selection = selection;
+        this.retryAfterNanos = TimeUnit.MILLISECONDS.toNanos(retryAfterMillis);
+    }
+
+    /**
+     * Closeable handle of a pin; closing it restores whatever the thread had before.
+     */
+    public interface Pin extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Sends this thread's read-only transactions to the primary until the returned pin is closed.
+     */
+    public static Pin pinToPrimary() {
+        Boolean previous = PINNED.get();
+        PINNED.set(Boolean.TRUE);
+        return () -> {
+            if (previous == null) {
+                PINNED.remove();
+            } else {
+                PINNED.set(previous);
+            }
+        };
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!isPinnedToPrimary()) {
+            for (Replica replica : candidates()) {
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException ex) {
+                    if (ex instanceof SQLTransientConnectionException && replica.exhausted()) {
+                        log.debug("Read replica {} has no free connection, trying the next one",
+                                replica.dataSource.getPoolName());
+                        continue;
+                    }
+                    replica.downUntil = System.nanoTime() + retryAfterNanos;
+                    replica.down = true;
+                    log.warn("Read replica {} is unavailable, skipping it for {} ms: {}", replica.dataSource.getPoolName(),
+                            TimeUnit.NANOSECONDS.toMillis(retryAfterNanos), ex.getMessage());
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * The replica pools log in with their configured credentials, so a connection for other ones comes from the
+     * primary.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * The usable replicas, in the order they should be tried.
+     */
+    private List<Replica> candidates() {
+        long now = System.nanoTime();
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        int start = selection == Selection.ROUND_ROBIN ? Math.floorMod(next.getAndIncrement(), replicas.size()) : 0;
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.down || now - replica.downUntil >= 0) {
+                healthy.add(replica);
+            }
+        }
+        if (selection == Selection.LEAST_CONNECTIONS) {
+            healthy.sort(Comparator.comparingInt(Replica::activeConnections));
+        }
+        return healthy;
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource dataSource;
+        private volatile boolean down;
+        private volatile long downUntil;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private int activeConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+
+        /**
+         * Whether every connection the pool may hold is in use. Hikari times out with the same exception whether the
+         * pool is merely busy or the replica cannot be reached, so this tells the two apart.
+         */
+        private boolean exhausted() {
+            return activeConnections() >= dataSource.getMaximumPoolSize();
+        }
+    }
+}
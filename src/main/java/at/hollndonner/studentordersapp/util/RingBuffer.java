@@ -0,0 +1,84 @@
+package at.hollndonner.studentordersapp.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue for many producers and one consumer. Every slot carries a sequence number that says
+ * whose turn it is: producers claim a position with one CAS on the tail, write the slot and publish it by
+ * advancing its sequence; the consumer takes slots in order and hands them back one lap ahead. A full buffer
+ * makes {@link #offer} fail at once instead of blocking the producer.
+ */
+public final class RingBuffer<E> {
+
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only the consumer thread touches the head
+    private long head;
+
+    public RingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, got " + capacity);
+        }
+        slots = new Object[capacity];
+        sequences = new AtomicLongArray(capacity);
+        mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds {@code element} unless the buffer is full. Safe to call from any thread.
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long lag = sequences.get(index) - position;
+            if (lag == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = element;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (lag < 0) {
+                // The slot still holds the element from one lap ago
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hands up to {@code max} published elements to {@code sink}, oldest first, and returns how many.
+     * Must only be called from the single consumer thread.
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Consumer<? super E> sink, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                // Empty, or the producer that claimed this slot hasn't published it yet
+                break;
+            }
+            E element = (E) slots[index];
+            slots[index] = null;
+            sequences.set(index, head + slots.length);
+            head++;
+            drained++;
+            sink.accept(element);
+        }
+        return drained;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,27 @@
+-- Order shards hold only a share of orders and order_summary; students live in the main database,
+-- so there are no foreign keys and deleting a student removes its rows here explicitly.
+CREATE TABLE IF NOT EXISTS orders (
+    id BIGINT PRIMARY KEY,
+    student_id BIGINT NOT NULL,
+    total DECIMAL(10, 2) NOT NULL,
+    status VARCHAR(10) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
+    INDEX idx_student_created_at (student_id, created_at DESC, id DESC),
+    INDEX idx_status_created_at (status, created_at DESC, id DESC),
+    INDEX idx_created_at (created_at DESC, id DESC)
+);
+
+CREATE TABLE IF NOT EXISTS order_summary (
+    student_id BIGINT NOT NULL,
+    status VARCHAR(10) NOT NULL,
+    order_count BIGINT NOT NULL,
+    total DECIMAL(15, 2) NOT NULL,
+    PRIMARY KEY (student_id, status)
+);
+
+-- Days of this shard's older orders changed since the last revenue rollup refresh
+CREATE TABLE IF NOT EXISTS revenue_changed_days (
+    order_date DATE PRIMARY KEY,
+    changes BIGINT NOT NULL
+);
@@ -1,9 +1,26 @@
+CREATE TABLE IF NOT EXISTS grades (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(20) COLLATE utf8mb4_bin NOT NULL,
+    UNIQUE KEY uk_grades_name (name)
+);
+
+CREATE TABLE IF NOT EXISTS schools (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(150) COLLATE utf8mb4_bin NOT NULL,
+    UNIQUE KEY uk_schools_name (name)
+);
+
 CREATE TABLE IF NOT EXISTS students (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     name VARCHAR(100) NOT NULL,
-    grade VARCHAR(20) NOT NULL,
-    school VARCHAR(150) NOT NULL,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    grade_id INT NOT NULL,
+    school_id INT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
+    INDEX idx_students_grade (grade_id),
+    INDEX idx_students_school (school_id),
+    FOREIGN KEY (grade_id) REFERENCES grades(id),
+    FOREIGN KEY (school_id) REFERENCES schools(id)
 );
 
 CREATE TABLE IF NOT EXISTS orders (
@@ -12,8 +29,53 @@ CREATE TABLE IF NOT EXISTS orders (
     total DECIMAL(10, 2) NOT NULL,
     status VARCHAR(10) NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE,
-    INDEX idx_student_id (student_id),
-    INDEX idx_status (status),
-    INDEX idx_created_at (created_at)
+    version BIGINT NOT NULL DEFAULT 0,
+    INDEX idx_student_created_at (student_id, created_at DESC, id DESC),
+    INDEX idx_status_created_at (status, created_at DESC, id DESC),
+    INDEX idx_created_at (created_at DESC, id DESC),
+    FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS order_summary (
+    student_id BIGINT NOT NULL,
+    status VARCHAR(10) NOT NULL,
+    order_count BIGINT NOT NULL,
+    total DECIMAL(15, 2) NOT NULL,
+    PRIMARY KEY (student_id, status),
+    FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS revenue_daily (
+    order_date DATE NOT NULL,
+    school VARCHAR(150) NOT NULL,
+    status VARCHAR(10) NOT NULL,
+    order_count BIGINT NOT NULL,
+    revenue DECIMAL(15, 2) NOT NULL,
+    PRIMARY KEY (order_date, school, status),
+    INDEX idx_revenue_daily_school (school, order_date)
+);
+
+CREATE TABLE IF NOT EXISTS revenue_monthly (
+    order_month DATE NOT NULL,
+    school VARCHAR(150) NOT NULL,
+    status VARCHAR(10) NOT NULL,
+    order_count BIGINT NOT NULL,
+    revenue DECIMAL(15, 2) NOT NULL,
+    PRIMARY KEY (order_month, school, status),
+    INDEX idx_revenue_monthly_school (school, order_month)
+);
+
+CREATE TABLE IF NOT EXISTS revenue_changed_days (
+    order_date DATE PRIMARY KEY,
+    changes BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS rollup_watermark (
+    name VARCHAR(50) PRIMARY KEY,
+    watermark TIMESTAMP NULL
+);
+
+CREATE TABLE IF NOT EXISTS order_id_sequence (
+    name VARCHAR(50) PRIMARY KEY,
+    next_value BIGINT NOT NULL
 );
@@ -1,28 +1,50 @@
-# INSERT INTO students (name, grade, school) VALUES
-# ('Alice Johnson', '9th Grade', 'Springfield High School'),
-# ('Bob Smith', '10th Grade', 'Riverside Academy'),
-# ('Charlie Brown', '11th Grade', 'Lincoln High School'),
-# ('Diana Prince', '12th Grade', 'Westfield School'),
-# ('Ethan Hunt', '9th Grade', 'Central High School');
-#
-# INSERT INTO orders (student_id, total, status) VALUES
-# (1, 25.50, 'paid'),
-# (1, 12.75, 'pending'),
-# (2, 30.00, 'paid'),
-# (3, 18.25, 'pending'),
-# (4, 45.00, 'paid'),
-# (5, 22.50, 'pending');
+-- INSERT INTO students (name, grade, school) VALUES
+-- ('Alice Johnson', '9th Grade', 'Springfield High School'),
+-- ('Bob Smith', '10th Grade', 'Riverside Academy'),
+-- ('Charlie Brown', '11th Grade', 'Lincoln High School'),
+-- ('Diana Prince', '12th Grade', 'Westfield School'),
+-- ('Ethan Hunt', '9th Grade', 'Central High School');
+--
+-- INSERT INTO orders (student_id, total, status) VALUES
+-- (1, 25.50, 'paid'),
+-- (1, 12.75, 'pending'),
+-- (2, 30.00, 'paid'),
+-- (3, 18.25, 'pending'),
+-- (4, 45.00, 'paid'),
+-- (5, 22.50, 'pending');
 
 -- Only insert sample data if tables are empty
-INSERT INTO students (name, grade, school)
+INSERT INTO grades (name)
 SELECT * FROM (
-                  SELECT 'Alice Johnson', '9th Grade', 'Springfield High School' UNION ALL
-                  SELECT 'Bob Smith', '10th Grade', 'Riverside Academy' UNION ALL
-                  SELECT 'Charlie Brown', '11th Grade', 'Lincoln High School' UNION ALL
-                  SELECT 'Diana Prince', '12th Grade', 'Westfield School' UNION ALL
-                  SELECT 'Ethan Hunt', '9th Grade', 'Central High School'
+                  SELECT '9th Grade' UNION ALL
+                  SELECT '10th Grade' UNION ALL
+                  SELECT '11th Grade' UNION ALL
+                  SELECT '12th Grade'
               ) AS tmp
-WHERE NOT EXISTS (SELECT 1 FROM students);
+WHERE NOT EXISTS (SELECT 1 FROM grades);
+
+INSERT INTO schools (name)
+SELECT * FROM (
+                  SELECT 'Springfield High School' UNION ALL
+                  SELECT 'Riverside Academy' UNION ALL
+                  SELECT 'Lincoln High School' UNION ALL
+                  SELECT 'Westfield School' UNION ALL
+                  SELECT 'Central High School'
+              ) AS tmp
+WHERE NOT EXISTS (SELECT 1 FROM schools);
+
+INSERT INTO students (name, grade_id, school_id)
+SELECT tmp.name, g.id, s.id FROM (
+                  SELECT 1 AS pos, 'Alice Johnson' AS name, '9th Grade' AS grade, 'Springfield High School' AS school UNION ALL
+                  SELECT 2, 'Bob Smith', '10th Grade', 'Riverside Academy' UNION ALL
+                  SELECT 3, 'Charlie Brown', '11th Grade', 'Lincoln High School' UNION ALL
+                  SELECT 4, 'Diana Prince', '12th Grade', 'Westfield School' UNION ALL
+                  SELECT 5, 'Ethan Hunt', '9th Grade', 'Central High School'
+              ) AS tmp
+JOIN grades g ON g.name = tmp.grade
+JOIN schools s ON s.name = tmp.school
+WHERE NOT EXISTS (SELECT 1 FROM students)
+ORDER BY tmp.pos;
 
 INSERT INTO orders (student_id, total, status)
 SELECT * FROM (
@@ -34,3 +56,13 @@ SELECT * FROM (
                   SELECT 5, 22.50, 'pending'
               ) AS tmp
 WHERE NOT EXISTS (SELECT 1 FROM orders);
+
+-- Build the per-student order summary from existing orders the first time it is empty
+INSERT INTO order_summary (student_id, status, order_count, total)
+SELECT student_id, status, COUNT(*), SUM(total)
+FROM orders
+WHERE NOT EXISTS (SELECT 1 FROM order_summary)
+GROUP BY student_id, status;
+
+-- Revenue rollups are built by the background job; a NULL watermark makes its first run a full rebuild
+INSERT IGNORE INTO rollup_watermark (name, watermark) VALUES ('revenue', NULL);
@@ -0,0 +1,109 @@
+package at.hollndonner.studentordersapp.config;
+
+import at.hollndonner.studentordersapp.util.QueryStats;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AccessLogFilterTest {
+
+    private final AccessLogWriter writer = new AccessLogWriter(4, 100);
+
+    @Test
+    void successfulRead_WithSampleRateZero_ShouldNotBeLogged() throws Exception {
+        perform(filter(0.0), "GET", 200);
+
+        assertThat(entries()).isEmpty();
+    }
+
+    @Test
+    void successfulRead_WithSampleRateOne_ShouldBeLoggedAsSampled() throws Exception {
+        perform(filter(1.0), "GET", 200);
+
+        assertThat(entries()).singleElement()
+                .satisfies(entry -> assertThat(entry.sampled()).isTrue());
+    }
+
+    @Test
+    void errorsAndWrites_ShouldAlwaysBeLogged() throws Exception {
+        AccessLogFilter filter = filter(0.0);
+
+        perform(filter, "GET", 404);
+        perform(filter, "POST", 201);
+
+        List<AccessLogWriter.Entry> entries = entries();
+        assertThat(entries).extracting(AccessLogWriter.Entry::status).containsExactly(404, 201);
+        assertThat(entries).noneMatch(AccessLogWriter.Entry::sampled);
+    }
+
+    @Test
+    void exceptionFromTheChain_ShouldBeLoggedAsServerError() {
+        AccessLogFilter filter = filter(0.0);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/orders");
+
+        assertThatThrownBy(() -> filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            throw new ServletException("boom");
+        })).isInstanceOf(ServletException.class);
+
+        assertThat(entries()).extracting(AccessLogWriter.Entry::status).containsExactly(500);
+    }
+
+    @Test
+    void slowRead_ShouldAlwaysBeLogged() throws Exception {
+        AccessLogFilter filter = new AccessLogFilter(writer, 0.0, 0);
+
+        perform(filter, "GET", 200);
+
+        assertThat(entries()).hasSize(1);
+    }
+
+    @Test
+    void entry_ShouldCarryTheRequestsQueryStats() throws Exception {
+        try (QueryStats ignored = QueryStats.start()) {
+            perform(filter(1.0), "GET", 200);
+        }
+
+        assertThat(entries()).singleElement().satisfies(entry -> {
+            assertThat(entry.statements()).isZero();
+            assertThat(entry.format()).contains(" method=GET path=/api/v1/orders status=200 ",
+                    " db_statements=0 db_rows=0 db_ms=0.0", " sampled=true");
+        });
+    }
+
+    @Test
+    void fullBuffer_ShouldCountDrops() throws Exception {
+        AccessLogFilter filter = filter(0.0);
+
+        for (int i = 0; i < 6; i++) {
+            perform(filter, "DELETE", 204);
+        }
+
+        assertThat(writer.dropped()).isEqualTo(2);
+        assertThat(entries()).hasSize(4);
+    }
+
+    private AccessLogFilter filter(double sampleRate) {
+        return new AccessLogFilter(writer, sampleRate, 60_000);
+    }
+
+    private static void perform(AccessLogFilter filter, String method, int status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/v1/orders");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(status);
+        filter.doFilter(request, response, new MockFilterChain());
+    }
+
+    private List<AccessLogWriter.Entry> entries() {
+        List<AccessLogWriter.Entry> entries = new ArrayList<>();
+        writer.drainTo(entries::add);
+        return entries;
+    }
+}
@@ -0,0 +1,57 @@
+package at.hollndonner.studentordersapp.config;
+
+import at.hollndonner.studentordersapp.util.ReplicaDataSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadYourWritesFilterTest {
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+
+    @Test
+    void write_ShouldRunPinnedAndSetTheCookie() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(pinnedDuring(new MockHttpServletRequest("POST", "/api/v1/orders"), response)).isTrue();
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE))
+                .startsWith(ReadYourWritesFilter.COOKIE + "=")
+                .contains("Max-Age=5", "HttpOnly");
+    }
+
+    @Test
+    void readWithinTheWindow_ShouldRunPinned() throws Exception {
+        assertThat(pinnedDuring(read(System.currentTimeMillis() + 3_000), new MockHttpServletResponse())).isTrue();
+    }
+
+    @Test
+    void readWithExpiredOrImplausibleCookie_ShouldUseTheReplicas() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(pinnedDuring(read(System.currentTimeMillis() - 1), response)).isFalse();
+        assertThat(pinnedDuring(read(System.currentTimeMillis() + 60_000), response)).isFalse();
+        assertThat(pinnedDuring(new MockHttpServletRequest("GET", "/api/v1/orders"), response)).isFalse();
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE)).isNull();
+    }
+
+    private static MockHttpServletRequest read(long primaryUntil) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/orders");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(primaryUntil)));
+        return request;
+    }
+
+    private boolean pinnedDuring(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        boolean[] pinned = new boolean[1];
+        FilterChain chain = (req, res) -> pinned[0] = ReplicaDataSource.isPinnedToPrimary();
+        filter.doFilter(request, response, chain);
+        assertThat(ReplicaDataSource.isPinnedToPrimary()).isFalse();
+        return pinned[0];
+    }
+}
@@ -0,0 +1,40 @@
+package at.hollndonner.studentordersapp.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:prometheus;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "reports.revenue.refresh-enabled=false"
+})
+@AutoConfigureMockMvc
+class PrometheusEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheus_AfterARequest_ShouldExposeRequestServicePoolAndHibernateMetrics() throws Exception {
+        mockMvc.perform(get("/api/v1/orders")).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape.lines())
+                .anyMatch(line -> line.startsWith("http_server_requests_seconds_bucket{")
+                        && line.contains("uri=\"/api/v1/orders\""))
+                .anyMatch(line -> line.startsWith("service_calls_seconds_bucket{")
+                        && line.contains("class=\"at.hollndonner.studentordersapp.service.OrderServiceImpl\""))
+                .anyMatch(line -> line.startsWith("hikaricp_connections_acquire_seconds_bucket{"))
+                .anyMatch(line -> line.startsWith("hibernate_"));
+    }
+}
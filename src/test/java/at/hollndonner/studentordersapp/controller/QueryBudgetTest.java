@@ -0,0 +1,49 @@
+package at.hollndonner.studentordersapp.controller;
+
+import at.hollndonner.studentordersapp.support.QueryCounts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets for the read endpoints: a lazy load per row shows up here as a budget overrun.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "reports.revenue.refresh-enabled=false"
+})
+@AutoConfigureMockMvc
+class QueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void getOrders_ShouldStayWithinBudgetAndReportServerTiming() throws Exception {
+        QueryCounts.assertAtMost(1, () -> mockMvc.perform(get("/api/v1/orders").param("studentId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", matchesPattern("db;dur=\\d+\\.\\d;desc=\"1 statements, 2 rows\""))));
+    }
+
+    @Test
+    void getStudents_ShouldStayWithinBudget() throws Exception {
+        // The page, plus one read each of the grade and school dictionaries while they are still cold
+        QueryCounts.assertAtMost(3, () -> mockMvc.perform(get("/api/v1/students"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void getOrderById_ShouldStayWithinBudget() throws Exception {
+        // The version for the ETag, then the order
+        QueryCounts.assertAtMost(2, () -> mockMvc.perform(get("/api/v1/orders/1"))
+                .andExpect(status().isOk()));
+    }
+}
@@ -0,0 +1,67 @@
+package at.hollndonner.studentordersapp.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:student-controller;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "reports.revenue.refresh-enabled=false"
+})
+@AutoConfigureMockMvc
+class StudentControllerTest {
+
+    private static final String UNCHANGED = """
+            {"name": "Nora Lindqvist", "grade": "10th Grade", "school": "Fjord Academy"}""";
+    private static final String CHANGED = """
+            {"name": "Nora Lindqvist", "grade": "11th Grade", "school": "Fjord Academy"}""";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void updateStudent_WithNoChanges_ShouldKeepTheETagUsableForTheNextWrite() throws Exception {
+        String etag = mockMvc.perform(put("/api/v1/students/2").contentType(MediaType.APPLICATION_JSON).content(UNCHANGED))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String unchangedEtag = mockMvc.perform(put("/api/v1/students/2").header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content(UNCHANGED))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(put("/api/v1/students/2").header(HttpHeaders.IF_MATCH, unchangedEtag)
+                        .contentType(MediaType.APPLICATION_JSON).content(CHANGED))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.grade").value("11th Grade"))
+                .andExpect(header().string(HttpHeaders.ETAG, ETags.fromVersion(
+                        Long.parseLong(etag.replace("\"", "")) + 1)));
+    }
+
+    @Test
+    void listings_ShouldIncludeAStudentThatHasBeenUpdated() throws Exception {
+        mockMvc.perform(put("/api/v1/students/3").contentType(MediaType.APPLICATION_JSON).content("""
+                        {"name": "Charlie Renamed", "grade": "11th Grade", "school": "Lincoln High School"}"""))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/students").param("name", "charlie"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(3)));
+        mockMvc.perform(get("/api/v1/students/slice").param("school", "Lincoln"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].name", contains("Charlie Renamed")));
+    }
+}
@@ -0,0 +1,55 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orders-batch;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "orders.batch.chunk-size=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderBatchRepository.class, OrderSummaryRepository.class, GradeDictionary.class, SchoolDictionary.class})
+class OrderBatchRepositoryTest {
+
+    @Autowired
+    private OrderBatchRepository orderBatchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void insertAll_ShouldInsertEveryChunkAndReturnIdsInInputOrder() {
+        List<OrderBatchRepository.NewOrder> rows = IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> new OrderBatchRepository.NewOrder((long) i, new BigDecimal(i + ".00"), OrderStatus.pending))
+                .toList();
+
+        List<Long> ids = orderBatchRepository.insertAll(rows);
+
+        assertThat(ids).hasSize(5).doesNotHaveDuplicates().isSorted();
+        for (int i = 0; i < ids.size(); i++) {
+            assertThat(jdbcTemplate.queryForObject("SELECT student_id FROM orders WHERE id = ?", Long.class, ids.get(i)))
+                    .isEqualTo(rows.get(i).studentId());
+            assertThat(jdbcTemplate.queryForObject("SELECT total FROM orders WHERE id = ?", BigDecimal.class, ids.get(i)))
+                    .isEqualByComparingTo(rows.get(i).total());
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT created_at FROM orders WHERE id = ?", Object.class, ids.get(0)))
+                .isNotNull();
+    }
+
+    @Test
+    void findExistingIds_ShouldReturnOnlyKnownStudents(@Autowired StudentRepository studentRepository) {
+        assertThat(studentRepository.findExistingIds(List.of(1L, 2L, 999L))).containsExactlyInAnyOrder(1L, 2L);
+    }
+}
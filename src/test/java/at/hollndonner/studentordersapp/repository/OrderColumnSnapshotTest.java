@@ -0,0 +1,155 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks every aggregate against the same query in SQL over a few thousand generated orders.
+ * A small scan chunk size makes the scans run on several fork-join workers.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orders-columns;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "orders.analytics.enabled=true",
+        "orders.analytics.scan-chunk-size=256"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderColumnSnapshot.class, OrderShards.class, OrderSegments.class, OrderSummaryRepository.class, GradeDictionary.class, SchoolDictionary.class})
+class OrderColumnSnapshotTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Autowired
+    private OrderColumnSnapshot snapshot;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            rows.add(new Object[]{
+                    1 + random.nextInt(5),
+                    BigDecimal.valueOf(random.nextInt(100_000), 2),
+                    random.nextBoolean() ? "paid" : "pending",
+                    START.plusSeconds(random.nextInt(30 * 86_400))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (student_id, total, status, created_at) VALUES (?, ?, ?, ?)", rows);
+        snapshot.load();
+    }
+
+    @Test
+    void aggregate_ByStatus_ShouldMatchSql() {
+        assertThat(totals(snapshot.aggregate(OrderColumnSnapshot.GroupBy.STATUS, null, null, null)))
+                .isEqualTo(sql("SELECT CASE status WHEN 'pending' THEN 0 ELSE 1 END, COUNT(*), SUM(total) " +
+                        "FROM orders GROUP BY status"));
+    }
+
+    @Test
+    void aggregate_ByStudentWithFilters_ShouldMatchSql() {
+        Instant from = START.plusDays(3).toInstant(ZoneOffset.UTC);
+        Instant to = START.plusDays(11).plusHours(5).toInstant(ZoneOffset.UTC);
+
+        assertThat(totals(snapshot.aggregate(OrderColumnSnapshot.GroupBy.STUDENT, OrderStatus.paid, from, to)))
+                .isEqualTo(sql("SELECT student_id, COUNT(*), SUM(total) FROM orders " +
+                        "WHERE status = 'paid' AND created_at >= ? AND created_at < ? GROUP BY student_id",
+                        START.plusDays(3), START.plusDays(11).plusHours(5)));
+    }
+
+    @Test
+    void aggregate_ByDay_ShouldMatchSql() {
+        Map<Long, List<Long>> expected = new HashMap<>();
+        jdbcTemplate.query("SELECT CAST(created_at AS DATE), COUNT(*), SUM(total) FROM orders GROUP BY CAST(created_at AS DATE)",
+                rs -> {
+                    expected.put(rs.getDate(1).toLocalDate().atStartOfDay().toEpochSecond(ZoneOffset.UTC),
+                            List.of(rs.getLong(2), rs.getBigDecimal(3).movePointRight(2).longValueExact()));
+                });
+
+        assertThat(totals(snapshot.aggregate(OrderColumnSnapshot.GroupBy.DAY, null, null, null))).isEqualTo(expected);
+    }
+
+    @Test
+    void refresh_ShouldApplyInsertsUpdatesAndDeletes() {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM orders ORDER BY id LIMIT 3", Long.class);
+        jdbcTemplate.update("UPDATE orders SET status = 'paid', total = 1.00 WHERE id = ?", ids.get(0));
+        jdbcTemplate.update("DELETE FROM orders WHERE id = ?", ids.get(1));
+        jdbcTemplate.update("INSERT INTO orders (student_id, total, status) VALUES (2, 7.25, 'pending')");
+        Long inserted = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+
+        snapshot.refresh(List.of(ids.get(0), ids.get(1), inserted));
+
+        assertThat(totals(snapshot.aggregate(OrderColumnSnapshot.GroupBy.STUDENT, null, null, null)))
+                .isEqualTo(sql("SELECT student_id, COUNT(*), SUM(total) FROM orders GROUP BY student_id"));
+        assertThat(snapshot.stats().orders()).isEqualTo(5_006);
+    }
+
+    @Test
+    void removeStudent_ShouldDropTheirOrders() {
+        jdbcTemplate.update("DELETE FROM students WHERE id = 3");
+
+        snapshot.removeStudent(3L);
+
+        assertThat(totals(snapshot.aggregate(OrderColumnSnapshot.GroupBy.STUDENT, null, null, null)))
+                .isEqualTo(sql("SELECT student_id, COUNT(*), SUM(total) FROM orders GROUP BY student_id"));
+    }
+
+    @Test
+    void aggregate_WithTooManyHourBuckets_ShouldThrowException() {
+        jdbcTemplate.update("INSERT INTO orders (student_id, total, status, created_at) VALUES (1, 1.00, 'paid', ?)",
+                START.minusYears(20));
+        snapshot.load();
+
+        assertThatThrownBy(() -> snapshot.aggregate(OrderColumnSnapshot.GroupBy.HOUR, null, null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Too many time buckets");
+        assertThat(snapshot.aggregate(OrderColumnSnapshot.GroupBy.HOUR, null,
+                START.toInstant(ZoneOffset.UTC), START.plus(2, ChronoUnit.DAYS).toInstant(ZoneOffset.UTC)).groups())
+                .hasSize(48);
+    }
+
+    @Test
+    void stats_ShouldReportColumnBytesPerSlot() {
+        OrderColumnSnapshot.Stats stats = snapshot.stats();
+
+        assertThat(stats.orders()).isEqualTo(5_006);
+        assertThat(stats.students()).isEqualTo(5);
+        assertThat(stats.columnBytes()).isEqualTo((long) stats.capacity() * 29);
+    }
+
+    private static Map<Long, List<Long>> totals(OrderColumnSnapshot.Aggregation aggregation) {
+        return aggregation.groups().stream().collect(Collectors.toMap(
+                OrderColumnSnapshot.GroupTotal::key,
+                group -> List.of(group.count(), group.sumCents())));
+    }
+
+    private Map<Long, List<Long>> sql(String sql, Object... args) {
+        Map<Long, List<Long>> totals = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            totals.put(rs.getLong(1), List.of(rs.getLong(2), rs.getBigDecimal(3).movePointRight(2).longValueExact()));
+        }, args);
+        return totals;
+    }
+}
@@ -0,0 +1,304 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the real {@code schema.sql} and {@code seed.sql} on H2 in MySQL mode and checks the plan
+ * H2 picks for each filter shape the query builder emits.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orders;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "at.hollndonner.studentordersapp.repository.OrderRepositoryTest$RecordingStatementInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderSummaryRepository.class, GradeDictionary.class, SchoolDictionary.class})
+class OrderRepositoryTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void findWithFilters_WithStudentId_ShouldSeekOnStudentIdInsteadOfScanning() {
+        Page<OrderResponse> page = orderRepository.findWithFilters(1L, null, null, null,
+                PageRequest.of(0, 20, OrderSorting.DEFAULT));
+
+        assertThat(page.getContent()).hasSize(2)
+                .allSatisfy(order -> assertThat(order.studentId()).isEqualTo(1L));
+        assertThat(explain(firstStatement(), 1L, 0, 20))
+                .contains("student_id = ?1 */")
+                .doesNotContain("tableScan")
+                .doesNotContain("IS NULL");
+    }
+
+    @Test
+    void findWithFilters_WithStatus_ShouldUseStatusCreatedAtIndex() {
+        Page<OrderResponse> page = orderRepository.findWithFilters(null, OrderStatus.paid, null, null,
+                PageRequest.of(0, 20, OrderSorting.DEFAULT));
+
+        assertThat(page.getContent()).hasSize(3)
+                .allSatisfy(order -> assertThat(order.status()).isEqualTo(OrderStatus.paid));
+        assertThat(explain(firstStatement(), "paid", 0, 20))
+                .contains("idx_status_created_at: status = ?1 */")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void findWithFilters_WithoutFilters_ShouldReadCreatedAtIndexInOrder() {
+        Page<OrderResponse> page = orderRepository.findWithFilters(null, null, null, null,
+                PageRequest.of(0, 20, OrderSorting.DEFAULT));
+
+        assertThat(page.getTotalElements()).isEqualTo(6);
+        assertThat(explain(firstStatement(), 0, 20))
+                .contains("idx_created_at */")
+                .contains("/* index sorted */")
+                .doesNotContain("WHERE");
+    }
+
+    @Test
+    void findWithFilters_WithAllFilters_ShouldKeepTotalsAsResidualPredicates() {
+        Page<OrderResponse> page = orderRepository.findWithFilters(1L, OrderStatus.paid,
+                new BigDecimal("20.00"), new BigDecimal("30.00"),
+                PageRequest.of(0, 20, OrderSorting.DEFAULT));
+
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getContent().get(0).total()).isEqualByComparingTo("25.50");
+        assertThat(explain(firstStatement(), 1L, "paid", new BigDecimal("20.00"), new BigDecimal("30.00"), 0, 20))
+                .contains("student_id = ?1 */")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void findWithFilters_WithAscendingSort_ShouldReturnOldestFirst() {
+        Page<OrderResponse> page = orderRepository.findWithFilters(1L, null, null, null,
+                PageRequest.of(0, 20, OrderSorting.resolve(Sort.by(Sort.Direction.ASC, "createdAt"))));
+
+        assertThat(page.getContent()).extracting(OrderResponse::id).isSorted();
+        // Hibernate refers to selected columns by position: 4 = created_at, 1 = id
+        assertThat(firstStatement()).endsWith("order by 4,1 offset ? rows fetch first ? rows only");
+    }
+
+    @Test
+    void findWithFilters_WhenPageIsPartial_ShouldSkipCountQuery() {
+        orderRepository.findWithFilters(1L, null, null, null, PageRequest.of(0, 20, OrderSorting.DEFAULT));
+
+        assertThat(RecordingStatementInspector.STATEMENTS).hasSize(1);
+    }
+
+    @Test
+    void findWithFilters_ForStudent_ShouldTakeTotalFromSummaryInsteadOfCounting() {
+        Page<OrderResponse> page = orderRepository.findWithFilters(1L, OrderStatus.paid, null, null,
+                PageRequest.of(0, 1, OrderSorting.DEFAULT));
+        Page<OrderResponse> all = orderRepository.findWithFilters(1L, null, null, null,
+                PageRequest.of(0, 1, OrderSorting.DEFAULT));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(all.getTotalElements()).isEqualTo(2);
+        assertThat(RecordingStatementInspector.STATEMENTS).noneMatch(sql -> sql.contains("count("));
+    }
+
+    @Test
+    void findWithFilters_ForStudentWithTotalBounds_ShouldStillCount() {
+        Page<OrderResponse> page = orderRepository.findWithFilters(1L, null, new BigDecimal("20.00"), null,
+                PageRequest.of(0, 1, OrderSorting.DEFAULT));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(RecordingStatementInspector.STATEMENTS).anyMatch(sql -> sql.contains("count("));
+    }
+
+    @Test
+    void findSliceWithFilters_ShouldFetchOneExtraRowInsteadOfCounting() {
+        Slice<OrderResponse> slice = orderRepository.findSliceWithFilters(null, null, null, null,
+                PageRequest.of(0, 4, OrderSorting.DEFAULT));
+
+        assertThat(slice.getContent()).hasSize(4);
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(RecordingStatementInspector.STATEMENTS).hasSize(1);
+        assertThat(firstStatement()).doesNotContain("count(");
+
+        Slice<OrderResponse> last = orderRepository.findSliceWithFilters(null, null, null, null,
+                PageRequest.of(1, 4, OrderSorting.DEFAULT));
+
+        assertThat(last.getContent()).hasSize(2);
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    void findWithFiltersAfter_ShouldSeekPastCursor() {
+        OrderResponse newest = orderRepository.findWithFiltersAfter(1L, null, null, null, null, null, Limit.of(1)).get(0);
+        RecordingStatementInspector.STATEMENTS.clear();
+
+        List<OrderResponse> rest = orderRepository.findWithFiltersAfter(1L, null, null, null,
+                newest.createdAt(), newest.id(), Limit.of(10));
+
+        assertThat(rest).hasSize(1);
+        assertThat(rest.get(0).id()).isLessThan(newest.id());
+        assertThat(explain(firstStatement(), 1L, newest.createdAt(), newest.createdAt(), newest.id(), 10))
+                .contains("student_id = ?1 */")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void findWithFilters_ShouldSelectIntoDtoWithoutHydratingEntities() {
+        orderRepository.findWithFilters(null, null, null, null, PageRequest.of(0, 20, OrderSorting.DEFAULT));
+        orderRepository.findSliceWithFilters(null, null, null, null, PageRequest.of(0, 20, OrderSorting.DEFAULT));
+        orderRepository.findWithFiltersAfter(null, null, null, null, null, null, Limit.of(20));
+
+        assertThat(managedEntityCount()).isZero();
+        assertThat(firstStatement())
+                .startsWith("select o1_0.id,o1_0.student_id,o1_0.total,o1_0.created_at,o1_0.status from orders o1_0")
+                .doesNotContain("join");
+    }
+
+    @Test
+    void findResponseById_ShouldSelectIntoDtoWithoutHydratingEntities() {
+        assertThat(orderRepository.findResponseById(1L)).hasValueSatisfying(order -> {
+            assertThat(order.studentId()).isEqualTo(1L);
+            assertThat(order.total()).isEqualByComparingTo("25.50");
+        });
+        assertThat(orderRepository.findResponseById(999L)).isEmpty();
+
+        assertThat(managedEntityCount()).isZero();
+        assertThat(firstStatement()).doesNotContain("join");
+    }
+
+    @Test
+    void findResponseByIdForUpdate_ShouldLockTheRow() {
+        assertThat(orderRepository.findResponseByIdForUpdate(2L)).hasValueSatisfying(
+                order -> assertThat(order.status()).isEqualTo(OrderStatus.pending));
+
+        assertThat(managedEntityCount()).isZero();
+        assertThat(firstStatement()).endsWith("for update");
+    }
+
+    @Test
+    void findVersionById_ShouldTrackEveryUpdate() {
+        assertThat(orderRepository.findVersionById(1L)).contains(0L);
+
+        orderRepository.findById(1L).orElseThrow().setStatus(OrderStatus.pending);
+        orderRepository.flush();
+
+        assertThat(orderRepository.findVersionById(1L)).contains(1L);
+        assertThat(orderRepository.findVersionById(999L)).isEmpty();
+    }
+
+    @Test
+    void updateStatus_ShouldOnlyMatchExpectedVersion() {
+        assertThat(orderRepository.updateStatus(2L, OrderStatus.paid, 1L)).isZero();
+        assertThat(orderRepository.updateStatus(2L, OrderStatus.paid, 0L)).isEqualTo(1);
+        assertThat(orderRepository.updateStatus(2L, OrderStatus.pending, null)).isEqualTo(1);
+
+        assertThat(orderRepository.findVersionById(2L)).contains(2L);
+        assertThat(orderRepository.findResponseById(2L)).hasValueSatisfying(
+                order -> assertThat(order.status()).isEqualTo(OrderStatus.pending));
+        assertThat(RecordingStatementInspector.STATEMENTS).first().asString()
+                .startsWith("update orders o1_0 set status=?,version=(o1_0.version+1) where o1_0.id=?");
+    }
+
+    @Test
+    void deleteByIdAndVersion_ShouldDeleteInOneStatement() {
+        assertThat(orderRepository.deleteByIdAndVersion(4L, 7L)).isZero();
+        RecordingStatementInspector.STATEMENTS.clear();
+
+        assertThat(orderRepository.deleteByIdAndVersion(4L, 0L)).isEqualTo(1);
+
+        assertThat(RecordingStatementInspector.STATEMENTS).hasSize(1);
+        assertThat(orderRepository.existsById(4L)).isFalse();
+    }
+
+    @Test
+    void streamWithFilters_ShouldStreamAllMatchingRowsInIndexOrder() {
+        List<OrderResponse> streamed;
+        try (Stream<OrderResponse> orders = orderRepository.streamWithFilters(null, OrderStatus.paid, null, null)) {
+            streamed = orders.toList();
+        }
+
+        assertThat(streamed).hasSize(3)
+                .allSatisfy(order -> assertThat(order.status()).isEqualTo(OrderStatus.paid));
+        assertThat(managedEntityCount()).isZero();
+        assertThat(RecordingStatementInspector.STATEMENTS).hasSize(1);
+        assertThat(firstStatement())
+                .endsWith("order by 4 desc,1 desc")
+                .doesNotContain("fetch first");
+    }
+
+    @Test
+    void filterIndexes_ShouldEndWithSortColumns() {
+        // An equality on the leading column leaves (created_at DESC, id DESC) in index order,
+        // which is what lets MySQL serve ORDER BY createdAt, id without a filesort
+        assertThat(indexColumns("idx_student_created_at"))
+                .containsExactly("student_id ASC", "created_at DESC", "id DESC");
+        assertThat(indexColumns("idx_status_created_at"))
+                .containsExactly("status ASC", "created_at DESC", "id DESC");
+        assertThat(indexColumns("idx_created_at"))
+                .containsExactly("created_at DESC", "id DESC");
+    }
+
+    private List<String> indexColumns(String indexName) {
+        return jdbcTemplate.queryForList(
+                "SELECT column_name || ' ' || ordering_specification FROM information_schema.index_columns " +
+                "WHERE table_name = 'orders' AND index_name = ? ORDER BY ordinal_position",
+                String.class, indexName);
+    }
+
+    private int managedEntityCount() {
+        return entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+    }
+
+    private String firstStatement() {
+        assertThat(RecordingStatementInspector.STATEMENTS).isNotEmpty();
+        return RecordingStatementInspector.STATEMENTS.get(0);
+    }
+
+    private String explain(String sql, Object... parameters) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters);
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.dto.student.OrderStatusSummary;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import at.hollndonner.studentordersapp.repository.OrderShardRepository.StoredOrder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderSegmentsTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 8, 0, 0, 123_456_000);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void append_ShouldKeepEveryColumnAndFindOrdersById() {
+        OrderSegments segments = new OrderSegments(directory.toString());
+        List<StoredOrder> orders = orders(1_000, 0);
+
+        OrderSegment segment = segments.append(orders);
+
+        assertThat(segment.size()).isEqualTo(1_000);
+        // 41 bytes per order unpacked; only the creation times need more than two bytes here
+        assertThat(segment.bytes()).isLessThan(1_000L * 20);
+        for (StoredOrder order : orders) {
+            assertThat(segments.findVersionById(order.id())).contains(order.version());
+            OrderResponse found = segments.findResponseById(order.id()).orElseThrow();
+            assertThat(found.studentId()).isEqualTo(order.studentId());
+            assertThat(found.total()).isEqualByComparingTo(order.total());
+            assertThat(found.status()).isEqualTo(order.status());
+            assertThat(OrderSegment.micros(LocalDateTime.ofInstant(found.createdAt(), ZoneOffset.UTC)))
+                    .isEqualTo(OrderSegment.micros(order.createdAt()));
+        }
+        assertThat(segments.findResponseById(999_999L)).isEmpty();
+    }
+
+    @Test
+    void rescan_ShouldOpenSegmentsWrittenByAnotherInstance() {
+        OrderSegments writer = new OrderSegments(directory.toString());
+        OrderSegments reader = new OrderSegments(directory.toString());
+
+        writer.append(orders(10, 0));
+        assertThat(reader.isEmpty()).isTrue();
+        reader.rescan();
+
+        assertThat(reader.stats().orders()).isEqualTo(10);
+        assertThat(new OrderSegments(directory.toString()).stats().segments()).isEqualTo(1);
+    }
+
+    @Test
+    void findWithFilters_ShouldPageAcrossSegmentsInCreationOrder() {
+        OrderSegments segments = new OrderSegments(directory.toString());
+        List<StoredOrder> orders = new ArrayList<>(orders(50, 0));
+        orders.addAll(orders(50, 50));
+        segments.append(orders.subList(0, 50));
+        segments.append(orders.subList(50, 100));
+
+        List<Long> descending = new ArrayList<>();
+        OrderResponse last = null;
+        while (true) {
+            List<OrderResponse> page = segments.findWithFilters(3L, null, null, null, false,
+                    last != null ? last.createdAt() : null, last != null ? last.id() : null, 7);
+            page.forEach(order -> descending.add(order.id()));
+            if (page.size() < 7) {
+                break;
+            }
+            last = page.get(page.size() - 1);
+        }
+        List<Long> ascending = segments.findWithFilters(3L, null, null, null, true, null, null, 100).stream()
+                .map(OrderResponse::id)
+                .toList();
+
+        List<Long> expected = new ArrayList<>(orders.stream()
+                .filter(order -> order.studentId() == 3L)
+                .map(StoredOrder::id)
+                .toList());
+        assertThat(ascending).isEqualTo(expected);
+        Collections.reverse(expected);
+        assertThat(descending).isEqualTo(expected);
+        assertThat(segments.count(3L, null, null, null)).isEqualTo(expected.size());
+    }
+
+    @Test
+    void count_ShouldApplyStatusAndTotalBounds() {
+        OrderSegments segments = new OrderSegments(directory.toString());
+        List<StoredOrder> orders = orders(100, 0);
+        segments.append(orders);
+
+        long expected = orders.stream()
+                .filter(order -> order.status() == OrderStatus.paid)
+                .filter(order -> order.total().compareTo(new BigDecimal("5.005")) >= 0)
+                .filter(order -> order.total().compareTo(new BigDecimal("20.00")) <= 0)
+                .count();
+
+        assertThat(segments.count(null, OrderStatus.paid, new BigDecimal("5.005"), new BigDecimal("20.00")))
+                .isEqualTo(expected);
+        assertThat(segments.count(null, null, null, null)).isEqualTo(100);
+    }
+
+    @Test
+    void summarizeAndTotalsByDay_ShouldAddUpPerStudent() {
+        OrderSegments segments = new OrderSegments(directory.toString());
+        List<StoredOrder> orders = orders(100, 0);
+        segments.append(orders);
+
+        BigDecimal paid = orders.stream()
+                .filter(order -> order.studentId() == 2L && order.status() == OrderStatus.paid)
+                .map(StoredOrder::total)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<OrderStatusSummary> summary = segments.summarize(2L);
+        List<OrderSegments.DayTotal> firstDay = segments.totalsByDay(START.toLocalDate().atStartOfDay(),
+                START.toLocalDate().plusDays(1).atStartOfDay());
+
+        assertThat(summary).filteredOn(status -> status.status() == OrderStatus.paid)
+                .singleElement()
+                .satisfies(status -> assertThat(status.total()).isEqualByComparingTo(paid));
+        assertThat(firstDay).allSatisfy(day -> assertThat(day.date()).isEqualTo(START.toLocalDate()));
+        assertThat(firstDay.stream().mapToLong(OrderSegments.DayTotal::orderCount).sum())
+                .isEqualTo(orders.stream().filter(order -> order.createdAt().toLocalDateTime().toLocalDate()
+                        .equals(START.toLocalDate())).count());
+        assertThat(segments.oldestCreatedAt()).contains(START);
+    }
+
+    @Test
+    void removeStudent_ShouldRewriteOnlyTheSegmentsHoldingTheStudent() {
+        OrderSegments segments = new OrderSegments(directory.toString());
+        List<StoredOrder> orders = orders(40, 0);
+        segments.append(orders);
+        segments.append(List.of(new StoredOrder(500L, 9L, new BigDecimal("1.00"), OrderStatus.paid,
+                Timestamp.valueOf(START), 0)));
+
+        int removed = segments.removeStudent(9L);
+        long others = segments.removeStudent(1L);
+
+        assertThat(removed).isEqualTo(1);
+        assertThat(others).isEqualTo(orders.stream().filter(order -> order.studentId() == 1L).count());
+        assertThat(segments.stats().segments()).isEqualTo(1);
+        assertThat(segments.count(1L, null, null, null)).isZero();
+        assertThat(new OrderSegments(directory.toString()).stats().orders()).isEqualTo(40 - others);
+    }
+
+    @Test
+    void open_WithCorruptData_ShouldFailTheChecksum() throws IOException {
+        OrderSegment segment = new OrderSegments(directory.toString()).append(orders(10, 0));
+        try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {42}), Files.size(segment.path()) - 1);
+        }
+
+        assertThatThrownBy(() -> OrderSegment.open(segment.path()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("checksum");
+    }
+
+    /**
+     * {@code count} orders of four students, ten minutes apart, starting {@code offset} steps after {@link #START}.
+     */
+    private static List<StoredOrder> orders(int count, int offset) {
+        List<StoredOrder> orders = new ArrayList<>(count);
+        for (int i = offset; i < offset + count; i++) {
+            orders.add(new StoredOrder(1_000L + i, 1L + i % 4, BigDecimal.valueOf(100 + i * 37L % 2_500, 2),
+                    i % 5 == 0 ? OrderStatus.pending : OrderStatus.paid,
+                    Timestamp.valueOf(START.plusMinutes(10L * i)), i % 3));
+        }
+        return orders;
+    }
+}
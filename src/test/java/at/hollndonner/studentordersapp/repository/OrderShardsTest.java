@@ -0,0 +1,50 @@
+package at.hollndonner.studentordersapp.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderShardsTest {
+
+    @Test
+    void jumpHash_WithOneBucket_ShouldAlwaysBeZero() {
+        for (long key = 0; key < 1_000; key++) {
+            assertThat(OrderShards.jumpHash(key, 1)).isZero();
+        }
+    }
+
+    @Test
+    void jumpHash_WhenABucketIsAdded_ShouldOnlyMoveKeysToTheNewBucket() {
+        for (int buckets = 1; buckets < 10; buckets++) {
+            int moved = 0;
+            for (long key = 1; key <= 10_000; key++) {
+                int before = OrderShards.jumpHash(key, buckets);
+                int after = OrderShards.jumpHash(key, buckets + 1);
+                if (after != before) {
+                    assertThat(after).isEqualTo(buckets);
+                    moved++;
+                }
+            }
+            // About 1/(buckets + 1) of the keys move
+            assertThat(moved).isBetween(10_000 / (buckets + 1) * 8 / 10, 10_000 / (buckets + 1) * 12 / 10);
+        }
+    }
+
+    @Test
+    void jumpHash_ShouldSpreadSequentialIdsEvenly() {
+        int[] counts = new int[4];
+        for (long key = 1; key <= 10_000; key++) {
+            counts[OrderShards.jumpHash(key, 4)]++;
+        }
+
+        for (int count : counts) {
+            assertThat(count).isBetween(2_200, 2_800);
+        }
+    }
+
+    @Test
+    void originShard_ShouldBeTheShardAnAllocatedIdWasMadeFor() {
+        assertThat(OrderIdAllocator.originShard(17L * OrderIdAllocator.SHARD_SLOTS + 3)).isEqualTo(3);
+        assertThat(OrderIdAllocator.originShard(17L * OrderIdAllocator.SHARD_SLOTS)).isZero();
+    }
+}
@@ -0,0 +1,58 @@
+package at.hollndonner.studentordersapp.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rows are committed straight away, so the refresher's thread can read them.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orders-refresher;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "orders.analytics.enabled=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderColumnSnapshot.class, OrderSnapshotRefresher.class, OrderShards.class, OrderSegments.class,
+        OrderSummaryRepository.class, GradeDictionary.class, SchoolDictionary.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderSnapshotRefresherTest {
+
+    @Autowired
+    private OrderColumnSnapshot snapshot;
+
+    @Autowired
+    private OrderSnapshotRefresher refresher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void queuedChanges_ShouldReachTheSnapshotFromTheBackgroundThread() throws InterruptedException {
+        jdbcTemplate.update("INSERT INTO orders (student_id, total, status) VALUES (2, 7.25, 'pending')");
+        Long inserted = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+        jdbcTemplate.update("DELETE FROM students WHERE id = 3");
+
+        refresher.studentDeleted(3L);
+        refresher.ordersChanged(List.of(inserted));
+
+        Integer expected = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Integer.class);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (snapshot.stats().orders() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(snapshot.stats().orders()).isEqualTo(expected);
+        assertThat(snapshot.aggregate(OrderColumnSnapshot.GroupBy.STUDENT, null, null, null).groups())
+                .noneMatch(group -> group.key() == 3L);
+    }
+}
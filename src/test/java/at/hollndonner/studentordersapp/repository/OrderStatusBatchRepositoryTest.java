@@ -0,0 +1,83 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Seed data: orders 2, 4 and 6 are pending, 1, 3 and 5 are paid.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orders-status-batch;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "orders.status-transition.chunk-size=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderStatusBatchRepository.class, OrderSummaryRepository.class, GradeDictionary.class, SchoolDictionary.class})
+class OrderStatusBatchRepositoryTest {
+
+    @Autowired
+    private OrderStatusBatchRepository orderStatusBatchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void transitionIds_ShouldOnlyChangeOrdersInFromStatus() {
+        List<OrderStatusBatchRepository.TransitionedOrder> changed =
+                orderStatusBatchRepository.transitionIds(List.of(1L, 2L, 999L), OrderStatus.pending, OrderStatus.paid);
+
+        assertThat(changed).singleElement().satisfies(order -> {
+            assertThat(order.id()).isEqualTo(2L);
+            assertThat(order.studentId()).isEqualTo(1L);
+            assertThat(order.total()).isEqualByComparingTo("12.75");
+            assertThat(order.createdAt()).isNotNull();
+        });
+        assertThat(status(2L)).isEqualTo("paid");
+        assertThat(version(2L)).isEqualTo(1L);
+        assertThat(version(1L)).isZero();
+    }
+
+    @Test
+    void transitionMatching_ShouldStopAtChunkSize() {
+        List<OrderStatusBatchRepository.TransitionedOrder> first = orderStatusBatchRepository.transitionMatching(
+                null, Instant.now().plus(1, ChronoUnit.DAYS), OrderStatus.pending, OrderStatus.paid);
+        List<OrderStatusBatchRepository.TransitionedOrder> second = orderStatusBatchRepository.transitionMatching(
+                null, Instant.now().plus(1, ChronoUnit.DAYS), OrderStatus.pending, OrderStatus.paid);
+
+        assertThat(first).hasSize(2);
+        assertThat(second).hasSize(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE status = 'pending'", Long.class))
+                .isZero();
+    }
+
+    @Test
+    void transitionMatching_ShouldApplyStudentAndDateFilters() {
+        assertThat(orderStatusBatchRepository.transitionMatching(1L, null, OrderStatus.pending, OrderStatus.paid))
+                .extracting(OrderStatusBatchRepository.TransitionedOrder::id)
+                .containsExactly(2L);
+        assertThat(orderStatusBatchRepository.transitionMatching(null, Instant.now().minus(1, ChronoUnit.DAYS),
+                OrderStatus.pending, OrderStatus.paid)).isEmpty();
+
+        assertThat(status(2L)).isEqualTo("paid");
+        assertThat(status(4L)).isEqualTo("pending");
+    }
+
+    private String status(Long id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, id);
+    }
+
+    private Long version(Long id) {
+        return jdbcTemplate.queryForObject("SELECT version FROM orders WHERE id = ?", Long.class, id);
+    }
+}
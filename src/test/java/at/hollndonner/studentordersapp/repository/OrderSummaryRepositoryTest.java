@@ -0,0 +1,77 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.dto.student.OrderStatusSummary;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Seed data: student 1 has a paid order of 25.50 and a pending one of 12.75; student 2 a paid one of 30.00.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orders-summary;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderSummaryRepository.class, GradeDictionary.class, SchoolDictionary.class})
+class OrderSummaryRepositoryTest {
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void seed_ShouldBackfillSummaryFromOrders() {
+        List<Map<String, Object>> expected = jdbcTemplate.queryForList(
+                "SELECT student_id, status, COUNT(*) AS order_count, SUM(total) AS total FROM orders " +
+                "GROUP BY student_id, status ORDER BY student_id, status");
+        List<Map<String, Object>> actual = jdbcTemplate.queryForList(
+                "SELECT student_id, status, order_count, total FROM order_summary ORDER BY student_id, status");
+
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void applyDeltas_ShouldIncrementExistingRowsAndInsertMissingOnes() {
+        orderSummaryRepository.applyDeltas(List.of(
+                OrderSummaryRepository.Delta.removed(1L, OrderStatus.pending, new BigDecimal("12.75")),
+                OrderSummaryRepository.Delta.added(1L, OrderStatus.paid, new BigDecimal("12.75")),
+                OrderSummaryRepository.Delta.added(2L, OrderStatus.pending, new BigDecimal("5.00"))));
+
+        assertThat(orderSummaryRepository.findByStudentId(1L)).containsExactlyInAnyOrder(
+                new OrderStatusSummary(OrderStatus.paid, 2, new BigDecimal("38.25")),
+                new OrderStatusSummary(OrderStatus.pending, 0, new BigDecimal("0.00")));
+        assertThat(orderSummaryRepository.findByStudentId(2L)).containsExactlyInAnyOrder(
+                new OrderStatusSummary(OrderStatus.paid, 1, new BigDecimal("30.00")),
+                new OrderStatusSummary(OrderStatus.pending, 1, new BigDecimal("5.00")));
+    }
+
+    @Test
+    void applyDeltas_ShouldMergeDeltasThatCancelOut() {
+        orderSummaryRepository.applyDeltas(List.of(
+                OrderSummaryRepository.Delta.added(9L, OrderStatus.paid, new BigDecimal("1.00")),
+                OrderSummaryRepository.Delta.removed(9L, OrderStatus.paid, new BigDecimal("1.00"))));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_summary WHERE student_id = 9", Long.class))
+                .isZero();
+    }
+
+    @Test
+    void countOrders_ShouldSumAcrossStatusesUnlessOneIsGiven() {
+        assertThat(orderSummaryRepository.countOrders(1L, null)).isEqualTo(2);
+        assertThat(orderSummaryRepository.countOrders(1L, OrderStatus.pending)).isEqualTo(1);
+        assertThat(orderSummaryRepository.countOrders(999L, null)).isZero();
+    }
+}
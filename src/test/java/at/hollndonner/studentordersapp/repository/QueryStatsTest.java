@@ -0,0 +1,70 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.config.QueryStatsConfig;
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.support.QueryCounts;
+import at.hollndonner.studentordersapp.util.QueryStats;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-stats;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({QueryStatsConfig.class, OrderSummaryRepository.class, GradeDictionary.class, SchoolDictionary.class})
+class QueryStatsTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void jdbcTemplate_ShouldCountOneStatementAndEveryRowRead() throws Exception {
+        Long orders = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Long.class);
+
+        QueryStats stats = QueryCounts.during(() -> jdbcTemplate.queryForList("SELECT id FROM orders", Long.class));
+
+        assertThat(stats.statements()).isEqualTo(1);
+        assertThat(stats.rows()).isEqualTo(orders);
+        assertThat(stats.toServerTiming()).matches("db;dur=\\d+\\.\\d;desc=\"1 statements, " + orders + " rows\"");
+    }
+
+    @Test
+    void fromEntity_ShouldNotLoadStudentsLazily() throws Exception {
+        entityManager.clear();
+
+        QueryCounts.assertAtMost(1, () -> {
+            List<OrderResponse> orders = orderRepository.findAll().stream().map(OrderResponse::fromEntity).toList();
+            assertThat(orders).isNotEmpty();
+        });
+    }
+
+    @Test
+    void nestedScopes_ShouldAddToTheEnclosingOne() throws Exception {
+        QueryStats outer = QueryStats.start();
+        jdbcTemplate.queryForObject("SELECT COUNT(*) FROM students", Long.class);
+        QueryStats inner = QueryCounts.during(() -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Long.class));
+        outer.close();
+
+        assertThat(inner.statements()).isEqualTo(1);
+        assertThat(outer.statements()).isEqualTo(2);
+        assertThat(outer.rows()).isEqualTo(2);
+        assertThat(QueryCounts.during(() -> { }).statements()).isZero();
+    }
+}
@@ -0,0 +1,66 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.config.ReadReplicaConfig;
+import at.hollndonner.studentordersapp.util.ReplicaDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two embedded databases: the primary gets the schema and seed data, the replica stays empty, so a query
+ * shows which one it ran on.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "db.replicas.urls=jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "db.replicas.selection=least-connections"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReadReplicaConfig.class, OrderSummaryRepository.class, GradeDictionary.class, SchoolDictionary.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReadReplicaRoutingTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void readOnlyTransaction_ShouldRunOnTheReplica() {
+        assertThat(inTransaction(true)).isEqualTo("routing-replica");
+    }
+
+    @Test
+    void writeTransactionAndAutoCommit_ShouldRunOnThePrimary() {
+        assertThat(inTransaction(false)).isEqualTo("routing-primary");
+        assertThat(database()).isEqualTo("routing-primary");
+    }
+
+    @Test
+    void pinnedReadOnlyTransaction_ShouldRunOnThePrimary() {
+        try (ReplicaDataSource.Pin ignored = ReplicaDataSource.pinToPrimary()) {
+            assertThat(inTransaction(true)).isEqualTo("routing-primary");
+        }
+    }
+
+    private String inTransaction(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> database());
+    }
+
+    private String database() {
+        return jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+    }
+}
@@ -0,0 +1,133 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.dto.report.RevenueRollupRow;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Seed data: every order is created today; student 1 (Springfield High School) has a paid order of 25.50
+ * and a pending one of 12.75.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:revenue-rollups;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({RevenueRollupRepository.class, OrderShards.class, OrderSegments.class, OrderSummaryRepository.class, GradeDictionary.class, SchoolDictionary.class})
+class RevenueRollupRepositoryTest {
+
+    private static final String SPRINGFIELD = "Springfield High School";
+
+    @Autowired
+    private RevenueRollupRepository revenueRollupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void watermark_ShouldBeEmptyUntilSaved() {
+        assertThat(revenueRollupRepository.lockWatermark()).isEmpty();
+
+        LocalDateTime now = revenueRollupRepository.currentTimestamp();
+        revenueRollupRepository.saveWatermark(now);
+
+        assertThat(revenueRollupRepository.findWatermark()).contains(now);
+    }
+
+    @Test
+    void markChanged_ShouldRecordDaysBeforeTheRestatementWindowUntilClearedUnchanged() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate old = today.minusDays(30);
+        LocalDate older = today.minusDays(60);
+
+        revenueRollupRepository.markChanged(List.of(today, today.minusDays(6), old, older, old));
+        List<List<RevenueRollupRepository.ChangedDay>> read = revenueRollupRepository.findChangedDays();
+        revenueRollupRepository.markChanged(List.of(old));
+        revenueRollupRepository.clearChangedDays(read);
+
+        assertThat(read).hasSize(1);
+        assertThat(read.get(0)).containsExactlyInAnyOrder(
+                new RevenueRollupRepository.ChangedDay(older, 1),
+                new RevenueRollupRepository.ChangedDay(old, 1));
+        // Changed again after it was read, so the next refresh rebuilds it once more
+        assertThat(revenueRollupRepository.findChangedDays()).containsExactly(
+                List.of(new RevenueRollupRepository.ChangedDay(old, 2)));
+    }
+
+    @Test
+    void rebuildDays_ShouldAggregateOrdersBySchoolAndStatus() {
+        LocalDate today = revenueRollupRepository.currentTimestamp().toLocalDate();
+
+        revenueRollupRepository.rebuildDays(today, today.plusDays(1));
+
+        assertThat(revenueRollupRepository.findDaily(today, today, SPRINGFIELD, null)).containsExactly(
+                new RevenueRollupRow(today, SPRINGFIELD, OrderStatus.paid, 1, new BigDecimal("25.50")),
+                new RevenueRollupRow(today, SPRINGFIELD, OrderStatus.pending, 1, new BigDecimal("12.75")));
+        assertThat(revenueRollupRepository.findDaily(today, today, null, OrderStatus.paid))
+                .extracting(RevenueRollupRow::revenue)
+                .map(BigDecimal::toPlainString)
+                .containsExactlyInAnyOrder("25.50", "30.00", "45.00");
+    }
+
+    @Test
+    void rebuildDays_ShouldReplaceRowsOfTheRebuiltDaysOnly() {
+        LocalDate today = revenueRollupRepository.currentTimestamp().toLocalDate();
+        LocalDate lastWeek = today.minusDays(7);
+        revenueRollupRepository.rebuildDays(today, today.plusDays(1));
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = 1", lastWeek.atTime(12, 0));
+
+        revenueRollupRepository.rebuildDays(lastWeek, lastWeek.plusDays(1));
+
+        assertThat(revenueRollupRepository.findDaily(lastWeek, today, SPRINGFIELD, OrderStatus.paid)).containsExactly(
+                new RevenueRollupRow(lastWeek, SPRINGFIELD, OrderStatus.paid, 1, new BigDecimal("25.50")),
+                new RevenueRollupRow(today, SPRINGFIELD, OrderStatus.paid, 1, new BigDecimal("25.50")));
+
+        revenueRollupRepository.rebuildDays(today, today.plusDays(1));
+
+        assertThat(revenueRollupRepository.findDaily(lastWeek, today, SPRINGFIELD, OrderStatus.paid)).containsExactly(
+                new RevenueRollupRow(lastWeek, SPRINGFIELD, OrderStatus.paid, 1, new BigDecimal("25.50")));
+    }
+
+    @Test
+    void rebuildMonth_ShouldSumDailyRows() {
+        LocalDate today = revenueRollupRepository.currentTimestamp().toLocalDate();
+        YearMonth month = YearMonth.from(today);
+        revenueRollupRepository.rebuildDays(month.atDay(1), month.plusMonths(1).atDay(1));
+
+        revenueRollupRepository.rebuildMonth(month);
+
+        List<RevenueRollupRow> rows = revenueRollupRepository.findMonthly(month, month, null, OrderStatus.pending);
+        assertThat(rows).hasSize(3).allSatisfy(row -> assertThat(row.period()).isEqualTo(month.atDay(1)));
+        assertThat(rows.stream().map(RevenueRollupRow::revenue).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .isEqualByComparingTo("53.50");
+    }
+
+    @Test
+    void deleteBefore_ShouldDropRowsOfEarlierDaysAndMonths() {
+        LocalDate today = revenueRollupRepository.currentTimestamp().toLocalDate();
+        LocalDate lastYear = today.minusYears(1);
+        jdbcTemplate.update("INSERT INTO revenue_daily VALUES (?, 'Gone School', 'paid', 1, 5.00)", lastYear);
+        jdbcTemplate.update("INSERT INTO revenue_monthly VALUES (?, 'Gone School', 'paid', 1, 5.00)",
+                YearMonth.from(lastYear).atDay(1));
+
+        revenueRollupRepository.deleteBefore(today);
+
+        assertThat(revenueRollupRepository.findDaily(lastYear, lastYear, null, null)).isEmpty();
+        assertThat(revenueRollupRepository.findMonthly(YearMonth.from(lastYear), YearMonth.from(lastYear), null, null))
+                .isEmpty();
+    }
+}
@@ -0,0 +1,32 @@
+package at.hollndonner.studentordersapp.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StreamingFetchTest {
+
+    @Test
+    void size_OnMySql_ShouldStreamRowByRow() throws SQLException {
+        assertThat(StreamingFetch.size(connectionTo("MySQL"), 1000)).isEqualTo(Integer.MIN_VALUE);
+    }
+
+    @Test
+    void size_OnOtherDatabases_ShouldKeepTheConfiguredSize() throws SQLException {
+        assertThat(StreamingFetch.size(connectionTo("H2"), 1000)).isEqualTo(1000);
+    }
+
+    private static Connection connectionTo(String product) throws SQLException {
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn(product);
+        Connection connection = mock(Connection.class);
+        when(connection.getMetaData()).thenReturn(metaData);
+        return connection;
+    }
+}
@@ -0,0 +1,126 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.config.SecondLevelCacheConfig;
+import at.hollndonner.studentordersapp.dto.cache.CacheRegionStats;
+import at.hollndonner.studentordersapp.model.Student;
+import at.hollndonner.studentordersapp.service.CacheStatsService;
+import at.hollndonner.studentordersapp.service.CacheStatsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Commits every step in its own transaction, since {@code READ_WRITE} regions only
+ * publish changes to the second-level cache on commit.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:students-cache;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SecondLevelCacheConfig.class, CacheStatsServiceImpl.class, OrderSummaryRepository.class, GradeDictionary.class, SchoolDictionary.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StudentCacheTest {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CacheStatsService cacheStatsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void findById_ShouldServeRepeatedReadsFromCache() {
+        Long id = tx.execute(status -> studentRepository.save(student("Cache Hit")).getId());
+        tx.execute(status -> studentRepository.findById(id));
+        CacheRegionStats before = cacheStatsService.getStudentCacheStats();
+
+        tx.execute(status -> studentRepository.findById(id));
+        tx.execute(status -> studentRepository.findById(id));
+
+        CacheRegionStats after = cacheStatsService.getStudentCacheStats();
+        assertThat(after.enabled()).isTrue();
+        assertThat(after.region()).isEqualTo(Student.CACHE_REGION);
+        assertThat(after.hits() - before.hits()).isEqualTo(2);
+        assertThat(after.misses() - before.misses()).isZero();
+        assertThat(after.size()).isPositive();
+
+        tx.executeWithoutResult(status -> studentRepository.deleteById(id));
+    }
+
+    @Test
+    void update_ShouldReplaceCachedEntry() {
+        Long id = tx.execute(status -> studentRepository.save(student("Before Update")).getId());
+        tx.execute(status -> studentRepository.findById(id));
+
+        tx.executeWithoutResult(status -> studentRepository.findById(id).orElseThrow().setName("After Update"));
+
+        Optional<Student> reloaded = tx.execute(status -> studentRepository.findById(id));
+        assertThat(reloaded).hasValueSatisfying(student -> assertThat(student.getName()).isEqualTo("After Update"));
+
+        tx.executeWithoutResult(status -> studentRepository.deleteById(id));
+    }
+
+    @Test
+    void update_WithConcurrentWriter_ShouldFailOptimisticLock() {
+        Long id = tx.execute(status -> studentRepository.save(student("Concurrent")).getId());
+        TransactionTemplate concurrent = new TransactionTemplate(transactionManager);
+        concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        assertThatThrownBy(() -> tx.executeWithoutResult(status -> {
+            Student student = studentRepository.findById(id).orElseThrow();
+            concurrent.executeWithoutResult(inner -> studentRepository.findById(id).orElseThrow().setName("First Writer"));
+            student.setName("Second Writer");
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+
+        Optional<Student> reloaded = tx.execute(status -> studentRepository.findById(id));
+        assertThat(reloaded).hasValueSatisfying(student -> {
+            assertThat(student.getName()).isEqualTo("First Writer");
+            assertThat(student.getVersion()).isEqualTo(1L);
+        });
+
+        tx.executeWithoutResult(status -> studentRepository.deleteById(id));
+    }
+
+    @Test
+    void delete_ShouldEvictCachedEntry() {
+        Long id = tx.execute(status -> studentRepository.save(student("To Delete")).getId());
+        tx.execute(status -> studentRepository.findById(id));
+
+        tx.executeWithoutResult(status -> studentRepository.deleteById(id));
+
+        Optional<Student> reloaded = tx.execute(status -> studentRepository.findById(id));
+        assertThat(reloaded).isEmpty();
+    }
+
+    private static Student student(String name) {
+        return Student.builder()
+                .name(name)
+                .grade("10th Grade")
+                .school("Cache High")
+                .build();
+    }
+}
@@ -0,0 +1,205 @@
+package at.hollndonner.studentordersapp.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks search results against {@code LIKE} over a few thousand generated students.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:students-search;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StudentSearchIndex.class, OrderSummaryRepository.class, GradeDictionary.class, SchoolDictionary.class,
+        StudentBatchRepository.class})
+class StudentSearchIndexTest {
+
+    private static final String[] FIRST_NAMES = {"Anna", "Johann", "Jo", "Maria", "Marianne", "Bjorn", "Lukas",
+            "Lea", "Sophie", "Jonas", "Elena", "Noah", "Emilia", "Felix", "Hannah"};
+    private static final String[] LAST_NAMES = {"Gruber", "Huber", "Bauer", "Wagner", "Müller", "Pichler",
+            "Steiner", "Moser", "Mayer", "Hofer", "Leitner", "Berger", "Johnson", "Annaberg"};
+    private static final String[] SCHOOLS = {"Springfield High School", "Riverside Academy", "Lincoln High School",
+            "Westfield School", "Central High School", "Annahof Gymnasium", "Marienschule"};
+    private static final String[] GRADES = {"9th Grade", "10th Grade", "11th Grade", "12th Grade"};
+    private static final int ALL = 100_000;
+    private static final String INSERT_SQL = "INSERT INTO students (name, grade_id, school_id) VALUES (?, ?, ?)";
+
+    @Autowired
+    private StudentSearchIndex index;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private StudentBatchRepository studentBatchRepository;
+
+    @Autowired
+    private GradeDictionary gradeDictionary;
+
+    @Autowired
+    private SchoolDictionary schoolDictionary;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            rows.add(new Object[]{
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                    gradeDictionary.idOf(GRADES[random.nextInt(GRADES.length)]),
+                    schoolDictionary.idOf(SCHOOLS[random.nextInt(SCHOOLS.length)])});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        index.load();
+    }
+
+    @Test
+    void search_ShouldFindTheSameStudentsAsLike() {
+        for (String term : List.of("ann", "huber", "high", "grade", "12th", "ller", "annaberg", "xyz")) {
+            assertThat(ids(index.search(term, ALL)))
+                    .as(term)
+                    .isEqualTo(sql("WHERE LOWER(name) LIKE ? OR LOWER(grade) LIKE ? OR LOWER(school) LIKE ?",
+                            "%" + term + "%", "%" + term + "%", "%" + term + "%"));
+        }
+    }
+
+    @Test
+    void search_WithSeveralTerms_ShouldRequireEveryTerm() {
+        assertThat(ids(index.search("  Maria   RIVERSIDE ", ALL)))
+                .isEqualTo(sql("WHERE (LOWER(name) LIKE '%maria%' OR LOWER(school) LIKE '%maria%') " +
+                        "AND LOWER(school) LIKE '%riverside%'"));
+    }
+
+    @Test
+    void search_WithShortTerm_ShouldMatchWordStartsOnly() {
+        assertThat(ids(index.search("jo", ALL)))
+                .isEqualTo(sql("WHERE LOWER(name) LIKE 'jo%' OR LOWER(name) LIKE '% jo%'"))
+                .isNotEmpty();
+        assertThat(ids(index.search("m", ALL)))
+                .isEqualTo(sql("WHERE LOWER(name) LIKE 'm%' OR LOWER(name) LIKE '% m%' " +
+                        "OR LOWER(school) LIKE 'm%' OR LOWER(school) LIKE '% m%'"));
+    }
+
+    @Test
+    void search_ShouldRankExactAndPrefixMatchesFirst() {
+        Long exact = insert("Anna", "9th Grade", "Riverside Academy");
+        index.refresh(List.of(exact));
+
+        List<StudentSearchIndex.Hit> hits = index.search("anna", 5).hits();
+
+        assertThat(hits).hasSize(5);
+        assertThat(hits.get(0).id()).isEqualTo(exact);
+        // Names starting with the term come before names containing it and before school matches
+        assertThat(hits.subList(1, 5)).allSatisfy(hit ->
+                assertThat(name(hit.id())).startsWith("Anna "));
+        assertThat(hits).isSortedAccordingTo((a, b) -> Integer.compare(b.score(), a.score()));
+    }
+
+    @Test
+    void search_WithCandidateLimit_ShouldReportTruncation() {
+        StudentSearchIndex limited = new StudentSearchIndex(namedParameterJdbcTemplate, 1000, 100);
+        limited.load();
+
+        StudentSearchIndex.SearchResult result = limited.search("school", 10);
+
+        assertThat(result.truncated()).isTrue();
+        assertThat(result.candidates()).isEqualTo(100);
+        assertThat(result.hits()).hasSize(10);
+        assertThat(index.search("school", 10).truncated()).isFalse();
+    }
+
+    @Test
+    void refresh_ShouldApplyInsertsUpdatesAndDeletes() {
+        Long inserted = insert("Zoe Quantrill", "10th Grade", "Quartz Academy");
+        Long updated = jdbcTemplate.queryForObject("SELECT MIN(id) FROM students", Long.class);
+        jdbcTemplate.update("UPDATE students SET name = 'Xaver Quast' WHERE id = ?", updated);
+        Long deleted = updated + 1;
+        jdbcTemplate.update("DELETE FROM students WHERE id = ?", deleted);
+
+        index.refresh(List.of(inserted, updated, deleted));
+
+        assertThat(ids(index.search("qua", ALL))).containsExactlyInAnyOrder(inserted, updated);
+        assertThat(ids(index.search("quartz", ALL))).containsExactly(inserted);
+        assertThat(index.stats().students()).isEqualTo(3_005);
+        assertThat(ids(index.search("a", ALL))).doesNotContain(deleted);
+    }
+
+    @Test
+    void refresh_WithBatchInsertedIds_ShouldIndexThemAfterAHigherIdWasIndexed() {
+        List<Long> imported = studentBatchRepository.insertAll(List.of(
+                new StudentBatchRepository.NewStudent("Ygor Zebulon", "9th Grade", "Zenith School"),
+                new StudentBatchRepository.NewStudent("Yara Zebulon", "9th Grade", "Zenith School")));
+        // Committed, and so indexed, before the import chunk that holds lower ids
+        Long later = insert("Yusuf Zebulon", "9th Grade", "Zenith School");
+        index.refresh(List.of(later));
+
+        index.refresh(imported);
+
+        assertThat(imported).hasSize(2);
+        assertThat(ids(index.search("zebulon", ALL))).containsExactlyInAnyOrder(imported.get(0), imported.get(1), later);
+    }
+
+    @Test
+    void remove_ShouldDropTheStudent() {
+        Long id = insert("Ulrich Vogelsang", "9th Grade", "Zenith School");
+        index.refresh(List.of(id));
+
+        index.remove(id);
+
+        assertThat(index.search("vogelsang", ALL).hits()).isEmpty();
+    }
+
+    @Test
+    void refresh_WithManyUpdates_ShouldCompactAndStayCorrect() {
+        jdbcTemplate.update("UPDATE students SET name = CONCAT(name, ' Renamed') WHERE MOD(id, 2) = 0");
+        List<Long> all = jdbcTemplate.queryForList("SELECT id FROM students", Long.class);
+
+        index.refresh(all);
+
+        StudentSearchIndex.Stats stats = index.stats();
+        assertThat(stats.students()).isEqualTo(3_005);
+        assertThat(stats.slots()).isEqualTo(3_005);
+        assertThat(ids(index.search("renamed", ALL)))
+                .isEqualTo(sql("WHERE LOWER(name) LIKE '%renamed%'"));
+        assertThat(ids(index.search("huber", ALL)))
+                .isEqualTo(sql("WHERE LOWER(name) LIKE '%huber%'"));
+    }
+
+    private Long insert(String name, String grade, String school) {
+        jdbcTemplate.update(INSERT_SQL, name, gradeDictionary.idOf(grade), schoolDictionary.idOf(school));
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM students", Long.class);
+    }
+
+    private String name(long id) {
+        return jdbcTemplate.queryForObject("SELECT name FROM students WHERE id = ?", String.class, id);
+    }
+
+    private static Set<Long> ids(StudentSearchIndex.SearchResult result) {
+        return result.hits().stream().map(StudentSearchIndex.Hit::id).collect(Collectors.toSet());
+    }
+
+    private Set<Long> sql(String where, Object... args) {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM (SELECT s.id, s.name, g.name AS grade, " +
+                "sc.name AS school FROM students s JOIN grades g ON g.id = s.grade_id " +
+                "JOIN schools sc ON sc.id = s.school_id) joined " + where, Long.class, args));
+    }
+}
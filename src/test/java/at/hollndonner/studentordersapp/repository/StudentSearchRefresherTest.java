@@ -0,0 +1,54 @@
+package at.hollndonner.studentordersapp.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rows are committed straight away, so the refresher's thread can read them.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:students-refresher;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StudentSearchIndex.class, StudentSearchRefresher.class, OrderSummaryRepository.class,
+        GradeDictionary.class, SchoolDictionary.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StudentSearchRefresherTest {
+
+    @Autowired
+    private StudentSearchIndex index;
+
+    @Autowired
+    private StudentSearchRefresher refresher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void queuedChanges_ShouldReachTheIndexFromTheBackgroundThread() throws InterruptedException {
+        jdbcTemplate.update("UPDATE students SET name = 'Zebediah Quist' WHERE id = 1");
+        jdbcTemplate.update("DELETE FROM students WHERE id = 2");
+
+        refresher.studentsChanged(List.of(1L, 2L));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (index.search("zebediah", 10).hits().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(index.search("zebediah", 10).hits()).extracting(StudentSearchIndex.Hit::id).containsExactly(1L);
+        assertThat(index.search("bob smith", 10).hits()).isEmpty();
+        assertThat(index.stats().students()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,191 @@
+package at.hollndonner.studentordersapp.repository;
+
+import at.hollndonner.studentordersapp.config.QueryStatsConfig;
+import at.hollndonner.studentordersapp.model.Student;
+import at.hollndonner.studentordersapp.support.QueryCounts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:value-dictionary;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({QueryStatsConfig.class, OrderSummaryRepository.class, GradeDictionary.class, SchoolDictionary.class})
+class ValueDictionaryTest {
+
+    @Autowired
+    private SchoolDictionary schoolDictionary;
+
+    @Autowired
+    private GradeDictionary gradeDictionary;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void idOf_ShouldReturnTheSeededIdAndInsertNewValuesOnce() {
+        Integer seeded = jdbcTemplate.queryForObject(
+                "SELECT id FROM schools WHERE name = 'Riverside Academy'", Integer.class);
+
+        int added = schoolDictionary.idOf("Hillside College");
+
+        assertThat(schoolDictionary.idOf("Riverside Academy")).isEqualTo(seeded);
+        assertThat(schoolDictionary.idOf("Hillside College")).isEqualTo(added);
+        assertThat(schoolDictionary.idOf("hillside college")).isNotEqualTo(added);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM schools WHERE name = 'Hillside College'", Integer.class)).isEqualTo(1);
+        assertThat(schoolDictionary.valueOf(added)).isEqualTo("Hillside College");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void idOf_AfterRollback_ShouldNotKeepTheDiscardedId() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            schoolDictionary.idOf("Rolled Back School");
+            status.setRollbackOnly();
+        });
+
+        int id = schoolDictionary.idOf("Rolled Back School");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT name FROM schools WHERE id = ?", String.class, id))
+                .isEqualTo("Rolled Back School");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void idOf_WhenAnotherTransactionCommittedTheSameValueFirst_ShouldReturnItsId() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            Integer id = transaction.execute(status -> {
+                // Fixes this transaction's snapshot before the other one commits the value
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schools", Integer.class);
+                int committed = join(other.submit(() -> transaction.execute(
+                        otherStatus -> schoolDictionary.idOf("Twice Added Academy"))));
+                assertThat(schoolDictionary.idOf("Twice Added Academy")).isEqualTo(committed);
+                return committed;
+            });
+
+            assertThat(jdbcTemplate.queryForObject("SELECT id FROM schools WHERE name = 'Twice Added Academy'",
+                    Integer.class)).isEqualTo(id);
+        } finally {
+            other.shutdownNow();
+        }
+    }
+
+    @Test
+    void valuesContaining_ShouldMatchSubstringsIgnoringCase() {
+        schoolDictionary.idOf("100% Online School");
+
+        assertThat(schoolDictionary.valuesContaining("HIGH SCHOOL"))
+                .containsExactlyInAnyOrder("Springfield High School", "Lincoln High School", "Central High School");
+        assertThat(schoolDictionary.valuesContaining("0%")).containsExactly("100% Online School");
+        assertThat(schoolDictionary.valuesContaining("nowhere")).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void valuesContaining_InReadOnlyTransaction_ShouldCacheAtOnce() {
+        jdbcTemplate.update("INSERT INTO schools (name) VALUES ('Read Only Academy')");
+        Integer inserted = jdbcTemplate.queryForObject(
+                "SELECT id FROM schools WHERE name = 'Read Only Academy'", Integer.class);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        Integer id = transaction.execute(status -> {
+            assertThat(schoolDictionary.valuesContaining("read only")).containsExactly("Read Only Academy");
+            jdbcTemplate.update("DELETE FROM schools WHERE name = 'Read Only Academy'");
+            // Answered from the cache: the row is gone, and nothing may be inserted here
+            return schoolDictionary.idOf("Read Only Academy");
+        });
+
+        assertThat(id).isEqualTo(inserted);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schools WHERE name = 'Read Only Academy'",
+                Integer.class)).isZero();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void filteringBySchoolAndGrade_InReadOnlyTransaction_ShouldNotInsert() {
+        Integer schools = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schools", Integer.class);
+        Integer grades = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM grades", Integer.class);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        List<Student> found = transaction.execute(status -> studentRepository.findAll((root, query, cb) -> cb.and(
+                root.get("school").in(schoolDictionary.valuesContaining("riverside")),
+                root.get("grade").in(gradeDictionary.valuesContaining("10th")))));
+
+        assertThat(found).isNotEmpty().allSatisfy(student -> {
+            assertThat(student.getSchool()).isEqualTo("Riverside Academy");
+            assertThat(student.getGrade()).isEqualTo("10th Grade");
+        });
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schools", Integer.class)).isEqualTo(schools);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM grades", Integer.class)).isEqualTo(grades);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void idOf_WithUnknownValueInReadOnlyTransaction_ShouldFailWithoutInserting() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status -> schoolDictionary.idOf("Unlisted Academy")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("read-only");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schools WHERE name = 'Unlisted Academy'",
+                Integer.class)).isZero();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void valueOf_OnAMiss_ShouldLoadTheWholeTableInOneStatement() throws Exception {
+        jdbcTemplate.update("INSERT INTO schools (name) VALUES ('Lookup Academy')");
+        List<Integer> ids = jdbcTemplate.queryForList("SELECT id FROM schools ORDER BY id DESC", Integer.class);
+
+        QueryCounts.assertAtMost(1, () -> assertThat(ids.stream().map(schoolDictionary::valueOf))
+                .contains("Lookup Academy", "Riverside Academy")
+                .hasSize(ids.size()));
+    }
+
+    @Test
+    void valueOf_WithUnknownId_ShouldFail() {
+        assertThatThrownBy(() -> schoolDictionary.valueOf(-1))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get(10, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.archive.OrderArchiveRunResponse;
+import at.hollndonner.studentordersapp.dto.archive.OrderArchiveStats;
+import at.hollndonner.studentordersapp.dto.order.CreateOrderRequest;
+import at.hollndonner.studentordersapp.dto.order.OrderCursorPage;
+import at.hollndonner.studentordersapp.dto.order.OrderFilterRequest;
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.dto.order.UpdateOrderStatusRequest;
+import at.hollndonner.studentordersapp.dto.report.RevenueFilterRequest;
+import at.hollndonner.studentordersapp.dto.report.RevenueRollupRow;
+import at.hollndonner.studentordersapp.dto.student.CreateStudentRequest;
+import at.hollndonner.studentordersapp.dto.student.StudentOrderSummaryResponse;
+import at.hollndonner.studentordersapp.exception.ConflictException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Orders made cold by moving their {@code created_at} back, archived into a fresh directory per test run.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archive;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "orders.archive.segment-size=3",
+        "reports.revenue.refresh-enabled=false"
+})
+class OrderArchiveTest {
+
+    private static final LocalDateTime COLD = LocalDateTime.now(ZoneOffset.UTC).minusDays(400)
+            .truncatedTo(ChronoUnit.DAYS).withHour(12);
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry) {
+        try {
+            String directory = Files.createTempDirectory("order-archive").toString();
+            registry.add("orders.archive.directory", () -> directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private RevenueReportService revenueReportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void archive_ShouldMoveColdPaidOrdersAndKeepThemReadable() {
+        long studentId = createStudent("Archive Academy");
+        List<OrderResponse> cold = List.of(
+                coldOrder(studentId, "10.00", "paid", 0),
+                coldOrder(studentId, "20.50", "paid", 1),
+                coldOrder(studentId, "7.25", "paid", 2),
+                coldOrder(studentId, "3.10", "paid", 3));
+        OrderResponse coldPending = coldOrder(studentId, "5.00", "pending", 4);
+        OrderResponse recent = orderService.createOrder(new CreateOrderRequest(studentId, new BigDecimal("9.99"), "paid"));
+        OrderFilterRequest byStudent = new OrderFilterRequest(studentId, null, null, null);
+        Page<OrderResponse> pageBefore = orderService.getOrders(byStudent,
+                PageRequest.of(0, 4, Sort.by(Sort.Direction.ASC, "createdAt")));
+        StudentOrderSummaryResponse summaryBefore = studentService.getOrderSummary(studentId);
+        revenueReportService.rebuildRollups(null);
+        List<RevenueRollupRow> revenueBefore = coldDayRevenue("Archive Academy");
+
+        OrderArchiveRunResponse run = orderArchiveService.archive();
+
+        assertThat(run.ordersArchived()).isGreaterThanOrEqualTo(4);
+        assertThat(run.segmentsWritten()).isGreaterThanOrEqualTo(2);
+        assertThat(stored(cold)).isZero();
+        assertThat(stored(List.of(coldPending, recent))).isEqualTo(2);
+        for (OrderResponse order : cold) {
+            assertThat(orderService.getOrderById(order.id())).isEqualTo(order);
+            assertThat(orderService.getOrderVersion(order.id())).isZero();
+        }
+
+        Page<OrderResponse> pageAfter = orderService.getOrders(byStudent,
+                PageRequest.of(0, 4, Sort.by(Sort.Direction.ASC, "createdAt")));
+        assertThat(pageAfter.getContent()).isEqualTo(pageBefore.getContent());
+        assertThat(pageAfter.getTotalElements()).isEqualTo(6);
+        assertThat(scrollIds(byStudent)).containsExactly(recent.id(), coldPending.id(),
+                cold.get(3).id(), cold.get(2).id(), cold.get(1).id(), cold.get(0).id());
+        assertThat(studentService.getOrderSummary(studentId)).isEqualTo(summaryBefore);
+        revenueReportService.rebuildRollups(null);
+        assertThat(coldDayRevenue("Archive Academy")).isEqualTo(revenueBefore);
+
+        OrderArchiveStats stats = orderArchiveService.getStats();
+        assertThat(stats.orders()).isGreaterThanOrEqualTo(4);
+        assertThat(stats.bytesPerOrder()).isPositive();
+        assertThat(stats.oldest()).isBeforeOrEqualTo(cold.get(0).createdAt());
+    }
+
+    @Test
+    void changingAnArchivedOrder_ShouldBeRejected() {
+        long studentId = createStudent("Frozen Academy");
+        OrderResponse order = coldOrder(studentId, "12.00", "paid", 0);
+        orderArchiveService.archive();
+
+        assertThatThrownBy(() -> orderService.updateOrderStatus(order.id(), new UpdateOrderStatusRequest("pending"), null))
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("Order is archived and can no longer be changed.");
+        assertThatThrownBy(() -> orderService.deleteOrder(order.id(), null))
+                .isInstanceOf(ConflictException.class);
+        assertThat(orderService.getOrderById(order.id()).status().name()).isEqualTo("paid");
+    }
+
+    @Test
+    void archive_WhenRepeated_ShouldFindNothingLeft() {
+        coldOrder(createStudent("Repeat Academy"), "4.00", "paid", 0);
+        orderArchiveService.archive();
+
+        OrderArchiveRunResponse repeated = orderArchiveService.archive();
+
+        assertThat(repeated.ordersArchived()).isZero();
+        assertThat(repeated.segmentsWritten()).isZero();
+    }
+
+    @Test
+    void deleteStudent_ShouldRemoveTheirArchivedOrders() {
+        long studentId = createStudent("Leaving Academy");
+        OrderResponse order = coldOrder(studentId, "8.00", "paid", 0);
+        orderArchiveService.archive();
+
+        studentService.deleteStudent(studentId, null);
+
+        assertThatThrownBy(() -> orderService.getOrderById(order.id()))
+                .hasMessage("Order not found");
+    }
+
+    @Test
+    void archive_ShouldRemoveArchivedOrdersOfStudentsThatNoLongerExist() {
+        long studentId = createStudent("Vanished Academy");
+        OrderResponse order = coldOrder(studentId, "6.00", "paid", 0);
+        orderArchiveService.archive();
+        // Deleted without the event, as when the instance that deleted the student died right after the commit
+        jdbcTemplate.update("DELETE FROM students WHERE id = ?", studentId);
+
+        orderArchiveService.archive();
+
+        assertThatThrownBy(() -> orderService.getOrderById(order.id()))
+                .hasMessage("Order not found");
+    }
+
+    private long createStudent(String school) {
+        return studentService.createStudent(new CreateStudentRequest("Archive Student", "9th Grade", school)).id();
+    }
+
+    /**
+     * An order created now and then moved back to {@link #COLD}, {@code minutes} later in the day.
+     */
+    private OrderResponse coldOrder(long studentId, String total, String status, int minutes) {
+        OrderResponse created = orderService.createOrder(new CreateOrderRequest(studentId, new BigDecimal(total), status));
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?",
+                Timestamp.valueOf(COLD.plusMinutes(minutes)), created.id());
+        return orderService.getOrderById(created.id());
+    }
+
+    private long stored(List<OrderResponse> orders) {
+        return orders.stream()
+                .mapToLong(order -> jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM orders WHERE id = ?", Long.class, order.id()))
+                .sum();
+    }
+
+    private List<Long> scrollIds(OrderFilterRequest filter) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            OrderCursorPage page = orderService.scrollOrders(filter, cursor, 2);
+            page.content().forEach(order -> ids.add(order.id()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private List<RevenueRollupRow> coldDayRevenue(String school) {
+        String day = COLD.toLocalDate().toString();
+        return revenueReportService.getDailyRevenue(new RevenueFilterRequest(day, day, school, null)).rows();
+    }
+}
@@ -1,34 +1,74 @@
 package at.hollndonner.studentordersapp.service;
 
+import at.hollndonner.studentordersapp.dto.order.CreateOrderBatchRequest;
 import at.hollndonner.studentordersapp.dto.order.CreateOrderRequest;
+import at.hollndonner.studentordersapp.dto.order.OrderBatchItemResult;
+import at.hollndonner.studentordersapp.dto.order.OrderBatchResponse;
+import at.hollndonner.studentordersapp.dto.order.OrderCursor;
+import at.hollndonner.studentordersapp.dto.order.OrderCursorPage;
+import at.hollndonner.studentordersapp.dto.order.OrderExportFormat;
 import at.hollndonner.studentordersapp.dto.order.OrderFilterRequest;
 import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.dto.order.OrderStatusTransitionRequest;
+import at.hollndonner.studentordersapp.dto.order.OrderStatusTransitionResponse;
+import at.hollndonner.studentordersapp.dto.order.UpdateOrderRequest;
+import at.hollndonner.studentordersapp.dto.order.UpdateOrderStatusRequest;
+import at.hollndonner.studentordersapp.event.OrdersChangedEvent;
+import at.hollndonner.studentordersapp.exception.ConflictException;
+import at.hollndonner.studentordersapp.exception.PreconditionFailedException;
 import at.hollndonner.studentordersapp.exception.ResourceNotFoundException;
 import at.hollndonner.studentordersapp.model.Order;
 import at.hollndonner.studentordersapp.model.OrderStatus;
 import at.hollndonner.studentordersapp.model.Student;
+import at.hollndonner.studentordersapp.repository.OrderBatchRepository;
 import at.hollndonner.studentordersapp.repository.OrderRepository;
+import at.hollndonner.studentordersapp.repository.OrderSegments;
+import at.hollndonner.studentordersapp.repository.OrderShards;
+import at.hollndonner.studentordersapp.repository.OrderSorting;
+import at.hollndonner.studentordersapp.repository.OrderStatusBatchRepository;
+import at.hollndonner.studentordersapp.repository.OrderSummaryRepository;
+import at.hollndonner.studentordersapp.repository.RevenueRollupRepository;
 import at.hollndonner.studentordersapp.repository.StudentRepository;
 import at.hollndonner.studentordersapp.util.InputSanitizer;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionCallback;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -38,12 +78,39 @@ class OrderServiceImplTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private OrderBatchRepository orderBatchRepository;
+
+    @Mock
+    private OrderStatusBatchRepository orderStatusBatchRepository;
+
+    @Mock
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Mock
+    private RevenueRollupRepository revenueRollupRepository;
+
     @Mock
     private StudentRepository studentRepository;
 
     @Mock
     private InputSanitizer inputSanitizer;
 
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Mock
+    private OrderShards orderShards;
+
+    @Mock
+    private OrderSegments orderSegments;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -52,7 +119,20 @@ class OrderServiceImplTest {
     private CreateOrderRequest createRequest;
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
+        // A single shard: every shard callback runs directly
+        lenient().when(orderShards.count()).thenReturn(1);
+        lenient().when(orderShards.shardOf(anyLong())).thenReturn(0);
+        lenient().when(orderShards.inShard(anyInt(), anyBoolean(), any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(2).doInTransaction(null));
+        lenient().when(orderShards.locate(anyLong(), anyBoolean(), any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(2).doInTransaction(null));
+        lenient().when(orderShards.onAllShards(anyBoolean(), any())).thenAnswer(invocation ->
+                Collections.singletonList(invocation.<TransactionCallback<Object>>getArgument(1).doInTransaction(null)));
+        // Nothing archived
+        lenient().when(orderSegments.isEmpty()).thenReturn(true);
+
         student = Student.builder()
                 .id(1L)
                 .name("John Doe")
@@ -65,6 +145,7 @@ class OrderServiceImplTest {
                 .student(student)
                 .total(new BigDecimal("50.00"))
                 .status(OrderStatus.pending)
+                .createdAt(Instant.parse("2025-03-01T23:30:00Z"))
                 .build();
 
         createRequest = new CreateOrderRequest(
@@ -91,6 +172,8 @@ class OrderServiceImplTest {
         verify(inputSanitizer, times(1)).sanitizeText(anyString());
         verify(studentRepository, times(1)).findById(1L);
         verify(orderRepository, times(1)).save(any(Order.class));
+        verify(orderSummaryRepository).applyDeltas(List.of(
+                OrderSummaryRepository.Delta.added(1L, OrderStatus.pending, new BigDecimal("50.00"))));
     }
 
     @Test
@@ -122,9 +205,142 @@ class OrderServiceImplTest {
         verify(orderRepository, never()).save(any(Order.class));
     }
 
+    @Test
+    void createOrders_ShouldLookUpStudentsOnceAndInsertValidRows() {
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(studentRepository.findExistingIds(Set.of(1L, 2L))).thenReturn(Set.of(1L, 2L));
+        when(orderBatchRepository.insertAll(List.of(
+                new OrderBatchRepository.NewOrder(1L, new BigDecimal("10.00"), OrderStatus.pending),
+                new OrderBatchRepository.NewOrder(2L, new BigDecimal("20.00"), OrderStatus.paid))))
+                .thenReturn(List.of(100L, 101L));
+
+        OrderBatchResponse response = orderService.createOrders(new CreateOrderBatchRequest(List.of(
+                new CreateOrderRequest(1L, new BigDecimal("10.00"), "pending"),
+                new CreateOrderRequest(2L, new BigDecimal("20.00"), "paid"))));
+
+        assertThat(response.received()).isEqualTo(2);
+        assertThat(response.created()).isEqualTo(2);
+        assertThat(response.failed()).isZero();
+        assertThat(response.results()).containsExactly(
+                OrderBatchItemResult.created(0, 100L),
+                OrderBatchItemResult.created(1, 101L));
+
+        verify(studentRepository, times(1)).findExistingIds(anyCollection());
+        verify(studentRepository, never()).findById(any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void createOrders_WithInvalidItems_ShouldReportThemAndInsertTheRest() {
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(studentRepository.findExistingIds(Set.of(1L, 999L))).thenReturn(Set.of(1L));
+        when(orderBatchRepository.insertAll(List.of(
+                new OrderBatchRepository.NewOrder(1L, new BigDecimal("10.00"), OrderStatus.pending))))
+                .thenReturn(List.of(100L));
+
+        OrderBatchResponse response = orderService.createOrders(new CreateOrderBatchRequest(Arrays.asList(
+                new CreateOrderRequest(999L, new BigDecimal("10.00"), "pending"),
+                new CreateOrderRequest(1L, new BigDecimal("10.00"), "invalid_status"),
+                new CreateOrderRequest(1L, new BigDecimal("0.00"), "pending"),
+                null,
+                new CreateOrderRequest(1L, new BigDecimal("10.00"), "pending"))));
+
+        assertThat(response.received()).isEqualTo(5);
+        assertThat(response.created()).isEqualTo(1);
+        assertThat(response.failed()).isEqualTo(4);
+        assertThat(response.results()).containsExactly(
+                OrderBatchItemResult.failed(0, "Student not found"),
+                OrderBatchItemResult.failed(1, "Invalid order status. Allowed: pending, paid."),
+                OrderBatchItemResult.failed(2, "Total must be at least 0.01"),
+                OrderBatchItemResult.failed(3, "Order is required"),
+                OrderBatchItemResult.created(4, 100L));
+    }
+
+    @Test
+    void createOrders_WhenNothingIsValid_ShouldNotInsert() {
+        when(studentRepository.findExistingIds(Set.of(999L))).thenReturn(Set.of());
+
+        OrderBatchResponse response = orderService.createOrders(new CreateOrderBatchRequest(List.of(
+                new CreateOrderRequest(999L, new BigDecimal("10.00"), "pending"))));
+
+        assertThat(response.created()).isZero();
+        assertThat(response.failed()).isEqualTo(1);
+        verifyNoInteractions(orderBatchRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void transitionOrderStatus_WithIds_ShouldUpdateInChunksAndReportSkipped() {
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderStatusBatchRepository.chunkSize()).thenReturn(2);
+        when(orderStatusBatchRepository.transitionIds(List.of(1L, 2L), OrderStatus.pending, OrderStatus.paid))
+                .thenReturn(List.of(transitioned(1L), transitioned(2L)));
+        when(orderStatusBatchRepository.transitionIds(List.of(3L), OrderStatus.pending, OrderStatus.paid))
+                .thenReturn(List.of());
+
+        OrderStatusTransitionResponse response = orderService.transitionOrderStatus(
+                new OrderStatusTransitionRequest("pending", "paid", List.of(1L, 2L, 2L, 3L), null, null));
+
+        assertThat(response.updated()).isEqualTo(2);
+        assertThat(response.skipped()).containsExactly(3L);
+        verify(orderShards, times(2)).inShard(eq(0), eq(false), any());
+        verify(eventPublisher).publishEvent(new OrdersChangedEvent(List.of(1L, 2L)));
+        verify(orderSummaryRepository).applyDeltas(List.of(
+                OrderSummaryRepository.Delta.removed(1L, OrderStatus.pending, new BigDecimal("10.00")),
+                OrderSummaryRepository.Delta.added(1L, OrderStatus.paid, new BigDecimal("10.00")),
+                OrderSummaryRepository.Delta.removed(1L, OrderStatus.pending, new BigDecimal("10.00")),
+                OrderSummaryRepository.Delta.added(1L, OrderStatus.paid, new BigDecimal("10.00"))));
+        verify(orderRepository, never()).findById(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void transitionOrderStatus_WithFilter_ShouldRepeatUntilChunkIsPartial() {
+        Instant createdBefore = Instant.parse("2025-01-01T00:00:00Z");
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderStatusBatchRepository.chunkSize()).thenReturn(2);
+        when(orderStatusBatchRepository.transitionMatching(1L, createdBefore, OrderStatus.pending, OrderStatus.paid))
+                .thenReturn(List.of(transitioned(1L), transitioned(2L)),
+                        List.of(transitioned(3L), transitioned(4L)),
+                        List.of(transitioned(5L)));
+
+        OrderStatusTransitionResponse response = orderService.transitionOrderStatus(
+                new OrderStatusTransitionRequest("pending", "paid", null, 1L, createdBefore));
+
+        assertThat(response.updated()).isEqualTo(5);
+        assertThat(response.skipped()).isEmpty();
+        verify(orderShards, times(3)).inShard(eq(0), eq(false), any());
+    }
+
+    @Test
+    void transitionOrderStatus_WithIdsAndFilter_ShouldThrowException() {
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThatThrownBy(() -> orderService.transitionOrderStatus(
+                new OrderStatusTransitionRequest("pending", "paid", List.of(1L), 1L, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Provide either ids or a filter (studentId, createdBefore), not both.");
+        assertThatThrownBy(() -> orderService.transitionOrderStatus(
+                new OrderStatusTransitionRequest("pending", "paid", null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verifyNoInteractions(orderStatusBatchRepository);
+        verify(orderShards, never()).inShard(anyInt(), anyBoolean(), any());
+    }
+
+    @Test
+    void transitionOrderStatus_WithSameStatus_ShouldThrowException() {
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThatThrownBy(() -> orderService.transitionOrderStatus(
+                new OrderStatusTransitionRequest("paid", "paid", List.of(1L), null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("From and target status must differ.");
+    }
+
     @Test
     void getOrderById_WithValidId_ShouldReturnOrder() {
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.findResponseById(1L)).thenReturn(Optional.of(OrderResponse.fromEntity(order)));
 
         OrderResponse response = orderService.getOrderById(1L);
 
@@ -132,18 +348,48 @@ class OrderServiceImplTest {
         assertThat(response.id()).isEqualTo(1L);
         assertThat(response.total()).isEqualTo(new BigDecimal("50.00"));
 
-        verify(orderRepository, times(1)).findById(1L);
+        verify(orderRepository, times(1)).findResponseById(1L);
+        verify(orderRepository, never()).findById(any());
     }
 
     @Test
     void getOrderById_WithInvalidId_ShouldThrowException() {
-        when(orderRepository.findById(999L)).thenReturn(Optional.empty());
+        when(orderRepository.findResponseById(999L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> orderService.getOrderById(999L))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Order not found");
 
-        verify(orderRepository, times(1)).findById(999L);
+        verify(orderRepository, times(1)).findResponseById(999L);
+    }
+
+    @Test
+    void getOrderById_WhenArchived_ShouldReadTheSegments() {
+        OrderResponse archived = OrderResponse.fromEntity(order);
+        when(orderRepository.findResponseById(1L)).thenReturn(Optional.empty());
+        when(orderSegments.findResponseById(1L)).thenReturn(Optional.of(archived));
+
+        assertThat(orderService.getOrderById(1L)).isEqualTo(archived);
+    }
+
+    @Test
+    void getOrderVersion_WithValidId_ShouldReadVersionOnly() {
+        when(orderRepository.findVersionById(1L)).thenReturn(Optional.of(3L));
+
+        long version = orderService.getOrderVersion(1L);
+
+        assertThat(version).isEqualTo(3L);
+        verify(orderRepository, never()).findResponseById(any());
+        verify(orderRepository, never()).findById(any());
+    }
+
+    @Test
+    void getOrderVersion_WithInvalidId_ShouldThrowException() {
+        when(orderRepository.findVersionById(999L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> orderService.getOrderVersion(999L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Order not found");
     }
 
     @Test
@@ -155,9 +401,9 @@ class OrderServiceImplTest {
                 .status(OrderStatus.paid)
                 .build();
 
-        List<Order> orders = Arrays.asList(order, order2);
-        Page<Order> orderPage = new PageImpl<>(orders);
-        Pageable pageable = PageRequest.of(0, 20);
+        List<OrderResponse> orders = Arrays.asList(OrderResponse.fromEntity(order), OrderResponse.fromEntity(order2));
+        Page<OrderResponse> orderPage = new PageImpl<>(orders);
+        Pageable pageable = PageRequest.of(0, 20, OrderSorting.DEFAULT);
         OrderFilterRequest filter = new OrderFilterRequest(null, null, null, null);
 
         when(orderRepository.findWithFilters(null, null, null, null, pageable)).thenReturn(orderPage);
@@ -173,8 +419,8 @@ class OrderServiceImplTest {
 
     @Test
     void getOrders_WhenEmpty_ShouldReturnEmptyPage() {
-        Page<Order> emptyPage = new PageImpl<>(List.of());
-        Pageable pageable = PageRequest.of(0, 20);
+        Page<OrderResponse> emptyPage = new PageImpl<>(List.of());
+        Pageable pageable = PageRequest.of(0, 20, OrderSorting.DEFAULT);
         OrderFilterRequest filter = new OrderFilterRequest(null, null, null, null);
 
         when(orderRepository.findWithFilters(null, null, null, null, pageable)).thenReturn(emptyPage);
@@ -187,9 +433,9 @@ class OrderServiceImplTest {
 
     @Test
     void getOrders_WithStudentIdFilter_ShouldReturnFilteredOrders() {
-        List<Order> orders = List.of(order);
-        Page<Order> orderPage = new PageImpl<>(orders);
-        Pageable pageable = PageRequest.of(0, 20);
+        List<OrderResponse> orders = List.of(OrderResponse.fromEntity(order));
+        Page<OrderResponse> orderPage = new PageImpl<>(orders);
+        Pageable pageable = PageRequest.of(0, 20, OrderSorting.DEFAULT);
         OrderFilterRequest filter = new OrderFilterRequest(1L, null, null, null);
 
         when(orderRepository.findWithFilters(1L, null, null, null, pageable)).thenReturn(orderPage);
@@ -204,9 +450,9 @@ class OrderServiceImplTest {
 
     @Test
     void getOrders_WithStatusFilter_ShouldReturnFilteredOrders() {
-        List<Order> orders = List.of(order);
-        Page<Order> orderPage = new PageImpl<>(orders);
-        Pageable pageable = PageRequest.of(0, 20);
+        List<OrderResponse> orders = List.of(OrderResponse.fromEntity(order));
+        Page<OrderResponse> orderPage = new PageImpl<>(orders);
+        Pageable pageable = PageRequest.of(0, 20, OrderSorting.DEFAULT);
         OrderFilterRequest filter = new OrderFilterRequest(null, "pending", null, null);
 
         when(orderRepository.findWithFilters(null, OrderStatus.pending, null, null, pageable)).thenReturn(orderPage);
@@ -220,25 +466,243 @@ class OrderServiceImplTest {
     }
 
     @Test
-    void deleteOrder_WithValidId_ShouldDeleteOrder() {
-        when(orderRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(orderRepository).deleteById(1L);
+    void getOrderSlice_ShouldReturnSliceWithoutTotals() {
+        Pageable pageable = PageRequest.of(0, 1, OrderSorting.DEFAULT);
+        OrderFilterRequest filter = new OrderFilterRequest(null, "pending", null, null);
+
+        when(orderRepository.findSliceWithFilters(null, OrderStatus.pending, null, null, pageable))
+                .thenReturn(new SliceImpl<>(List.of(OrderResponse.fromEntity(order)), pageable, true));
+
+        Slice<OrderResponse> responses = orderService.getOrderSlice(filter, pageable);
+
+        assertThat(responses.getContent()).hasSize(1);
+        assertThat(responses.hasNext()).isTrue();
+
+        verify(orderRepository, times(1)).findSliceWithFilters(null, OrderStatus.pending, null, null, pageable);
+        verify(orderRepository, never()).findWithFilters(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getOrders_WhenUnsorted_ShouldUseIndexedSort() {
+        Page<OrderResponse> emptyPage = new PageImpl<>(List.of());
+        Pageable indexed = PageRequest.of(0, 20, OrderSorting.DEFAULT);
+        OrderFilterRequest filter = new OrderFilterRequest(null, null, null, null);
 
-        orderService.deleteOrder(1L);
+        when(orderRepository.findWithFilters(null, null, null, null, indexed)).thenReturn(emptyPage);
 
-        verify(orderRepository, times(1)).existsById(1L);
-        verify(orderRepository, times(1)).deleteById(1L);
+        orderService.getOrders(filter, PageRequest.of(0, 20));
+
+        verify(orderRepository, times(1)).findWithFilters(null, null, null, null, indexed);
+    }
+
+    @Test
+    void getOrders_WithUnindexedSort_ShouldThrowException() {
+        OrderFilterRequest filter = new OrderFilterRequest(null, null, null, null);
+        Pageable pageable = PageRequest.of(0, 20, Sort.by("total"));
+
+        assertThatThrownBy(() -> orderService.getOrders(filter, pageable))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unsupported sort property: total");
+
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void scrollOrders_WithMoreRows_ShouldReturnNextCursor() {
+        Instant now = Instant.parse("2025-01-01T10:00:00Z");
+        Order newer = Order.builder().id(3L).student(student).total(new BigDecimal("10.00"))
+                .status(OrderStatus.paid).createdAt(now).build();
+        Order older = Order.builder().id(2L).student(student).total(new BigDecimal("20.00"))
+                .status(OrderStatus.paid).createdAt(now.minusSeconds(60)).build();
+        OrderFilterRequest filter = new OrderFilterRequest(null, null, null, null);
+
+        when(orderRepository.findWithFiltersAfter(null, null, null, null, null, null, Limit.of(2)))
+                .thenReturn(List.of(OrderResponse.fromEntity(newer), OrderResponse.fromEntity(older)));
+
+        OrderCursorPage page = orderService.scrollOrders(filter, null, 1);
+
+        assertThat(page.content()).hasSize(1);
+        assertThat(page.content().get(0).id()).isEqualTo(3L);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(OrderCursor.decode(page.nextCursor())).isEqualTo(new OrderCursor(now, 3L));
+    }
+
+    @Test
+    void scrollOrders_WithCursor_ShouldSeekPastCursor() {
+        Instant createdAt = Instant.parse("2025-01-01T10:00:00Z");
+        String cursor = new OrderCursor(createdAt, 3L).encode();
+        OrderFilterRequest filter = new OrderFilterRequest(1L, "pending", null, null);
+
+        when(orderRepository.findWithFiltersAfter(1L, OrderStatus.pending, null, null, createdAt, 3L, Limit.of(21)))
+                .thenReturn(List.of(OrderResponse.fromEntity(order)));
+
+        OrderCursorPage page = orderService.scrollOrders(filter, cursor, 20);
+
+        assertThat(page.content()).hasSize(1);
+        assertThat(page.hasNext()).isFalse();
+        assertThat(page.nextCursor()).isNull();
+
+        verify(orderRepository, times(1))
+                .findWithFiltersAfter(1L, OrderStatus.pending, null, null, createdAt, 3L, Limit.of(21));
+    }
+
+    @Test
+    void exportOrders_AsCsv_ShouldWriteHeaderAndOneLinePerOrder() throws IOException {
+        Instant createdAt = Instant.parse("2025-01-01T10:00:00Z");
+        OrderFilterRequest filter = new OrderFilterRequest(1L, "paid", null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        when(orderRepository.streamWithFilters(1L, OrderStatus.paid, null, null)).thenReturn(Stream.of(
+                new OrderResponse(3L, 1L, new BigDecimal("25.50"), createdAt, OrderStatus.paid),
+                new OrderResponse(2L, 1L, new BigDecimal("1E+1"), createdAt, OrderStatus.paid)));
+
+        orderService.exportOrders(filter, OrderExportFormat.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,studentId,total,createdAt,status\n" +
+                "3,1,25.50,2025-01-01T10:00:00Z,paid\n" +
+                "2,1,10,2025-01-01T10:00:00Z,paid\n");
+    }
+
+    @Test
+    void exportOrders_AsNdjson_ShouldWriteOneJsonObjectPerLine() throws IOException {
+        Instant createdAt = Instant.parse("2025-01-01T10:00:00Z");
+        OrderFilterRequest filter = new OrderFilterRequest(null, null, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        when(orderRepository.streamWithFilters(null, null, null, null)).thenReturn(Stream.of(
+                new OrderResponse(3L, 1L, new BigDecimal("25.50"), createdAt, OrderStatus.paid),
+                new OrderResponse(2L, 2L, new BigDecimal("12.75"), createdAt, OrderStatus.pending)));
+
+        orderService.exportOrders(filter, OrderExportFormat.NDJSON, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"id\":3,\"studentId\":1,\"total\":25.50,\"createdAt\":\"2025-01-01T10:00:00Z\",\"status\":\"paid\"}\n" +
+                "{\"id\":2,\"studentId\":2,\"total\":12.75,\"createdAt\":\"2025-01-01T10:00:00Z\",\"status\":\"pending\"}\n");
+    }
+
+    @Test
+    void exportOrders_WithInvalidStatus_ShouldThrowBeforeWriting() {
+        OrderFilterRequest filter = new OrderFilterRequest(null, "invalid_status", null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThatThrownBy(() -> orderService.exportOrders(filter, OrderExportFormat.CSV, out))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid order status. Allowed: pending, paid.");
+
+        assertThat(out.size()).isZero();
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void scrollOrders_WithInvalidCursor_ShouldThrowException() {
+        OrderFilterRequest filter = new OrderFilterRequest(null, null, null, null);
+
+        assertThatThrownBy(() -> orderService.scrollOrders(filter, "not-a-cursor", 20))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor.");
+
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void scrollOrders_WithInvalidSize_ShouldThrowException() {
+        OrderFilterRequest filter = new OrderFilterRequest(null, null, null, null);
+
+        assertThatThrownBy(() -> orderService.scrollOrders(filter, null, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Size must be between");
+
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void updateOrderStatus_ShouldMoveOrderBetweenSummaryStatuses() {
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderRepository.findResponseByIdForUpdate(1L)).thenReturn(Optional.of(OrderResponse.fromEntity(order)));
+        when(orderRepository.updateStatus(1L, OrderStatus.paid, 3L)).thenReturn(1);
+
+        OrderResponse response = orderService.updateOrderStatus(1L, new UpdateOrderStatusRequest("paid"), 3L);
+
+        assertThat(response.id()).isEqualTo(1L);
+        assertThat(response.status()).isEqualTo(OrderStatus.paid);
+        verify(orderSummaryRepository).applyDeltas(List.of(
+                OrderSummaryRepository.Delta.removed(1L, OrderStatus.pending, new BigDecimal("50.00")),
+                OrderSummaryRepository.Delta.added(1L, OrderStatus.paid, new BigDecimal("50.00"))));
+        verify(revenueRollupRepository).markChanged(List.of(LocalDate.of(2025, 3, 1)));
+        verify(orderRepository, never()).findById(any());
+        verify(orderRepository, never()).findResponseById(any());
+    }
+
+    @Test
+    void updateOrder_WithStaleVersion_ShouldFailPrecondition() {
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderRepository.findResponseByIdForUpdate(1L)).thenReturn(Optional.of(OrderResponse.fromEntity(order)));
+        when(orderRepository.updateTotalAndStatus(1L, new BigDecimal("60.00"), OrderStatus.paid, 2L)).thenReturn(0);
+
+        UpdateOrderRequest request = new UpdateOrderRequest(new BigDecimal("60.00"), "paid", Instant.now());
+
+        assertThatThrownBy(() -> orderService.updateOrder(1L, request, 2L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("Order was modified by someone else.");
+
+        verifyNoInteractions(orderSummaryRepository);
+    }
+
+    @Test
+    void updateOrderStatus_WithInvalidId_ShouldThrowException() {
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderRepository.findResponseByIdForUpdate(999L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> orderService.updateOrderStatus(999L, new UpdateOrderStatusRequest("paid"), null))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Order not found");
+
+        verify(orderRepository, never()).updateStatus(any(), any(), any());
+        verifyNoInteractions(orderSummaryRepository);
+    }
+
+    @Test
+    void deleteOrder_WithValidId_ShouldRemoveOrderFromSummary() {
+        when(orderRepository.findResponseByIdForUpdate(1L)).thenReturn(Optional.of(OrderResponse.fromEntity(order)));
+        when(orderRepository.deleteByIdAndVersion(1L, null)).thenReturn(1);
+
+        orderService.deleteOrder(1L, null);
+
+        verify(orderRepository, times(1)).deleteByIdAndVersion(1L, null);
+        verify(orderRepository, never()).deleteById(any());
+        verify(orderSummaryRepository).applyDeltas(List.of(
+                OrderSummaryRepository.Delta.removed(1L, OrderStatus.pending, new BigDecimal("50.00"))));
+        verify(revenueRollupRepository).markChanged(List.of(LocalDate.of(2025, 3, 1)));
+        verify(eventPublisher).publishEvent(new OrdersChangedEvent(List.of(1L)));
     }
 
     @Test
     void deleteOrder_WithInvalidId_ShouldThrowException() {
-        when(orderRepository.existsById(999L)).thenReturn(false);
+        when(orderRepository.findResponseByIdForUpdate(999L)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> orderService.deleteOrder(999L))
+        assertThatThrownBy(() -> orderService.deleteOrder(999L, 0L))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Order not found");
 
-        verify(orderRepository, times(1)).existsById(999L);
-        verify(orderRepository, never()).deleteById(anyLong());
+        verify(orderRepository, never()).deleteByIdAndVersion(any(), any());
+    }
+
+    @Test
+    void deleteOrder_WhenArchived_ShouldThrowConflict() {
+        when(orderRepository.findResponseByIdForUpdate(1L)).thenReturn(Optional.empty());
+        when(orderSegments.findVersionById(1L)).thenReturn(Optional.of(0L));
+
+        assertThatThrownBy(() -> orderService.deleteOrder(1L, 0L))
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("Order is archived and can no longer be changed.");
+
+        verify(orderRepository, never()).deleteByIdAndVersion(any(), any());
+        verifyNoInteractions(orderSummaryRepository);
+    }
+
+    private static OrderStatusBatchRepository.TransitionedOrder transitioned(Long id) {
+        return new OrderStatusBatchRepository.TransitionedOrder(id, 1L, new BigDecimal("10.00"),
+                LocalDateTime.of(2025, 3, 1, 12, 0));
     }
 }
@@ -0,0 +1,197 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.order.CreateOrderBatchRequest;
+import at.hollndonner.studentordersapp.dto.order.CreateOrderRequest;
+import at.hollndonner.studentordersapp.dto.order.OrderBatchItemResult;
+import at.hollndonner.studentordersapp.dto.order.OrderBatchResponse;
+import at.hollndonner.studentordersapp.dto.order.OrderFilterRequest;
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.dto.shard.OrderShardRebalanceResponse;
+import at.hollndonner.studentordersapp.dto.shard.OrderShardResponse;
+import at.hollndonner.studentordersapp.dto.student.CreateStudentRequest;
+import at.hollndonner.studentordersapp.dto.student.StudentOrderSummaryResponse;
+import at.hollndonner.studentordersapp.repository.OrderShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Three embedded databases: the main one, which gets the usual schema and seed data, and two order shards.
+ * The seeded orders all start out in the main database, so they sit on the wrong shard until a rebalance.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharding-main;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "orders.shards.urls=jdbc:h2:mem:sharding-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE,"
+                + "jdbc:h2:mem:sharding-2;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "orders.shards.id-block-size=5",
+        // One main connection, which an order insert holds while it asks for ids
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=2000",
+        "reports.revenue.refresh-enabled=false"
+})
+class OrderShardingTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderShardService orderShardService;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private OrderShards orderShards;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        orderShardService.rebalance();
+    }
+
+    @Test
+    void createOrder_ShouldLandOnTheStudentsShardOnly() {
+        for (long studentId = 1; studentId <= 5; studentId++) {
+            OrderResponse created = orderService.createOrder(
+                    new CreateOrderRequest(studentId, new BigDecimal("12.50"), "pending"));
+
+            assertThat(shardsHolding(created.id())).containsExactly(orderShards.shardOf(studentId));
+            assertThat(orderService.getOrderById(created.id()))
+                    .usingRecursiveComparison().ignoringFields("createdAt").isEqualTo(created);
+        }
+    }
+
+    @Test
+    void createOrders_ShouldSplitTheBatchByShardAndKeepItsOrder() {
+        List<CreateOrderRequest> requests = LongStream.rangeClosed(1, 5)
+                .mapToObj(studentId -> new CreateOrderRequest(studentId, new BigDecimal("3.00"), "paid"))
+                .toList();
+
+        OrderBatchResponse response = orderService.createOrders(new CreateOrderBatchRequest(requests));
+
+        assertThat(response.created()).isEqualTo(5);
+        for (OrderBatchItemResult result : response.results()) {
+            long studentId = requests.get(result.index()).studentId();
+            assertThat(orderService.getOrderById(result.orderId()).studentId()).isEqualTo(studentId);
+            assertThat(shardsHolding(result.orderId())).containsExactly(orderShards.shardOf(studentId));
+        }
+    }
+
+    @Test
+    void getOrders_WithoutStudent_ShouldMergeEveryShardInTheRequestedOrder() {
+        IntStream.range(0, 12).forEach(i -> orderService.createOrder(
+                new CreateOrderRequest(1L + i % 5, new BigDecimal("7.00"), "paid")));
+        List<Long> expected = allOrderIds(Comparator.comparing(IdAndTime::createdAt).thenComparing(IdAndTime::id));
+
+        List<Long> paged = new ArrayList<>();
+        for (int page = 0; ; page++) {
+            Page<OrderResponse> orders = orderService.getOrders(new OrderFilterRequest(null, null, null, null),
+                    PageRequest.of(page, 4, Sort.by(Sort.Direction.ASC, "createdAt")));
+            assertThat(orders.getTotalElements()).isEqualTo(expected.size());
+            if (orders.isEmpty()) {
+                break;
+            }
+            orders.forEach(order -> paged.add(order.id()));
+        }
+        Slice<OrderResponse> lastSlice = orderService.getOrderSlice(new OrderFilterRequest(null, null, null, null),
+                PageRequest.of((expected.size() - 1) / 4, 4, Sort.by(Sort.Direction.ASC, "createdAt")));
+
+        assertThat(paged).isEqualTo(expected);
+        assertThat(lastSlice.hasNext()).isFalse();
+        assertThat(lastSlice.getContent()).extracting(OrderResponse::id)
+                .isEqualTo(expected.subList((expected.size() - 1) / 4 * 4, expected.size()));
+    }
+
+    @Test
+    void rebalance_ShouldMoveMisplacedOrdersOnceAndKeepTheirIds() {
+        long studentId = LongStream.rangeClosed(1, 5).filter(id -> orderShards.shardOf(id) != 0).findFirst()
+                .orElseThrow();
+        StudentOrderSummaryResponse before = studentService.getOrderSummary(studentId);
+        // As if the order was written before its student's shard existed
+        long misplaced = orderShards.allocateIds(0, 1).get(0);
+        orderShards.inShard(0, false, tx -> jdbcTemplate.update(
+                "INSERT INTO orders (id, student_id, total, status, created_at, version) VALUES (?, ?, ?, ?, ?, 0)",
+                misplaced, studentId, new BigDecimal("40.00"), "paid", new Timestamp(System.currentTimeMillis())));
+        long total = orderShardService.getShards().stream().mapToLong(OrderShardResponse::orders).sum();
+
+        OrderShardRebalanceResponse moved = orderShardService.rebalance();
+        OrderShardRebalanceResponse repeated = orderShardService.rebalance();
+
+        assertThat(moved.shards()).isEqualTo(3);
+        assertThat(moved.ordersMoved()).isEqualTo(1);
+        assertThat(repeated.ordersMoved()).isZero();
+        assertThat(shardsHolding(misplaced)).containsExactly(orderShards.shardOf(studentId));
+        assertThat(orderService.getOrderById(misplaced).studentId()).isEqualTo(studentId);
+        assertThat(orderShardService.getShards().stream().mapToLong(OrderShardResponse::orders).sum()).isEqualTo(total);
+        StudentOrderSummaryResponse after = studentService.getOrderSummary(studentId);
+        assertThat(after.orderCount()).isEqualTo(before.orderCount() + 1);
+        assertThat(after.total()).isEqualByComparingTo(before.total().add(new BigDecimal("40.00")));
+    }
+
+    @Test
+    void deleteStudent_ShouldRemoveTheOrdersOnTheStudentsShard() {
+        long studentId;
+        do {
+            studentId = studentService.createStudent(
+                    new CreateStudentRequest("Shard Student", "9th Grade", "Riverside Academy")).id();
+        } while (orderShards.shardOf(studentId) == 0);
+        OrderResponse order = orderService.createOrder(
+                new CreateOrderRequest(studentId, new BigDecimal("9.99"), "pending"));
+
+        studentService.deleteStudent(studentId, null);
+
+        assertThat(shardsHolding(order.id())).isEmpty();
+    }
+
+    @Test
+    void rebalance_ShouldRemoveOrdersOfStudentsThatNoLongerExist() {
+        // As if removing the orders after the student's delete had failed
+        long orphan = orderShards.allocateIds(1, 1).get(0);
+        orderShards.inShard(1, false, tx -> jdbcTemplate.update(
+                "INSERT INTO orders (id, student_id, total, status, created_at, version) VALUES (?, ?, ?, ?, ?, 0)",
+                orphan, 999_999L, new BigDecimal("15.00"), "paid", new Timestamp(System.currentTimeMillis())));
+
+        OrderShardRebalanceResponse response = orderShardService.rebalance();
+
+        assertThat(response.orphanedOrdersRemoved()).isEqualTo(1);
+        assertThat(response.studentsMoved()).isZero();
+        assertThat(shardsHolding(orphan)).isEmpty();
+    }
+
+    private List<Integer> shardsHolding(long orderId) {
+        List<Long> counts = orderShards.onAllShards(false, tx -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE id = ?", Long.class, orderId));
+        return IntStream.range(0, counts.size()).filter(shard -> counts.get(shard) > 0).boxed().toList();
+    }
+
+    private List<Long> allOrderIds(Comparator<IdAndTime> order) {
+        return orderShards.onAllShards(false, tx -> jdbcTemplate.query("SELECT id, created_at FROM orders",
+                        (rs, rowNum) -> new IdAndTime(rs.getLong("id"), rs.getTimestamp("created_at"))))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(order)
+                .map(IdAndTime::id)
+                .toList();
+    }
+
+    private record IdAndTime(long id, Timestamp createdAt) {}
+}
@@ -0,0 +1,193 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.report.RevenueFilterRequest;
+import at.hollndonner.studentordersapp.dto.report.RevenueRebuildResponse;
+import at.hollndonner.studentordersapp.dto.report.RevenueReportResponse;
+import at.hollndonner.studentordersapp.dto.report.RevenueRollupRow;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import at.hollndonner.studentordersapp.repository.RevenueRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RevenueReportServiceImplTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 2, 10, 0);
+
+    @Mock
+    private RevenueRollupRepository revenueRollupRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private RevenueReportServiceImpl revenueReportService;
+
+    @BeforeEach
+    void setUp() {
+        revenueReportService = new RevenueReportServiceImpl(revenueRollupRepository, transactionTemplate, 7);
+    }
+
+    @Test
+    void getDailyRevenue_ShouldReadRollupsOnly() {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        RevenueRollupRow row = new RevenueRollupRow(day, "Riverside Academy", OrderStatus.paid, 2, new BigDecimal("30.00"));
+        when(revenueRollupRepository.findDaily(day, day, "Riverside Academy", OrderStatus.paid)).thenReturn(List.of(row));
+        when(revenueRollupRepository.findWatermark()).thenReturn(Optional.of(NOW));
+
+        RevenueReportResponse report = revenueReportService.getDailyRevenue(
+                new RevenueFilterRequest("2025-03-01", "2025-03-01", " Riverside Academy ", "paid"));
+
+        assertThat(report.rows()).containsExactly(row);
+        assertThat(report.rolledUpTo()).isEqualTo(Instant.parse("2025-03-02T10:00:00Z"));
+        verify(revenueRollupRepository, never()).rebuildDays(any(), any());
+    }
+
+    @Test
+    void getMonthlyRevenue_WithoutWatermark_ShouldReportNoRolledUpTime() {
+        when(revenueRollupRepository.findMonthly(YearMonth.of(2025, 1), YearMonth.of(2025, 3), null, null))
+                .thenReturn(List.of());
+        when(revenueRollupRepository.findWatermark()).thenReturn(Optional.empty());
+
+        RevenueReportResponse report = revenueReportService.getMonthlyRevenue(
+                new RevenueFilterRequest("2025-01", "2025-03", null, null));
+
+        assertThat(report.rows()).isEmpty();
+        assertThat(report.rolledUpTo()).isNull();
+    }
+
+    @Test
+    void getDailyRevenue_WithInvalidRange_ShouldThrowException() {
+        assertThatThrownBy(() -> revenueReportService.getDailyRevenue(
+                new RevenueFilterRequest(null, "2025-03-01", null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Parameter 'from' is required (yyyy-MM-dd).");
+        assertThatThrownBy(() -> revenueReportService.getDailyRevenue(
+                new RevenueFilterRequest("2025-03", "2025-03-01", null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Parameter 'from' must be formatted as yyyy-MM-dd.");
+        assertThatThrownBy(() -> revenueReportService.getDailyRevenue(
+                new RevenueFilterRequest("2025-03-02", "2025-03-01", null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("From must not be after to.");
+        assertThatThrownBy(() -> revenueReportService.getDailyRevenue(
+                new RevenueFilterRequest("2024-01-01", "2025-03-01", null, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Range must not exceed 366 days.");
+
+        verifyNoInteractions(revenueRollupRepository);
+    }
+
+    @Test
+    void refreshRollups_ShouldRebuildDaysSinceWatermarkMinusRestatementWindow() {
+        runTransactionsInline();
+        when(revenueRollupRepository.lockWatermark()).thenReturn(Optional.of(LocalDateTime.of(2025, 3, 2, 9, 59)));
+        when(revenueRollupRepository.currentTimestamp()).thenReturn(NOW);
+
+        revenueReportService.refreshRollups();
+
+        InOrder inOrder = inOrder(revenueRollupRepository);
+        inOrder.verify(revenueRollupRepository).lockWatermark();
+        inOrder.verify(revenueRollupRepository).rebuildDays(LocalDate.of(2025, 2, 23), LocalDate.of(2025, 3, 3));
+        inOrder.verify(revenueRollupRepository).rebuildMonth(YearMonth.of(2025, 2));
+        inOrder.verify(revenueRollupRepository).rebuildMonth(YearMonth.of(2025, 3));
+        inOrder.verify(revenueRollupRepository).saveWatermark(NOW);
+        verify(revenueRollupRepository, never()).firstOrderDate();
+    }
+
+    @Test
+    void refreshRollups_WithChangedOlderDays_ShouldRebuildThemAndTheirMonthsAndThenClearThem() {
+        runTransactionsInline();
+        when(revenueRollupRepository.lockWatermark()).thenReturn(Optional.of(LocalDateTime.of(2025, 3, 2, 9, 59)));
+        when(revenueRollupRepository.currentTimestamp()).thenReturn(NOW);
+        List<List<RevenueRollupRepository.ChangedDay>> changed = List.of(
+                List.of(new RevenueRollupRepository.ChangedDay(LocalDate.of(2024, 11, 3), 1),
+                        new RevenueRollupRepository.ChangedDay(LocalDate.of(2025, 2, 24), 2)),
+                List.of(new RevenueRollupRepository.ChangedDay(LocalDate.of(2024, 11, 4), 1),
+                        new RevenueRollupRepository.ChangedDay(LocalDate.of(2024, 12, 10), 3)));
+        when(revenueRollupRepository.findChangedDays()).thenReturn(changed);
+
+        revenueReportService.refreshRollups();
+
+        InOrder inOrder = inOrder(revenueRollupRepository);
+        inOrder.verify(revenueRollupRepository).rebuildDays(LocalDate.of(2024, 11, 3), LocalDate.of(2024, 11, 5));
+        inOrder.verify(revenueRollupRepository).rebuildDays(LocalDate.of(2024, 12, 10), LocalDate.of(2024, 12, 11));
+        inOrder.verify(revenueRollupRepository).rebuildDays(LocalDate.of(2025, 2, 23), LocalDate.of(2025, 3, 3));
+        inOrder.verify(revenueRollupRepository).rebuildMonth(YearMonth.of(2024, 11));
+        inOrder.verify(revenueRollupRepository).rebuildMonth(YearMonth.of(2024, 12));
+        inOrder.verify(revenueRollupRepository).rebuildMonth(YearMonth.of(2025, 2));
+        inOrder.verify(revenueRollupRepository).rebuildMonth(YearMonth.of(2025, 3));
+        inOrder.verify(revenueRollupRepository).saveWatermark(NOW);
+        inOrder.verify(revenueRollupRepository).clearChangedDays(changed);
+        verify(revenueRollupRepository, times(3)).rebuildDays(any(), any());
+    }
+
+    @Test
+    void refreshRollups_WhenNeverBuilt_ShouldRebuildFromFirstOrder() {
+        runTransactionsInline();
+        when(revenueRollupRepository.lockWatermark()).thenReturn(Optional.empty());
+        when(revenueRollupRepository.currentTimestamp()).thenReturn(NOW);
+        when(revenueRollupRepository.firstOrderDate()).thenReturn(Optional.of(LocalDate.of(2025, 1, 15)));
+
+        revenueReportService.refreshRollups();
+
+        verify(revenueRollupRepository).deleteBefore(LocalDate.of(2025, 1, 1));
+        verify(revenueRollupRepository).rebuildDays(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1));
+        verify(revenueRollupRepository).rebuildDays(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 4, 1));
+        verify(revenueRollupRepository, times(3)).rebuildMonth(any());
+        verify(revenueRollupRepository).saveWatermark(NOW);
+    }
+
+    @Test
+    void rebuildRollups_FromDate_ShouldRebuildWholeMonthsAndKeepEarlierRows() {
+        runTransactionsInline();
+        when(revenueRollupRepository.currentTimestamp()).thenReturn(NOW);
+        when(revenueRollupRepository.lockWatermark()).thenReturn(Optional.of(NOW.plusMinutes(1)));
+
+        RevenueRebuildResponse response = revenueReportService.rebuildRollups("2025-02-20");
+
+        assertThat(response.from()).isEqualTo(YearMonth.of(2025, 2));
+        assertThat(response.months()).isEqualTo(2);
+        verify(revenueRollupRepository, never()).deleteBefore(any());
+        verify(revenueRollupRepository, never()).saveWatermark(any());
+    }
+
+    @Test
+    void rebuildRollups_FromFutureDate_ShouldThrowException() {
+        when(revenueRollupRepository.currentTimestamp()).thenReturn(NOW);
+
+        assertThatThrownBy(() -> revenueReportService.rebuildRollups("2026-01-01"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("From must not be in the future.");
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+}
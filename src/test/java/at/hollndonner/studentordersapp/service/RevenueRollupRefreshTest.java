@@ -0,0 +1,111 @@
+package at.hollndonner.studentordersapp.service;
+
+import at.hollndonner.studentordersapp.dto.order.CreateOrderRequest;
+import at.hollndonner.studentordersapp.dto.order.OrderResponse;
+import at.hollndonner.studentordersapp.dto.order.OrderStatusTransitionRequest;
+import at.hollndonner.studentordersapp.dto.order.UpdateOrderStatusRequest;
+import at.hollndonner.studentordersapp.dto.report.RevenueFilterRequest;
+import at.hollndonner.studentordersapp.dto.report.RevenueRollupRow;
+import at.hollndonner.studentordersapp.dto.student.CreateStudentRequest;
+import at.hollndonner.studentordersapp.dto.student.UpdateStudentRequest;
+import at.hollndonner.studentordersapp.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Orders moved back well before the restatement window by changing their {@code created_at}, whose changes reach
+ * the rollups only through the days recorded in {@code revenue_changed_days}.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:revenue-refresh;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "reports.revenue.refresh-enabled=false",
+        "reports.revenue.restatement-days=7"
+})
+class RevenueRollupRefreshTest {
+
+    @Autowired
+    private RevenueReportService revenueReportService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void refreshRollups_ShouldPickUpChangesToOrdersOlderThanTheRestatementWindow() {
+        LocalDate day = LocalDate.now(ZoneOffset.UTC).minusDays(40);
+        long studentId = studentService.createStudent(
+                new CreateStudentRequest("Old Order Student", "9th Grade", "Backdated Academy")).id();
+        OrderResponse updated = oldOrder(studentId, "10.00", day);
+        OrderResponse transitioned = oldOrder(studentId, "20.00", day);
+        OrderResponse deleted = oldOrder(studentId, "40.00", day);
+        revenueReportService.rebuildRollups(null);
+
+        orderService.updateOrderStatus(updated.id(), new UpdateOrderStatusRequest("paid"), null);
+        orderService.transitionOrderStatus(new OrderStatusTransitionRequest(
+                "pending", "paid", List.of(transitioned.id()), null, null));
+        orderService.deleteOrder(deleted.id(), null);
+        revenueReportService.refreshRollups();
+
+        assertThat(revenue(day)).containsExactly(
+                new RevenueRollupRow(day, "Backdated Academy", OrderStatus.paid, 2, new BigDecimal("30.00")));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revenue_changed_days", Long.class)).isZero();
+    }
+
+    @Test
+    void refreshRollups_ShouldPickUpOldRevenueMovedOrRemovedWithItsStudent() {
+        LocalDate day = LocalDate.now(ZoneOffset.UTC).minusDays(50);
+        long moving = studentService.createStudent(
+                new CreateStudentRequest("Moving Student", "9th Grade", "Old Town Academy")).id();
+        long leaving = studentService.createStudent(
+                new CreateStudentRequest("Leaving Student", "9th Grade", "Old Town Academy")).id();
+        oldOrder(moving, "12.00", day, "paid");
+        oldOrder(leaving, "7.00", day, "paid");
+        revenueReportService.rebuildRollups(null);
+
+        studentService.updateStudent(moving,
+                new UpdateStudentRequest("Moving Student", "9th Grade", "New Town Academy"), null);
+        studentService.deleteStudent(leaving, null);
+        revenueReportService.refreshRollups();
+
+        assertThat(revenue(day, "Old Town Academy")).isEmpty();
+        assertThat(revenue(day, "New Town Academy")).containsExactly(
+                new RevenueRollupRow(day, "New Town Academy", OrderStatus.paid, 1, new BigDecimal("12.00")));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revenue_changed_days", Long.class)).isZero();
+    }
+
+    private OrderResponse oldOrder(long studentId, String total, LocalDate day) {
+        return oldOrder(studentId, total, day, "pending");
+    }
+
+    private OrderResponse oldOrder(long studentId, String total, LocalDate day, String status) {
+        OrderResponse created = orderService.createOrder(new CreateOrderRequest(studentId, new BigDecimal(total), status));
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?",
+                Timestamp.valueOf(day.atTime(12, 0)), created.id());
+        return created;
+    }
+
+    private List<RevenueRollupRow> revenue(LocalDate day) {
+        return revenue(day, "Backdated Academy");
+    }
+
+    private List<RevenueRollupRow> revenue(LocalDate day, String school) {
+        return revenueReportService.getDailyRevenue(
+                new RevenueFilterRequest(day.toString(), day.toString(), school, null)).rows();
+    }
+}
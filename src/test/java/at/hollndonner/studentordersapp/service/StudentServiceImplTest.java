@@ -1,27 +1,62 @@
 package at.hollndonner.studentordersapp.service;
 
 import at.hollndonner.studentordersapp.dto.student.CreateStudentRequest;
+import at.hollndonner.studentordersapp.dto.student.OrderStatusSummary;
 import at.hollndonner.studentordersapp.dto.student.StudentFilterRequest;
+import at.hollndonner.studentordersapp.dto.student.StudentImportError;
+import at.hollndonner.studentordersapp.dto.student.StudentImportResponse;
+import at.hollndonner.studentordersapp.dto.student.StudentOrderSummaryResponse;
 import at.hollndonner.studentordersapp.dto.student.StudentResponse;
+import at.hollndonner.studentordersapp.dto.student.UpdateStudentRequest;
+import at.hollndonner.studentordersapp.dto.student.VersionedStudent;
+import at.hollndonner.studentordersapp.event.StudentDeletedEvent;
+import at.hollndonner.studentordersapp.event.StudentsChangedEvent;
+import at.hollndonner.studentordersapp.exception.PreconditionFailedException;
 import at.hollndonner.studentordersapp.exception.ResourceNotFoundException;
+import at.hollndonner.studentordersapp.model.OrderStatus;
 import at.hollndonner.studentordersapp.model.Student;
+import at.hollndonner.studentordersapp.repository.GradeDictionary;
+import at.hollndonner.studentordersapp.repository.OrderSegments;
+import at.hollndonner.studentordersapp.repository.OrderShards;
+import at.hollndonner.studentordersapp.repository.OrderSummaryRepository;
+import at.hollndonner.studentordersapp.repository.RevenueRollupRepository;
+import at.hollndonner.studentordersapp.repository.SchoolDictionary;
+import at.hollndonner.studentordersapp.repository.StudentBatchRepository;
 import at.hollndonner.studentordersapp.repository.StudentRepository;
 import at.hollndonner.studentordersapp.util.InputSanitizer;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Example;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -35,9 +70,39 @@ class StudentServiceImplTest {
     @Mock
     private StudentRepository studentRepository;
 
+    @Mock
+    private StudentBatchRepository studentBatchRepository;
+
+    @Mock
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Mock
+    private OrderShards orderShards;
+
+    @Mock
+    private RevenueRollupRepository revenueRollupRepository;
+
+    @Mock
+    private OrderSegments orderSegments;
+
+    @Mock
+    private GradeDictionary gradeDictionary;
+
+    @Mock
+    private SchoolDictionary schoolDictionary;
+
     @Mock
     private InputSanitizer inputSanitizer;
 
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private StudentServiceImpl studentService;
 
@@ -45,7 +110,13 @@ class StudentServiceImplTest {
     private CreateStudentRequest createRequest;
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
+        // A single shard: every shard callback runs directly
+        lenient().when(orderShards.count()).thenReturn(1);
+        lenient().when(orderShards.inShard(anyInt(), anyBoolean(), any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(2).doInTransaction(null));
+
         student = Student.builder()
                 .id(1L)
                 .name("John Doe")
@@ -75,6 +146,130 @@ class StudentServiceImplTest {
 
         verify(inputSanitizer, times(3)).sanitizeText(anyString());
         verify(studentRepository, times(1)).save(any(Student.class));
+        verify(eventPublisher).publishEvent(new StudentsChangedEvent(List.of(1L)));
+    }
+
+    @Test
+    void importStudents_ShouldInsertValidRowsInChunks() throws IOException {
+        List<List<StudentBatchRepository.NewStudent>> chunks = new ArrayList<>();
+        when(studentBatchRepository.chunkSize()).thenReturn(2);
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        doAnswer(invocation -> {
+            List<StudentBatchRepository.NewStudent> chunk = invocation.getArgument(0);
+            chunks.add(List.copyOf(chunk));
+            return chunks.size() == 1 ? List.of(10L, 11L) : List.of(12L);
+        }).when(studentBatchRepository).insertAll(any());
+
+        StudentImportResponse response = studentService.importStudents(csv(
+                "School,Name,Grade\n" +
+                "Test High,John Doe,10th\n" +
+                "\"Another School, East\",Jane Smith,11th\n" +
+                "\n" +
+                "Test High,Max Mustermann,12th\n"));
+
+        assertThat(response.rows()).isEqualTo(3);
+        assertThat(response.imported()).isEqualTo(3);
+        assertThat(response.failed()).isZero();
+        assertThat(response.errors()).isEmpty();
+        assertThat(chunks).containsExactly(
+                List.of(new StudentBatchRepository.NewStudent("John Doe", "10th", "Test High"),
+                        new StudentBatchRepository.NewStudent("Jane Smith", "11th", "Another School, East")),
+                List.of(new StudentBatchRepository.NewStudent("Max Mustermann", "12th", "Test High")));
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verify(eventPublisher).publishEvent(new StudentsChangedEvent(List.of(10L, 11L)));
+        verify(eventPublisher).publishEvent(new StudentsChangedEvent(List.of(12L)));
+        verify(studentRepository, never()).save(any(Student.class));
+    }
+
+    @Test
+    void importStudents_WithInvalidRows_ShouldReportThemByLineAndImportTheRest() throws IOException {
+        when(studentBatchRepository.chunkSize()).thenReturn(100);
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        StudentImportResponse response = studentService.importStudents(csv(
+                "name,grade,school\n" +
+                ",10th,Test High\n" +
+                "John Doe,10th\n" +
+                "Jane Smith,11th,Another School\n" +
+                "Max,%s,Test High\n".formatted("x".repeat(21))));
+
+        assertThat(response.rows()).isEqualTo(4);
+        assertThat(response.imported()).isEqualTo(1);
+        assertThat(response.failed()).isEqualTo(3);
+        assertThat(response.errors()).containsExactly(
+                new StudentImportError(2, "Name is required"),
+                new StudentImportError(3, "School is required"),
+                new StudentImportError(5, "Grade must not exceed 20 characters"));
+        verify(studentBatchRepository, times(1)).insertAll(any());
+    }
+
+    @Test
+    void importStudents_WithMalformedRecords_ShouldReportThemAndImportTheRest() throws IOException {
+        List<List<StudentBatchRepository.NewStudent>> chunks = new ArrayList<>();
+        when(studentBatchRepository.chunkSize()).thenReturn(100);
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        doAnswer(invocation -> {
+            chunks.add(List.copyOf(invocation.<List<StudentBatchRepository.NewStudent>>getArgument(0)));
+            return List.of(10L);
+        }).when(studentBatchRepository).insertAll(any());
+
+        StudentImportResponse response = studentService.importStudents(csv(
+                "name,grade,school\n" +
+                "%s,10th,Test High\n".formatted("x".repeat(1001)) +
+                "John Doe,10th,Test High\n" +
+                "a,".repeat(100) + "a\n" +
+                "Jane Smith,\"11th,Test High\n"));
+
+        assertThat(response.rows()).isEqualTo(4);
+        assertThat(response.imported()).isEqualTo(1);
+        assertThat(response.failed()).isEqualTo(3);
+        assertThat(response.errors()).containsExactly(
+                new StudentImportError(2, "Field on line 2 exceeds 1000 characters."),
+                new StudentImportError(4, "Record on line 4 has more than 100 fields."),
+                new StudentImportError(5, "Unterminated quoted field starting on line 5."));
+        assertThat(chunks).containsExactly(List.of(new StudentBatchRepository.NewStudent("John Doe", "10th", "Test High")));
+    }
+
+    @Test
+    void importStudents_ShouldCapReportedErrors() throws IOException {
+        StringBuilder csv = new StringBuilder("name,grade,school\n");
+        for (int i = 0; i < StudentServiceImpl.MAX_REPORTED_IMPORT_ERRORS + 5; i++) {
+            csv.append(",10th,Test High\n");
+        }
+
+        StudentImportResponse response = studentService.importStudents(csv(csv.toString()));
+
+        assertThat(response.failed()).isEqualTo(StudentServiceImpl.MAX_REPORTED_IMPORT_ERRORS + 5);
+        assertThat(response.errors()).hasSize(StudentServiceImpl.MAX_REPORTED_IMPORT_ERRORS);
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void importStudents_WithoutRequiredColumns_ShouldThrowException() {
+        assertThatThrownBy(() -> studentService.importStudents(csv("name,grade\nJohn,10th\n")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("CSV header must contain the columns: name, grade, school.");
+
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void importStudents_WithEmptyFile_ShouldThrowException() {
+        assertThatThrownBy(() -> studentService.importStudents(csv("")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("CSV file is empty.");
     }
 
     @Test
@@ -101,6 +296,66 @@ class StudentServiceImplTest {
         verify(studentRepository, times(1)).findById(999L);
     }
 
+    @Test
+    void getStudentVersion_WithValidId_ShouldReturnEntityVersion() {
+        student.setVersion(2L);
+        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+
+        assertThat(studentService.getStudentVersion(1L)).isEqualTo(2L);
+    }
+
+    @Test
+    void getStudentVersion_WithInvalidId_ShouldThrowException() {
+        when(studentRepository.findById(999L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> studentService.getStudentVersion(999L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Student not found");
+    }
+
+    @Test
+    void getOrderSummary_ShouldReportEveryStatusAndOverallTotals() {
+        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+        when(orderSummaryRepository.findByStudentId(1L)).thenReturn(List.of(
+                new OrderStatusSummary(OrderStatus.paid, 2, new BigDecimal("38.25"))));
+
+        StudentOrderSummaryResponse summary = studentService.getOrderSummary(1L);
+
+        assertThat(summary.orderCount()).isEqualTo(2);
+        assertThat(summary.total()).isEqualByComparingTo("38.25");
+        assertThat(summary.statuses()).containsExactly(
+                OrderStatusSummary.empty(OrderStatus.pending),
+                new OrderStatusSummary(OrderStatus.paid, 2, new BigDecimal("38.25")));
+    }
+
+    @Test
+    void getOrderSummary_ShouldAddArchivedOrders() {
+        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+        when(orderSummaryRepository.findByStudentId(1L)).thenReturn(List.of(
+                new OrderStatusSummary(OrderStatus.paid, 2, new BigDecimal("38.25"))));
+        when(orderSegments.summarize(1L)).thenReturn(List.of(
+                new OrderStatusSummary(OrderStatus.paid, 3, new BigDecimal("11.75"))));
+
+        StudentOrderSummaryResponse summary = studentService.getOrderSummary(1L);
+
+        assertThat(summary.orderCount()).isEqualTo(5);
+        assertThat(summary.total()).isEqualByComparingTo("50.00");
+        assertThat(summary.statuses()).containsExactly(
+                OrderStatusSummary.empty(OrderStatus.pending),
+                new OrderStatusSummary(OrderStatus.paid, 5, new BigDecimal("50.00")));
+    }
+
+    @Test
+    void getOrderSummary_WithInvalidId_ShouldThrowException() {
+        when(studentRepository.findById(999L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> studentService.getOrderSummary(999L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Student not found");
+
+        verifyNoInteractions(orderSummaryRepository);
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     void getStudents_ShouldReturnPageOfStudents() {
@@ -111,12 +366,12 @@ class StudentServiceImplTest {
                 .school("Another School")
                 .build();
 
-        List<Student> students = Arrays.asList(student, student2);
-        Page<Student> studentPage = new PageImpl<>(students);
+        List<StudentResponse> students = Arrays.asList(StudentResponse.fromEntity(student), StudentResponse.fromEntity(student2));
+        Page<StudentResponse> studentPage = new PageImpl<>(students);
         Pageable pageable = PageRequest.of(0, 20);
         StudentFilterRequest filter = new StudentFilterRequest(null, null, null);
 
-        when(studentRepository.findAll(any(Example.class), eq(pageable))).thenReturn(studentPage);
+        when(studentRepository.findBy(any(Specification.class), any(Function.class))).thenReturn(studentPage);
 
         Page<StudentResponse> responses = studentService.getStudents(filter, pageable);
 
@@ -124,62 +379,149 @@ class StudentServiceImplTest {
         assertThat(responses.getContent().get(0).name()).isEqualTo("John Doe");
         assertThat(responses.getContent().get(1).name()).isEqualTo("Jane Smith");
 
-        verify(studentRepository, times(1)).findAll(any(Example.class), eq(pageable));
+        verify(studentRepository, times(1)).findBy(any(Specification.class), any(Function.class));
     }
 
     @Test
     @SuppressWarnings("unchecked")
     void getStudents_WhenEmpty_ShouldReturnEmptyPage() {
-        Page<Student> emptyPage = new PageImpl<>(List.of());
+        Page<StudentResponse> emptyPage = new PageImpl<>(List.of());
         Pageable pageable = PageRequest.of(0, 20);
         StudentFilterRequest filter = new StudentFilterRequest(null, null, null);
 
-        when(studentRepository.findAll(any(Example.class), eq(pageable))).thenReturn(emptyPage);
+        when(studentRepository.findBy(any(Specification.class), any(Function.class))).thenReturn(emptyPage);
 
         Page<StudentResponse> responses = studentService.getStudents(filter, pageable);
 
         assertThat(responses.getContent()).isEmpty();
-        verify(studentRepository, times(1)).findAll(any(Example.class), eq(pageable));
+        verify(studentRepository, times(1)).findBy(any(Specification.class), any(Function.class));
     }
 
     @Test
     @SuppressWarnings("unchecked")
     void getStudents_WithFilter_ShouldReturnFilteredStudents() {
-        List<Student> students = List.of(student);
-        Page<Student> studentPage = new PageImpl<>(students);
+        List<StudentResponse> students = List.of(StudentResponse.fromEntity(student));
+        Page<StudentResponse> studentPage = new PageImpl<>(students);
         Pageable pageable = PageRequest.of(0, 20);
         StudentFilterRequest filter = new StudentFilterRequest("John", null, null);
 
-        when(studentRepository.findAll(any(Example.class), eq(pageable))).thenReturn(studentPage);
+        when(studentRepository.findBy(any(Specification.class), any(Function.class))).thenReturn(studentPage);
 
         Page<StudentResponse> responses = studentService.getStudents(filter, pageable);
 
         assertThat(responses.getContent()).hasSize(1);
         assertThat(responses.getContent().get(0).name()).isEqualTo("John Doe");
 
-        verify(studentRepository, times(1)).findAll(any(Example.class), eq(pageable));
+        verify(studentRepository, times(1)).findBy(any(Specification.class), any(Function.class));
     }
 
     @Test
-    void deleteStudent_WithValidId_ShouldDeleteStudent() {
-        when(studentRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(studentRepository).deleteById(1L);
+    @SuppressWarnings("unchecked")
+    void getStudents_WithSchoolAndGradeFilter_ShouldResolveThemAgainstTheDictionaries() {
+        Pageable pageable = PageRequest.of(0, 20);
+        StudentFilterRequest filter = new StudentFilterRequest(null, "10th", "test");
+        when(gradeDictionary.valuesContaining("10th")).thenReturn(List.of("10th Grade"));
+        when(schoolDictionary.valuesContaining("test")).thenReturn(List.of("Test School", "Test Academy"));
+        when(studentRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(new PageImpl<>(List.of(StudentResponse.fromEntity(student))));
 
-        studentService.deleteStudent(1L);
+        Page<StudentResponse> responses = studentService.getStudents(filter, pageable);
 
-        verify(studentRepository, times(1)).existsById(1L);
-        verify(studentRepository, times(1)).deleteById(1L);
+        assertThat(responses.getContent()).hasSize(1);
+        verify(gradeDictionary).valuesContaining("10th");
+        verify(schoolDictionary).valuesContaining("test");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getStudentSlice_ShouldReturnSliceWithoutCounting() {
+        Pageable pageable = PageRequest.of(0, 1);
+        StudentFilterRequest filter = new StudentFilterRequest("John", null, null);
+
+        when(studentRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(new SliceImpl<>(List.of(StudentResponse.fromEntity(student)), pageable, true));
+
+        Slice<StudentResponse> responses = studentService.getStudentSlice(filter, pageable);
+
+        assertThat(responses.getContent()).hasSize(1);
+        assertThat(responses.getContent().get(0).name()).isEqualTo("John Doe");
+        assertThat(responses.hasNext()).isTrue();
+
+        verify(studentRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void updateStudent_WithCurrentVersion_ShouldUpdateLoadedEntity() {
+        student.setVersion(4L);
+        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(studentRepository.saveAndFlush(student)).thenAnswer(invocation -> {
+            student.setVersion(5L);
+            return student;
+        });
+
+        VersionedStudent response = studentService.updateStudent(1L,
+                new UpdateStudentRequest("Jane Doe", "11th Grade", "Test School"), 4L);
+
+        assertThat(response.student().name()).isEqualTo("Jane Doe");
+        assertThat(response.student().grade()).isEqualTo("11th Grade");
+        assertThat(response.version()).isEqualTo(5L);
+        verify(revenueRollupRepository).markStudentChanged(1L);
+        verify(eventPublisher).publishEvent(new StudentsChangedEvent(List.of(1L)));
+    }
+
+    @Test
+    void updateStudent_WithSameSchool_ShouldNotMarkRevenueDays() {
+        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+        when(inputSanitizer.sanitizeText(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(studentRepository.saveAndFlush(student)).thenReturn(student);
+
+        studentService.updateStudent(1L, new UpdateStudentRequest("Jane Doe", "11th Grade", "Test High School"), null);
+
+        verifyNoInteractions(revenueRollupRepository);
+    }
+
+    @Test
+    void updateStudent_WithStaleVersion_ShouldFailPrecondition() {
+        student.setVersion(5L);
+        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+
+        assertThatThrownBy(() -> studentService.updateStudent(1L,
+                new UpdateStudentRequest("Jane Doe", "11th Grade", "Test School"), 4L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("Student was modified by someone else.");
+
+        assertThat(student.getName()).isEqualTo("John Doe");
+        verify(studentRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void deleteStudent_WithValidId_ShouldDeleteLoadedEntity() {
+        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+
+        studentService.deleteStudent(1L, null);
+
+        InOrder inOrder = inOrder(revenueRollupRepository, studentRepository, eventPublisher);
+        inOrder.verify(revenueRollupRepository).markStudentChanged(1L);
+        inOrder.verify(studentRepository).delete(student);
+        inOrder.verify(studentRepository).flush();
+        inOrder.verify(eventPublisher).publishEvent(new StudentDeletedEvent(1L));
+        verify(studentRepository, never()).existsById(any());
+        verify(studentRepository, never()).deleteById(any());
     }
 
     @Test
     void deleteStudent_WithInvalidId_ShouldThrowException() {
-        when(studentRepository.existsById(999L)).thenReturn(false);
+        when(studentRepository.findById(999L)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> studentService.deleteStudent(999L))
+        assertThatThrownBy(() -> studentService.deleteStudent(999L, null))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("Student not found");
 
-        verify(studentRepository, times(1)).existsById(999L);
-        verify(studentRepository, never()).deleteById(anyLong());
+        verify(studentRepository, never()).delete(any(Student.class));
+    }
+
+    private static InputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
     }
 }
@@ -0,0 +1,39 @@
+package at.hollndonner.studentordersapp.support;
+
+import at.hollndonner.studentordersapp.util.QueryStats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement budgets for tests. Needs {@link at.hollndonner.studentordersapp.config.QueryStatsConfig} in the
+ * context (a {@code @SpringBootTest} has it, a {@code @DataJpaTest} imports it); MockMvc runs the request on
+ * the test thread, so wrapping {@code perform} counts the whole request.
+ * <pre>
+ * QueryCounts.assertAtMost(2, () -> mockMvc.perform(get("/api/v1/orders")));
+ * </pre>
+ */
+public final class QueryCounts {
+
+    private QueryCounts() {
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    public static QueryStats during(Action action) throws Exception {
+        try (QueryStats stats = QueryStats.start()) {
+            action.run();
+            return stats;
+        }
+    }
+
+    public static QueryStats assertAtMost(long statements, Action action) throws Exception {
+        QueryStats stats = during(action);
+        assertThat(stats.statements())
+                .as("JDBC statements issued (%s)", stats)
+                .isLessThanOrEqualTo(statements);
+        return stats;
+    }
+}
@@ -0,0 +1,110 @@
+package at.hollndonner.studentordersapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    @Test
+    void readRecord_ShouldSplitPlainFields() throws IOException {
+        assertThat(readAll("name,grade,school\nJohn,10th,Test High\n"))
+                .containsExactly(List.of("name", "grade", "school"), List.of("John", "10th", "Test High"));
+    }
+
+    @Test
+    void readRecord_ShouldHandleQuotedFields() throws IOException {
+        assertThat(readAll("\"Doe, John\",\"say \"\"hi\"\"\",\"two\nlines\"\n"))
+                .containsExactly(List.of("Doe, John", "say \"hi\"", "two\nlines"));
+    }
+
+    @Test
+    void readRecord_ShouldAcceptCrLfAndMissingFinalNewline() throws IOException {
+        assertThat(readAll("a,b\r\nc,d"))
+                .containsExactly(List.of("a", "b"), List.of("c", "d"));
+    }
+
+    @Test
+    void readRecord_ShouldKeepEmptyFields() throws IOException {
+        assertThat(readAll(",x,\n"))
+                .containsExactly(List.of("", "x", ""));
+    }
+
+    @Test
+    void recordLine_ShouldCountPhysicalLines() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a\n\"b\nc\"\nd\n"), 100, 10);
+
+        reader.readRecord();
+        assertThat(reader.recordLine()).isEqualTo(1);
+        reader.readRecord();
+        assertThat(reader.recordLine()).isEqualTo(2);
+        reader.readRecord();
+        assertThat(reader.recordLine()).isEqualTo(4);
+        assertThat(reader.readRecord()).isNull();
+    }
+
+    @Test
+    void readRecord_ShouldReadAcrossBufferBoundaries() throws IOException {
+        String longValue = "x".repeat(20_000);
+
+        assertThat(readAll("\"" + longValue + "\"," + longValue + "\n"))
+                .containsExactly(List.of(longValue, longValue));
+    }
+
+    @Test
+    void readRecord_WithUnterminatedQuote_ShouldThrowException() {
+        assertThatThrownBy(() -> readAll("a,\"b\nc\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unterminated quoted field starting on line 1.");
+    }
+
+    @Test
+    void readRecord_WithOversizedField_ShouldThrowException() {
+        CsvReader reader = new CsvReader(new StringReader("ok\n" + "x".repeat(11) + "\n"), 10, 10);
+
+        assertThatThrownBy(() -> {
+            reader.readRecord();
+            reader.readRecord();
+        })
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Field on line 2 exceeds 10 characters.");
+    }
+
+    @Test
+    void readRecord_WithTooManyFields_ShouldThrowException() {
+        assertThatThrownBy(() -> readAll("a" + ",b".repeat(10) + "\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Record on line 1 has more than 10 fields.");
+    }
+
+    @Test
+    void readRecord_AfterAMalformedRecord_ShouldContinueWithTheNextOne() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(
+                "ok\n\"" + "x".repeat(11) + "\n,still quoted\"\n" + "a,".repeat(10) + "a\nnext\n\"open\nend"), 10, 10);
+
+        assertThat(reader.readRecord()).containsExactly("ok");
+        assertThatThrownBy(reader::readRecord).hasMessage("Field on line 2 exceeds 10 characters.");
+        assertThatThrownBy(reader::readRecord).hasMessage("Record on line 4 has more than 10 fields.");
+        assertThat(reader.readRecord()).containsExactly("next");
+        assertThat(reader.recordLine()).isEqualTo(5);
+        assertThatThrownBy(reader::readRecord).hasMessage("Unterminated quoted field starting on line 6.");
+        assertThat(reader.readRecord()).isNull();
+    }
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new StringReader(csv), 100_000, 10)) {
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
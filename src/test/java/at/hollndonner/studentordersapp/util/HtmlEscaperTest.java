@@ -0,0 +1,69 @@
+package at.hollndonner.studentordersapp.util;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares {@link HtmlEscaper} with the commons-text {@code escapeHtml4} it replaced.
+ */
+class HtmlEscaperTest {
+
+    // Characters the generated strings are mostly built from: plain text, markup, Latin-1 and HTML 4.0 entities
+    private static final String ALPHABET = "aZ09 '\"&<>;#\t\n äöüßÿŒƒΑ"
+            + "ω–—€™♦♧©Ā中";
+
+    @Test
+    void escape_ShouldMatchEscapeHtml4ForEveryCharacter() {
+        for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+            String input = "x" + (char) c + "y";
+            assertThat(HtmlEscaper.escape(input))
+                    .as("U+%04X", c)
+                    .isEqualTo(StringEscapeUtils.escapeHtml4(input));
+        }
+    }
+
+    @Test
+    void escape_ShouldMatchEscapeHtml4ForRandomText() {
+        Random random = new Random(19);
+        for (int n = 0; n < 50_000; n++) {
+            String input = randomText(random, random.nextInt(48));
+            assertThat(HtmlEscaper.escape(input))
+                    .as("%s", input.codePoints().mapToObj(Integer::toHexString).toList())
+                    .isEqualTo(StringEscapeUtils.escapeHtml4(input));
+        }
+    }
+
+    @Test
+    void escape_WithNothingToEscape_ShouldReturnTheSameInstance() {
+        String input = "Maria Gruber, 10th Grade, Springfield High School's 中😀";
+
+        assertThat(HtmlEscaper.escape(input)).isSameAs(input);
+        assertThat(HtmlEscaper.escape("")).isEmpty();
+    }
+
+    @Test
+    void escape_ShouldEscapeMarkupAndNamedEntities() {
+        assertThat(HtmlEscaper.escape("<a href=\"x\">Müller & Söhne</a> €"))
+                .isEqualTo("&lt;a href=&quot;x&quot;&gt;M&uuml;ller &amp; S&ouml;hne&lt;/a&gt; &euro;");
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 1);
+        for (int i = 0; i < length; i++) {
+            int pick = random.nextInt(10);
+            if (pick < 7) {
+                text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            } else if (pick < 9) {
+                text.append((char) random.nextInt(Character.MAX_VALUE + 1));
+            } else {
+                text.appendCodePoint(Character.MIN_SUPPLEMENTARY_CODE_POINT
+                        + random.nextInt(Character.MAX_CODE_POINT - Character.MIN_SUPPLEMENTARY_CODE_POINT));
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package at.hollndonner.studentordersapp.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaDataSourceTest {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final HikariDataSource primary = pool("jdbc:h2:mem:rw-primary");
+
+    @AfterEach
+    void tearDown() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void roundRobin_ShouldTakeTheReplicasInTurn() throws SQLException {
+        ReplicaDataSource dataSource = new ReplicaDataSource(primary,
+                List.of(pool("jdbc:h2:mem:rw-a"), pool("jdbc:h2:mem:rw-b")), ReplicaDataSource.Selection.ROUND_ROBIN, 10_000);
+
+        List<String> databases = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            databases.add(databaseOf(dataSource));
+        }
+
+        assertThat(databases).containsExactly("RW-A", "RW-B", "RW-A", "RW-B");
+    }
+
+    @Test
+    void leastConnections_ShouldPreferTheReplicaWithFewerConnectionsInUse() throws SQLException {
+        ReplicaDataSource dataSource = new ReplicaDataSource(primary,
+                List.of(pool("jdbc:h2:mem:rw-a"), pool("jdbc:h2:mem:rw-b")), ReplicaDataSource.Selection.LEAST_CONNECTIONS, 10_000);
+
+        try (Connection first = dataSource.getConnection()) {
+            assertThat(first.getCatalog()).isEqualTo("RW-A");
+            assertThat(databaseOf(dataSource)).isEqualTo("RW-B");
+        }
+        assertThat(databaseOf(dataSource)).isEqualTo("RW-A");
+    }
+
+    @Test
+    void unavailableReplica_ShouldBeSkippedAndFallBackToThePrimary() throws SQLException {
+        HikariDataSource down = pool("jdbc:h2:tcp://localhost:1/down");
+        down.setConnectionTimeout(250);
+        ReplicaDataSource onlyDown = new ReplicaDataSource(primary, List.of(down), ReplicaDataSource.Selection.ROUND_ROBIN, 60_000);
+        ReplicaDataSource oneDown = new ReplicaDataSource(primary,
+                List.of(down, pool("jdbc:h2:mem:rw-a")), ReplicaDataSource.Selection.ROUND_ROBIN, 60_000);
+
+        assertThat(databaseOf(onlyDown)).isEqualTo("RW-PRIMARY");
+        long start = System.nanoTime();
+        assertThat(databaseOf(onlyDown)).isEqualTo("RW-PRIMARY");
+        // Skipped for the retry interval instead of waiting for the connection timeout again
+        assertThat(System.nanoTime() - start).isLessThan(200_000_000L);
+        assertThat(List.of(databaseOf(oneDown), databaseOf(oneDown), databaseOf(oneDown))).containsOnly("RW-A");
+    }
+
+    @Test
+    void busyReplica_ShouldBeSkippedForThisRequestOnly() throws SQLException {
+        HikariDataSource busy = pool("jdbc:h2:mem:rw-a");
+        busy.setMaximumPoolSize(1);
+        busy.setConnectionTimeout(250);
+        ReplicaDataSource dataSource = new ReplicaDataSource(primary,
+                List.of(busy, pool("jdbc:h2:mem:rw-b")), ReplicaDataSource.Selection.ROUND_ROBIN, 60_000);
+        ReplicaDataSource onlyBusy = new ReplicaDataSource(primary, List.of(busy), ReplicaDataSource.Selection.ROUND_ROBIN, 60_000);
+
+        try (Connection ignored = busy.getConnection()) {
+            assertThat(databaseOf(dataSource)).isEqualTo("RW-B");
+            assertThat(databaseOf(onlyBusy)).isEqualTo("RW-PRIMARY");
+        }
+
+        assertThat(List.of(databaseOf(dataSource), databaseOf(dataSource))).containsExactly("RW-B", "RW-A");
+        assertThat(databaseOf(onlyBusy)).isEqualTo("RW-A");
+    }
+
+    @Test
+    void pinnedThread_ShouldGetThePrimary() throws SQLException {
+        ReplicaDataSource dataSource = new ReplicaDataSource(primary,
+                List.of(pool("jdbc:h2:mem:rw-a")), ReplicaDataSource.Selection.ROUND_ROBIN, 10_000);
+
+        try (ReplicaDataSource.Pin ignored = ReplicaDataSource.pinToPrimary()) {
+            assertThat(databaseOf(dataSource)).isEqualTo("RW-PRIMARY");
+        }
+        assertThat(ReplicaDataSource.isPinnedToPrimary()).isFalse();
+        assertThat(databaseOf(dataSource)).isEqualTo("RW-A");
+    }
+
+    @Test
+    void explicitCredentials_ShouldGetThePrimary() throws SQLException {
+        JdbcDataSource primaryWithLogin = new JdbcDataSource();
+        primaryWithLogin.setURL("jdbc:h2:mem:rw-login;DB_CLOSE_DELAY=-1");
+        ReplicaDataSource dataSource = new ReplicaDataSource(primaryWithLogin,
+                List.of(pool("jdbc:h2:mem:rw-a")), ReplicaDataSource.Selection.ROUND_ROBIN, 10_000);
+
+        try (Connection connection = dataSource.getConnection("sa", "")) {
+            assertThat(connection.getCatalog()).isEqualTo("RW-LOGIN");
+        }
+    }
+
+    private HikariDataSource pool(String url) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(url + (url.startsWith("jdbc:h2:mem:") ? ";DB_CLOSE_DELAY=-1" : ""));
+        pool.setMaximumPoolSize(2);
+        pool.setInitializationFailTimeout(-1);
+        pools.add(pool);
+        return pool;
+    }
+
+    private static String databaseOf(ReplicaDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getCatalog();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package at.hollndonner.studentordersapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RingBufferTest {
+
+    @Test
+    void offer_WhenFull_ShouldFailUntilTheConsumerFreesSlots() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        List<Integer> drained = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.drainTo(drained::add, 3)).isEqualTo(3);
+        assertThat(buffer.offer(5)).isTrue();
+        assertThat(buffer.offer(6)).isTrue();
+        assertThat(buffer.drainTo(drained::add, 100)).isEqualTo(3);
+        assertThat(buffer.drainTo(drained::add, 100)).isZero();
+
+        assertThat(drained).containsExactly(0, 1, 2, 3, 5, 6);
+    }
+
+    @Test
+    void constructor_WithCapacityNotAPowerOfTwo_ShouldFail() {
+        assertThatThrownBy(() -> new RingBuffer<>(1000))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentProducers_ShouldDeliverEveryAcceptedElementExactlyOnce() throws Exception {
+        int producers = 4;
+        int perProducer = 200_000;
+        RingBuffer<Integer> buffer = new RingBuffer<>(1024);
+        BitSet seen = new BitSet(producers * perProducer);
+        BitSet accepted = new BitSet(producers * perProducer);
+        int[] duplicates = new int[1];
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<BitSet>> results = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int first = p * perProducer;
+                results.add(executor.submit(() -> {
+                    BitSet mine = new BitSet();
+                    start.await();
+                    for (int i = first; i < first + perProducer; i++) {
+                        if (buffer.offer(i)) {
+                            mine.set(i);
+                        }
+                    }
+                    return mine;
+                }));
+            }
+            start.countDown();
+            while (!results.stream().allMatch(Future::isDone)) {
+                buffer.drainTo(i -> {
+                    if (seen.get(i)) {
+                        duplicates[0]++;
+                    }
+                    seen.set(i);
+                }, 256);
+            }
+            buffer.drainTo(seen::set, Integer.MAX_VALUE);
+            for (Future<BitSet> result : results) {
+                accepted.or(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(duplicates[0]).isZero();
+        assertThat(seen).isEqualTo(accepted);
+        assertThat(accepted.cardinality()).isPositive();
+    }
+}
@@ -0,0 +1,111 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator: every client sends a GET, waits for the answer and sends the next one,
+ * so throughput and latency show how the server copes with that many concurrent requests.
+ * <p>
+ * Needs Java 21 (one virtual thread per client) and runs from source:
+ * <pre>
+ * java tools/LoadTest.java http://localhost:8080/api/v1/orders?studentId=1 1000 30
+ * </pre>
+ * Arguments: URL (several, comma-separated, are used in turn), clients (default 1000), seconds (default 30).
+ * The first five seconds warm up and are not counted.
+ */
+public class LoadTest {
+
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java tools/LoadTest.java <url[,url...]> [clients] [seconds]");
+            System.exit(2);
+        }
+        List<URI> uris = Arrays.stream(args[0].split(",")).map(URI::create).toList();
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        Duration measured = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        long measureFrom = System.nanoTime() + WARM_UP.toNanos();
+        long stopAt = measureFrom + measured.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Client> started = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                Client client = new Client(c);
+                started.add(client);
+                executor.submit(() -> client.run(http, uris, measureFrom, stopAt, errors));
+            }
+        }
+
+        int total = started.stream().mapToInt(client -> client.count).sum();
+        long[] all = new long[total];
+        int position = 0;
+        for (Client client : started) {
+            System.arraycopy(client.latencies, 0, all, position, client.count);
+            position += client.count;
+        }
+        Arrays.sort(all);
+        System.out.printf("clients=%d requests=%d errors=%d throughput=%.0f req/s p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                clients, total, errors.get(), total / (double) measured.toSeconds(),
+                percentile(all, 0.50), percentile(all, 0.99), total == 0 ? 0 : all[total - 1] / 1e6);
+    }
+
+    private static final class Client {
+
+        private final int offset;
+        private long[] latencies = new long[1024];
+        private int count;
+
+        private Client(int offset) {
+            this.offset = offset;
+        }
+
+        private void run(HttpClient http, List<URI> uris, long measureFrom, long stopAt, AtomicLong errors) {
+            for (long i = offset; System.nanoTime() < stopAt; i++) {
+                HttpRequest request = HttpRequest.newBuilder(uris.get((int) (i % uris.size())))
+                        .timeout(Duration.ofSeconds(60))
+                        .GET()
+                        .build();
+                long start = System.nanoTime();
+                boolean ok;
+                try {
+                    ok = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+                } catch (Exception ex) {
+                    ok = false;
+                }
+                long end = System.nanoTime();
+                if (start < measureFrom || end > stopAt) {
+                    continue;
+                }
+                if (!ok) {
+                    errors.incrementAndGet();
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = end - start;
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}